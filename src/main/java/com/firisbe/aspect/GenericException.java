@@ -2,6 +2,7 @@ package com.firisbe.aspect;
 
 import com.firisbe.error.*;
 import com.firisbe.model.DTO.request.GenericExceptionResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -22,8 +23,11 @@ public class GenericException extends ResponseEntityExceptionHandler {
             CreditCardNumberAlreadyExist.class,
             CustomerAlreadyExistsException.class,
             CustomerNotFoundException.class,
+            InvalidAnalyticsRequestException.class,
             InvalidCreditCardNumberException.class,
+            InvalidCursorException.class,
             InvalidEMailException.class,
+            InvalidPercentileException.class,
             PaymentFailedException.class,
             TransferNotFoundException.class,
             UpdateCustomerRuntimeException.class
@@ -33,6 +37,15 @@ public class GenericException extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.OK);
     }
 
+    /* Ödeme kuyruğu bütçesi aşıldığında istemciye ne zaman tekrar deneyeceği bildirilir. */
+    @ExceptionHandler(PaymentOverloadedException.class)
+    public ResponseEntity<Object> handlePaymentOverloadedException(PaymentOverloadedException e) {
+        GenericExceptionResponse error = new GenericExceptionResponse(e.getMessage(), LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(error);
+    }
+
 
 
 
@@ -6,8 +6,10 @@ import org.springframework.stereotype.Service;
 import javax.crypto.Cipher;
 
 
+import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 
 
@@ -15,6 +17,8 @@ import java.util.Base64;
 @Service
 public class Encryption {
     private static final String SECRET_KEY = "buBirOrnekAnahtar1234567";
+    // Blind index anahtarı şifreleme anahtarından ayrıdır; biri sızdığında diğeri korunur
+    private static final String BLIND_INDEX_KEY = "buBirOrnekIndeksAnahtari7654321";
 
     // Veriyi şifreleyen method
     public String encrypt(String strToEncrypt) {
@@ -41,4 +45,20 @@ public class Encryption {
         }
         return null;
     }
+
+    /*
+     *     Kart numarasının anahtarlı hash'i (HMAC-SHA256). Şifreli değerin yanında saklanır ve eşitlik aramaları bu kolondaki
+     *     unique indeks üzerinden yapılır; arama için hiçbir kaydın çözülmesi gerekmez. Boşluk ve tireler hash'ten önce atılır.
+     */
+    public String blindIndex(String cardNumber) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(BLIND_INDEX_KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] hash = mac.doFinal(cardNumber.replaceAll("[-\\s]+", "").getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (Exception e) {
+            // null bir indeks aramada hiçbir kayıtla eşleşmez ve aynı kartın iki kez eklenmesine izin verirdi
+            throw new IllegalStateException("Blind index hesaplanamadı", e);
+        }
+    }
 }
@@ -0,0 +1,78 @@
+package com.firisbe.aspect.pagination;
+
+import com.firisbe.error.InvalidCursorException;
+import com.firisbe.model.DTO.response.CursorPage;
+import org.springframework.data.domain.Limit;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/*
+ *     Listeleme endpoint'lerinin keyset (seek) sayfalama anahtarı. Sayfanın son kaydının (timestamp, id) değeri
+ *     istemciye opak bir token olarak verilir; sonraki sayfa OFFSET ile atlanmak yerine indekste doğrudan bu anahtarın
+ *     ötesinden okunur, bu yüzden sayfa süresi ne kadar derine inildiğine bağlı değildir. Zaman damgası olmayan
+ *     listelerde (müşteriler) yalnızca id kullanılır.
+ */
+public record KeysetCursor(LocalDateTime timestamp, Long id) {
+    public static final int MAX_PAGE_SIZE = 500;
+
+    // İlk sayfa için tüm kayıtlardan büyük anahtar; böylece ilk sayfa ve devamı aynı sorguyla okunur.
+    private static final KeysetCursor FIRST_DESCENDING = new KeysetCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+    private static final KeysetCursor FIRST_ASCENDING = new KeysetCursor(null, 0L);
+
+    /* Yeni kayıttan eskiye sıralanan listeler için; cursor yoksa en baştan başlanır. */
+    public static KeysetCursor descending(String token) {
+        KeysetCursor cursor = decode(token);
+        if (cursor == null) {
+            return FIRST_DESCENDING;
+        }
+        if (cursor.timestamp() == null) {
+            throw new InvalidCursorException();
+        }
+        return cursor;
+    }
+
+    /* Id sırasıyla artan listeler için. */
+    public static KeysetCursor ascending(String token) {
+        KeysetCursor cursor = decode(token);
+        return cursor == null ? FIRST_ASCENDING : cursor;
+    }
+
+    /* Bir sonraki sayfanın olup olmadığını ek sorgu atmadan anlamak için bir fazla kayıt istenir. */
+    public static Limit limit(int size) {
+        return Limit.of(pageSize(size) + 1);
+    }
+
+    public static int pageSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    }
+
+    public static <E, T> CursorPage<T> page(List<E> rows, int size, Function<E, KeysetCursor> keyOf, Function<E, T> mapper) {
+        int pageSize = pageSize(size);
+        List<E> items = rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+        String nextCursor = rows.size() > pageSize ? keyOf.apply(items.getLast()).encode() : null;
+        return new CursorPage<>(items.stream().map(mapper).toList(), nextCursor);
+    }
+
+    public String encode() {
+        String value = (timestamp == null ? "" : timestamp.toString()) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            String timestamp = value.substring(0, separator);
+            return new KeysetCursor(timestamp.isEmpty() ? null : LocalDateTime.parse(timestamp), Long.parseLong(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException(e);
+        }
+    }
+}
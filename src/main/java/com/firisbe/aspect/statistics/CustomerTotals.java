@@ -0,0 +1,120 @@
+package com.firisbe.aspect.statistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/*
+ *     Müşteri id'sine göre gönderilen / alınan adet ve tutar toplamları. Açık adreslemeli, kutulamasız bir hash tablosu:
+ *     anahtarlar bir long[]'de, müşteri başına dört toplam art arda ikinci bir long[]'de tutulur. Tarama başına
+ *     milyonlarca ekleme nesne üretmeden yapılır.
+ */
+public final class CustomerTotals {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int SENT_COUNT = 0;
+    private static final int SENT_AMOUNT = 1;
+    private static final int RECEIVED_COUNT = 2;
+    private static final int RECEIVED_AMOUNT = 3;
+    private static final int STRIDE = 4;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+
+    public CustomerTotals() {
+        this(64);
+    }
+
+    private CustomerTotals(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new long[capacity * STRIDE];
+    }
+
+    public void addSent(long customerId, long amountMinor) {
+        int base = slot(customerId) * STRIDE;
+        values[base + SENT_COUNT]++;
+        values[base + SENT_AMOUNT] += amountMinor;
+    }
+
+    public void addReceived(long customerId, long amountMinor) {
+        int base = slot(customerId) * STRIDE;
+        values[base + RECEIVED_COUNT]++;
+        values[base + RECEIVED_AMOUNT] += amountMinor;
+    }
+
+    /* other bu tabloya eklenir; bu tablo döner. */
+    public CustomerTotals addAll(CustomerTotals other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) {
+                int base = slot(other.keys[i]) * STRIDE;
+                for (int j = 0; j < STRIDE; j++) {
+                    values[base + j] += other.values[i * STRIDE + j];
+                }
+            }
+        }
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /* Gönderilen ve alınan tutar toplamı en büyük limit müşteri; eşitlikte küçük id önce gelir. */
+    public List<Entry> top(int limit) {
+        Comparator<Entry> order = Comparator.comparingLong(Entry::totalAmountMinor)
+                .thenComparing(Comparator.comparingLong(Entry::customerId).reversed());
+        PriorityQueue<Entry> heap = new PriorityQueue<>(order);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == EMPTY) {
+                continue;
+            }
+            int base = i * STRIDE;
+            Entry entry = new Entry(keys[i], values[base + SENT_COUNT], values[base + SENT_AMOUNT],
+                    values[base + RECEIVED_COUNT], values[base + RECEIVED_AMOUNT]);
+            if (heap.size() < limit) {
+                heap.add(entry);
+            } else if (limit > 0 && order.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        List<Entry> result = new ArrayList<>(heap);
+        result.sort(order.reversed());
+        return result;
+    }
+
+    private int slot(long customerId) {
+        int mask = keys.length - 1;
+        int slot = (int) ((customerId * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (keys[slot] != customerId) {
+            if (keys[slot] == EMPTY) {
+                if (size * 2 >= keys.length) {
+                    grow();
+                    return slot(customerId);
+                }
+                keys[slot] = customerId;
+                size++;
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        CustomerTotals larger = new CustomerTotals(keys.length * 2);
+        larger.addAll(this);
+        keys = larger.keys;
+        values = larger.values;
+        size = larger.size;
+    }
+
+    public record Entry(long customerId, long sentCount, long sentAmountMinor, long receivedCount, long receivedAmountMinor) {
+        public long totalAmountMinor() {
+            return sentAmountMinor + receivedAmountMinor;
+        }
+    }
+}
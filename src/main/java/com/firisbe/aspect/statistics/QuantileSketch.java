@@ -0,0 +1,71 @@
+package com.firisbe.aspect.statistics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/*
+ *     Tutar dağılımı için birleştirilebilir quantile sketch'i (DDSketch yaklaşımı). Tutarlar logaritmik kovalarda
+ *     sayılır: i numaralı kova (γ^(i-1), γ^i] aralığını kapsar ve temsil değeri aralığın her noktasına en fazla %1 göreli
+ *     uzaklıktadır. İki sketch kova sayıları toplanarak birleşir; bu yüzden aylık sketch'ler veritabanında kova başına
+ *     bir satır olarak upsert edilir ve istenen pencere tek bir GROUP BY ile toplanır.
+ */
+public final class QuantileSketch {
+    public static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    public static final double LN_GAMMA = Math.log(GAMMA);
+
+    // Kuruştan küçük tutarlar ilk kovaya sayılır
+    public static final BigDecimal MIN_TRACKED_AMOUNT = new BigDecimal("0.01");
+
+    private final SortedMap<Integer, Long> buckets = new TreeMap<>();
+    private long count;
+
+    public static int bucketOf(BigDecimal amount) {
+        double value = amount.max(MIN_TRACKED_AMOUNT).doubleValue();
+        return (int) Math.ceil(Math.log(value) / LN_GAMMA);
+    }
+
+    public void add(int bucket, long bucketCount) {
+        if (bucketCount <= 0) {
+            return;
+        }
+        buckets.merge(bucket, bucketCount, Long::sum);
+        count += bucketCount;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /*
+     *     q, 0 ile 1 arasındadır. Sonuç bilinen en küçük ve en büyük tutar aralığına sıkıştırılır; böylece uç
+     *     quantile'lar kova temsil değeri yerine gerçek değeri döner.
+     */
+    public BigDecimal quantile(double q, BigDecimal min, BigDecimal max) {
+        if (count == 0) {
+            return BigDecimal.ZERO;
+        }
+        // Nearest-rank: q ile kapsanan ilk sıradaki değer (0 tabanlı)
+        long rank = Math.max((long) Math.ceil(q * count) - 1, 0);
+        long seen = 0;
+        int bucket = buckets.lastKey();
+        for (Map.Entry<Integer, Long> entry : buckets.entrySet()) {
+            seen += entry.getValue();
+            if (seen > rank) {
+                bucket = entry.getKey();
+                break;
+            }
+        }
+        BigDecimal value = BigDecimal.valueOf(2 * Math.pow(GAMMA, bucket) / (GAMMA + 1));
+        if (min != null && value.compareTo(min) < 0) {
+            value = min;
+        }
+        if (max != null && value.compareTo(max) > 0) {
+            value = max;
+        }
+        return value.setScale(2, RoundingMode.HALF_UP);
+    }
+}
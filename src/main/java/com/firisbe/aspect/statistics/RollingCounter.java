@@ -0,0 +1,52 @@
+package com.firisbe.aspect.statistics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ *     Kayan pencere sayacı: pencere eşit genişlikte slot'lara bölünür ve slot'lar bir halka üzerinde tekrar kullanılır.
+ *     Her slot kendi zaman dilimini (epoch) taşır; süresi geçmiş slot'lar silinmez, okumada atlanır ve aynı halka
+ *     konumuna yeni bir dilim yazıldığında üzerine yazılır. Güncellemeler değişmez slot nesneleri üzerinde CAS ile
+ *     yapılır, kilit alınmaz. Okuma slot sayısı kadar sabit iştir; pencere slot genişliği kadar hassastır.
+ */
+public final class RollingCounter {
+    private final long slotMillis;
+    private final AtomicReferenceArray<Slot> slots;
+
+    public RollingCounter(Duration window, int slotCount) {
+        this.slotMillis = window.toMillis() / slotCount;
+        this.slots = new AtomicReferenceArray<>(slotCount);
+    }
+
+    public void add(long nowMillis, long amountMinor) {
+        long epoch = nowMillis / slotMillis;
+        int index = (int) Math.floorMod(epoch, slots.length());
+        slots.updateAndGet(index, slot -> {
+            if (slot == null || slot.epoch() < epoch) {
+                return new Slot(epoch, 1, amountMinor);
+            }
+            // Saat geri gittiyse halkadan daha eski bir dilime ait güncelleme atlanır
+            return slot.epoch() == epoch ? new Slot(epoch, slot.count() + 1, slot.amountMinor() + amountMinor) : slot;
+        });
+    }
+
+    public Totals sum(long nowMillis) {
+        long epoch = nowMillis / slotMillis;
+        long count = 0;
+        long amountMinor = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            Slot slot = slots.get(i);
+            if (slot != null && slot.epoch() > epoch - slots.length() && slot.epoch() <= epoch) {
+                count += slot.count();
+                amountMinor += slot.amountMinor();
+            }
+        }
+        return new Totals(count, amountMinor);
+    }
+
+    private record Slot(long epoch, long count, long amountMinor) {
+    }
+
+    public record Totals(long count, long amountMinor) {
+    }
+}
@@ -0,0 +1,239 @@
+package com.firisbe.aspect.statistics;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/*
+ *     Transferlerin sütun bazlı bellek içi kopyası: gönderen, alıcı, kuruş cinsinden tutar ve epoch millis zaman damgası
+ *     ayrı long[] dizilerinde tutulur (satır başına 32 byte, nesne başlığı yok). Diziler sabit boyutlu parçalar (chunk)
+ *     halinde büyür; ekleme mevcut veriyi kopyalamaz ve taramalar parça sınırlarından bölünerek fork-join havuzunda
+ *     paralel çalışır. Tarama döngüleri yalnızca dizi indeksi ve toplama içerir, JIT tarafından vektörleştirilebilir.
+ *
+ *     Satırlar zaman damgası sırasıyla eklenir; tarih aralığı ikili arama ile satır aralığına çevrilir, aralık dışındaki
+ *     parçalara dokunulmaz.
+ *
+ *     Tek yazar, çok okuyucu: yazar append ile yayınlanmamış satırlar ekler ve publish ile hepsini birden görünür yapar.
+ *     Okuyucu önce size'ı, sonra chunks'ı okur; ikisi de volatile olduğundan gördüğü her satırın yazımı tamamlanmıştır.
+ */
+public final class TransferColumns {
+    private static final int DEFAULT_CHUNK_BITS = 16;
+
+    private final ForkJoinPool pool;
+    private final int chunkBits;
+    private final int chunkSize;
+    private final int chunkMask;
+
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile int size;
+    // Yalnızca yazar thread'i kullanır
+    private int pending;
+
+    public TransferColumns(ForkJoinPool pool) {
+        this(pool, DEFAULT_CHUNK_BITS);
+    }
+
+    TransferColumns(ForkJoinPool pool, int chunkBits) {
+        this.pool = pool;
+        this.chunkBits = chunkBits;
+        this.chunkSize = 1 << chunkBits;
+        this.chunkMask = chunkSize - 1;
+    }
+
+    /* Zaman damgası son eklenen satırınkinden küçük olamaz; satır publish edilene kadar okuyuculara görünmez. */
+    public void append(long senderId, long receiverId, long amountMinor, long timestampMillis) {
+        int row = pending;
+        if (row > 0 && timestampMillis < timestamp(chunks, row - 1)) {
+            throw new IllegalArgumentException("Rows must be appended in timestamp order");
+        }
+        Chunk[] current = chunks;
+        int index = row >>> chunkBits;
+        if (index == current.length) {
+            current = Arrays.copyOf(current, index + 1);
+            current[index] = new Chunk(chunkSize);
+            chunks = current;
+        }
+        Chunk chunk = current[index];
+        int offset = row & chunkMask;
+        chunk.sender[offset] = senderId;
+        chunk.receiver[offset] = receiverId;
+        chunk.amount[offset] = amountMinor;
+        chunk.timestamp[offset] = timestampMillis;
+        pending = row + 1;
+    }
+
+    public void publish() {
+        size = pending;
+    }
+
+    /* Yayınlanmamış satırlar bırakılır; yerleri bir sonraki append'lerde yeniden yazılır. */
+    public void discard() {
+        pending = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /*
+     *     [bounds[i], bounds[i + 1]) aralıklarının her biri için adet ve tutar toplamı. Sonuç dönemler sırasıyla
+     *     {adet, tutar, adet, tutar, ...} şeklindedir; bounds artan sırada olmalıdır.
+     */
+    public long[] periodTotals(long[] bounds) {
+        int periods = bounds.length - 1;
+        int size = this.size;
+        Chunk[] chunks = this.chunks;
+        int from = lowerBound(chunks, size, bounds[0]);
+        int to = lowerBound(chunks, size, bounds[periods]);
+        return scan(chunks, from, to, new long[2 * periods], (chunk, start, end) -> {
+            long[] totals = new long[2 * periods];
+            long[] timestamps = chunk.timestamp;
+            long[] amounts = chunk.amount;
+            // Satırlar sıralı olduğundan dönem indeksi yalnızca ileri gider
+            int found = Arrays.binarySearch(bounds, timestamps[start]);
+            int period = found >= 0 ? found : -found - 2;
+            long next = bounds[period + 1];
+            for (int i = start; i < end; i++) {
+                while (timestamps[i] >= next) {
+                    next = bounds[++period + 1];
+                }
+                totals[2 * period]++;
+                totals[2 * period + 1] += amounts[i];
+            }
+            return totals;
+        }, TransferColumns::addInto);
+    }
+
+    /* [from, to) aralığındaki transferlerin müşteri başına gönderilen ve alınan adet / tutar toplamları. */
+    public CustomerTotals customerTotals(long fromMillis, long toMillis) {
+        int size = this.size;
+        Chunk[] chunks = this.chunks;
+        int from = lowerBound(chunks, size, fromMillis);
+        int to = lowerBound(chunks, size, toMillis);
+        return scan(chunks, from, to, new CustomerTotals(), (chunk, start, end) -> {
+            CustomerTotals totals = new CustomerTotals();
+            long[] senders = chunk.sender;
+            long[] receivers = chunk.receiver;
+            long[] amounts = chunk.amount;
+            for (int i = start; i < end; i++) {
+                totals.addSent(senders[i], amounts[i]);
+                totals.addReceived(receivers[i], amounts[i]);
+            }
+            return totals;
+        }, (left, right) -> left.size() >= right.size() ? left.addAll(right) : right.addAll(left));
+    }
+
+    /*
+     *     [from, to) aralığındaki transferlerin tutar dilimlerine göre adet ve tutar toplamı. Dilimler
+     *     [bounds[i], bounds[i + 1]) ve son dilim [bounds[n - 1], sonsuz) şeklindedir; ilk sınırdan küçük tutarlar
+     *     sayılmaz. Sonuç {adet, tutar, ...} şeklindedir; bounds artan sırada olmalıdır.
+     */
+    public long[] bandTotals(long fromMillis, long toMillis, long[] bounds) {
+        int bands = bounds.length;
+        int size = this.size;
+        Chunk[] chunks = this.chunks;
+        int from = lowerBound(chunks, size, fromMillis);
+        int to = lowerBound(chunks, size, toMillis);
+        return scan(chunks, from, to, new long[2 * bands], (chunk, start, end) -> {
+            long[] totals = new long[2 * bands];
+            long[] amounts = chunk.amount;
+            for (int i = start; i < end; i++) {
+                long amount = amounts[i];
+                // Dallanmasız dilim bulma: sınır sayısı kadar karşılaştırma
+                int band = -1;
+                for (long bound : bounds) {
+                    band += amount >= bound ? 1 : 0;
+                }
+                if (band >= 0) {
+                    totals[2 * band]++;
+                    totals[2 * band + 1] += amount;
+                }
+            }
+            return totals;
+        }, TransferColumns::addInto);
+    }
+
+    private <R> R scan(Chunk[] chunks, int from, int to, R empty, Segment<R> segment, BinaryOperator<R> merge) {
+        if (from >= to) {
+            return empty;
+        }
+        return pool.invoke(new ScanTask<>(chunks, from, to, segment, merge));
+    }
+
+    /* timestamp >= millis olan ilk satır; yoksa size. */
+    private int lowerBound(Chunk[] chunks, int size, long millis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamp(chunks, mid) < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long timestamp(Chunk[] chunks, int row) {
+        return chunks[row >>> chunkBits].timestamp[row & chunkMask];
+    }
+
+    private static long[] addInto(long[] left, long[] right) {
+        for (int i = 0; i < left.length; i++) {
+            left[i] += right[i];
+        }
+        return left;
+    }
+
+    private interface Segment<R> {
+        /* Tek bir parçanın [start, end) satırları. */
+        R scan(Chunk chunk, int start, int end);
+    }
+
+    private static final class Chunk {
+        private final long[] sender;
+        private final long[] receiver;
+        private final long[] amount;
+        private final long[] timestamp;
+
+        private Chunk(int size) {
+            this.sender = new long[size];
+            this.receiver = new long[size];
+            this.amount = new long[size];
+            this.timestamp = new long[size];
+        }
+    }
+
+    /* Aralık bir parçadan büyükse parça sınırından ikiye bölünür; yapraklar tek bir parçanın bir bölümünü tarar. */
+    private final class ScanTask<R> extends RecursiveTask<R> {
+        private final Chunk[] chunks;
+        private final int from;
+        private final int to;
+        private final Segment<R> segment;
+        private final BinaryOperator<R> merge;
+
+        private ScanTask(Chunk[] chunks, int from, int to, Segment<R> segment, BinaryOperator<R> merge) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.segment = segment;
+            this.merge = merge;
+        }
+
+        @Override
+        protected R compute() {
+            int first = from >>> chunkBits;
+            int last = (to - 1) >>> chunkBits;
+            if (first == last) {
+                return segment.scan(chunks[first], from & chunkMask, ((to - 1) & chunkMask) + 1);
+            }
+            int mid = (first + (last - first + 1) / 2) << chunkBits;
+            ScanTask<R> left = new ScanTask<>(chunks, from, mid, segment, merge);
+            left.fork();
+            R right = new ScanTask<>(chunks, mid, to, segment, merge).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.firisbe.config.dbConfig;
+
+import com.firisbe.repository.jpa.CustomerRepository;
+import com.firisbe.service.Implementation.OutboxServiceImplementation;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/*
+ *     Admin ad araması için ifade indeksleri. ddl-auto expression ve GIN indeksi oluşturamadığı için uygulama açılışında
+ *     idempotent olarak oluşturulur. Yalnızca PostgreSQL'de çalışır; pg_trgm eklentisi kurulamazsa arama indekssiz
+ *     çalışmaya devam eder ve durum loglanır.
+ */
+@Component
+@AllArgsConstructor
+public class CustomerNameIndexInitializer {
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxServiceImplementation outbox;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        try {
+            String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equals(database)) {
+                return;
+            }
+            jdbcTemplate.execute("create extension if not exists pg_trgm");
+            // İçerir aramaları (%ali%) için trigram indeksi
+            jdbcTemplate.execute("create index if not exists idx_customer_full_name_trgm on customer using gin ("
+                    + CustomerRepository.FULL_NAME_EXPRESSION + " gin_trgm_ops)");
+            // 3 karakterden kısa önek aramaları (al%) için
+            jdbcTemplate.execute("create index if not exists idx_customer_full_name_prefix on customer ("
+                    + CustomerRepository.FULL_NAME_EXPRESSION + " text_pattern_ops)");
+        } catch (Exception e) {
+            outbox.send("error_logs", "GeneralError: Customer name search indexes could not be created. Reason: " + e.getMessage());
+        }
+    }
+}
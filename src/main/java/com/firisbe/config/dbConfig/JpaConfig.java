@@ -1,9 +1,21 @@
 package com.firisbe.config.dbConfig;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Configuration
 @EnableJpaRepositories(basePackages = "com.firisbe.repository.jpa")
 public class JpaConfig {
+
+    /* Toplu ödeme işleme gibi programatik transaction gereken yerler için, tekil ödeme akışıyla aynı izolasyon seviyesi. Eşzamanlılık satır kilitleriyle sağlanır. */
+    @Bean
+    public TransactionTemplate paymentTransactionTemplate(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        return template;
+    }
 }
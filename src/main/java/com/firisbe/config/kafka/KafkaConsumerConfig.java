@@ -1,29 +1,71 @@
 package com.firisbe.config.kafka;
 
+import com.firisbe.error.CustomerNotFoundException;
+import com.firisbe.error.PaymentFailedException;
+import com.firisbe.model.PaymentEvent;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
-import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.KafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 
 @Configuration
 public class KafkaConsumerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${kafka.payment.concurrency:${kafka.payment.partitions:1}}")
+    private int paymentConcurrency;
+
+    @Value("${kafka.payment.batch.max-poll-records:500}")
+    private int batchMaxPollRecords;
+
+    @Value("${payment.settlement.mode:record}")
+    private String settlementMode;
+
+    @Value("${payment.netting.window-ms:200}")
+    private int nettingWindowMillis;
+
+    @Value("${payment.netting.min-fetch-bytes:1048576}")
+    private int nettingMinFetchBytes;
+
+    @Value("${payment.retry.attempts:4}")
+    private int retryAttempts;
+
+    @Value("${payment.retry.delay-ms:1000}")
+    private long retryDelayMillis;
+
+    @Value("${payment.retry.multiplier:2}")
+    private double retryMultiplier;
+
+    @Value("${payment.retry.max-delay-ms:30000}")
+    private long retryMaxDelayMillis;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     public Map<String, Object> consumerConfig() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         return props;
     }
@@ -34,18 +76,120 @@ public class KafkaConsumerConfig {
         return new DefaultKafkaConsumerFactory<>(consumerConfig());
     }
 
+    /* payment_process topic'i için ikili PaymentEvent formatını okuyan consumer; çözülemeyen kayıtlar partition'ı kilitlemez. */
+    @Bean
+    public ConsumerFactory<String, PaymentEvent> paymentConsumerFactory() {
+        Map<String, Object> props = consumerConfig();
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, PaymentEventDeserializer.class);
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
 
+
+    /* Ödeme kabul kontrolünün consumer lag'ini okuması için; bağlantı ilk istekte kurulur. */
+    @Bean(destroyMethod = "close")
+    public Admin lagAdminClient() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        return Admin.create(props);
+    }
+
+
+    /* Log topic'leri için varsayılan container factory. */
+    @Bean
     public KafkaListenerContainerFactory<
-            ConcurrentMessageListenerContainer<String, String>> factory(
+            ConcurrentMessageListenerContainer<String, String>> kafkaListenerContainerFactory(
             ConsumerFactory<String, String> consumerFactory
     ) {
         ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory);
+        applyThreadMode(factory, "log-listener");
         return factory;
     }
 
+    /*
+     *     payment_process topic'i için container factory. Mesajlar gönderen hesap id'si ile key'lendiği için bir hesabın
+     *     ödemeleri her zaman aynı partition'a düşer ve sırası korunur; farklı hesaplar partition sayısı kadar thread'de
+     *     paralel işlenir. Partition'lar aynı groupId'ye sahip instance'lar arasında da paylaştırılır.
+     */
+    @Bean
+    public KafkaListenerContainerFactory<
+            ConcurrentMessageListenerContainer<String, PaymentEvent>> paymentFactory(
+            ConsumerFactory<String, PaymentEvent> paymentConsumerFactory
+    ) {
+        ConcurrentKafkaListenerContainerFactory<String, PaymentEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(paymentConsumerFactory);
+        factory.setConcurrency(paymentConcurrency);
+        applyThreadMode(factory, "payment-listener");
+        return factory;
+    }
 
+    /*
+     *     Ledger modu için container factory. Kayıtlar bellek içi motorda işlenip veritabanına toplu yazıldıktan sonra,
+     *     farklı thread'lerden ve sırasız olarak onaylanır; container ardışık onaylanan offset'leri commit eder.
+     */
+    @Bean
+    public KafkaListenerContainerFactory<
+            ConcurrentMessageListenerContainer<String, PaymentEvent>> ledgerFactory(
+            ConsumerFactory<String, PaymentEvent> paymentConsumerFactory
+    ) {
+        ConcurrentKafkaListenerContainerFactory<String, PaymentEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(paymentConsumerFactory);
+        factory.setConcurrency(paymentConcurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
+        applyThreadMode(factory, "ledger-listener");
+        return factory;
+    }
+
+    /*
+     *     payment_process topic'i için bir poll'daki tüm kayıtları tek seferde listener'a veren container factory. Listener
+     *     BatchListenerFailedException fırlatırsa önceki kayıtların offset'i commit edilir, hatalı kayıt kayıt modundaki
+     *     retry ayarlarıyla tekrar denenir ve denemeler bitince payment_process.DLT'ye yazılır.
+     */
+    @Bean
+    public KafkaListenerContainerFactory<
+            ConcurrentMessageListenerContainer<String, PaymentEvent>> batchFactory(
+            ConsumerFactory<String, PaymentEvent> paymentConsumerFactory,
+            KafkaTemplate<String, Object> retryKafkaTemplate
+    ) {
+        ConcurrentKafkaListenerContainerFactory<String, PaymentEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(paymentConsumerFactory);
+        factory.setConcurrency(paymentConcurrency);
+        factory.setBatchListener(true);
+        // Offset'ler listener döndükten sonra, yani batch transaction'ı commit edildikten sonra commit edilir.
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        Properties batchProps = new Properties();
+        batchProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(batchMaxPollRecords));
+        if ("netting".equals(settlementMode)) {
+            // Broker fetch'i pencere dolana ya da yeterli veri birikene kadar bekletir; ani yüklerde bir poll daha çok ödeme taşır.
+            batchProps.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, String.valueOf(nettingMinFetchBytes));
+            batchProps.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, String.valueOf(nettingWindowMillis));
+        }
+        factory.getContainerProperties().setKafkaConsumerProperties(batchProps);
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(Math.max(retryAttempts - 1, 0));
+        backOff.setInitialInterval(retryDelayMillis);
+        backOff.setMultiplier(retryMultiplier);
+        backOff.setMaxInterval(retryMaxDelayMillis);
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(new DeadLetterPublishingRecoverer(retryKafkaTemplate), backOff);
+        errorHandler.addNotRetryableExceptions(PaymentFailedException.class, CustomerNotFoundException.class);
+        factory.setCommonErrorHandler(errorHandler);
+        applyThreadMode(factory, "batch-listener");
+        return factory;
+    }
 
+    /*
+     *     Container factory'ler burada elle oluşturulduğu için Spring Boot'un spring.threads.virtual.enabled ayarı bunlara
+     *     uygulanmaz. Ayar açıksa her consumer thread'i bir sanal thread olarak başlatılır; listener JDBC beklerken
+     *     taşıyıcı platform thread'i serbest kalır.
+     */
+    private void applyThreadMode(ConcurrentKafkaListenerContainerFactory<?, ?> factory, String threadNamePrefix) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix + "-");
+            executor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(executor);
+        }
+    }
 
 }
 
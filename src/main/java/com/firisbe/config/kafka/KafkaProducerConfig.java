@@ -1,6 +1,9 @@
 package com.firisbe.config.kafka;
 
+import com.firisbe.model.PaymentEvent;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -8,8 +11,10 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Configuration
@@ -35,6 +40,47 @@ public class KafkaProducerConfig {
         return new KafkaTemplate<>(producerFactory);
     }
 
-}
+    /*
+     *     Outbox relay'inin kullandığı producer. Mesajlar outbox'ta zaten serileştirilmiş olarak (String mesajlar UTF-8,
+     *     PaymentEvent ikili formatta) tutulduğu için değerler byte[] olarak gönderilir. Büyük batch'ler linger ve
+     *     sıkıştırma ile az sayıda istekte taşınır.
+     */
+    @Bean
+    public ProducerFactory<String, byte[]> outboxProducerFactory(
+            @Value("${kafka.outbox.compression-type:lz4}") String compressionType,
+            @Value("${kafka.outbox.linger-ms:20}") int lingerMs,
+            @Value("${kafka.outbox.batch-size:262144}") int batchSize
+    ){
+        Map<String,Object> props = producerConfig();
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+    @Bean
+    public KafkaTemplate<String, byte[]> outboxKafkaTemplate(
+            ProducerFactory<String, byte[]> outboxProducerFactory
+    ){
+        return new KafkaTemplate<>(outboxProducerFactory);
+    }
 
+    /*
+     *     Retry topic'lerine ve payment_process.DLT'ye gönderim yapan template. Kayıt değeri PaymentEvent ise ikili formatta,
+     *     çözülemeyen kayıtlarda ise orijinal byte[] olarak yazılır.
+     */
+    @Bean
+    public ProducerFactory<String, Object> retryProducerFactory(){
+        Map<Class<?>, Serializer<?>> serializers = new LinkedHashMap<>();
+        serializers.put(byte[].class, new ByteArraySerializer());
+        serializers.put(PaymentEvent.class, new PaymentEventSerializer());
+        return new DefaultKafkaProducerFactory<>(producerConfig(), new StringSerializer(), new DelegatingByTypeSerializer(serializers));
+    }
+    @Bean
+    public KafkaTemplate<String, Object> retryKafkaTemplate(
+            ProducerFactory<String, Object> retryProducerFactory
+    ){
+        return new KafkaTemplate<>(retryProducerFactory);
+    }
 
+}
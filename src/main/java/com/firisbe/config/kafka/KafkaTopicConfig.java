@@ -1,12 +1,18 @@
 package com.firisbe.config.kafka;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
 
 @Configuration
 public class KafkaTopicConfig {
+    @Value("${kafka.topic.paymentProcess}")
+    private String paymentProcessTopic;
+
+    @Value("${kafka.payment.partitions:1}")
+    private int paymentPartitions;
 
     @Bean
     public NewTopic success() {
@@ -25,5 +31,13 @@ public class KafkaTopicConfig {
         return TopicBuilder.name("payment-log")
                 .build();
     }
+
+    /* Listener concurrency bu partition sayısını takip eder; sayı yalnızca artırılabilir, artırıldığında key -> partition eşlemesi değişir. */
+    @Bean
+    public NewTopic paymentProcess() {
+        return TopicBuilder.name(paymentProcessTopic)
+                .partitions(paymentPartitions)
+                .build();
+    }
 }
 
@@ -0,0 +1,41 @@
+package com.firisbe.config.kafka;
+
+import com.firisbe.model.PaymentEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.UUID;
+
+/* PaymentEventSerializer'da tanımlanan formatı okur; ara dizi veya String oluşturmadan doğrudan byte dizisinden çözer. */
+public class PaymentEventDeserializer implements Deserializer<PaymentEvent> {
+
+    @Override
+    public PaymentEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length != PaymentEventSerializer.LENGTH || data[0] != PaymentEventSerializer.VERSION) {
+            throw new SerializationException("Unsupported payment event: version " + (data.length > 0 ? data[0] : -1) + ", length " + data.length);
+        }
+        return new PaymentEvent(
+                readUuid(data, 1),
+                readLong(data, 17),
+                readLong(data, 25),
+                readLong(data, 33),
+                readLong(data, 41),
+                readUuid(data, 49)
+        );
+    }
+
+    private static UUID readUuid(byte[] data, int offset) {
+        return new UUID(readLong(data, offset), readLong(data, offset + 8));
+    }
+
+    private static long readLong(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (data[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,50 @@
+package com.firisbe.config.kafka;
+
+import com.firisbe.model.PaymentEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.UUID;
+
+/*
+ *     PaymentEvent'in sabit uzunluklu ikili formatı (big-endian, toplam 65 byte):
+ *
+ *     [0]      versiyon (1)
+ *     [1..16]  paymentId
+ *     [17..24] senderId
+ *     [25..32] receiverId
+ *     [33..40] amountMinor
+ *     [41..48] timestamp (epoch millis)
+ *     [49..64] idempotencyKey
+ */
+public class PaymentEventSerializer implements Serializer<PaymentEvent> {
+    public static final byte VERSION = 1;
+    public static final int LENGTH = 65;
+
+    @Override
+    public byte[] serialize(String topic, PaymentEvent event) {
+        if (event == null) {
+            return null;
+        }
+        byte[] out = new byte[LENGTH];
+        out[0] = VERSION;
+        writeUuid(out, 1, event.paymentId());
+        writeLong(out, 17, event.senderId());
+        writeLong(out, 25, event.receiverId());
+        writeLong(out, 33, event.amountMinor());
+        writeLong(out, 41, event.timestamp());
+        writeUuid(out, 49, event.idempotencyKey());
+        return out;
+    }
+
+    private static void writeUuid(byte[] out, int offset, UUID value) {
+        writeLong(out, offset, value.getMostSignificantBits());
+        writeLong(out, offset + 8, value.getLeastSignificantBits());
+    }
+
+    private static void writeLong(byte[] out, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            out[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.firisbe.config.thread;
+
+import com.firisbe.service.Implementation.OutboxServiceImplementation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/*
+ *     Sanal thread modu açıkken, bir sanal thread'in synchronized blok ya da native çağrı içinde bloklanıp taşıyıcı
+ *     thread'i işgal ettiği durumları (pinning) JFR'ın jdk.VirtualThreadPinned olayı ile izler. Eşiği aşan her olay
+ *     jvm.threads.virtual.pinned timer'ına yazılır. Yeni bir yığın konumu ilk kez görüldüğünde ilk frame'leri error_logs'a
+ *     gönderilir; aynı konum tekrar loglanmaz.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_REPORTED_LOCATIONS = 1000;
+    private static final int FRAMES = 5;
+
+    private final OutboxServiceImplementation outbox;
+    private final Duration threshold;
+    private final Timer pinned;
+    private final Set<String> reportedLocations = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(OutboxServiceImplementation outbox,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${virtual-threads.pinned-threshold:20ms}") Duration threshold) {
+        this.outbox = outbox;
+        this.threshold = threshold;
+        this.pinned = Timer.builder("jvm.threads.virtual.pinned").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(EVENT, this::onPinned);
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.record(event.getDuration());
+        if (event.getStackTrace() == null || reportedLocations.size() >= MAX_REPORTED_LOCATIONS) {
+            return;
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        String location = frames.stream()
+                .limit(FRAMES)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                .collect(Collectors.joining(" <- "));
+        if (reportedLocations.add(location)) {
+            outbox.send("error_logs", "VirtualThreadPinned: " + event.getDuration().toMillis() + " ms at " + location);
+        }
+    }
+}
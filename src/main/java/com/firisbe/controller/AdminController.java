@@ -2,21 +2,44 @@ package com.firisbe.controller;
 
 import com.firisbe.aspect.GenericResponse;
 import com.firisbe.model.DTO.request.AdminCustomerUpdateRequest;
+import com.firisbe.model.DTO.request.DeadLetterReplayRequest;
 
+import com.firisbe.model.DTO.response.AmountBandVolumeResponse;
+import com.firisbe.model.DTO.response.CursorPage;
 import com.firisbe.model.DTO.response.CustomerResponse;
+import com.firisbe.model.DTO.response.CustomerVolumeResponse;
+import com.firisbe.model.DTO.response.DeadLetterResponse;
 import com.firisbe.model.DTO.response.MonthlyStatisticsResponse;
 import com.firisbe.model.DTO.response.PaymentResponse;
+import com.firisbe.model.DTO.response.PeriodVolumeResponse;
+import com.firisbe.model.DTO.response.RollingVolumeResponse;
+import com.firisbe.model.Enum.AnalyticsPeriod;
+import com.firisbe.model.Enum.ExportFormat;
 import com.firisbe.service.Implementation.CustomerServiceImplementation;
+import com.firisbe.service.Implementation.DeadLetterServiceImplementation;
+import com.firisbe.service.Implementation.RollingVolumeServiceImplementation;
+import com.firisbe.service.Implementation.TransferExportServiceImplementation;
 import com.firisbe.service.Implementation.TransferServiceImplementation;
+import com.firisbe.service.Implementation.TransferSnapshotServiceImplementation;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("api/v1/admin")
@@ -25,6 +48,10 @@ import java.util.List;
 public class AdminController {
     private final CustomerServiceImplementation service;
     private final TransferServiceImplementation transferService;
+    private final DeadLetterServiceImplementation deadLetterService;
+    private final TransferExportServiceImplementation transferExportService;
+    private final RollingVolumeServiceImplementation rollingVolumeService;
+    private final TransferSnapshotServiceImplementation transferSnapshotService;
 
     @Operation(summary = "Update customer information", description = "Update customer information", tags = {"admin-controller"})
     @PutMapping
@@ -40,8 +67,11 @@ public class AdminController {
 
     @Operation(summary = "Read all customers", description = "Read all customers", tags = {"admin-controller"})
     @GetMapping("/all")
-    public ResponseEntity<GenericResponse<List<CustomerResponse>>> readAllCustomers() {
-        return new ResponseEntity<>(service.readAllForAdmin(), HttpStatus.OK);
+    public ResponseEntity<GenericResponse<CursorPage<CustomerResponse>>> readAllCustomers(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "${pagination.default-size:50}") int size
+    ) {
+        return new ResponseEntity<>(service.readAllForAdmin(cursor, size), HttpStatus.OK);
     }
 
     @Operation(summary = "Delete customer", description = "Delete customer", tags = {"admin-controller"})
@@ -64,8 +94,11 @@ public class AdminController {
 
     @Operation(summary = "Read all payment information", description = "Read all payment information", tags = {"admin-controller"})
     @GetMapping("/payment/all")
-    public ResponseEntity<GenericResponse<List<PaymentResponse>>> readAllPaymentForAdmin() {
-        return new ResponseEntity<>(transferService.readAllPaymentForAdmin(), HttpStatus.OK);
+    public ResponseEntity<GenericResponse<CursorPage<PaymentResponse>>> readAllPaymentForAdmin(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "${pagination.default-size:50}") int size
+    ) {
+        return new ResponseEntity<>(transferService.readAllPaymentForAdmin(cursor, size), HttpStatus.OK);
     }
 
     @Operation(summary = "Read all payment information with time offset", description = "Read all payment information with time offset", tags = {"admin-controller"})
@@ -81,9 +114,10 @@ public class AdminController {
     public ResponseEntity<GenericResponse<MonthlyStatisticsResponse>> monthlyStatistics
             (
                     @PathVariable("customerId") Long id,
-                    @RequestParam("monthlyOffset") int monthOffset
+                    @RequestParam("monthlyOffset") int monthOffset,
+                    @RequestParam(value = "percentiles", defaultValue = "50,90,99") List<Double> percentiles
             ) {
-        return new ResponseEntity<>(service.monthlyStatisticsForAdmin(id, monthOffset), HttpStatus.OK);
+        return new ResponseEntity<>(service.monthlyStatisticsForAdmin(id, monthOffset, percentiles), HttpStatus.OK);
     }
 
     @GetMapping("/payment/find-by-customer-id/{customerId}")
@@ -101,9 +135,13 @@ public class AdminController {
 
 
     @GetMapping("/payment/find-by-customer-name/{customerName}")
-    @Operation(summary = "Read all payment information by customer name", description = "Read all payment information by customer name", tags = {"admin-controller"})
-    public ResponseEntity<GenericResponse<List<PaymentResponse>>> readAllPaymentForAdminByCustomerName(@PathVariable("customerName") String customerName) {
-        return new ResponseEntity<>(transferService.readAllPaymentForAdminByCustomerName(customerName), HttpStatus.OK);
+    @Operation(summary = "Read all payment information by customer name", description = "Read all payment information of customers whose full name contains the given text (prefix match below 3 characters)", tags = {"admin-controller"})
+    public ResponseEntity<GenericResponse<CursorPage<PaymentResponse>>> readAllPaymentForAdminByCustomerName(
+            @PathVariable("customerName") String customerName,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "${pagination.default-size:50}") int size
+    ) {
+        return new ResponseEntity<>(transferService.readAllPaymentForAdminByCustomerName(customerName, cursor, size), HttpStatus.OK);
     }
 
 
@@ -113,4 +151,89 @@ public class AdminController {
         return new ResponseEntity<>(transferService.readAllPaymentForAdminWithDateInterval(startDate, endDate), HttpStatus.OK);
     }
 
+    @Operation(summary = "Read rolling payment volume", description = "Read sent and received payment count and amount of a customer for the last 5 minutes, 1 hour and 24 hours", tags = {"admin-controller"})
+    @GetMapping("/payment/rolling/{customerId}")
+    public ResponseEntity<GenericResponse<RollingVolumeResponse>> readRollingVolume(@PathVariable("customerId") Long id) {
+        return new ResponseEntity<>(rollingVolumeService.readRollingVolumeForAdmin(id), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Read payment volume by period", description = "Read payment count and amount per hour, day or month in the given date range", tags = {"admin-controller"})
+    @GetMapping("/payment/analytics/by-period")
+    public ResponseEntity<GenericResponse<List<PeriodVolumeResponse>>> readVolumeByPeriod(
+            @RequestParam(value = "period", defaultValue = "DAY") AnalyticsPeriod period,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return new ResponseEntity<>(transferSnapshotService.volumeByPeriodForAdmin(period, from, to), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Read payment volume by customer", description = "Read sent and received payment count and amount of the customers with the highest volume", tags = {"admin-controller"})
+    @GetMapping("/payment/analytics/by-customer")
+    public ResponseEntity<GenericResponse<List<CustomerVolumeResponse>>> readVolumeByCustomer(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "limit", defaultValue = "10") int limit
+    ) {
+        return new ResponseEntity<>(transferSnapshotService.volumeByCustomerForAdmin(from, to, limit), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Read payment volume by amount band", description = "Read payment count and amount per amount band; each band ends at the next bound and the last band is open", tags = {"admin-controller"})
+    @GetMapping("/payment/analytics/by-amount-band")
+    public ResponseEntity<GenericResponse<List<AmountBandVolumeResponse>>> readVolumeByAmountBand(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "bounds", defaultValue = "0,100,1000,10000") List<BigDecimal> bounds
+    ) {
+        return new ResponseEntity<>(transferSnapshotService.volumeByAmountBandForAdmin(from, to, bounds), HttpStatus.OK);
+    }
+
+    @GetMapping("/payment/dead-letters")
+    @Operation(summary = "Read dead-lettered payments", description = "Read payments that could not be processed, oldest first", tags = {"admin-controller"})
+    public ResponseEntity<GenericResponse<List<DeadLetterResponse>>> readDeadLettersForAdmin(@RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return new ResponseEntity<>(deadLetterService.readDeadLettersForAdmin(limit), HttpStatus.OK);
+    }
+
+    @PostMapping("/payment/dead-letters/replay")
+    @Operation(summary = "Replay dead-lettered payments", description = "Replay the given dead-lettered payments, or the oldest ones up to limit when no id is given", tags = {"admin-controller"})
+    public ResponseEntity<GenericResponse<String>> replayDeadLettersForAdmin(
+            @RequestBody(required = false) DeadLetterReplayRequest request,
+            @RequestParam(value = "limit", defaultValue = "100") int limit
+    ) {
+        return new ResponseEntity<>(deadLetterService.replayDeadLettersForAdmin(request, limit), HttpStatus.ACCEPTED);
+    }
+
+    /*
+     *     Transferleri NDJSON ya da CSV olarak akış halinde döner. Satırlar veritabanından okundukça yazılır ve istemci
+     *     destekliyorsa yazılırken gzip ile sıkıştırılır; bellek kullanımı satır sayısından bağımsızdır.
+     */
+    @Operation(summary = "Export payments", description = "Stream payments as NDJSON or CSV with optional date range and customer filters", tags = {"admin-controller"})
+    @GetMapping("/payment/export")
+    public ResponseEntity<StreamingResponseBody> exportPaymentsForAdmin(
+            @RequestParam(value = "format", defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "customerId", required = false) Long customerId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                transferExportService.exportForAdmin(format, from, to, customerId, compressed);
+                compressed.finish();
+            } else {
+                BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+                transferExportService.exportForAdmin(format, from, to, customerId, buffered);
+                buffered.flush();
+            }
+        };
+        String extension = format == ExportFormat.CSV ? "csv" : "ndjson";
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format == ExportFormat.CSV ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("transfers." + extension).build().toString());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
 }
@@ -4,9 +4,11 @@ import com.firisbe.aspect.GenericResponse;
 import com.firisbe.model.DTO.request.CustomerPaymentRequest;
 import com.firisbe.model.DTO.request.CustomerUpdateRequest;
 import com.firisbe.model.DTO.request.PaymentMethodRequest;
+import com.firisbe.model.DTO.response.CursorPage;
 import com.firisbe.model.DTO.response.CustomerResponse;
 import com.firisbe.model.DTO.response.MonthlyStatisticsResponse;
 import com.firisbe.model.DTO.response.PaymentResponse;
+import com.firisbe.model.DTO.response.PaymentStatusResponse;
 import com.firisbe.service.Implementation.CustomerServiceImplementation;
 import com.firisbe.service.Implementation.TransferServiceImplementation;
 import io.swagger.v3.oas.annotations.Operation;
@@ -17,6 +19,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("api/v1/customer")
@@ -52,8 +55,18 @@ public class CustomerController {
 
     @Operation(summary = "Send payment message to Kafka", description = "Send payment message to Kafka", tags = {"customer-controller"})
     @PostMapping("/payment")
-    public ResponseEntity<GenericResponse<String>> sendPaymentMessageToKafka(@RequestBody CustomerPaymentRequest request, @RequestHeader("Authorization") String token) {
-        return new ResponseEntity<>(transferService.sendPaymentMessageToKafka(request, token), HttpStatus.OK);
+    public ResponseEntity<GenericResponse<PaymentStatusResponse>> sendPaymentMessageToKafka(
+            @RequestBody CustomerPaymentRequest request,
+            @RequestHeader("Authorization") String token,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
+    ) {
+        return new ResponseEntity<>(transferService.sendPaymentMessageToKafka(request, token, idempotencyKey), HttpStatus.ACCEPTED);
+    }
+
+    @Operation(summary = "Read payment status", description = "Read the settlement status of a submitted payment", tags = {"customer-controller"})
+    @GetMapping("/payment/status/{paymentId}")
+    public ResponseEntity<GenericResponse<PaymentStatusResponse>> readPaymentStatusForCustomer(@RequestHeader("Authorization") String token, @PathVariable(value = "paymentId") UUID paymentId) {
+        return new ResponseEntity<>(transferService.readPaymentStatusForCustomer(token, paymentId), HttpStatus.OK);
     }
 
     @Operation(summary = "Read payment information", description = "Read payment information", tags = {"customer-controller"})
@@ -64,20 +77,32 @@ public class CustomerController {
 
     @Operation(summary = "Read all received payment for customer", description = "Read all received payment for customer", tags = {"customer-controller"})
     @GetMapping("/payment/received/all")
-    public ResponseEntity<GenericResponse<List<PaymentResponse>>> readAllReceivedPaymentForCustomer(@RequestHeader("Authorization") String token) {
-        return new ResponseEntity<>(transferService.readAllReceivedPaymentForCustomer(token), HttpStatus.OK);
+    public ResponseEntity<GenericResponse<CursorPage<PaymentResponse>>> readAllReceivedPaymentForCustomer(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "${pagination.default-size:50}") int size
+    ) {
+        return new ResponseEntity<>(transferService.readAllReceivedPaymentForCustomer(token, cursor, size), HttpStatus.OK);
     }
 
     @Operation(summary = "Read all sent payment for customer", description = "Read all sent payment for customer", tags = {"customer-controller"})
     @GetMapping("/payment/sent/all")
-    public ResponseEntity<GenericResponse<List<PaymentResponse>>> readAllSentPaymentForCustomer(@RequestHeader("Authorization") String token) {
-        return new ResponseEntity<>(transferService.readAllSentPaymentForCustomer(token), HttpStatus.OK);
+    public ResponseEntity<GenericResponse<CursorPage<PaymentResponse>>> readAllSentPaymentForCustomer(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "${pagination.default-size:50}") int size
+    ) {
+        return new ResponseEntity<>(transferService.readAllSentPaymentForCustomer(token, cursor, size), HttpStatus.OK);
     }
 
     @Operation(summary = "Read all payment for customer", description = "Read all payment for customer", tags = {"customer-controller"})
     @GetMapping("/payment/all")
-    public ResponseEntity<GenericResponse<List<PaymentResponse>>> readAllPaymentForCustomer(@RequestHeader("Authorization") String token) {
-        return new ResponseEntity<>(transferService.readAllPaymentForCustomer(token), HttpStatus.OK);
+    public ResponseEntity<GenericResponse<CursorPage<PaymentResponse>>> readAllPaymentForCustomer(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "${pagination.default-size:50}") int size
+    ) {
+        return new ResponseEntity<>(transferService.readAllPaymentForCustomer(token, cursor, size), HttpStatus.OK);
     }
 
     @Operation(summary = "Read all received payment information with time offset", description = "Read all payment information with time offset", tags = {"customer-controller"})
@@ -112,8 +137,9 @@ public class CustomerController {
     public ResponseEntity<GenericResponse<MonthlyStatisticsResponse>> monthlyStatisticsForCustomer
             (
                     @RequestHeader("Authorization") String token,
-                    @RequestParam("monthlyOffset") int monthOffset
+                    @RequestParam("monthlyOffset") int monthOffset,
+                    @RequestParam(value = "percentiles", defaultValue = "50,90,99") List<Double> percentiles
             ) {
-        return new ResponseEntity<>(service.monthlyStatisticsForCustomer(token, monthOffset), HttpStatus.OK);
+        return new ResponseEntity<>(service.monthlyStatisticsForCustomer(token, monthOffset, percentiles), HttpStatus.OK);
     }
 }
@@ -0,0 +1,7 @@
+package com.firisbe.error;
+
+public class InvalidAnalyticsRequestException extends RuntimeException {
+    public InvalidAnalyticsRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.firisbe.error;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(Throwable cause) {
+        super("Invalid page cursor", cause);
+    }
+
+    public InvalidCursorException() {
+        super("Invalid page cursor");
+    }
+}
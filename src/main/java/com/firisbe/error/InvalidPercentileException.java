@@ -0,0 +1,7 @@
+package com.firisbe.error;
+
+public class InvalidPercentileException extends RuntimeException {
+    public InvalidPercentileException(Double percentile) {
+        super("Invalid percentile: " + percentile + " (expected a value greater than 0 and at most 100)");
+    }
+}
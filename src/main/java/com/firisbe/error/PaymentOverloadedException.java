@@ -0,0 +1,15 @@
+package com.firisbe.error;
+
+/* Ödeme kuyruğu bütçesi aşıldığında fırlatılır; istemci Retry-After süresi kadar bekleyip tekrar denemelidir. */
+public class PaymentOverloadedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public PaymentOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
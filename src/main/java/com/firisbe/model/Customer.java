@@ -17,6 +17,10 @@ import java.util.Collection;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "uk_customer_credit_card_index", columnList = "creditCardIndex", unique = true),
+        @Index(name = "idx_customer_name", columnList = "name")
+})
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
@@ -36,15 +40,21 @@ public class Customer implements UserDetails {
     private String password;
 
     private String creditCardNumber;
+    // Kart numarasının HMAC'i; kart aramaları şifreli kolon yerine bu kolon üzerinden yapılır
+    @JsonIgnore
+    private String creditCardIndex;
     private BigDecimal balance;
 
 
+    // equals/hashCode dışında tutulur; aksi halde bir Customer'ı set'e koymak iki koleksiyonu da veritabanından yükler.
     @JsonIgnore
-    @OneToMany(mappedBy = "sender")
+    @EqualsAndHashCode.Exclude
+    @OneToMany(mappedBy = "sender", fetch = FetchType.LAZY)
     private List<Transfer> sentTransfers = new ArrayList<>();
 
     @JsonIgnore
-    @OneToMany(mappedBy = "receiver")
+    @EqualsAndHashCode.Exclude
+    @OneToMany(mappedBy = "receiver", fetch = FetchType.LAZY)
     private List<Transfer> receivedTransfers = new ArrayList<>();
 
     @Override
@@ -0,0 +1,10 @@
+package com.firisbe.model.DTO.request;
+
+import java.util.List;
+import java.util.UUID;
+
+/* paymentIds boş bırakılırsa en eski kayıtlardan başlanarak limit kadar ödeme tekrar kuyruğa alınır. */
+public record DeadLetterReplayRequest(
+        List<UUID> paymentIds
+) {
+}
@@ -0,0 +1,12 @@
+package com.firisbe.model.DTO.response;
+
+import java.math.BigDecimal;
+
+/* to null ise dilimin üst sınırı yoktur. */
+public record AmountBandVolumeResponse(
+        BigDecimal from,
+        BigDecimal to,
+        long count,
+        BigDecimal amount
+) {
+}
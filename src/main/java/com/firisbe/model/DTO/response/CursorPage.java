@@ -0,0 +1,10 @@
+package com.firisbe.model.DTO.response;
+
+import java.util.List;
+
+/* Keyset sayfası. nextCursor null ise son sayfadır; değilse bir sonraki istekte cursor parametresi olarak gönderilir. */
+public record CursorPage<T>(
+        List<T> items,
+        String nextCursor
+) {
+}
@@ -0,0 +1,12 @@
+package com.firisbe.model.DTO.response;
+
+import java.math.BigDecimal;
+
+public record CustomerVolumeResponse(
+        Long customerId,
+        long sentCount,
+        BigDecimal sentAmount,
+        long receivedCount,
+        BigDecimal receivedAmount
+) {
+}
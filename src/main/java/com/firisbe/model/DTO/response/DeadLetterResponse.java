@@ -0,0 +1,15 @@
+package com.firisbe.model.DTO.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record DeadLetterResponse(
+        UUID paymentId,
+        Long senderId,
+        Long receiverId,
+        BigDecimal amount,
+        String reason,
+        LocalDateTime failedAt
+) {
+}
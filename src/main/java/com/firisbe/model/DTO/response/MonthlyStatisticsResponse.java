@@ -1,6 +1,7 @@
 package com.firisbe.model.DTO.response;
 
 import java.math.BigDecimal;
+import java.util.Map;
 
 public record MonthlyStatisticsResponse(
         BigDecimal monthlyReceivedAmount,
@@ -13,6 +14,9 @@ public record MonthlyStatisticsResponse(
         BigDecimal lowestAmountReceived,
         BigDecimal averageAmountSent,
         BigDecimal averageAmountReceived,
-        Integer offsetDate
+        Integer offsetDate,
+        // "p50", "p99.9" gibi anahtarlarla istenen yüzdelikler
+        Map<String, BigDecimal> sentPercentiles,
+        Map<String, BigDecimal> receivedPercentiles
 ) {
 }
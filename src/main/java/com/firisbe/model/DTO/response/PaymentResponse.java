@@ -1,14 +1,32 @@
 package com.firisbe.model.DTO.response;
 
-import com.firisbe.model.Customer;
-
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+/*
+ *     Listeleme ve okuma endpoint'lerinin transfer görünümü. Repository'de JPQL constructor projection ile doğrudan
+ *     doldurulur; gönderen ve alıcı Customer entity'leri yüklenmez ve yanıtta hassas müşteri alanları yer almaz.
+ */
 public record PaymentResponse(
-        Customer sentCustomer,
-        Customer receiverCustomer,
+        Long id,
+        Long senderId,
+        String senderName,
+        Long receiverId,
+        String receiverName,
         BigDecimal amount,
         LocalDateTime timestamp
 ) {
+    /* JPQL constructor projection'ı için; görünen ad ad ve soyaddan oluşturulur. */
+    public PaymentResponse(Long id, Long senderId, String senderName, String senderLastName,
+                           Long receiverId, String receiverName, String receiverLastName,
+                           BigDecimal amount, LocalDateTime timestamp) {
+        this(id, senderId, displayName(senderName, senderLastName), receiverId, displayName(receiverName, receiverLastName), amount, timestamp);
+    }
+
+    private static String displayName(String name, String lastName) {
+        if (name == null) {
+            return lastName;
+        }
+        return lastName == null ? name : name + " " + lastName;
+    }
 }
@@ -0,0 +1,14 @@
+package com.firisbe.model.DTO.response;
+
+import com.firisbe.model.Enum.PaymentStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record PaymentStatusResponse(
+        UUID paymentId,
+        PaymentStatus status,
+        String reason,
+        LocalDateTime updatedAt
+) {
+}
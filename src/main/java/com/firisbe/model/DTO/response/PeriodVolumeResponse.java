@@ -0,0 +1,11 @@
+package com.firisbe.model.DTO.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record PeriodVolumeResponse(
+        LocalDateTime periodStart,
+        long count,
+        BigDecimal amount
+) {
+}
@@ -0,0 +1,9 @@
+package com.firisbe.model.DTO.response;
+
+public record RollingVolumeResponse(
+        Long customerId,
+        RollingWindowVolume lastFiveMinutes,
+        RollingWindowVolume lastHour,
+        RollingWindowVolume lastDay
+) {
+}
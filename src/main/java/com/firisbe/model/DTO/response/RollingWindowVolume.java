@@ -0,0 +1,11 @@
+package com.firisbe.model.DTO.response;
+
+import java.math.BigDecimal;
+
+public record RollingWindowVolume(
+        long sentCount,
+        BigDecimal sentAmount,
+        long receivedCount,
+        BigDecimal receivedAmount
+) {
+}
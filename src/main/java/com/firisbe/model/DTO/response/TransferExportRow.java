@@ -0,0 +1,14 @@
+package com.firisbe.model.DTO.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/* Dışa aktarımda satır başına yazılan düz kayıt; entity yüklenmediği için persistence context büyümez. */
+public record TransferExportRow(
+        Long id,
+        Long senderId,
+        Long receiverId,
+        BigDecimal amount,
+        LocalDateTime timestamp
+) {
+}
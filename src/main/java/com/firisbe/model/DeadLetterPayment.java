@@ -0,0 +1,40 @@
+package com.firisbe.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/* payment_process.DLT'ye düşen ödemeler. Yönetici tarafından listelenip tekrar kuyruğa alınana kadar burada bekler. */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class DeadLetterPayment {
+    @Id
+    private UUID paymentId;
+
+    @Column(nullable = false)
+    private Long senderId;
+
+    @Column(nullable = false)
+    private Long receiverId;
+
+    @Column(nullable = false)
+    private Long amountMinor;
+
+    @Column(nullable = false)
+    private Long eventTimestamp;
+
+    @Column(nullable = false)
+    private UUID idempotencyKey;
+
+    @Column(length = 1000)
+    private String reason;
+
+    @Column(nullable = false)
+    private LocalDateTime failedAt;
+}
@@ -0,0 +1,7 @@
+package com.firisbe.model.Enum;
+
+public enum AnalyticsPeriod {
+    HOUR,
+    DAY,
+    MONTH
+}
@@ -0,0 +1,6 @@
+package com.firisbe.model.Enum;
+
+public enum TransferDirection {
+    SENT,
+    RECEIVED
+}
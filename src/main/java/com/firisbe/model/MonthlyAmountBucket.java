@@ -0,0 +1,48 @@
+package com.firisbe.model;
+
+import com.firisbe.model.Enum.TransferDirection;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/*
+ *     Müşteri başına, takvim ayı ve yön bazında tutar dağılımı: QuantileSketch kovası başına bir sayaç. Aylık özet
+ *     satırıyla aynı transaction'da upsert edilir; yüzdelikler bu satırlardan hesaplanır.
+ */
+@Entity
+@IdClass(MonthlyAmountBucket.Key.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class MonthlyAmountBucket {
+    @Id
+    private Long customerId;
+
+    // Ayın ilk günü
+    @Id
+    private LocalDate monthStart;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private TransferDirection direction;
+
+    @Id
+    private Integer bucket;
+
+    @Column(nullable = false)
+    private long transferCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long customerId;
+        private LocalDate monthStart;
+        private TransferDirection direction;
+        private Integer bucket;
+    }
+}
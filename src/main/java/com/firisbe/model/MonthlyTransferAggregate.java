@@ -0,0 +1,52 @@
+package com.firisbe.model;
+
+import com.firisbe.model.Enum.TransferDirection;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/*
+ *     Müşteri başına, takvim ayı ve yön bazında transfer özeti. Her transferle aynı transaction'da upsert edilir;
+ *     aylık istatistikler transfer geçmişi yerine bu satırlardan hesaplanır.
+ */
+@Entity
+@IdClass(MonthlyTransferAggregate.Key.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class MonthlyTransferAggregate {
+    @Id
+    private Long customerId;
+
+    // Ayın ilk günü
+    @Id
+    private LocalDate monthStart;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private TransferDirection direction;
+
+    @Column(nullable = false)
+    private long transferCount;
+
+    @Column(nullable = false)
+    private BigDecimal totalAmount;
+
+    private BigDecimal minAmount;
+
+    private BigDecimal maxAmount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long customerId;
+        private LocalDate monthStart;
+        private TransferDirection direction;
+    }
+}
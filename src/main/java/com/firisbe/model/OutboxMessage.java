@@ -0,0 +1,31 @@
+package com.firisbe.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/* Kafka'ya gönderilecek mesajların iş verisiyle aynı transaction'da yazıldığı outbox tablosu. */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = "outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String topic;
+
+    private String messageKey;
+
+    @Column(nullable = false)
+    private byte[] payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
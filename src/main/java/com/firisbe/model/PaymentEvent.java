@@ -0,0 +1,37 @@
+package com.firisbe.model;
+
+import com.firisbe.error.PaymentFailedException;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/*
+ *     payment_process topic'inde taşınan ödeme olayı. Tutar kuruş (minor unit) cinsinden, zaman epoch millis olarak
+ *     tutulur. Kafka üzerindeki sabit ikili formatı PaymentEventSerializer / PaymentEventDeserializer belirler.
+ */
+public record PaymentEvent(
+        UUID paymentId,
+        long senderId,
+        long receiverId,
+        long amountMinor,
+        long timestamp,
+        UUID idempotencyKey
+) {
+    public static final int SCALE = 2;
+
+    public static PaymentEvent of(long senderId, long receiverId, BigDecimal amount, UUID idempotencyKey) {
+        return new PaymentEvent(UUID.randomUUID(), senderId, receiverId, toMinorUnits(amount), System.currentTimeMillis(), idempotencyKey);
+    }
+
+    public BigDecimal amount() {
+        return BigDecimal.valueOf(amountMinor, SCALE);
+    }
+
+    public static long toMinorUnits(BigDecimal amount) {
+        try {
+            return amount.setScale(SCALE).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new PaymentFailedException("Amount must have at most " + SCALE + " decimal places: " + amount);
+        }
+    }
+}
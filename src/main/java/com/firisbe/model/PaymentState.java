@@ -0,0 +1,40 @@
+package com.firisbe.model;
+
+import com.firisbe.model.Enum.PaymentStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/*
+ *     Kuyruğa alınan her ödemenin güncel durumu. Kayıt ödeme id'si ile birincil anahtar üzerinden okunur. (status,
+ *     updatedAt) indeksi bekleyen ödemelerin sayımını ve süresi dolan SETTLED/REJECTED kayıtların silinmesini tablo
+ *     taranmadan yapar.
+ */
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_payment_state_sender_status", columnList = "senderId, status"),
+        @Index(name = "idx_payment_state_status_updated", columnList = "status, updatedAt")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class PaymentState {
+    @Id
+    private UUID paymentId;
+
+    @Column(nullable = false)
+    private Long senderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PaymentStatus status;
+
+    private String reason;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -5,27 +5,49 @@ import lombok.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_transfer_sender_timestamp_id", columnList = "sender_id, timestamp, id"),
+        @Index(name = "idx_transfer_receiver_timestamp_id", columnList = "receiver_id, timestamp, id"),
+        @Index(name = "idx_transfer_timestamp_id", columnList = "timestamp, id"),
+        // Partition'lı tabloda unique constraint olmadığı için tekrar kontrolleri bu indeks üzerinden yapılır
+        @Index(name = "idx_transfer_idempotency_key", columnList = "idempotency_key")
+})
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Getter
 @Setter
 public class Transfer {
+    /* IDENTITY kolonları Hibernate'in insert'leri JDBC batch olarak göndermesini engellediği için havuzlu sequence kullanılıyor. */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transfer_seq")
+    @SequenceGenerator(name = "transfer_seq", sequenceName = "transfer_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    /*
+     *     Taraflar varsayılan olarak yüklenmez: listeleme projection ile, settlement getReference ile, istatistikler ise
+     *     yalnızca tutar ve tarih üzerinden çalışır. EAGER olduğunda her transfer için ayrı bir Customer sorgusu atılıyordu.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sender_id", referencedColumnName = "id")
     private Customer sender;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "receiver_id", referencedColumnName = "id")
     private Customer receiver;
 
     private BigDecimal amount;
 
     private LocalDateTime timestamp;
+
+    /*
+     *     Aynı ödeme isteğinin ikinci kez işlenmesini veritabanı seviyesinde engeller. Partition'lı tabloda unique
+     *     constraint partition anahtarını içermediği için kurulamaz; tekillik trigger ile, aramalar idx_transfer_idempotency_key
+     *     ile sağlanır.
+     */
+    @Column(unique = true)
+    private UUID idempotencyKey;
 }
@@ -1,14 +1,73 @@
 package com.firisbe.repository.jpa;
 
 import com.firisbe.model.Customer;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer,Long> {
     Optional<Customer> findCustomerByName(String name);
     Optional<Customer> findCustomerByEmail(String email);
-    Optional<Customer> findCustomerByCreditCardNumber(String creditCardNumber);
+    Optional<Customer> findCustomerByCreditCardIndex(String creditCardIndex);
 
+    /* Blind index kolonu eklenmeden önce kart kaydetmiş müşteriler. */
+    List<Customer> findAllByCreditCardNumberIsNotNullAndCreditCardIndexIsNull();
+
+    /* Ad soyad aramasının ifadesi; CustomerNameIndexInitializer'daki indeks ifadesiyle birebir aynı olmalıdır. */
+    String FULL_NAME_EXPRESSION = "lower(coalesce(name, '') || ' ' || coalesce(last_name, ''))";
+
+    /*
+     *     Kısmi ad araması. PostgreSQL'de içerir aramaları trigram (GIN), önek aramaları text_pattern_ops indeksiyle
+     *     çözülür; önce eşleşen müşteri id'leri bulunur, transferler bu id'lerle ayrıca sayfalanır.
+     */
+    @Query(value = "select id from customer where " + FULL_NAME_EXPRESSION + " like :pattern escape '\\' order by id limit :limit", nativeQuery = true)
+    List<Long> searchIdsByFullName(@Param("pattern") String pattern, @Param("limit") int limit);
+
+    /* Keyset sayfalama: birincil anahtar üzerinden cursor'dan sonraki müşteriler. */
+    List<Customer> findAllByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /* Bakiye yeterliyse tek bir UPDATE ile düşer; etkilenen satır sayısı 0 ise bakiye yetersiz ya da hesap yoktur. */
+    @Modifying
+    @Query("update Customer c set c.balance = c.balance - :amount where c.id = :id and c.balance >= :amount")
+    int debit(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("update Customer c set c.balance = c.balance + :amount where c.id = :id and c.balance is not null")
+    int credit(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    /*
+     *     Net bakiye değişimini yazar. Bakiye eksiye düşecekse satır güncellenmez ve 0 döner; ledger modunda bellekteki
+     *     bakiye eski kalmış olsa bile veritabanındaki bakiye korunur.
+     */
+    @Modifying
+    @Query("update Customer c set c.balance = c.balance + :delta where c.id = :id and c.balance + :delta >= 0")
+    int applyDelta(@Param("id") Long id, @Param("delta") BigDecimal delta);
+
+    /* Netting modunda yalnızca bakiyeler, entity yüklenmeden id sırasıyla kilitlenerek okunur. */
+    @Query(value = "select c.id as id, c.balance as balance from customer c where c.id in (:ids) order by c.id for update", nativeQuery = true)
+    List<AccountBalance> findBalancesForUpdate(@Param("ids") Collection<Long> ids);
+
+    /* Ledger modunda başlangıçta bakiyelerin belleğe yüklenmesi için. */
+    @Query("select c.id as id, c.balance as balance from Customer c where c.balance is not null")
+    List<AccountBalance> findAllBalances();
+
+    interface AccountBalance {
+        Long getId();
+
+        BigDecimal getBalance();
+    }
+
+    /* Satır kilitleri id sırasıyla alınır; eşzamanlı batch'ler birbirini deadlock'a sokmaz. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Customer> findAllByIdInOrderByIdAsc(Collection<Long> ids);
 }
@@ -0,0 +1,12 @@
+package com.firisbe.repository.jpa;
+
+import com.firisbe.model.DeadLetterPayment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface DeadLetterPaymentRepository extends JpaRepository<DeadLetterPayment, UUID> {
+    List<DeadLetterPayment> findAllByOrderByFailedAtAsc(Pageable pageable);
+}
@@ -0,0 +1,42 @@
+package com.firisbe.repository.jpa;
+
+import com.firisbe.model.Enum.TransferDirection;
+import com.firisbe.model.MonthlyAmountBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MonthlyAmountBucketRepository extends JpaRepository<MonthlyAmountBucket, MonthlyAmountBucket.Key> {
+
+    /* Kova sayacını tek sorguda oluşturur ya da artırır. */
+    @Modifying
+    @Query(value = "insert into monthly_amount_bucket as b (customer_id, month_start, direction, bucket, transfer_count) " +
+            "values (:customerId, :monthStart, :direction, :bucket, :count) " +
+            "on conflict (customer_id, month_start, direction, bucket) do update set " +
+            "transfer_count = b.transfer_count + excluded.transfer_count", nativeQuery = true)
+    void upsert(@Param("customerId") Long customerId,
+                @Param("monthStart") LocalDate monthStart,
+                @Param("direction") String direction,
+                @Param("bucket") int bucket,
+                @Param("count") long count);
+
+    /* Pencere içindeki aylık sketch'ler veritabanında birleştirilir; yön ve kova başına tek satır döner. */
+    @Query("select b.direction as direction, b.bucket as bucket, sum(b.transferCount) as transferCount " +
+            "from MonthlyAmountBucket b where b.customerId = :customerId and b.monthStart >= :monthStart " +
+            "group by b.direction, b.bucket")
+    List<BucketCount> summarizeSince(@Param("customerId") Long customerId, @Param("monthStart") LocalDate monthStart);
+
+    interface BucketCount {
+        TransferDirection getDirection();
+
+        Integer getBucket();
+
+        Long getTransferCount();
+    }
+}
@@ -0,0 +1,39 @@
+package com.firisbe.repository.jpa;
+
+import com.firisbe.model.MonthlyTransferAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MonthlyTransferAggregateRepository extends JpaRepository<MonthlyTransferAggregate, MonthlyTransferAggregate.Key> {
+
+    /*
+     *     Özet satırını tek sorguda oluşturur ya da verilen sayı, toplam, en küçük ve en büyük değerlerle birleştirir.
+     *     Satır yoksa eşzamanlı iki insert'ten biri çakışma üzerinden güncellemeye döner, okuma-yazma yarışı olmaz.
+     */
+    @Modifying
+    @Query(value = "insert into monthly_transfer_aggregate as a " +
+            "(customer_id, month_start, direction, transfer_count, total_amount, min_amount, max_amount) " +
+            "values (:customerId, :monthStart, :direction, :count, :total, :min, :max) " +
+            "on conflict (customer_id, month_start, direction) do update set " +
+            "transfer_count = a.transfer_count + excluded.transfer_count, " +
+            "total_amount = a.total_amount + excluded.total_amount, " +
+            "min_amount = least(a.min_amount, excluded.min_amount), " +
+            "max_amount = greatest(a.max_amount, excluded.max_amount)", nativeQuery = true)
+    void upsert(@Param("customerId") Long customerId,
+                @Param("monthStart") LocalDate monthStart,
+                @Param("direction") String direction,
+                @Param("count") long count,
+                @Param("total") BigDecimal total,
+                @Param("min") BigDecimal min,
+                @Param("max") BigDecimal max);
+
+    List<MonthlyTransferAggregate> findAllByCustomerIdAndMonthStartGreaterThanEqual(Long customerId, LocalDate monthStart);
+}
@@ -0,0 +1,15 @@
+package com.firisbe.repository.jpa;
+
+import com.firisbe.model.OutboxMessage;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+
+import java.util.List;
+
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Long> {
+    /* Satırlar kilitlenerek okunur; birden fazla instance aynı anda relay çalıştırsa da mesajlar sırayla ve bir kez gönderilir. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<OutboxMessage> findAllByOrderByIdAsc(Pageable pageable);
+}
@@ -0,0 +1,31 @@
+package com.firisbe.repository.jpa;
+
+import com.firisbe.model.Enum.PaymentStatus;
+import com.firisbe.model.PaymentState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+public interface PaymentStateRepository extends JpaRepository<PaymentState, UUID> {
+    long countByStatusAndUpdatedAtAfter(PaymentStatus status, LocalDateTime updatedAfter);
+
+    long countBySenderIdAndStatusAndUpdatedAtAfter(Long senderId, PaymentStatus status, LocalDateTime updatedAfter);
+
+    @Modifying
+    @Query("update PaymentState p set p.status = :status, p.reason = :reason, p.updatedAt = :updatedAt where p.paymentId in :paymentIds")
+    int updateStatus(@Param("paymentIds") Collection<UUID> paymentIds,
+                     @Param("status") PaymentStatus status,
+                     @Param("reason") String reason,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+
+    /* Son durumdaki (SETTLED, REJECTED) eski kayıtlardan en fazla limit kadarını siler; kilitler kısa tutulur. */
+    @Modifying
+    @Query(value = "delete from payment_state where payment_id in (select payment_id from payment_state " +
+            "where status in ('SETTLED', 'REJECTED') and updated_at < :before limit :limit)", nativeQuery = true)
+    int deleteCompletedBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
@@ -1,7 +1,165 @@
 package com.firisbe.repository.jpa;
 
+import com.firisbe.model.DTO.response.PaymentResponse;
+import com.firisbe.model.DTO.response.TransferExportRow;
+import com.firisbe.model.Enum.TransferDirection;
 import com.firisbe.model.Transfer;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface TransferRepository extends JpaRepository<Transfer,Long> {
+    boolean existsByIdempotencyKey(UUID idempotencyKey);
+
+    /* Batch ve ledger akışlarında tekrar eden ödemeler tek sorguda elenir. */
+    @Query("select t.idempotencyKey from Transfer t where t.idempotencyKey in :keys")
+    Set<UUID> findExistingIdempotencyKeys(@Param("keys") Collection<UUID> keys);
+
+    /* Listeleme sorgularının ortak projection'ı; müşteri entity'leri yerine yalnızca id ve ad kolonları okunur. */
+    String PAYMENT_RESPONSE = "select new com.firisbe.model.DTO.response.PaymentResponse(" +
+            "t.id, s.id, s.name, s.lastName, r.id, r.name, r.lastName, t.amount, t.timestamp) " +
+            "from Transfer t join t.sender s join t.receiver r ";
+
+    @Query(PAYMENT_RESPONSE + "where t.id = :id")
+    Optional<PaymentResponse> findPaymentResponseById(@Param("id") Long id);
+
+    /*
+     *     Admin filtreleri. sender_id, receiver_id ve timestamp indeksleri kullanıldığı için süre tablonun boyutuna değil
+     *     sonuç sayısına bağlıdır.
+     */
+    @Query(PAYMENT_RESPONSE + "where t.timestamp > :from")
+    List<PaymentResponse> findAllByTimestampAfter(@Param("from") LocalDateTime from);
+
+    @Query(PAYMENT_RESPONSE + "where t.timestamp > :start and t.timestamp < :end")
+    List<PaymentResponse> findAllByTimestampBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query(PAYMENT_RESPONSE + "where s.id = :customerId or r.id = :customerId")
+    List<PaymentResponse> findAllByCustomerId(@Param("customerId") Long customerId);
+
+    @Query(PAYMENT_RESPONSE + "where s.creditCardIndex = :creditCardIndex or r.creditCardIndex = :creditCardIndex")
+    List<PaymentResponse> findAllByCustomerCreditCardIndex(@Param("creditCardIndex") String creditCardIndex);
+
+    /* Müşterinin belirli bir tarihten sonraki gönderdiği, aldığı ya da tüm transferleri. */
+    @Query(PAYMENT_RESPONSE + "where s.id = :customerId and t.timestamp > :from")
+    List<PaymentResponse> findSentAfter(@Param("customerId") Long customerId, @Param("from") LocalDateTime from);
+
+    @Query(PAYMENT_RESPONSE + "where r.id = :customerId and t.timestamp > :from")
+    List<PaymentResponse> findReceivedAfter(@Param("customerId") Long customerId, @Param("from") LocalDateTime from);
+
+    @Query(PAYMENT_RESPONSE + "where (s.id = :customerId or r.id = :customerId) and t.timestamp > :from")
+    List<PaymentResponse> findCustomerPaymentsAfter(@Param("customerId") Long customerId, @Param("from") LocalDateTime from);
+
+    /*
+     *     Keyset sayfalama: (timestamp, id) anahtarı verilen cursor'dan küçük olan kayıtlar yeniden eskiye okunur.
+     *     (sender_id, timestamp, id), (receiver_id, timestamp, id) ve (timestamp, id) indeksleri sayesinde veritabanı
+     *     doğrudan cursor'ın olduğu yere konumlanır. Satır karşılaştırmasına ek olarak verilen t.timestamp <= :timestamp
+     *     koşulu PostgreSQL'in cursor'dan yeni aylık partition'ları hiç okumamasını sağlar.
+     */
+    @Query(PAYMENT_RESPONSE + "where t.timestamp <= :timestamp and (t.timestamp, t.id) < (:timestamp, :id) order by t.timestamp desc, t.id desc")
+    List<PaymentResponse> findPage(@Param("timestamp") LocalDateTime timestamp, @Param("id") Long id, Limit limit);
+
+    @Query(PAYMENT_RESPONSE + "where s.id = :customerId and t.timestamp <= :timestamp and (t.timestamp, t.id) < (:timestamp, :id) order by t.timestamp desc, t.id desc")
+    List<PaymentResponse> findSentPage(@Param("customerId") Long customerId, @Param("timestamp") LocalDateTime timestamp, @Param("id") Long id, Limit limit);
+
+    @Query(PAYMENT_RESPONSE + "where r.id = :customerId and t.timestamp <= :timestamp and (t.timestamp, t.id) < (:timestamp, :id) order by t.timestamp desc, t.id desc")
+    List<PaymentResponse> findReceivedPage(@Param("customerId") Long customerId, @Param("timestamp") LocalDateTime timestamp, @Param("id") Long id, Limit limit);
+
+    @Query(PAYMENT_RESPONSE + "where (s.id = :customerId or r.id = :customerId) and t.timestamp <= :timestamp and (t.timestamp, t.id) < (:timestamp, :id) " +
+            "order by t.timestamp desc, t.id desc")
+    List<PaymentResponse> findCustomerPage(@Param("customerId") Long customerId, @Param("timestamp") LocalDateTime timestamp, @Param("id") Long id, Limit limit);
+
+    @Query(PAYMENT_RESPONSE + "where (s.id in :customerIds or r.id in :customerIds) and t.timestamp <= :timestamp and (t.timestamp, t.id) < (:timestamp, :id) " +
+            "order by t.timestamp desc, t.id desc")
+    List<PaymentResponse> findCustomersPage(@Param("customerIds") Collection<Long> customerIds, @Param("timestamp") LocalDateTime timestamp, @Param("id") Long id, Limit limit);
+
+    /*
+     *     Dışa aktarım için tek yönlü cursor. Satırlar entity yerine düz kayıt olarak okunur ve sürücüden fetch size
+     *     kadar parçalar halinde çekilir (PostgreSQL bunun için açık bir transaction gerektirir).
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select new com.firisbe.model.DTO.response.TransferExportRow(t.id, t.sender.id, t.receiver.id, t.amount, t.timestamp) " +
+            "from Transfer t where t.timestamp >= :from and t.timestamp < :to order by t.timestamp, t.id")
+    Stream<TransferExportRow> streamExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select new com.firisbe.model.DTO.response.TransferExportRow(t.id, t.sender.id, t.receiver.id, t.amount, t.timestamp) " +
+            "from Transfer t where (t.sender.id = :customerId or t.receiver.id = :customerId) " +
+            "and t.timestamp >= :from and t.timestamp < :to order by t.timestamp, t.id")
+    Stream<TransferExportRow> streamExportByCustomerId(@Param("customerId") Long customerId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /*
+     *     Sütunlu analiz kopyasının artımlı yenilemesi: (timestamp, id) cursor'ından sonraki ve until'den önceki transferler
+     *     zaman sırasıyla okunur. until'in şimdiden geride tutulması, commit'i gecikmiş transaction'ların cursor'ın
+     *     gerisinde kalmasını önler.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select new com.firisbe.model.DTO.response.TransferExportRow(t.id, t.sender.id, t.receiver.id, t.amount, t.timestamp) " +
+            "from Transfer t where t.timestamp >= :timestamp and (t.timestamp, t.id) > (:timestamp, :id) and t.timestamp < :until " +
+            "order by t.timestamp, t.id")
+    Stream<TransferExportRow> streamSnapshotAfter(@Param("timestamp") LocalDateTime timestamp, @Param("id") Long id, @Param("until") LocalDateTime until);
+
+    /*
+     *     İstatistik özeti: yön başına tek satır (count, sum, min, max). İki dal (sender_id, timestamp, id) ve
+     *     (receiver_id, timestamp, id) indekslerini kullanır ve tek sorguda döner; transferler belleğe alınmaz.
+     */
+    @Query("select com.firisbe.model.Enum.TransferDirection.SENT as direction, count(t) as transferCount, " +
+            "sum(t.amount) as totalAmount, min(t.amount) as minAmount, max(t.amount) as maxAmount " +
+            "from Transfer t where t.sender.id = :customerId and t.timestamp >= :since " +
+            "union all " +
+            "select com.firisbe.model.Enum.TransferDirection.RECEIVED as direction, count(t) as transferCount, " +
+            "sum(t.amount) as totalAmount, min(t.amount) as minAmount, max(t.amount) as maxAmount " +
+            "from Transfer t where t.receiver.id = :customerId and t.timestamp >= :since")
+    List<DirectionStatistics> summarizeSince(@Param("customerId") Long customerId, @Param("since") LocalDateTime since);
+
+    /*
+     *     Özet satırı olmayan müşteriler için aynı pencerenin QuantileSketch kovaları transferlerden tek sorguda çıkarılır.
+     *     Kova ifadesi QuantileSketch.bucketOf ile aynıdır; dönen satır sayısı transfer sayısına değil kova sayısına bağlıdır.
+     */
+    @Query(value = "select 'SENT' as direction, s.bucket as bucket, count(*) as transferCount " +
+            "from (select cast(ceil(ln(greatest(t.amount, 0.01)) / :lnGamma) as integer) as bucket " +
+            "from transfer t where t.sender_id = :customerId and t.timestamp >= :since) s group by s.bucket " +
+            "union all " +
+            "select 'RECEIVED' as direction, r.bucket as bucket, count(*) as transferCount " +
+            "from (select cast(ceil(ln(greatest(t.amount, 0.01)) / :lnGamma) as integer) as bucket " +
+            "from transfer t where t.receiver_id = :customerId and t.timestamp >= :since) r group by r.bucket", nativeQuery = true)
+    List<MonthlyAmountBucketRepository.BucketCount> summarizeBucketsSince(@Param("customerId") Long customerId,
+                                                                         @Param("since") LocalDateTime since,
+                                                                         @Param("lnGamma") double lnGamma);
+
+    interface DirectionStatistics {
+        TransferDirection getDirection();
+
+        Long getTransferCount();
+
+        BigDecimal getTotalAmount();
+
+        BigDecimal getMinAmount();
+
+        BigDecimal getMaxAmount();
+    }
 }
@@ -0,0 +1,161 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.error.PaymentOverloadedException;
+import com.firisbe.service.Interface.AdmissionControlServiceInterface;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ *     Ödeme isteklerini kuyruğa almadan önce bütçe kontrolü yapar. payment_process consumer lag'i ve PENDING durumdaki
+ *     ödeme sayısı periyodik olarak okunur; istek yolunda yalnızca bu değerler ve gönderenin kendi bekleyen ödeme sayısı
+ *     kullanılır.
+ *
+ *     Lag ya da bekleyen ödeme bütçesi aşıldığında tüm istekler reddedilir. Bütçe içindeyken her müşteri toplam bekleyen
+ *     ödeme bütçesinin en fazla customer-share kadarını kullanabilir, böylece tek bir müşteri kuyruğu dolduramaz.
+ *     Reddedilen istekler 429 ve consumer'ın mevcut işleme hızına göre hesaplanan Retry-After ile cevaplanır.
+ *
+ *     Metrikler: payment.admission.lag, payment.admission.in_flight, payment.admission.rejected (reason etiketiyle).
+ */
+@Service
+public class AdmissionControlServiceImplementation implements AdmissionControlServiceInterface {
+    private final Admin admin;
+    private final PaymentStatusServiceImplementation paymentStatusService;
+    private final OutboxServiceImplementation outbox;
+    private final MeterRegistry meterRegistry;
+    private final String topic;
+    private final String groupId;
+    private final boolean enabled;
+    private final long maxLag;
+    private final long maxInFlight;
+    private final long customerLimit;
+    private final long refreshMillis;
+    private final long timeoutMillis;
+
+    private final AtomicLong lag = new AtomicLong();
+    private final AtomicLong inFlight = new AtomicLong();
+    // Son okumadan bu yana kabul edilen istekler; iki okuma arasındaki ani yüklerde bütçenin aşılmasını engeller.
+    private final AtomicLong admittedSinceRefresh = new AtomicLong();
+    private volatile long committedOffsets = -1;
+    private volatile double recordsPerSecond;
+
+    public AdmissionControlServiceImplementation(Admin admin,
+                                                 PaymentStatusServiceImplementation paymentStatusService,
+                                                 OutboxServiceImplementation outbox,
+                                                 MeterRegistry meterRegistry,
+                                                 @Value("${kafka.topic.paymentProcess}") String topic,
+                                                 @Value("${kafka.groupId}") String groupId,
+                                                 @Value("${payment.admission.enabled:true}") boolean enabled,
+                                                 @Value("${payment.admission.max-lag:50000}") long maxLag,
+                                                 @Value("${payment.admission.max-in-flight:100000}") long maxInFlight,
+                                                 @Value("${payment.admission.customer-share:0.01}") double customerShare,
+                                                 @Value("${payment.admission.refresh-ms:2000}") long refreshMillis,
+                                                 @Value("${payment.admission.timeout-ms:1000}") long timeoutMillis) {
+        this.admin = admin;
+        this.paymentStatusService = paymentStatusService;
+        this.outbox = outbox;
+        this.meterRegistry = meterRegistry;
+        this.topic = topic;
+        this.groupId = groupId;
+        this.enabled = enabled;
+        this.maxLag = maxLag;
+        this.maxInFlight = maxInFlight;
+        this.customerLimit = Math.max(1, (long) Math.ceil(maxInFlight * customerShare));
+        this.refreshMillis = refreshMillis;
+        this.timeoutMillis = timeoutMillis;
+        Gauge.builder("payment.admission.lag", lag, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("payment.admission.in_flight", this, service -> service.inFlight.get() + service.admittedSinceRefresh.get())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void admit(Long senderId) {
+        if (!enabled) {
+            return;
+        }
+        // Genel bütçe önce kontrol edilir; aşıldıysa müşterinin bekleyen ödemeleri sorgulanmaz
+        if (lag.get() >= maxLag) {
+            reject("lag", "Payment queue is behind, try again later");
+        }
+        if (inFlight.get() + admittedSinceRefresh.get() >= maxInFlight) {
+            reject("in_flight", "Too many pending payments, try again later");
+        }
+        if (paymentStatusService.countPending(senderId) >= customerLimit) {
+            reject("customer", "Too many pending payments for customer " + senderId);
+        }
+        admittedSinceRefresh.incrementAndGet();
+    }
+
+    /* Lag, grubun commit ettiği offset'ler ile partition sonları arasındaki fark olarak hesaplanır. */
+    @Override
+    @Scheduled(fixedDelayString = "${payment.admission.refresh-ms:2000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(groupId)
+                    .partitionsToOffsetAndMetadata()
+                    .get(timeoutMillis, TimeUnit.MILLISECONDS);
+            Map<TopicPartition, OffsetSpec> request = new HashMap<>();
+            long committedSum = 0;
+            for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : committed.entrySet()) {
+                if (entry.getKey().topic().equals(topic) && entry.getValue() != null) {
+                    request.put(entry.getKey(), OffsetSpec.latest());
+                    committedSum += entry.getValue().offset();
+                }
+            }
+            long endSum = 0;
+            if (!request.isEmpty()) {
+                Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends = admin.listOffsets(request)
+                        .all()
+                        .get(timeoutMillis, TimeUnit.MILLISECONDS);
+                for (ListOffsetsResult.ListOffsetsResultInfo info : ends.values()) {
+                    endSum += info.offset();
+                }
+            }
+            if (committedOffsets >= 0) {
+                recordsPerSecond = Math.max(0, committedSum - committedOffsets) * 1000.0 / refreshMillis;
+            }
+            committedOffsets = committedSum;
+            lag.set(Math.max(0, endSum - committedSum));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            // Son bilinen lag değeri korunur; Kafka'ya ulaşılamaması tek başına istekleri durdurmamalı.
+            outbox.send("error_logs", "RuntimeException: Failed to read payment consumer lag. Reason: " + e.getMessage());
+        }
+        inFlight.set(paymentStatusService.countPending());
+        admittedSinceRefresh.set(0);
+    }
+
+    /* Retry-After, mevcut lag'in consumer'ın son ölçülen hızıyla ne kadar sürede eriyeceğine göre 1-60 saniye arasında verilir. */
+    long retryAfterSeconds() {
+        double rate = recordsPerSecond;
+        if (lag.get() == 0) {
+            return 1;
+        }
+        if (rate <= 0) {
+            return 60;
+        }
+        return Math.min(60, Math.max(1, (long) Math.ceil(lag.get() / rate)));
+    }
+
+    private void reject(String reason, String message) {
+        meterRegistry.counter("payment.admission.rejected", "reason", reason).increment();
+        throw new PaymentOverloadedException(message, retryAfterSeconds());
+    }
+}
@@ -2,19 +2,27 @@ package com.firisbe.service.Implementation;
 
 import com.firisbe.aspect.GenericResponse;
 import com.firisbe.aspect.encryption.Encryption;
+import com.firisbe.aspect.pagination.KeysetCursor;
+import com.firisbe.aspect.statistics.QuantileSketch;
 import com.firisbe.error.*;
 import com.firisbe.model.Customer;
 import com.firisbe.model.DTO.request.*;
 import com.firisbe.model.DTO.response.AuthResponse;
+import com.firisbe.model.DTO.response.CursorPage;
 import com.firisbe.model.DTO.response.CustomerResponse;
 import com.firisbe.model.DTO.response.MonthlyStatisticsResponse;
 import com.firisbe.model.Enum.Role;
-import com.firisbe.model.Transfer;
+import com.firisbe.model.Enum.TransferDirection;
+import com.firisbe.model.MonthlyTransferAggregate;
 import com.firisbe.repository.jpa.CustomerRepository;
+import com.firisbe.repository.jpa.MonthlyAmountBucketRepository;
+import com.firisbe.repository.jpa.TransferRepository;
 import com.firisbe.service.JwtService;
 import com.firisbe.service.Interface.CustomerServiceInterface;
 import lombok.AllArgsConstructor;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -23,10 +31,14 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 
@@ -35,10 +47,14 @@ import java.util.Optional;
 public class CustomerServiceImplementation implements CustomerServiceInterface {
     private final CustomerRepository repo;
     private final PasswordEncoder passwordEncoder;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final OutboxServiceImplementation outbox;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final Encryption encryption;
+    private final TransferAggregateServiceImplementation transferAggregateService;
+    private final TransferRepository transferRepository;
+
+    private static final int NAME_SEARCH_MAX_CUSTOMERS = 1000;
 
     /* Bu method bearer token ile customer'ı bulmasını sağlıyor. */
     public Customer findCustomerToToken(String token) {
@@ -46,11 +62,11 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
             token = token.substring(7);
             final String customerName = jwtService.extractUsername(token);
             Customer c = repo.findCustomerByEmail(customerName).orElseThrow(CustomerNotFoundException::new);
-            kafkaTemplate.send("successful_logs", "The user named " + c.getName() + " has been successfully found in the database");
+            outbox.send("successful_logs", "The user named " + c.getName() + " has been successfully found in the database");
             return c;
 
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "CustomerNotFound: Failed to find the user in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "CustomerNotFound: Failed to find the user in the database. Reason: " + e.getMessage());
             throw new CustomerNotFoundException(e);
         }
     }
@@ -59,10 +75,10 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
         try {
             return repo.findCustomerByEmail(mail).orElseThrow(CustomerNotFoundException::new);
         } catch (CustomerNotFoundException e) {
-            kafkaTemplate.send("error_logs", "CustomerNotFound: Failed to find the user in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "CustomerNotFound: Failed to find the user in the database. Reason: " + e.getMessage());
             throw new CustomerNotFoundException(e);
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "GeneralError: Failed to find the user in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "GeneralError: Failed to find the user in the database. Reason: " + e.getMessage());
             throw new RuntimeException("Someting gone wrong", e);
         }
     }
@@ -71,23 +87,123 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
         try {
             return repo.findById(id).orElseThrow(CustomerNotFoundException::new);
         } catch (CustomerNotFoundException e) {
-            kafkaTemplate.send("error_logs", "CustomerNotFound: Failed to find the user in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "CustomerNotFound: Failed to find the user in the database. Reason: " + e.getMessage());
             throw new CustomerNotFoundException(e);
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "GeneralError: Failed to find the user in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "GeneralError: Failed to find the user in the database. Reason: " + e.getMessage());
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    /* Toplu ödeme işlemede ilgili tüm hesapları tek sorguda, id sırasıyla kilitleyerek getirir. */
+    public List<Customer> findAllByIdForUpdate(Collection<Long> ids) {
+        try {
+            return repo.findAllByIdInOrderByIdAsc(ids);
+        } catch (Exception e) {
+            outbox.send("error_logs", "GeneralError: Failed to lock the users in the database. Reason: " + e.getMessage());
             throw new RuntimeException(e.getMessage());
         }
     }
 
+    /* Netting modunda ilgili hesapların yalnızca bakiyelerini, id sırasıyla kilitleyerek getirir. */
+    public List<CustomerRepository.AccountBalance> findBalancesForUpdate(Collection<Long> ids) {
+        try {
+            return repo.findBalancesForUpdate(ids);
+        } catch (Exception e) {
+            outbox.send("error_logs", "GeneralError: Failed to lock the balances in the database. Reason: " + e.getMessage());
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    /* Netting modunda bir hesabın batch içindeki net bakiye değişimini tek UPDATE ile yazar. */
+    public void applyDelta(Long id, BigDecimal delta) {
+        repo.applyDelta(id, delta);
+    }
+
+    /* Veritabanına gitmeden, transfer kaydında ilişki kurmak için kullanılan referans. */
+    public Customer getReference(Long id) {
+        return repo.getReferenceById(id);
+    }
+
+    /* Bakiye yeterliyse gönderen hesaptan tutarı atomik olarak düşer. */
+    public boolean debit(Long id, BigDecimal amount) {
+        return repo.debit(id, amount) == 1;
+    }
+
+    public boolean credit(Long id, BigDecimal amount) {
+        return repo.credit(id, amount) == 1;
+    }
+
     public void saveCustomer(Customer customer) {
         try {
             repo.save(customer);
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "GeneralError: Failed to save the user in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "GeneralError: Failed to save the user in the database. Reason: " + e.getMessage());
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    public void saveAllCustomers(Collection<Customer> customers) {
+        try {
+            repo.saveAll(customers);
+        } catch (Exception e) {
+            outbox.send("error_logs", "GeneralError: Failed to save the users in the database. Reason: " + e.getMessage());
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    /*
+     *     Admin ad aramasında eşleşen müşteri id'leri. 3 karakterden kısa aramalar trigram indeksinden yararlanamayacağı
+     *     için önek araması olarak yapılır; çok genel aramalarda ilk NAME_SEARCH_MAX_CUSTOMERS müşteri ile sınırlanır.
+     */
+    public List<Long> searchCustomerIdsByName(String name) {
+        String query = name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        String escaped = query.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        String pattern = query.length() < 3 ? escaped + "%" : "%" + escaped + "%";
+        try {
+            return repo.searchIdsByFullName(pattern, NAME_SEARCH_MAX_CUSTOMERS);
+        } catch (Exception e) {
+            outbox.send("error_logs", "GeneralError: Failed to search customers by name. Reason: " + e.getMessage());
             throw new RuntimeException(e.getMessage());
         }
     }
 
+    /* Kart numarası şifreli saklanır; aramalarda kullanılan blind index her kart atamasında birlikte güncellenir. */
+    private void assignCreditCard(Customer c, String cardNumber) {
+        c.setCreditCardNumber(encryption.encrypt(cardNumber));
+        c.setCreditCardIndex(encryption.blindIndex(cardNumber));
+    }
+
+    /*
+     *     Blind index kolonundan önce kart eklemiş müşterilerin indeksi başlangıçta bir kez doldurulur. Her müşteri kendi
+     *     transaction'ında kaydedilir; aynı karta sahip başka bir müşteri yüzünden benzersizlik ihlali olan kayıt loglanır
+     *     ve diğerleri etkilenmez. Çözülemeyen kart numaraları loglanır ve olduğu gibi bırakılır; anahtar yanlış ya da
+     *     değiştirilmiş olabilir, şifreli veri silinmez.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillCreditCardIndex() {
+        try {
+            for (Customer c : repo.findAllByCreditCardNumberIsNotNullAndCreditCardIndexIsNull()) {
+                String cardNumber = encryption.decrypt(c.getCreditCardNumber());
+                if (cardNumber == null) {
+                    outbox.send("error_logs", "GeneralError: Credit card could not be decrypted for customer " + c.getId());
+                    continue;
+                }
+                c.setCreditCardIndex(encryption.blindIndex(cardNumber));
+                try {
+                    repo.saveAndFlush(c);
+                } catch (DataIntegrityViolationException e) {
+                    outbox.send("error_logs", "GeneralError: Credit card index conflicts with another customer for customer " + c.getId());
+                }
+            }
+        } catch (Exception e) {
+            outbox.send("error_logs", "GeneralError: Failed to backfill credit card index. Reason: " + e.getMessage());
+        }
+    }
+
     public boolean isValidCreditCardNumber(String cardNumber) {
         // Temizleme: Sadece rakamları içeren bir dize oluştur
         String cleanedNumber = cardNumber.replaceAll("[-\\s]+", "");
@@ -135,10 +251,10 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
             }
 
             //Kredi kartının güncellenmesi için gereken yapı
-            Optional<Customer> testCustomer = repo.findCustomerByCreditCardNumber(encryption.encrypt(request.creditCardNumber()));
+            Optional<Customer> testCustomer = repo.findCustomerByCreditCardIndex(encryption.blindIndex(request.creditCardNumber()));
             if (isValidCreditCardNumber(request.creditCardNumber())) {
-                if (testCustomer.isEmpty() || testCustomer.get().getCreditCardNumber().equals(passwordEncoder.encode(request.creditCardNumber()))) {
-                    c.setCreditCardNumber(passwordEncoder.encode(request.creditCardNumber()));
+                if (testCustomer.isEmpty() || testCustomer.get().getId().equals(c.getId())) {
+                    assignCreditCard(c, request.creditCardNumber());
                 } else {
                     throw new InvalidCreditCardNumberException();
                 }
@@ -152,23 +268,23 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
 
             repo.save(c);
 
-            kafkaTemplate.send("successful_logs", "The user named " + request.name() + " has been successfully updated in the database");
+            outbox.send("successful_logs", "The user named " + request.name() + " has been successfully updated in the database");
 
             CustomerResponse response = new CustomerResponse(c.getName(), c.getLastName(), c.getEmail());
             return new GenericResponse<>(response, true);
 
 
         } catch (CustomerNotFoundException e) {
-            kafkaTemplate.send("error_logs", "CustomerNotFound: Failed to update the user named " + request.name() + " in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "CustomerNotFound: Failed to update the user named " + request.name() + " in the database. Reason: " + e.getMessage());
             throw new CustomerNotFoundException(e);
         } catch (InvalidEMailException e) {
-            kafkaTemplate.send("error_logs", "InvalidEMail: Failed to update the user named " + request.name() + " in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "InvalidEMail: Failed to update the user named " + request.name() + " in the database. Reason: " + e.getMessage());
             throw new InvalidEMailException(e);
         } catch (InvalidCreditCardNumberException e) {
-            kafkaTemplate.send("error_logs", "InvalidCreditCardNumber: Failed to update the user named " + request.name() + " in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "InvalidCreditCardNumber: Failed to update the user named " + request.name() + " in the database. Reason: " + e.getMessage());
             throw new InvalidCreditCardNumberException(e);
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "GeneralError: Failed to update the user named " + request.name() + " in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "GeneralError: Failed to update the user named " + request.name() + " in the database. Reason: " + e.getMessage());
             throw new UpdateCustomerRuntimeException(e);
         }
     }
@@ -192,10 +308,10 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
             }
 
             //Kredi kartının güncellenmesi için gereken yapı
-            Optional<Customer> testCustomer = repo.findCustomerByCreditCardNumber(encryption.encrypt(request.creditCardNumber()));
+            Optional<Customer> testCustomer = repo.findCustomerByCreditCardIndex(encryption.blindIndex(request.creditCardNumber()));
             if (isValidCreditCardNumber(request.creditCardNumber())) {
-                if (testCustomer.isEmpty() || testCustomer.get().getCreditCardNumber().equals(passwordEncoder.encode(request.creditCardNumber()))) {
-                    c.setCreditCardNumber(passwordEncoder.encode(request.creditCardNumber()));
+                if (testCustomer.isEmpty() || testCustomer.get().getId().equals(c.getId())) {
+                    assignCreditCard(c, request.creditCardNumber());
                 } else {
                     throw new InvalidCreditCardNumberException();
                 }
@@ -208,22 +324,22 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
 
             repo.save(c);
 
-            kafkaTemplate.send("successful_logs", "The user named " + request.name() + " has been successfully updated in the database");
+            outbox.send("successful_logs", "The user named " + request.name() + " has been successfully updated in the database");
 
             CustomerResponse response = new CustomerResponse(c.getName(), c.getLastName(), c.getEmail());
             return new GenericResponse<>(response, true);
 
         } catch (CustomerNotFoundException e) {
-            kafkaTemplate.send("error_logs", "CustomerNotFound: Failed to update the user named " + request.name() + " in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "CustomerNotFound: Failed to update the user named " + request.name() + " in the database. Reason: " + e.getMessage());
             throw new CustomerNotFoundException(e);
         } catch (InvalidEMailException e) {
-            kafkaTemplate.send("error_logs", "InvalidEMail: Failed to update the user named " + request.name() + " in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "InvalidEMail: Failed to update the user named " + request.name() + " in the database. Reason: " + e.getMessage());
             throw new InvalidEMailException(e);
         } catch (InvalidCreditCardNumberException e) {
-            kafkaTemplate.send("error_logs", "InvalidCreditCardNumber: Failed to update the user named " + request.name() + " in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "InvalidCreditCardNumber: Failed to update the user named " + request.name() + " in the database. Reason: " + e.getMessage());
             throw new InvalidCreditCardNumberException(e);
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "GeneralError: Failed to update the user named " + request.name() + " in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "GeneralError: Failed to update the user named " + request.name() + " in the database. Reason: " + e.getMessage());
             throw new UpdateCustomerRuntimeException(e);
         }
     }
@@ -234,13 +350,13 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
         try {
             Customer c = repo.findById(id).orElseThrow(CustomerNotFoundException::new);
             CustomerResponse response = new CustomerResponse(c.getName(), c.getLastName(), c.getEmail());
-            kafkaTemplate.send("successful_logs", "The user named " + c.getName() + " has been successfully read in the database");
+            outbox.send("successful_logs", "The user named " + c.getName() + " has been successfully read in the database");
             return new GenericResponse<>(response, true);
         } catch (CustomerNotFoundException e) {
-            kafkaTemplate.send("error_logs", "Failed to read in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "Failed to read in the database. Reason: " + e.getMessage());
             throw new CustomerNotFoundException(e);
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "Failed to read in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "Failed to read in the database. Reason: " + e.getMessage());
             throw new RuntimeException(e);
         }
     }
@@ -252,10 +368,10 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
             Customer c = findCustomerToToken(token);
 
             CustomerResponse response = new CustomerResponse(c.getName(), c.getLastName(), c.getEmail());
-            kafkaTemplate.send("successful_logs", "The user named " + c.getName() + " has been successfully read in the database");
+            outbox.send("successful_logs", "The user named " + c.getName() + " has been successfully read in the database");
             return new GenericResponse<>(response, true);
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "Failed to read in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "Failed to read in the database. Reason: " + e.getMessage());
             throw new CustomerNotFoundException(e);
         }
     }
@@ -263,13 +379,20 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
 
     /* Bu method admin hesabının tüm müşterileri görüntülemesini sağlıyor. */
     @Override
-    public GenericResponse<List<CustomerResponse>> readAllForAdmin() {
+    public GenericResponse<CursorPage<CustomerResponse>> readAllForAdmin(String cursor, int size) {
         try {
-            List<CustomerResponse> responseList = repo.findAll().stream().map(customer -> new CustomerResponse(customer.getName(), customer.getLastName(), customer.getEmail())).toList();
-            kafkaTemplate.send("successful_logs", "All data has been successfully read from the database");
-            return new GenericResponse<>(responseList, true);
+            KeysetCursor after = KeysetCursor.ascending(cursor);
+            List<Customer> customers = repo.findAllByIdGreaterThanOrderByIdAsc(after.id(), KeysetCursor.limit(size));
+            CursorPage<CustomerResponse> response = KeysetCursor.page(customers, size,
+                    customer -> new KeysetCursor(null, customer.getId()),
+                    customer -> new CustomerResponse(customer.getName(), customer.getLastName(), customer.getEmail()));
+            outbox.send("successful_logs", "All data has been successfully read from the database");
+            return new GenericResponse<>(response, true);
+        } catch (InvalidCursorException e) {
+            outbox.send("error_logs", "InvalidCursorException: " + e.getMessage());
+            throw e;
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "An error was encountered while reading all data from the database. The reason for the error is: " + e.getMessage());
+            outbox.send("error_logs", "An error was encountered while reading all data from the database. The reason for the error is: " + e.getMessage());
             throw new RuntimeException();
         }
     }
@@ -280,13 +403,13 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
         try {
             Customer c = repo.findById(id).orElseThrow(CustomerNotFoundException::new);
             repo.delete(c);
-            kafkaTemplate.send("successful_logs", "The user named " + c.getName() + " has been successfully deleted in the database");
+            outbox.send("successful_logs", "The user named " + c.getName() + " has been successfully deleted in the database");
             return new GenericResponse<>("Customer deleted successfully.", true);
         } catch (CustomerNotFoundException e) {
-            kafkaTemplate.send("error_logs", "Failed to delete in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "Failed to delete in the database. Reason: " + e.getMessage());
             throw new CustomerNotFoundException(e);
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "Failed to delete in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "Failed to delete in the database. Reason: " + e.getMessage());
             throw new RuntimeException(e);
         }
     }
@@ -297,10 +420,10 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
         try {
             Customer c = findCustomerToToken(token);
             repo.delete(c);
-            kafkaTemplate.send("successful_logs", "The user named " + c.getName() + " has been successfully deleted in the database");
+            outbox.send("successful_logs", "The user named " + c.getName() + " has been successfully deleted in the database");
             return new GenericResponse<>("Customer deleted successfully.", true);
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "Failed to delete in the database. Reason: " + e.getMessage());
+            outbox.send("error_logs", "Failed to delete in the database. Reason: " + e.getMessage());
             throw new CustomerNotFoundException(e);
         }
     }
@@ -310,10 +433,10 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
     public GenericResponse<String> deleteAllForAdmin() {
         try {
             repo.deleteAll();
-            kafkaTemplate.send("successful_logs", "All data has been successfully deleted from the database");
+            outbox.send("successful_logs", "All data has been successfully deleted from the database");
             return new GenericResponse<>("All customers deleted successfully.", true);
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "An error was encountered while deleting all data from the database. The reason for the error is: " + e.getMessage());
+            outbox.send("error_logs", "An error was encountered while deleting all data from the database. The reason for the error is: " + e.getMessage());
             throw new RuntimeException(e);
         }
     }
@@ -335,10 +458,10 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
             AuthResponse response = new AuthResponse(
                     "Login successful", jwtToken
             );
-            kafkaTemplate.send("successful_logs", "The user named " + customer.getName() + " has been successfully logged in to the database");
+            outbox.send("successful_logs", "The user named " + customer.getName() + " has been successfully logged in to the database");
             return new GenericResponse<>(response, true);
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "An error occurred while logging in to the database. The reason for the error is: " + e.getMessage());
+            outbox.send("error_logs", "An error occurred while logging in to the database. The reason for the error is: " + e.getMessage());
             throw new RuntimeException();
         }
     }
@@ -375,7 +498,7 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
 
                 AuthResponse response = new AuthResponse("Register successful", jwtToken
                 );
-                kafkaTemplate.send("successful_logs", "The user named " + request.name() + " has been successfully registered in the database");
+                outbox.send("successful_logs", "The user named " + request.name() + " has been successfully registered in the database");
 
                 return new GenericResponse<>(response, true);
             } else {
@@ -389,16 +512,16 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
 //            }
 
         } catch (CustomerAlreadyExistsException e) {
-            kafkaTemplate.send("error_logs", "CustomerAlreadyExists: " + e.getMessage());
+            outbox.send("error_logs", "CustomerAlreadyExists: " + e.getMessage());
             throw new CustomerAlreadyExistsException(e);
         } catch (InvalidCreditCardNumberException e) {
-            kafkaTemplate.send("error_logs", "InvalidCreditCardNumber: " + e.getMessage());
+            outbox.send("error_logs", "InvalidCreditCardNumber: " + e.getMessage());
             throw new InvalidCreditCardNumberException(e);
         } catch (CreditCardAlreadyExist e) {
-            kafkaTemplate.send("error_logs", "CreditCardAlreadyExist: " + e.getMessage());
+            outbox.send("error_logs", "CreditCardAlreadyExist: " + e.getMessage());
             throw new CreditCardAlreadyExist(e);
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "GeneralError: " + e.getMessage());
+            outbox.send("error_logs", "GeneralError: " + e.getMessage());
             throw new RuntimeException("An unknown error occurred: ", e.getCause());
         }
 
@@ -412,8 +535,8 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
             if (c.getCreditCardNumber() != null) {
                 throw new CreditCardAlreadyExist();
             } else {
-                if (repo.findCustomerByCreditCardNumber(encryption.encrypt(request.creditCardNumber())).isEmpty()) {
-                    c.setCreditCardNumber(encryption.encrypt(request.creditCardNumber()));
+                if (repo.findCustomerByCreditCardIndex(encryption.blindIndex(request.creditCardNumber())).isEmpty()) {
+                    assignCreditCard(c, request.creditCardNumber());
                 } else {
                     throw new CreditCardNumberAlreadyExist();
                 }
@@ -421,16 +544,16 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
                 c.setBalance(BigDecimal.valueOf(10000));
             }
             repo.save(c);
-            kafkaTemplate.send("successful_logs", "The user named " + c.getName() + " has been successfully added a payment method in the database");
+            outbox.send("successful_logs", "The user named " + c.getName() + " has been successfully added a payment method in the database");
             return new GenericResponse<>("Payment method added successfully", true);
         } catch (CreditCardAlreadyExist e) {
-            kafkaTemplate.send("error_logs", "CreditCardAlreadyExist: " + e.getMessage());
+            outbox.send("error_logs", "CreditCardAlreadyExist: " + e.getMessage());
             throw new CreditCardAlreadyExist(e);
         } catch (CreditCardNumberAlreadyExist e) {
-            kafkaTemplate.send("error_logs", "CreditCardNumberAlreadyExist: " + e.getMessage());
+            outbox.send("error_logs", "CreditCardNumberAlreadyExist: " + e.getMessage());
             throw new CreditCardNumberAlreadyExist(e);
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "GeneralError: " + e.getMessage());
+            outbox.send("error_logs", "GeneralError: " + e.getMessage());
             throw new RuntimeException(e.getMessage());
         }
 
@@ -438,155 +561,150 @@ public class CustomerServiceImplementation implements CustomerServiceInterface {
 
     /* Tüm veriye göre verilen ay ofsetinin değerine göre istatislik çıkaran fonksiyon */
     @Override
-    public GenericResponse<MonthlyStatisticsResponse> monthlyStatisticsForCustomer(String token, int monthOffset) {
+    public GenericResponse<MonthlyStatisticsResponse> monthlyStatisticsForCustomer(String token, int monthOffset, List<Double> percentiles) {
         try {
             Customer customer = findCustomerToToken(token);
-
-            LocalDateTime referenceDate = LocalDateTime.now().minusMonths(monthOffset);
-
-            BigDecimal averageAmountReceived = BigDecimal.valueOf(0);
-            BigDecimal highestAmountReceived = BigDecimal.valueOf(0);
-            BigDecimal lowestAmountReceived = BigDecimal.valueOf(0);
-            int receivedCount = 0;
-            BigDecimal monthlyReceivedAmount = BigDecimal.valueOf(0);
-
-            BigDecimal averageAmountSent = BigDecimal.valueOf(0);
-            BigDecimal highestAmountSent = BigDecimal.valueOf(0);
-            BigDecimal lowestAmountSent = BigDecimal.valueOf(0);
-            int sentCount = 0;
-            BigDecimal monthlySentAmount = BigDecimal.valueOf(0);
-
-            List<Transfer> receivedTransfers = customer.getReceivedTransfers().stream()
-                    .filter(transfer -> transfer.getTimestamp().isAfter(referenceDate))
-                    .toList();
-
-            List<Transfer> sentTransfers = customer.getSentTransfers().stream()
-                    .filter(transfer -> transfer.getTimestamp().isAfter(referenceDate))
-                    .toList();
-
-            if (!receivedTransfers.isEmpty()) {
-                List<BigDecimal> receivedTransferAmounts = receivedTransfers.stream()
-                        .map(Transfer::getAmount)
-                        .toList();
-
-                for (BigDecimal count : receivedTransferAmounts) {
-                    monthlyReceivedAmount = monthlyReceivedAmount.add(count);
-                }
-                averageAmountReceived = monthlyReceivedAmount.divide(BigDecimal.valueOf(receivedTransferAmounts.size()), 2, RoundingMode.HALF_UP);
-                highestAmountReceived = Collections.max(receivedTransferAmounts);
-                lowestAmountReceived = Collections.min(receivedTransferAmounts);
-                receivedCount = receivedTransferAmounts.size();
-            }
-            if (!sentTransfers.isEmpty()) {
-                List<BigDecimal> sentTransferAmounts = sentTransfers.stream()
-                        .map(Transfer::getAmount)
-                        .toList();
-
-                for (BigDecimal count : sentTransferAmounts) {
-                    monthlySentAmount = monthlySentAmount.add(count);
-                }
-                averageAmountSent = monthlySentAmount.divide(BigDecimal.valueOf(sentTransferAmounts.size()), 2, RoundingMode.HALF_UP);
-                highestAmountSent = Collections.max(sentTransferAmounts);
-                lowestAmountSent = Collections.min(sentTransferAmounts);
-                sentCount = sentTransferAmounts.size();
-            }
-
-            MonthlyStatisticsResponse response = new MonthlyStatisticsResponse(
-                    monthlyReceivedAmount,
-                    monthlySentAmount,
-                    receivedCount,
-                    sentCount,
-                    highestAmountSent,
-                    lowestAmountSent,
-                    highestAmountReceived,
-                    lowestAmountReceived,
-                    averageAmountSent,
-                    averageAmountReceived,
-                    monthOffset
-            );
-            kafkaTemplate.send("successful_logs", "The user named " + customer.getName() + " has been successfully read monthly statistics in the database");
+            MonthlyStatisticsResponse response = monthlyStatistics(customer, monthOffset, percentiles);
+            outbox.send("successful_logs", "The user named " + customer.getName() + " has been successfully read monthly statistics in the database");
             return new GenericResponse<>(response, true);
+        } catch (InvalidPercentileException e) {
+            outbox.send("error_logs", "InvalidPercentileException: " + e.getMessage());
+            throw e;
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "GeneralError: " + e.getMessage());
+            outbox.send("error_logs", "GeneralError: " + e.getMessage());
             throw new RuntimeException();
         }
     }
 
     /* Admin hesabının istatistik verisi çıkarması  */
     @Override
-    public GenericResponse<MonthlyStatisticsResponse> monthlyStatisticsForAdmin(Long id, int monthOffset) {
+    public GenericResponse<MonthlyStatisticsResponse> monthlyStatisticsForAdmin(Long id, int monthOffset, List<Double> percentiles) {
         try {
             Customer customer = repo.findById(id).orElseThrow(CustomerNotFoundException::new);
+            MonthlyStatisticsResponse response = monthlyStatistics(customer, monthOffset, percentiles);
+            outbox.send("successful_logs", "The user has been successfully read monthly statistics in the database");
+            return new GenericResponse<>(response, true);
+        } catch (InvalidPercentileException e) {
+            outbox.send("error_logs", "InvalidPercentileException: " + e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            outbox.send("error_logs", "GeneralError: " + e.getMessage());
+            throw new RuntimeException();
+        }
+    }
 
-            LocalDateTime referenceDate = LocalDateTime.now().minusMonths(monthOffset);
-
-            BigDecimal averageAmountReceived = BigDecimal.valueOf(0);
-            BigDecimal highestAmountReceived = BigDecimal.valueOf(0);
-            BigDecimal lowestAmountReceived = BigDecimal.valueOf(0);
-            int receivedCount = 0;
-            BigDecimal monthlyReceivedAmount = BigDecimal.valueOf(0);
+    /*
+     *     İstatistikler aylık özet satırlarından hesaplanır: ay ofseti kadar önceki takvim ayının başından bugüne kadar olan
+     *     her ay ve yön için bir satır okunur, maliyet transfer sayısından bağımsızdır. Özet tablosundan önceki transferlerin
+     *     geriye dönük özetlenmesi tamamlanmadıysa özetler eksik olabileceğinden aynı pencere veritabanında transferlerden tek
+     *     sorguda toplanır. Yüzdelikler aynı şekilde aylık tutar dağılımı sketch'lerinden, yoksa transferlerden çıkarılan kovalardan hesaplanır.
+     */
+    private MonthlyStatisticsResponse monthlyStatistics(Customer customer, int monthOffset, List<Double> percentiles) {
+        percentiles.forEach(CustomerServiceImplementation::validatePercentile);
+        LocalDate since = YearMonth.now().minusMonths(monthOffset).atDay(1);
+        DirectionTotals sent = new DirectionTotals();
+        DirectionTotals received = new DirectionTotals();
+
+        boolean fromAggregates = transferAggregateService.isBackfilled();
+        if (fromAggregates) {
+            for (MonthlyTransferAggregate aggregate : transferAggregateService.findSince(customer.getId(), since)) {
+                DirectionTotals totals = aggregate.getDirection() == TransferDirection.RECEIVED ? received : sent;
+                totals.add(aggregate.getTransferCount(), aggregate.getTotalAmount(), aggregate.getMinAmount(), aggregate.getMaxAmount());
+            }
+        } else {
+            for (TransferRepository.DirectionStatistics statistics : transferRepository.summarizeSince(customer.getId(), since.atStartOfDay())) {
+                DirectionTotals totals = statistics.getDirection() == TransferDirection.RECEIVED ? received : sent;
+                totals.add(statistics.getTransferCount(), statistics.getTotalAmount(), statistics.getMinAmount(), statistics.getMaxAmount());
+            }
+        }
+        if (!percentiles.isEmpty()) {
+            loadSketches(customer.getId(), since, fromAggregates, sent, received);
+        }
 
-            BigDecimal averageAmountSent = BigDecimal.valueOf(0);
-            BigDecimal highestAmountSent = BigDecimal.valueOf(0);
-            BigDecimal lowestAmountSent = BigDecimal.valueOf(0);
-            int sentCount = 0;
-            BigDecimal monthlySentAmount = BigDecimal.valueOf(0);
+        return new MonthlyStatisticsResponse(
+                received.total,
+                sent.total,
+                (int) received.count,
+                (int) sent.count,
+                sent.highest(),
+                sent.lowest(),
+                received.highest(),
+                received.lowest(),
+                sent.average(),
+                received.average(),
+                monthOffset,
+                sent.percentiles(percentiles),
+                received.percentiles(percentiles)
+        );
+    }
 
-            List<Transfer> receivedTransfers = customer.getReceivedTransfers().stream()
-                    .filter(transfer -> transfer.getTimestamp().isAfter(referenceDate))
-                    .toList();
+    /*
+     *     Aylık sketch kovaları özet satırlarıyla birlikte yazılır. Kova toplamı özet sayısını tutmuyorsa (sketch'lerden önce
+     *     yazılmış aylar) pencerenin kovaları transferlerden tek sorguda yeniden çıkarılır.
+     */
+    private void loadSketches(Long customerId, LocalDate since, boolean fromAggregates, DirectionTotals sent, DirectionTotals received) {
+        if (fromAggregates) {
+            addBuckets(transferAggregateService.findBucketsSince(customerId, since), sent, received);
+            if (sent.sketch.count() == sent.count && received.sketch.count() == received.count) {
+                return;
+            }
+            sent.sketch = new QuantileSketch();
+            received.sketch = new QuantileSketch();
+        }
+        addBuckets(transferRepository.summarizeBucketsSince(customerId, since.atStartOfDay(), QuantileSketch.LN_GAMMA), sent, received);
+    }
 
-            List<Transfer> sentTransfers = customer.getSentTransfers().stream()
-                    .filter(transfer -> transfer.getTimestamp().isAfter(referenceDate))
-                    .toList();
+    private static void addBuckets(List<MonthlyAmountBucketRepository.BucketCount> buckets, DirectionTotals sent, DirectionTotals received) {
+        for (MonthlyAmountBucketRepository.BucketCount bucket : buckets) {
+            DirectionTotals totals = bucket.getDirection() == TransferDirection.RECEIVED ? received : sent;
+            totals.sketch.add(bucket.getBucket(), bucket.getTransferCount());
+        }
+    }
 
-            if (!receivedTransfers.isEmpty()) {
-                List<BigDecimal> receivedTransferAmounts = receivedTransfers.stream()
-                        .map(Transfer::getAmount)
-                        .toList();
+    private static void validatePercentile(Double percentile) {
+        if (percentile == null || !(percentile > 0 && percentile <= 100)) {
+            throw new InvalidPercentileException(percentile);
+        }
+    }
 
-                for (BigDecimal count : receivedTransferAmounts) {
-                    monthlyReceivedAmount = monthlyReceivedAmount.add(count);
-                }
-                averageAmountReceived = monthlyReceivedAmount.divide(BigDecimal.valueOf(receivedTransferAmounts.size()), 2, RoundingMode.HALF_UP);
-                highestAmountReceived = Collections.max(receivedTransferAmounts);
-                lowestAmountReceived = Collections.min(receivedTransferAmounts);
-                receivedCount = receivedTransferAmounts.size();
+    /* Bir yöndeki özet satırlarının toplamı; boş yönler için tüm değerler sıfır döner. */
+    private static final class DirectionTotals {
+        private long count;
+        private BigDecimal total = BigDecimal.ZERO;
+        private BigDecimal min;
+        private BigDecimal max;
+        private QuantileSketch sketch = new QuantileSketch();
+
+        void add(Long rowCount, BigDecimal rowTotal, BigDecimal rowMin, BigDecimal rowMax) {
+            if (rowCount == null || rowCount == 0) {
+                return;
             }
-            if (!sentTransfers.isEmpty()) {
-                List<BigDecimal> sentTransferAmounts = sentTransfers.stream()
-                        .map(Transfer::getAmount)
-                        .toList();
+            count += rowCount;
+            total = total.add(rowTotal);
+            min = min == null || rowMin.compareTo(min) < 0 ? rowMin : min;
+            max = max == null || rowMax.compareTo(max) > 0 ? rowMax : max;
+        }
 
-                for (BigDecimal count : sentTransferAmounts) {
-                    monthlySentAmount = monthlySentAmount.add(count);
-                }
-                averageAmountSent = monthlySentAmount.divide(BigDecimal.valueOf(sentTransferAmounts.size()), 2, RoundingMode.HALF_UP);
-                highestAmountSent = Collections.max(sentTransferAmounts);
-                lowestAmountSent = Collections.min(sentTransferAmounts);
-                sentCount = sentTransferAmounts.size();
-            }
+        BigDecimal highest() {
+            return max == null ? BigDecimal.ZERO : max;
+        }
 
-            MonthlyStatisticsResponse response = new MonthlyStatisticsResponse(
-                    monthlyReceivedAmount,
-                    monthlySentAmount,
-                    receivedCount,
-                    sentCount,
-                    highestAmountSent,
-                    lowestAmountSent,
-                    highestAmountReceived,
-                    lowestAmountReceived,
-                    averageAmountSent,
-                    averageAmountReceived,
-                    monthOffset
-            );
-            kafkaTemplate.send("successful_logs", "The user has been successfully read monthly statistics in the database");
-            return new GenericResponse<>(response, true);
-        } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "GeneralError: " + e.getMessage());
-            throw new RuntimeException();
+        BigDecimal lowest() {
+            return min == null ? BigDecimal.ZERO : min;
         }
-    }
 
+        // Ortalama, double dönen AVG yerine toplam / adet olarak BigDecimal hassasiyetinde hesaplanır
+        BigDecimal average() {
+            return count == 0 ? BigDecimal.ZERO : total.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+        }
 
+        Map<String, BigDecimal> percentiles(List<Double> percentiles) {
+            Map<String, BigDecimal> values = new LinkedHashMap<>();
+            for (Double percentile : percentiles) {
+                values.put("p" + BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString(),
+                        sketch.quantile(percentile / 100, min, max));
+            }
+            return values;
+        }
+    }
 }
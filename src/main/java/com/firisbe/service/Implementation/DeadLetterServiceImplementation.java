@@ -0,0 +1,97 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.aspect.GenericResponse;
+import com.firisbe.model.DTO.request.DeadLetterReplayRequest;
+import com.firisbe.model.DTO.response.DeadLetterResponse;
+import com.firisbe.model.DeadLetterPayment;
+import com.firisbe.model.PaymentEvent;
+import com.firisbe.repository.jpa.DeadLetterPaymentRepository;
+import com.firisbe.service.Interface.DeadLetterServiceInterface;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@AllArgsConstructor
+public class DeadLetterServiceImplementation implements DeadLetterServiceInterface {
+    private final DeadLetterPaymentRepository repo;
+    private final OutboxServiceImplementation outbox;
+    private final PaymentStatusServiceImplementation paymentStatusService;
+
+    /* DLT'ye düşen ödeme kaydedilir ve durumu REJECTED olarak işaretlenir. Aynı ödeme tekrar düşerse kayıt güncellenir. */
+    @Override
+    @Transactional
+    public void record(PaymentEvent event, String reason) {
+        String message = reason != null && reason.length() > 1000 ? reason.substring(0, 1000) : reason;
+        repo.save(DeadLetterPayment.builder()
+                .paymentId(event.paymentId())
+                .senderId(event.senderId())
+                .receiverId(event.receiverId())
+                .amountMinor(event.amountMinor())
+                .eventTimestamp(event.timestamp())
+                .idempotencyKey(event.idempotencyKey())
+                .reason(message)
+                .failedAt(LocalDateTime.now())
+                .build());
+        paymentStatusService.rejected(event, message);
+        outbox.send("error_logs", "PaymentDeadLettered: " + event.paymentId() + " Reason: " + message);
+    }
+
+    @Override
+    public GenericResponse<List<DeadLetterResponse>> readDeadLettersForAdmin(int limit) {
+        try {
+            List<DeadLetterResponse> response = repo.findAllByOrderByFailedAtAsc(PageRequest.of(0, limit)).stream()
+                    .map(deadLetter -> new DeadLetterResponse(
+                            deadLetter.getPaymentId(),
+                            deadLetter.getSenderId(),
+                            deadLetter.getReceiverId(),
+                            BigDecimal.valueOf(deadLetter.getAmountMinor(), PaymentEvent.SCALE),
+                            deadLetter.getReason(),
+                            deadLetter.getFailedAt()
+                    )).toList();
+            outbox.send("payment_log", "Dead letters listed successfully");
+            return new GenericResponse<>(response, true);
+        } catch (Exception e) {
+            outbox.send("error_logs", "RuntimeException: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /*
+     *     Seçilen ödemeler aynı paymentId ve idempotencyKey ile payment_process'e tekrar yazılır ve DLT kaydı silinir.
+     *     Ödeme bu arada işlenmiş olsa bile idempotencyKey sayesinde ikinci kez uygulanmaz. Outbox ve durum kayıtları aynı
+     *     transaction'da yazıldığı için kısmi replay olmaz.
+     */
+    @Override
+    @Transactional
+    public GenericResponse<String> replayDeadLettersForAdmin(DeadLetterReplayRequest request, int limit) {
+        try {
+            List<DeadLetterPayment> deadLetters = request == null || request.paymentIds() == null || request.paymentIds().isEmpty()
+                    ? repo.findAllByOrderByFailedAtAsc(PageRequest.of(0, limit))
+                    : repo.findAllById(request.paymentIds());
+            for (DeadLetterPayment deadLetter : deadLetters) {
+                PaymentEvent event = new PaymentEvent(
+                        deadLetter.getPaymentId(),
+                        deadLetter.getSenderId(),
+                        deadLetter.getReceiverId(),
+                        deadLetter.getAmountMinor(),
+                        deadLetter.getEventTimestamp(),
+                        deadLetter.getIdempotencyKey()
+                );
+                outbox.send("payment_process", String.valueOf(event.senderId()), event);
+                paymentStatusService.pending(event);
+            }
+            repo.deleteAllInBatch(deadLetters);
+            outbox.send("payment_log", deadLetters.size() + " dead-lettered payments replayed");
+            return new GenericResponse<>(deadLetters.size() + " dead-lettered payments replayed", true);
+        } catch (Exception e) {
+            outbox.send("error_logs", "RuntimeException: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.service.Interface.IdempotencyServiceInterface;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+/*
+ *     Ödeme isteklerinin Idempotency-Key başlığına göre tekrarlarını API katmanında eleyen servis. Anahtarlar sınırlı
+ *     boyutlu ve süreli bir Caffeine cache'inde tutulur; isabet oranı ve cache boyutu "payment.idempotency" adıyla
+ *     Micrometer metriklerine bağlanır. Cache yalnızca ilk savunma hattıdır: süresi dolmuş ya da başka bir instance'a
+ *     gelmiş tekrarlar, Transfer üzerindeki tekil idempotencyKey kolonu ile consumer tarafında elenir.
+ */
+@Service
+public class IdempotencyServiceImplementation implements IdempotencyServiceInterface {
+    private final Cache<UUID, UUID> keys;
+
+    public IdempotencyServiceImplementation(MeterRegistry meterRegistry,
+                                            @Value("${payment.idempotency.max-size:100000}") long maxSize,
+                                            @Value("${payment.idempotency.ttl:24h}") Duration ttl) {
+        this.keys = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, keys, "payment.idempotency");
+    }
+
+    /* Farklı müşterilerin aynı anahtarı kullanması çakışma yaratmasın diye anahtar müşteri id'si ile birlikte hash'lenir. */
+    @Override
+    public UUID keyFor(Long customerId, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return UUID.randomUUID();
+        }
+        return UUID.nameUUIDFromBytes((customerId + ":" + idempotencyKey).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /*
+     *     Anahtarı verilen ödeme id'si ile kaydeder ve anahtarın sahibi olan ödeme id'sini döner. Dönen id verilenden
+     *     farklıysa istek bir tekrardır. Kontrol ve kayıt tek atomik cache işlemidir.
+     */
+    @Override
+    public UUID register(UUID key, UUID paymentId) {
+        return keys.get(key, k -> paymentId);
+    }
+
+    /* Kuyruğa alınamayan isteğin anahtarı bırakılır, böylece istemcinin tekrar denemesi reddedilmez. */
+    @Override
+    public void release(UUID key) {
+        keys.invalidate(key);
+    }
+}
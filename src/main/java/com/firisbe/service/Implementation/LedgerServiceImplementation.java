@@ -0,0 +1,439 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.error.PaymentFailedException;
+import com.firisbe.model.Customer;
+import com.firisbe.model.PaymentEvent;
+import com.firisbe.model.Transfer;
+import com.firisbe.repository.jpa.CustomerRepository;
+import com.firisbe.repository.jpa.TransferRepository;
+import com.firisbe.service.Interface.LedgerServiceInterface;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+ *     payment.settlement.mode=ledger olduğunda devreye giren bellek içi ödeme motoru. Bakiyeler hesap id'sine göre
+ *     shard'lara bölünür ve her shard'ın bakiyelerine yalnızca o shard'ın tek yazıcı thread'i dokunur; bu yüzden bakiye
+ *     kontrolü ve güncellemesi kilitsizdir. Bakiye kontrolü gönderenin shard'ında yapılır, alacak kaydı alıcının
+ *     shard'ına mesaj olarak iletilir (alacak hiçbir zaman başarısız olmadığı için iki shard'ın aynı anda kilitlenmesi
+ *     gerekmez). Tamamlanan transferler write-behind kuyruğu üzerinden toplu olarak veritabanına yazılır; Kafka offset'i
+ *     ancak transfer veritabanına yazıldıktan sonra onaylanır.
+ *
+ *     Shard thread'leri veritabanına hiç erişmez: hesap yükleme, red durumları ve loglar write-behind thread'inde yazılır.
+ *     Bellekteki bakiye yetmezse ya da hesap bilinmiyorsa bakiye write-behind thread'inde veritabanından yenilenir ve
+ *     ödeme bir kez daha denenir; böylece başka bir instance'ın ya da rebalance öncesi sahibinin yazdığı değişimler
+ *     görülür. Bellekteki bakiye eski ve yüksek kalmışsa veritabanındaki koşullu güncelleme bakiyeyi eksiye düşürmez; o
+ *     batch'in ödemeleri tek tek yeniden yazılır, yazılamayanlar reddedilip bellekten geri alınır ve bakiye yenilenir.
+ *
+ *     Tekrar teslim edilen ödemeler bakiyelere dokunmadan elenir: veritabanına yazılmış olanlar listener'da idempotency
+ *     anahtarıyla, henüz yazılmamış olanlar gönderenin shard'ındaki anahtar kümesiyle yakalanır. Aynı anda işlenen ödeme
+ *     sayısı max-in-flight ile sınırlıdır; sınıra ulaşıldığında listener thread'i bekler ve consumer yeni kayıt çekmez,
+ *     böylece shard ve write-behind kuyrukları sınırsız büyümez.
+ */
+@Service
+@ConditionalOnProperty(name = "payment.settlement.mode", havingValue = "ledger")
+public class LedgerServiceImplementation implements LedgerServiceInterface {
+    private static final int BALANCE = 0;
+    private static final int UNPERSISTED = 1;
+
+    private final CustomerRepository customerRepository;
+    private final TransferRepository transferRepository;
+    private final OutboxServiceImplementation outbox;
+    private final TransactionTemplate paymentTransactionTemplate;
+    private final PaymentStatusServiceImplementation paymentStatusService;
+    private final TransferAggregateServiceImplementation transferAggregateService;
+    private final RollingVolumeServiceImplementation rollingVolumeService;
+
+    private final Shard[] shards;
+    private final BlockingQueue<Completion> writeBehindQueue;
+    private final BlockingQueue<Reload> reloadQueue;
+    private final Semaphore inFlightPermits;
+    private final int flushBatchSize;
+    private final long flushIntervalMillis;
+    private final Thread writeBehindThread;
+    private volatile boolean running = true;
+
+    public LedgerServiceImplementation(CustomerRepository customerRepository,
+                                       TransferRepository transferRepository,
+                                       OutboxServiceImplementation outbox,
+                                       TransactionTemplate paymentTransactionTemplate,
+                                       PaymentStatusServiceImplementation paymentStatusService,
+                                       TransferAggregateServiceImplementation transferAggregateService,
+                                       RollingVolumeServiceImplementation rollingVolumeService,
+                                       @Value("${payment.ledger.shards:0}") int shardCount,
+                                       @Value("${payment.ledger.flush-batch-size:1000}") int flushBatchSize,
+                                       @Value("${payment.ledger.flush-interval-ms:5}") long flushIntervalMillis,
+                                       @Value("${payment.ledger.max-in-flight:10000}") int maxInFlight) {
+        this.customerRepository = customerRepository;
+        this.transferRepository = transferRepository;
+        this.outbox = outbox;
+        this.paymentTransactionTemplate = paymentTransactionTemplate;
+        this.paymentStatusService = paymentStatusService;
+        this.transferAggregateService = transferAggregateService;
+        this.rollingVolumeService = rollingVolumeService;
+        this.flushBatchSize = flushBatchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.inFlightPermits = new Semaphore(maxInFlight);
+        this.writeBehindQueue = new LinkedBlockingQueue<>(maxInFlight);
+        // Bir ödemenin aynı anda en fazla bir yenileme isteği ve bir geri alma sonrası yenilemesi olur
+        this.reloadQueue = new LinkedBlockingQueue<>(2 * maxInFlight);
+
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            // Bir ödemenin aynı anda en fazla iki görevi (gönderen ve alıcı tarafı) aynı shard'ın kuyruğunda bekler
+            shards[i] = new Shard(i, 2 * maxInFlight);
+        }
+        this.writeBehindThread = new Thread(this::writeBehindLoop, "ledger-write-behind");
+        this.writeBehindThread.setDaemon(true);
+    }
+
+    /* Bakiyeler listener başlamadan önce veritabanından yüklenir. */
+    @PostConstruct
+    public void recover() {
+        for (CustomerRepository.AccountBalance account : customerRepository.findAllBalances()) {
+            shardOf(account.getId()).accounts.put(account.getId(), new long[]{PaymentEvent.toMinorUnits(account.getBalance()), 0});
+        }
+        writeBehindThread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+        for (Shard shard : shards) {
+            shard.executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        running = false;
+        writeBehindThread.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    @Override
+    @KafkaListener(
+            id = "paymentLedgerListener",
+            topics = {"${kafka.topic.paymentProcess}"},
+            groupId = "${kafka.groupId}",
+            containerFactory = "ledgerFactory"
+    )
+    public void processPaymentMessageFromKafka(PaymentEvent request, Acknowledgment acknowledgment) {
+        if (request.idempotencyKey() != null && transferRepository.existsByIdempotencyKey(request.idempotencyKey())) {
+            paymentStatusService.settled(List.of(request));
+            outbox.send("payment_log", "Duplicate payment ignored: " + request.idempotencyKey());
+            acknowledgment.acknowledge();
+            return;
+        }
+        try {
+            inFlightPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for ledger capacity", e);
+        }
+        try {
+            shardOf(request.senderId()).executor.execute(() -> debit(request, acknowledgment, false));
+        } catch (RejectedExecutionException e) {
+            inFlightPermits.release();
+            throw e;
+        }
+    }
+
+    /* Gönderenin shard thread'inde çalışır; reloaded, bakiyenin veritabanından yenilenip tekrar denendiğini belirtir. */
+    private void debit(PaymentEvent request, Acknowledgment acknowledgment, boolean reloaded) {
+        Shard shard = shardOf(request.senderId());
+        if (!reloaded && request.idempotencyKey() != null && !shard.pendingKeys.add(request.idempotencyKey())) {
+            // Aynı ödemenin önceki teslimi bellekte uygulandı ve henüz veritabanına yazılmadı
+            writeBehindQueue.add(new Completion(request, acknowledgment, LocalDateTime.now(), Outcome.DUPLICATE, null));
+            return;
+        }
+        long[] account = shard.accounts.get(request.senderId());
+        boolean covered = account != null && account[BALANCE] >= request.amountMinor();
+        if (request.amountMinor() > 0 && !covered && !reloaded) {
+            reloadQueue.add(new Reload(request.senderId(), () -> debit(request, acknowledgment, true)));
+            return;
+        }
+        if (request.amountMinor() <= 0 || !covered) {
+            shard.pendingKeys.remove(request.idempotencyKey());
+            reject(request, acknowledgment, "Insufficient balance or customer not found: " + request.senderId());
+            return;
+        }
+        shard.apply(request.senderId(), -request.amountMinor());
+        shardOf(request.receiverId()).executor.execute(() -> credit(request, acknowledgment, false));
+    }
+
+    /* Alıcının shard thread'inde çalışır; alıcı yoksa tutar gönderenin shard'ında iade edilir. */
+    private void credit(PaymentEvent request, Acknowledgment acknowledgment, boolean reloaded) {
+        Shard shard = shardOf(request.receiverId());
+        if (!shard.accounts.containsKey(request.receiverId())) {
+            if (!reloaded) {
+                reloadQueue.add(new Reload(request.receiverId(), () -> credit(request, acknowledgment, true)));
+                return;
+            }
+            shardOf(request.senderId()).executor.execute(() -> {
+                Shard sender = shardOf(request.senderId());
+                sender.apply(request.senderId(), request.amountMinor());
+                sender.pendingKeys.remove(request.idempotencyKey());
+            });
+            reject(request, acknowledgment, "Receiver account not found or has no payment method: " + request.receiverId());
+            return;
+        }
+        shard.apply(request.receiverId(), request.amountMinor());
+        writeBehindQueue.add(new Completion(request, acknowledgment, LocalDateTime.now(), Outcome.SETTLED, null));
+    }
+
+    private void reject(PaymentEvent request, Acknowledgment acknowledgment, String reason) {
+        writeBehindQueue.add(new Completion(request, acknowledgment, LocalDateTime.now(), Outcome.REJECTED, reason));
+    }
+
+    private void complete(Acknowledgment acknowledgment) {
+        acknowledgment.acknowledge();
+        inFlightPermits.release();
+    }
+
+    private void writeBehindLoop() {
+        List<Completion> batch = new ArrayList<>(flushBatchSize);
+        while (running || !writeBehindQueue.isEmpty() || !reloadQueue.isEmpty() || !batch.isEmpty()) {
+            try {
+                reload();
+                if (batch.isEmpty()) {
+                    Completion first = writeBehindQueue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    writeBehindQueue.drainTo(batch, flushBatchSize - 1);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Bellekteki durum kesinleşmiş kabul edilir; aynı batch veritabanı erişilebilir olana kadar yeniden denenir.
+                outbox.send("error_logs", "RuntimeException: Ledger write-behind failed, retrying. Reason: " + e.getMessage());
+                try {
+                    Thread.sleep(Math.max(100, flushIntervalMillis));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /*
+     *     Hesabın veritabanındaki bakiyesi okunur ve hesabın shard'ında henüz yazılmamış değişimlerle birleştirilir. Okuma,
+     *     kendisinden önce commit edilen batch'lerin shard görevlerinden sonra kuyruğa girdiği için hiçbir değişim iki kez
+     *     sayılmaz. İstek, okuma başarılı olana kadar kuyrukta kalır.
+     */
+    private void reload() {
+        Reload reload;
+        while ((reload = reloadQueue.peek()) != null) {
+            long accountId = reload.accountId();
+            Long persisted = customerRepository.findById(accountId)
+                    .map(Customer::getBalance)
+                    .map(PaymentEvent::toMinorUnits)
+                    .orElse(null);
+            reloadQueue.remove();
+            Runnable then = reload.then();
+            execute(accountId, () -> {
+                shardOf(accountId).refresh(accountId, persisted);
+                then.run();
+            });
+        }
+    }
+
+    /* Reddedilen ve tekrar eden ödemeler işlenip batch'ten çıkarılır; hata sonrası yeniden denemede yalnızca transferler kalır. */
+    private void flush(List<Completion> batch) {
+        for (Iterator<Completion> iterator = batch.iterator(); iterator.hasNext(); ) {
+            Completion completion = iterator.next();
+            if (completion.outcome() == Outcome.REJECTED) {
+                paymentStatusService.rejected(completion.event(), completion.reason());
+                outbox.send("error_logs", "PaymentFailedException: Failed payment Reason: " + completion.reason());
+            } else if (completion.outcome() == Outcome.DUPLICATE) {
+                // Aynı ödeme id'sini taşıyan önceki teslim henüz yazılmadı; durum onun sonucuyla kapanır.
+                outbox.send("payment_log", "Duplicate payment ignored: " + completion.event().idempotencyKey());
+            } else {
+                continue;
+            }
+            complete(completion.acknowledgment());
+            iterator.remove();
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            persist(batch);
+            batch.clear();
+        } catch (PaymentFailedException e) {
+            // Net değişimlerden biri bir bakiyeyi veritabanında eksiye düşürecekti; yalnızca o ödemeler reddedilir.
+            for (Iterator<Completion> iterator = batch.iterator(); iterator.hasNext(); ) {
+                Completion completion = iterator.next();
+                try {
+                    persist(List.of(completion));
+                } catch (PaymentFailedException insufficient) {
+                    PaymentEvent event = completion.event();
+                    applied(event, false);
+                    reloadQueue.add(new Reload(event.senderId(), () -> {
+                    }));
+                    paymentStatusService.rejected(event, insufficient.getMessage());
+                    outbox.send("error_logs", "PaymentFailedException: Failed payment Reason: " + insufficient.getMessage());
+                    complete(completion.acknowledgment());
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    private void persist(List<Completion> batch) {
+        Set<Completion> duplicates = Collections.newSetFromMap(new IdentityHashMap<>());
+        paymentTransactionTemplate.executeWithoutResult(status -> {
+            duplicates.clear();
+            Set<UUID> idempotencyKeys = new HashSet<>();
+            for (Completion completion : batch) {
+                idempotencyKeys.add(completion.event().idempotencyKey());
+            }
+            Set<UUID> seen = new HashSet<>(transferRepository.findExistingIdempotencyKeys(idempotencyKeys));
+
+            // Net bakiye değişimleri hesap id sırasıyla yazılır, tekil akıştaki kilit sırasıyla uyumludur.
+            SortedMap<Long, Long> deltas = new TreeMap<>();
+            List<Transfer> transfers = new ArrayList<>(batch.size());
+            List<PaymentEvent> settled = new ArrayList<>(batch.size());
+            List<PaymentEvent> repeated = new ArrayList<>();
+            for (Completion completion : batch) {
+                PaymentEvent event = completion.event();
+                if (!seen.add(event.idempotencyKey())) {
+                    duplicates.add(completion);
+                    repeated.add(event);
+                    outbox.send("payment_log", "Duplicate payment ignored: " + event.idempotencyKey());
+                    continue;
+                }
+                deltas.merge(event.senderId(), -event.amountMinor(), Long::sum);
+                deltas.merge(event.receiverId(), event.amountMinor(), Long::sum);
+                transfers.add(Transfer.builder()
+                        .amount(event.amount())
+                        .sender(customerRepository.getReferenceById(event.senderId()))
+                        .receiver(customerRepository.getReferenceById(event.receiverId()))
+                        .timestamp(completion.settledAt())
+                        .idempotencyKey(event.idempotencyKey())
+                        .build());
+                settled.add(event);
+            }
+            deltas.forEach((accountId, delta) -> {
+                if (delta != 0 && customerRepository.applyDelta(accountId, BigDecimal.valueOf(delta, PaymentEvent.SCALE)) == 0) {
+                    throw new PaymentFailedException("Insufficient balance or customer not found: " + accountId);
+                }
+            });
+            transferRepository.saveAll(transfers);
+            transferAggregateService.recordAll(transfers);
+            paymentStatusService.settled(settled);
+            if (!repeated.isEmpty()) {
+                // Transferi önceki teslimde yazılmış ödemelerin durumu da aynı transaction'da kapanır.
+                paymentStatusService.settled(repeated);
+            }
+            rollingVolumeService.recordAll(settled);
+            for (int i = 0; i < transfers.size(); i++) {
+                outbox.send("payment_log", "Payment processed successfully!");
+            }
+        });
+        for (Completion completion : batch) {
+            // Listener'daki kontrol ile önceki teslimin yazılması arasına düşen tekrar bellekte uygulanmıştı; etkisi
+            // shard'larda geri alınır.
+            applied(completion.event(), !duplicates.contains(completion));
+            complete(completion.acknowledgment());
+        }
+    }
+
+    /*
+     *     Bellekte uygulanan ödeme ya veritabanına yazılmıştır (yazılmamış değişimlerden düşülür) ya da geri alınır. Her
+     *     iki tarafın güncellemesi ve gönderenin anahtarının çıkarılması ilgili shard'ın thread'inde yapılır.
+     */
+    private void applied(PaymentEvent event, boolean persisted) {
+        long amount = event.amountMinor();
+        execute(event.senderId(), () -> {
+            Shard shard = shardOf(event.senderId());
+            if (persisted) {
+                shard.persisted(event.senderId(), -amount);
+            } else {
+                shard.apply(event.senderId(), amount);
+            }
+            shard.pendingKeys.remove(event.idempotencyKey());
+        });
+        execute(event.receiverId(), () -> {
+            Shard shard = shardOf(event.receiverId());
+            if (persisted) {
+                shard.persisted(event.receiverId(), amount);
+            } else {
+                shard.apply(event.receiverId(), -amount);
+            }
+        });
+    }
+
+    private void execute(long accountId, Runnable task) {
+        try {
+            shardOf(accountId).executor.execute(task);
+        } catch (RejectedExecutionException ignored) {
+            // Kapanış sırasında bellekteki bakiyeler zaten atılır; veritabanına tekrar yazılmadığı için kayıp yoktur.
+        }
+    }
+
+    private Shard shardOf(long accountId) {
+        return shards[(int) Math.floorMod(accountId, (long) shards.length)];
+    }
+
+    private static class Shard {
+        // Hesap başına {bakiye, bellekte uygulanmış ama henüz veritabanına yazılmamış değişim}
+        private final Map<Long, long[]> accounts = new HashMap<>();
+        // Bu shard'daki gönderenlerin bellekte uygulanmış ama henüz veritabanına yazılmamış ödemeleri
+        private final Set<UUID> pendingKeys = new HashSet<>();
+        private final ExecutorService executor;
+
+        private Shard(int index, int queueCapacity) {
+            // Shard thread'leri bloklanmayan, sürekli çalışan tek yazıcılardır; sanal thread modunda da platform thread kalır.
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueCapacity),
+                    runnable -> new Thread(runnable, "ledger-shard-" + index));
+        }
+
+        private void apply(long accountId, long deltaMinor) {
+            long[] account = accounts.get(accountId);
+            if (account != null) {
+                account[BALANCE] += deltaMinor;
+                account[UNPERSISTED] += deltaMinor;
+            }
+        }
+
+        private void persisted(long accountId, long deltaMinor) {
+            long[] account = accounts.get(accountId);
+            if (account != null) {
+                account[UNPERSISTED] -= deltaMinor;
+            }
+        }
+
+        /* Ödeme yöntemi olmayan ya da silinmiş hesaplar bellekte olduğu gibi bırakılır. */
+        private void refresh(long accountId, Long persistedMinor) {
+            if (persistedMinor != null) {
+                long[] account = accounts.computeIfAbsent(accountId, id -> new long[2]);
+                account[BALANCE] = persistedMinor + account[UNPERSISTED];
+            }
+        }
+    }
+
+    private enum Outcome {
+        SETTLED, REJECTED, DUPLICATE
+    }
+
+    private record Completion(PaymentEvent event, Acknowledgment acknowledgment, LocalDateTime settledAt, Outcome outcome, String reason) {
+    }
+
+    /* then, yenilemeden sonra hesabın shard thread'inde çalışır. */
+    private record Reload(long accountId, Runnable then) {
+    }
+}
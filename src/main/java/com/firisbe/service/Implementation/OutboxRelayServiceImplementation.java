@@ -0,0 +1,144 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.model.OutboxMessage;
+import com.firisbe.repository.jpa.OutboxRepository;
+import com.firisbe.service.Interface.OutboxRelayServiceInterface;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ *     Outbox tablosunu id sırasıyla okuyup Kafka'ya toplu olarak gönderen relay. Bir batch'in tüm mesajları gönderilip
+ *     broker onayı alındıktan sonra satırlar aynı transaction içinde silinir; gönderim başarısız olursa transaction geri
+ *     alınır ve batch bir sonraki turda tekrar denenir (en az bir kez teslim). Sıkıştırma ve linger ayarları
+ *     outboxKafkaTemplate üzerindedir.
+ *
+ *     Relay kendi thread'inde çalışır; Spring'in tek thread'li varsayılan zamanlayıcısını paylaşsaydı admission
+ *     yenilemesindeki Kafka Admin çağrıları gibi bekleyen işler mesajların gönderilmesini geciktirirdi.
+ *
+ *     Metrikler: outbox.relayed (gönderilen mesaj sayısı), outbox.relay.batch (batch süresi), outbox.relay.failures
+ *     (başarısız turlar), outbox.lag (gönderilmeyi bekleyen en eski mesajın yaşı, saniye).
+ */
+@Service
+public class OutboxRelayServiceImplementation implements OutboxRelayServiceInterface {
+    private final OutboxRepository repo;
+    private final KafkaTemplate<String, byte[]> outboxKafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long intervalMillis;
+    private final int batchSize;
+    private final long sendTimeoutMillis;
+
+    private final Counter relayed;
+    private final Timer batchTimer;
+    private final Counter failures;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("outbox-relay").daemon().factory());
+    private volatile LocalDateTime oldestPending;
+
+    public OutboxRelayServiceImplementation(OutboxRepository repo,
+                                            KafkaTemplate<String, byte[]> outboxKafkaTemplate,
+                                            PlatformTransactionManager transactionManager,
+                                            MeterRegistry meterRegistry,
+                                            @Value("${outbox.relay.interval-ms:50}") long intervalMillis,
+                                            @Value("${outbox.relay.batch-size:1000}") int batchSize,
+                                            @Value("${outbox.relay.send-timeout-ms:30000}") long sendTimeoutMillis) {
+        this.repo = repo;
+        this.outboxKafkaTemplate = outboxKafkaTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.intervalMillis = intervalMillis;
+        this.batchSize = batchSize;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.relayed = Counter.builder("outbox.relayed").register(meterRegistry);
+        this.batchTimer = Timer.builder("outbox.relay.batch").register(meterRegistry);
+        this.failures = Counter.builder("outbox.relay.failures").register(meterRegistry);
+        Gauge.builder("outbox.lag", this, OutboxRelayServiceImplementation::lagSeconds)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                drain();
+            } catch (RuntimeException e) {
+                // Batch geri alındı; hata sonraki turları durdurmamalı, aynı mesajlar bir sonraki turda tekrar denenir
+                failures.increment();
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /* Devam eden batch'in tamamlanması beklenir; yarıda kalırsa transaction geri alınır ve mesajlar outbox'ta kalır. */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /* Tablo boşalana kadar batch'ler art arda gönderilir. */
+    public void drain() {
+        while (relay() == batchSize) {
+            // Tablo boşalana kadar devam.
+        }
+    }
+
+    @Override
+    public int relay() {
+        return Objects.requireNonNull(transactionTemplate.execute(status -> {
+            List<OutboxMessage> batch = repo.findAllByOrderByIdAsc(PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                oldestPending = null;
+                return 0;
+            }
+            oldestPending = batch.get(0).getCreatedAt();
+            batchTimer.record(() -> send(batch));
+            repo.deleteAllInBatch(batch);
+            relayed.increment(batch.size());
+            if (batch.size() < batchSize) {
+                oldestPending = null;
+            }
+            return batch.size();
+        }));
+    }
+
+    private void send(List<OutboxMessage> batch) {
+        List<CompletableFuture<?>> futures = new ArrayList<>(batch.size());
+        for (OutboxMessage message : batch) {
+            futures.add(outboxKafkaTemplate.send(message.getTopic(), message.getMessageKey(), message.getPayload()));
+        }
+        outboxKafkaTemplate.flush();
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (Exception e) {
+            throw new RuntimeException("Outbox relay failed", e);
+        }
+    }
+
+    private double lagSeconds() {
+        LocalDateTime oldest = oldestPending;
+        return oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis() / 1000.0;
+    }
+}
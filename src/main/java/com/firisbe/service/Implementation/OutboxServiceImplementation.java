@@ -0,0 +1,92 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.config.kafka.PaymentEventSerializer;
+import com.firisbe.model.OutboxMessage;
+import com.firisbe.model.PaymentEvent;
+import com.firisbe.repository.jpa.OutboxRepository;
+import com.firisbe.service.Interface.OutboxServiceInterface;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/*
+ *     Servislerin Kafka'ya doğrudan yazmak yerine kullandığı outbox. Mesaj, çağıranın transaction'ı varsa ona katılarak
+ *     outbox tablosuna yazılır; böylece geri alınan bir işlem "başarılı" mesajı üretmez ve broker'ın yavaşlığı istek
+ *     süresine yansımaz. Mesajları Kafka'ya OutboxRelayServiceImplementation taşır.
+ *
+ *     error_logs mesajları geri alınan transaction'larla birlikte kaybolmamalı. Bu yüzden transaction içindeyken
+ *     transaction tamamlandıktan sonra (bağlantı havuza döndükten sonra, ikinci bir bağlantı tutmadan) ayrı bir
+ *     transaction'da yazılırlar. Veritabanına da yazılamıyorsa doğrudan Kafka'ya gönderilirler.
+ */
+@Service
+public class OutboxServiceImplementation implements OutboxServiceInterface {
+    private static final String ERROR_TOPIC = "error_logs";
+
+    private final OutboxRepository repo;
+    private final KafkaTemplate<String, byte[]> outboxKafkaTemplate;
+    private final TransactionTemplate joinTransactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+    private final PaymentEventSerializer paymentEventSerializer = new PaymentEventSerializer();
+
+    public OutboxServiceImplementation(OutboxRepository repo,
+                                       KafkaTemplate<String, byte[]> outboxKafkaTemplate,
+                                       PlatformTransactionManager transactionManager) {
+        this.repo = repo;
+        this.outboxKafkaTemplate = outboxKafkaTemplate;
+        this.joinTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void send(String topic, String message) {
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        if (ERROR_TOPIC.equals(topic)) {
+            sendError(payload);
+        } else {
+            write(joinTransactionTemplate, topic, null, payload);
+        }
+    }
+
+    @Override
+    public void send(String topic, String key, PaymentEvent event) {
+        write(joinTransactionTemplate, topic, key, paymentEventSerializer.serialize(topic, event));
+    }
+
+    private void sendError(byte[] payload) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    writeError(payload);
+                }
+            });
+        } else {
+            writeError(payload);
+        }
+    }
+
+    private void writeError(byte[] payload) {
+        try {
+            write(newTransactionTemplate, ERROR_TOPIC, null, payload);
+        } catch (Exception e) {
+            outboxKafkaTemplate.send(ERROR_TOPIC, payload);
+        }
+    }
+
+    private void write(TransactionTemplate transactionTemplate, String topic, String key, byte[] payload) {
+        transactionTemplate.executeWithoutResult(status -> repo.save(OutboxMessage.builder()
+                .topic(topic)
+                .messageKey(key)
+                .payload(payload)
+                .createdAt(LocalDateTime.now())
+                .build()));
+    }
+}
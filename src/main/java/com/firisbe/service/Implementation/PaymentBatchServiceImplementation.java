@@ -0,0 +1,284 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.error.CustomerNotFoundException;
+import com.firisbe.error.PaymentFailedException;
+import com.firisbe.model.Customer;
+import com.firisbe.model.PaymentEvent;
+import com.firisbe.model.Transfer;
+import com.firisbe.repository.jpa.CustomerRepository;
+import com.firisbe.repository.jpa.TransferRepository;
+import com.firisbe.service.Interface.PaymentBatchServiceInterface;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class PaymentBatchServiceImplementation implements PaymentBatchServiceInterface {
+    private final TransferRepository repo;
+    private final CustomerServiceImplementation customerService;
+    private final TransferServiceImplementation transferService;
+    private final OutboxServiceImplementation outbox;
+    private final TransactionTemplate paymentTransactionTemplate;
+    private final PaymentStatusServiceImplementation paymentStatusService;
+    private final TransferAggregateServiceImplementation transferAggregateService;
+    private final RollingVolumeServiceImplementation rollingVolumeService;
+    private final boolean netting;
+
+    public PaymentBatchServiceImplementation(TransferRepository repo,
+                                             CustomerServiceImplementation customerService,
+                                             TransferServiceImplementation transferService,
+                                             OutboxServiceImplementation outbox,
+                                             TransactionTemplate paymentTransactionTemplate,
+                                             PaymentStatusServiceImplementation paymentStatusService,
+                                             TransferAggregateServiceImplementation transferAggregateService,
+                                             RollingVolumeServiceImplementation rollingVolumeService,
+                                             @Value("${payment.settlement.mode:record}") String settlementMode) {
+        this.repo = repo;
+        this.customerService = customerService;
+        this.transferService = transferService;
+        this.outbox = outbox;
+        this.paymentTransactionTemplate = paymentTransactionTemplate;
+        this.paymentStatusService = paymentStatusService;
+        this.transferAggregateService = transferAggregateService;
+        this.rollingVolumeService = rollingVolumeService;
+        this.netting = "netting".equals(settlementMode);
+    }
+
+    /*
+     *     Bir poll ile gelen tüm ödeme mesajlarını tek transaction içinde işler. İlgili tüm hesaplar tek sorguda, id
+     *     sırasıyla kilitlenerek yüklenir (READ COMMITTED altında güncelleme kaybı olmaz), transferler sırasıyla uygulanır
+     *     ve kayıtlar JDBC batch ile yazılır. Offset'ler listener döndükten sonra, yani transaction commit edildikten
+     *     sonra commit edilir. Hatalı kayıtlar tek tek reddedilir; veritabanı hatası durumunda batch, her kaydın kendi
+     *     transaction'ında işlendiği tekil akışa düşer.
+     *
+     *     Tekil akışta iş kuralı hataları (yetersiz bakiye, bulunamayan müşteri) kaydı reddeder; geçici hatalar
+     *     BatchListenerFailedException ile container'ın error handler'ına bırakılır: önceki kayıtların offset'i commit
+     *     edilir, hatalı kayıt tekrar denenir ve denemeler bitince payment_process.DLT'ye yazılır.
+     *
+     *     Netting modunda aynı listener kullanılır; poll netting penceresi boyunca biriktirilir ve bakiyeler hesap başına
+     *     tek net UPDATE ile yazılır.
+     */
+    @Override
+    @KafkaListener(
+            id = "paymentBatchListener",
+            topics = {"${kafka.topic.paymentProcess}"},
+            groupId = "${kafka.groupId}",
+            containerFactory = "batchFactory",
+            autoStartup = "#{'${payment.settlement.mode:record}' == 'batch' or '${payment.settlement.mode:record}' == 'netting'}"
+    )
+    public void processPaymentBatchFromKafka(List<PaymentEvent> requests) {
+        List<PaymentEvent> orders = new ArrayList<>(requests.size());
+        for (PaymentEvent request : requests) {
+            // ErrorHandlingDeserializer çözülemeyen kayıtları null olarak iletir.
+            if (request == null) {
+                outbox.send("error_logs", "PaymentFailedException: Malformed payment message skipped");
+            } else {
+                orders.add(request);
+            }
+        }
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        List<Rejection> rejections = new ArrayList<>();
+        try {
+            paymentTransactionTemplate.executeWithoutResult(status -> {
+                if (netting) {
+                    settleNetted(orders, rejections);
+                } else {
+                    settle(orders, rejections);
+                }
+            });
+        } catch (Exception e) {
+            outbox.send("error_logs", "RuntimeException: Payment batch failed, falling back to single processing. Reason: " + e.getMessage());
+            for (int i = 0; i < requests.size(); i++) {
+                PaymentEvent order = requests.get(i);
+                if (order == null) {
+                    continue;
+                }
+                try {
+                    transferService.processPaymentMessageFromKafka(order);
+                } catch (Exception single) {
+                    // Tekil akış hatayı kendisi loglar ve reddedilen ödemeyi işaretler; yalnızca iş kuralı hatası geçilir.
+                    if (!isBusinessFailure(single)) {
+                        throw new BatchListenerFailedException("Payment could not be processed: " + order.paymentId(), single, i);
+                    }
+                }
+            }
+            return;
+        }
+
+        for (Rejection rejection : rejections) {
+            paymentStatusService.rejected(rejection.order(), rejection.reason());
+            outbox.send("error_logs", "PaymentFailedException: Failed payment Reason: " + rejection.reason());
+        }
+    }
+
+    private static boolean isBusinessFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PaymentFailedException || cause instanceof CustomerNotFoundException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     *     Transaction içinde çalışır; başarı mesajları outbox'a aynı transaction'da yazılır. Reddedilen kayıtlar rejections
+     *     listesine eklenir ve commit sonrasında loglanır, daha önce işlenmiş ya da aynı batch içinde tekrar eden kayıtlar atlanır.
+     */
+    private void settle(List<PaymentEvent> orders, List<Rejection> rejections) {
+        Set<Long> accountIds = new HashSet<>();
+        Set<UUID> idempotencyKeys = new HashSet<>();
+        for (PaymentEvent order : orders) {
+            accountIds.add(order.senderId());
+            accountIds.add(order.receiverId());
+            idempotencyKeys.add(order.idempotencyKey());
+        }
+        Set<UUID> seen = new HashSet<>(repo.findExistingIdempotencyKeys(idempotencyKeys));
+        Map<Long, Customer> accounts = customerService.findAllByIdForUpdate(accountIds).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+
+        Map<Long, Customer> touched = new LinkedHashMap<>();
+        List<Transfer> transfers = new ArrayList<>(orders.size());
+        List<PaymentEvent> settled = new ArrayList<>(orders.size());
+        List<PaymentEvent> duplicates = new ArrayList<>();
+        for (PaymentEvent order : orders) {
+            if (!seen.add(order.idempotencyKey())) {
+                duplicates.add(order);
+                outbox.send("payment_log", "Duplicate payment ignored: " + order.idempotencyKey());
+                continue;
+            }
+            BigDecimal amount = order.amount();
+            Customer sender = accounts.get(order.senderId());
+            Customer receiver = accounts.get(order.receiverId());
+            if (sender == null || receiver == null) {
+                rejections.add(new Rejection(order, "Customer not found for payment " + order.paymentId()));
+                continue;
+            }
+            if (amount.compareTo(BigDecimal.ZERO) <= 0 || sender.getBalance() == null || receiver.getBalance() == null
+                    || sender.getBalance().compareTo(amount) < 0) {
+                rejections.add(new Rejection(order, "Insufficient balance or invalid amount for payment " + order.paymentId()));
+                continue;
+            }
+            sender.setBalance(sender.getBalance().subtract(amount));
+            receiver.setBalance(receiver.getBalance().add(amount));
+            touched.put(sender.getId(), sender);
+            touched.put(receiver.getId(), receiver);
+
+            transfers.add(Transfer.builder()
+                    .amount(amount)
+                    .sender(sender)
+                    .receiver(receiver)
+                    .timestamp(LocalDateTime.now())
+                    .idempotencyKey(order.idempotencyKey())
+                    .build());
+            settled.add(order);
+        }
+
+        if (!transfers.isEmpty()) {
+            customerService.saveAllCustomers(touched.values());
+            repo.saveAll(transfers);
+            transferAggregateService.recordAll(transfers);
+            paymentStatusService.settled(settled);
+            rollingVolumeService.recordAll(settled);
+        }
+        if (!duplicates.isEmpty()) {
+            // Atlanan kayıtların transferi yazılmış ya da bu batch'te yazılıyor; durumları da aynı transaction'da kapanır.
+            paymentStatusService.settled(duplicates);
+        }
+        for (int i = 0; i < transfers.size(); i++) {
+            outbox.send("payment_log", "Payment processed successfully!");
+        }
+    }
+
+    /*
+     *     Netting modunda transaction içinde çalışır. Entity yüklenmez; yalnızca bakiyeler id sırasıyla kilitlenerek okunur.
+     *     Bakiye kontrolü her ödeme için geliş sırasıyla, batch içindeki önceki ödemelerin etkisini de içeren bakiye
+     *     üzerinden yapılır; bu yüzden tek tek işlemeyle aynı ödemeler reddedilir. Kabul edilen ödemelerin tutarları hesap
+     *     başına toplanır (aynı çift arasındaki ters yönlü ödemeler birbirini götürür) ve her hesap için tek UPDATE atılır;
+     *     her ödeme için ayrı Transfer kaydı yine JDBC batch ile yazılır.
+     */
+    private void settleNetted(List<PaymentEvent> orders, List<Rejection> rejections) {
+        Set<Long> accountIds = new HashSet<>();
+        Set<UUID> idempotencyKeys = new HashSet<>();
+        for (PaymentEvent order : orders) {
+            accountIds.add(order.senderId());
+            accountIds.add(order.receiverId());
+            idempotencyKeys.add(order.idempotencyKey());
+        }
+        Set<UUID> seen = new HashSet<>(repo.findExistingIdempotencyKeys(idempotencyKeys));
+        Map<Long, long[]> balances = new HashMap<>();
+        for (CustomerRepository.AccountBalance account : customerService.findBalancesForUpdate(accountIds)) {
+            if (account.getBalance() != null) {
+                balances.put(account.getId(), new long[]{PaymentEvent.toMinorUnits(account.getBalance())});
+            }
+        }
+
+        // Hesap id sırasıyla yazılır, kilit sırasıyla uyumludur.
+        SortedMap<Long, Long> deltas = new TreeMap<>();
+        List<Transfer> transfers = new ArrayList<>(orders.size());
+        List<PaymentEvent> settled = new ArrayList<>(orders.size());
+        List<PaymentEvent> duplicates = new ArrayList<>();
+        for (PaymentEvent order : orders) {
+            if (!seen.add(order.idempotencyKey())) {
+                duplicates.add(order);
+                outbox.send("payment_log", "Duplicate payment ignored: " + order.idempotencyKey());
+                continue;
+            }
+            long[] sender = balances.get(order.senderId());
+            long[] receiver = balances.get(order.receiverId());
+            if (sender == null || receiver == null) {
+                rejections.add(new Rejection(order, "Customer not found for payment " + order.paymentId()));
+                continue;
+            }
+            if (order.amountMinor() <= 0 || sender[0] < order.amountMinor()) {
+                rejections.add(new Rejection(order, "Insufficient balance or invalid amount for payment " + order.paymentId()));
+                continue;
+            }
+            sender[0] -= order.amountMinor();
+            receiver[0] += order.amountMinor();
+            deltas.merge(order.senderId(), -order.amountMinor(), Long::sum);
+            deltas.merge(order.receiverId(), order.amountMinor(), Long::sum);
+
+            transfers.add(Transfer.builder()
+                    .amount(order.amount())
+                    .sender(customerService.getReference(order.senderId()))
+                    .receiver(customerService.getReference(order.receiverId()))
+                    .timestamp(LocalDateTime.now())
+                    .idempotencyKey(order.idempotencyKey())
+                    .build());
+            settled.add(order);
+        }
+
+        if (!transfers.isEmpty()) {
+            deltas.forEach((accountId, delta) -> {
+                if (delta != 0) {
+                    customerService.applyDelta(accountId, BigDecimal.valueOf(delta, PaymentEvent.SCALE));
+                }
+            });
+            repo.saveAll(transfers);
+            transferAggregateService.recordAll(transfers);
+            paymentStatusService.settled(settled);
+            rollingVolumeService.recordAll(settled);
+        }
+        if (!duplicates.isEmpty()) {
+            // Atlanan kayıtların transferi yazılmış ya da bu batch'te yazılıyor; durumları da aynı transaction'da kapanır.
+            paymentStatusService.settled(duplicates);
+        }
+        for (int i = 0; i < transfers.size(); i++) {
+            outbox.send("payment_log", "Payment processed successfully!");
+        }
+    }
+
+    private record Rejection(PaymentEvent order, String reason) {
+    }
+}
@@ -0,0 +1,175 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.error.TransferNotFoundException;
+import com.firisbe.model.Enum.PaymentStatus;
+import com.firisbe.model.PaymentEvent;
+import com.firisbe.model.PaymentState;
+import com.firisbe.repository.jpa.PaymentStateRepository;
+import com.firisbe.service.Interface.PaymentStatusServiceInterface;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/*
+ *     Ödeme durumlarını (PENDING, SETTLED, REJECTED) tutar. Durumlar payment_state tablosunda saklanır; böylece isteği
+ *     alan instance ile ödemeyi işleyen consumer farklı olsa da durum görülebilir. SETTLED son durumdur ve bir daha
+ *     değişmez, bu yüzden sınırlı bir Caffeine cache'inde tutulur ve sorgular veritabanına gitmeden cevaplanır. REJECTED
+ *     ödemeler DLT'den replay edildiğinde tekrar PENDING olabildiğinden cache'lenmez; PENDING ve REJECTED durumları
+ *     birincil anahtar üzerinden okunur. PENDING yazıldığında cache'teki kayıt commit sonrasında silinir.
+ *
+ *     SETTLED, ödemeyi kaydeden transaction'a katılır. REJECTED ise ödeme transaction'ı geri alınırken kaybolmamalıdır,
+ *     bu yüzden transaction içindeyken transaction tamamlandıktan sonra ayrı bir transaction'da yazılır.
+ *
+ *     Bekleyen ödeme sayımları yalnızca son pending-timeout içinde güncellenmiş PENDING kayıtları sayar; takılı kalmış
+ *     bir kayıt admission bütçesini kalıcı olarak doldurmaz. SETTLED ve REJECTED kayıtlar retention süresinden sonra
+ *     küçük parçalar halinde silinir; silinen ödemenin durumu sorgulandığında bulunamadı cevabı döner.
+ */
+@Service
+public class PaymentStatusServiceImplementation implements PaymentStatusServiceInterface {
+    private final PaymentStateRepository repo;
+    private final Cache<UUID, PaymentState> completed;
+    private final TransactionTemplate joinTransactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+    private final Duration pendingTimeout;
+    private final Duration retention;
+    private final int purgeBatchSize;
+
+    public PaymentStatusServiceImplementation(PaymentStateRepository repo,
+                                              PlatformTransactionManager transactionManager,
+                                              MeterRegistry meterRegistry,
+                                              @Value("${payment.status.cache.max-size:100000}") long maxSize,
+                                              @Value("${payment.status.cache.ttl:1h}") Duration ttl,
+                                              @Value("${payment.status.pending-timeout:1h}") Duration pendingTimeout,
+                                              @Value("${payment.status.retention:7d}") Duration retention,
+                                              @Value("${payment.status.purge-batch-size:10000}") int purgeBatchSize) {
+        this.repo = repo;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "payment.status");
+        this.joinTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.pendingTimeout = pendingTimeout;
+        this.retention = retention;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    @Override
+    public void pending(PaymentEvent event) {
+        joinTransactionTemplate.executeWithoutResult(status -> repo.save(state(event, PaymentStatus.PENDING, null, LocalDateTime.now())));
+        afterCommit(() -> completed.invalidate(event.paymentId()));
+    }
+
+    @Override
+    public void settled(Collection<PaymentEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> paymentIds = events.stream().map(PaymentEvent::paymentId).toList();
+        joinTransactionTemplate.executeWithoutResult(status -> repo.updateStatus(paymentIds, PaymentStatus.SETTLED, null, now));
+        List<PaymentState> states = events.stream().map(event -> state(event, PaymentStatus.SETTLED, null, now)).toList();
+        // Cache yalnızca commit edilmiş durumları tutar.
+        afterCommit(() -> states.forEach(state -> completed.put(state.getPaymentId(), state)));
+    }
+
+    @Override
+    public void rejected(PaymentEvent event, String reason) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    writeRejected(event, reason);
+                }
+            });
+        } else {
+            writeRejected(event, reason);
+        }
+    }
+
+    private void writeRejected(PaymentEvent event, String message) {
+        String reason = message != null && message.length() > 255 ? message.substring(0, 255) : message;
+        LocalDateTime now = LocalDateTime.now();
+        newTransactionTemplate.executeWithoutResult(status -> repo.updateStatus(List.of(event.paymentId()), PaymentStatus.REJECTED, reason, now));
+    }
+
+    @Override
+    public PaymentState find(UUID paymentId) {
+        PaymentState state = completed.getIfPresent(paymentId);
+        if (state != null) {
+            return state;
+        }
+        state = repo.findById(paymentId).orElseThrow(TransferNotFoundException::new);
+        if (state.getStatus() == PaymentStatus.SETTLED) {
+            completed.put(paymentId, state);
+        }
+        return state;
+    }
+
+    /* (status, updatedAt) indeksi üzerinden sayılır. */
+    @Override
+    public long countPending() {
+        return repo.countByStatusAndUpdatedAtAfter(PaymentStatus.PENDING, LocalDateTime.now().minus(pendingTimeout));
+    }
+
+    /* (senderId, status) indeksi üzerinden sayılır. */
+    @Override
+    public long countPending(Long senderId) {
+        return repo.countBySenderIdAndStatusAndUpdatedAtAfter(senderId, PaymentStatus.PENDING, LocalDateTime.now().minus(pendingTimeout));
+    }
+
+    /* Her parça ayrı bir transaction'da silinir; retention sıfırsa kayıtlar silinmez. */
+    @Override
+    @Scheduled(cron = "${payment.status.purge-cron:0 30 3 * * *}")
+    public void purgeCompleted() {
+        if (retention.isZero()) {
+            return;
+        }
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        Integer deleted;
+        do {
+            deleted = newTransactionTemplate.execute(status -> repo.deleteCompletedBefore(before, purgeBatchSize));
+        } while (deleted != null && deleted >= purgeBatchSize);
+    }
+
+    private PaymentState state(PaymentEvent event, PaymentStatus status, String reason, LocalDateTime updatedAt) {
+        return PaymentState.builder()
+                .paymentId(event.paymentId())
+                .senderId(event.senderId())
+                .status(status)
+                .reason(reason)
+                .updatedAt(updatedAt)
+                .build();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.aspect.GenericResponse;
+import com.firisbe.aspect.statistics.RollingCounter;
+import com.firisbe.model.DTO.response.RollingVolumeResponse;
+import com.firisbe.model.DTO.response.RollingWindowVolume;
+import com.firisbe.model.PaymentEvent;
+import com.firisbe.service.Interface.RollingVolumeServiceInterface;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/*
+ *     Müşteri başına son 5 dakika, 1 saat ve 24 saatlik gönderilen / alınan ödeme adedi ve tutarı. Sayaçlar bellekte,
+ *     yalnızca işlem yapan müşteriler için tutulur ve ödemeyi kaydeden transaction commit edildikten sonra güncellenir.
+ *     Okuma veritabanına gitmez. 24 saattir işlem yapmayan müşterilerin sayaçları periyodik olarak atılır.
+ *
+ *     Sayaçlar instance'a özeldir: birden fazla consumer instance'ı varsa her biri yalnızca kendi işlediği ödemeleri görür
+ *     ve uygulama yeniden başladığında sıfırdan başlar.
+ *
+ *     Metrik: payment.rolling.customers (bellekte sayacı tutulan müşteri sayısı).
+ */
+@Service
+public class RollingVolumeServiceImplementation implements RollingVolumeServiceInterface {
+    // 5 dakika 10 saniyelik, 1 saat 1 dakikalık, 24 saat 15 dakikalık slot'larla tutulur
+    private static final Duration FIVE_MINUTES = Duration.ofMinutes(5);
+    private static final Duration HOUR = Duration.ofHours(1);
+    private static final Duration DAY = Duration.ofHours(24);
+
+    private final Map<Long, CustomerVolume> volumes = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    @Autowired
+    public RollingVolumeServiceImplementation(MeterRegistry meterRegistry) {
+        this(meterRegistry, System::currentTimeMillis);
+    }
+
+    RollingVolumeServiceImplementation(MeterRegistry meterRegistry, LongSupplier clock) {
+        this.clock = clock;
+        Gauge.builder("payment.rolling.customers", volumes, Map::size).register(meterRegistry);
+    }
+
+    @Override
+    public void recordAll(Collection<PaymentEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<PaymentEvent> settled = List.copyOf(events);
+        // Geri alınan ödemeler sayılmaz
+        afterCommit(() -> {
+            long now = clock.getAsLong();
+            for (PaymentEvent event : settled) {
+                volume(event.senderId(), now).sent.add(now, event.amountMinor());
+                volume(event.receiverId(), now).received.add(now, event.amountMinor());
+            }
+        });
+    }
+
+    /* Sayacı olmayan müşteri için tüm pencereler sıfır döner. */
+    @Override
+    public GenericResponse<RollingVolumeResponse> readRollingVolumeForAdmin(Long customerId) {
+        long now = clock.getAsLong();
+        CustomerVolume volume = volumes.get(customerId);
+        RollingVolumeResponse response = new RollingVolumeResponse(
+                customerId,
+                window(volume, now, 0),
+                window(volume, now, 1),
+                window(volume, now, 2));
+        return new GenericResponse<>(response, true);
+    }
+
+    /*
+     *     Son güncellemesi en uzun pencereden eski olan sayaçların tüm slot'ları zaten süresi geçmiştir, atılmaları veri
+     *     kaybettirmez. Atma ile eşzamanlı güncelleme lastUpdate üzerinde CAS ile ayrışır: atılan sayaca yazmak isteyen
+     *     thread yeni bir sayaç oluşturur.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${payment.rolling.evict-interval-ms:60000}")
+    public void evictIdle() {
+        long cutoff = clock.getAsLong() - DAY.toMillis();
+        volumes.forEach((customerId, volume) -> {
+            if (volume.tryEvict(cutoff)) {
+                volumes.remove(customerId, volume);
+            }
+        });
+    }
+
+    int trackedCustomers() {
+        return volumes.size();
+    }
+
+    private CustomerVolume volume(long customerId, long now) {
+        while (true) {
+            CustomerVolume volume = volumes.get(customerId);
+            if (volume == null) {
+                volume = volumes.computeIfAbsent(customerId, id -> new CustomerVolume());
+            }
+            if (volume.touch(now)) {
+                return volume;
+            }
+            volumes.remove(customerId, volume);
+        }
+    }
+
+    private static RollingWindowVolume window(CustomerVolume volume, long now, int window) {
+        if (volume == null) {
+            return new RollingWindowVolume(0, BigDecimal.ZERO.setScale(PaymentEvent.SCALE), 0, BigDecimal.ZERO.setScale(PaymentEvent.SCALE));
+        }
+        RollingCounter.Totals sent = volume.sent.windows[window].sum(now);
+        RollingCounter.Totals received = volume.received.windows[window].sum(now);
+        return new RollingWindowVolume(
+                sent.count(),
+                BigDecimal.valueOf(sent.amountMinor(), PaymentEvent.SCALE),
+                received.count(),
+                BigDecimal.valueOf(received.amountMinor(), PaymentEvent.SCALE));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class CustomerVolume {
+        private static final long EVICTED = -1;
+
+        private final Windows sent = new Windows();
+        private final Windows received = new Windows();
+        private final AtomicLong lastUpdate = new AtomicLong();
+
+        private boolean touch(long now) {
+            while (true) {
+                long last = lastUpdate.get();
+                if (last == EVICTED) {
+                    return false;
+                }
+                if (last >= now || lastUpdate.compareAndSet(last, now)) {
+                    return true;
+                }
+            }
+        }
+
+        private boolean tryEvict(long cutoff) {
+            long last = lastUpdate.get();
+            return last != EVICTED && last < cutoff && lastUpdate.compareAndSet(last, EVICTED);
+        }
+    }
+
+    private static final class Windows {
+        private final RollingCounter[] windows = {
+                new RollingCounter(FIVE_MINUTES, 30),
+                new RollingCounter(HOUR, 60),
+                new RollingCounter(DAY, 96)
+        };
+
+        private void add(long now, long amountMinor) {
+            for (RollingCounter window : windows) {
+                window.add(now, amountMinor);
+            }
+        }
+    }
+}
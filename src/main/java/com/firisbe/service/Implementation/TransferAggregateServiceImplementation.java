@@ -0,0 +1,182 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.aspect.statistics.QuantileSketch;
+import com.firisbe.model.Enum.TransferDirection;
+import com.firisbe.model.MonthlyAmountBucket;
+import com.firisbe.model.MonthlyTransferAggregate;
+import com.firisbe.model.Transfer;
+import com.firisbe.repository.jpa.MonthlyAmountBucketRepository;
+import com.firisbe.repository.jpa.MonthlyTransferAggregateRepository;
+import com.firisbe.service.Interface.TransferAggregateServiceInterface;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/*
+ *     Aylık transfer özetlerini tutar. Yazma methodları çağıranın transaction'ında çalışır; özet transferle birlikte
+ *     commit ya da rollback olur.
+ *
+ *     Özet tabloları transferlerden sonra eklendiği için öncesindeki transferler bir kez, açılışta geriye dönük olarak
+ *     özetlenir. Bu tamamlanana kadar okuyucular özetler yerine transferleri kullanır (isBackfilled).
+ */
+@Service
+public class TransferAggregateServiceImplementation implements TransferAggregateServiceInterface {
+    private static final Comparator<MonthlyTransferAggregate.Key> KEY_ORDER = Comparator
+            .comparing(MonthlyTransferAggregate.Key::getCustomerId)
+            .thenComparing(MonthlyTransferAggregate.Key::getMonthStart)
+            .thenComparing(MonthlyTransferAggregate.Key::getDirection);
+    private static final Comparator<MonthlyAmountBucket.Key> BUCKET_ORDER = Comparator
+            .comparing(MonthlyAmountBucket.Key::getCustomerId)
+            .thenComparing(MonthlyAmountBucket.Key::getMonthStart)
+            .thenComparing(MonthlyAmountBucket.Key::getDirection)
+            .thenComparing(MonthlyAmountBucket.Key::getBucket);
+
+    private final MonthlyTransferAggregateRepository repo;
+    private final MonthlyAmountBucketRepository bucketRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxServiceImplementation outbox;
+    private volatile boolean backfilled;
+
+    public TransferAggregateServiceImplementation(MonthlyTransferAggregateRepository repo,
+                                                  MonthlyAmountBucketRepository bucketRepo,
+                                                  JdbcTemplate jdbcTemplate,
+                                                  PlatformTransactionManager transactionManager,
+                                                  OutboxServiceImplementation outbox) {
+        this.repo = repo;
+        this.bucketRepo = bucketRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.outbox = outbox;
+    }
+
+    @Override
+    public void record(Transfer transfer) {
+        recordAll(List.of(transfer));
+    }
+
+    /*
+     *     Batch içindeki transferler önce bellekte satır başına birleştirilir, her özet satırı tek upsert ile yazılır.
+     *     Satırlar sabit sırayla güncellenir; eşzamanlı batch'ler özet satırlarında birbirini deadlock'a sokmaz. Tutar
+     *     dağılımının kova sayaçları da aynı şekilde birleştirilip sırayla yazılır.
+     */
+    @Override
+    public void recordAll(Collection<Transfer> transfers) {
+        SortedMap<MonthlyTransferAggregate.Key, Summary> summaries = new TreeMap<>(KEY_ORDER);
+        SortedMap<MonthlyAmountBucket.Key, Long> buckets = new TreeMap<>(BUCKET_ORDER);
+        for (Transfer transfer : transfers) {
+            LocalDate monthStart = transfer.getTimestamp().toLocalDate().withDayOfMonth(1);
+            int bucket = QuantileSketch.bucketOf(transfer.getAmount());
+            summaries.computeIfAbsent(new MonthlyTransferAggregate.Key(transfer.getSender().getId(), monthStart, TransferDirection.SENT), key -> new Summary())
+                    .add(transfer.getAmount());
+            summaries.computeIfAbsent(new MonthlyTransferAggregate.Key(transfer.getReceiver().getId(), monthStart, TransferDirection.RECEIVED), key -> new Summary())
+                    .add(transfer.getAmount());
+            buckets.merge(new MonthlyAmountBucket.Key(transfer.getSender().getId(), monthStart, TransferDirection.SENT, bucket), 1L, Long::sum);
+            buckets.merge(new MonthlyAmountBucket.Key(transfer.getReceiver().getId(), monthStart, TransferDirection.RECEIVED, bucket), 1L, Long::sum);
+        }
+        summaries.forEach((key, summary) -> repo.upsert(
+                key.getCustomerId(),
+                key.getMonthStart(),
+                key.getDirection().name(),
+                summary.count,
+                summary.total,
+                summary.min,
+                summary.max));
+        buckets.forEach((key, count) -> bucketRepo.upsert(
+                key.getCustomerId(),
+                key.getMonthStart(),
+                key.getDirection().name(),
+                key.getBucket(),
+                count));
+    }
+
+    @Override
+    public List<MonthlyTransferAggregate> findSince(Long customerId, LocalDate monthStart) {
+        return repo.findAllByCustomerIdAndMonthStartGreaterThanEqual(customerId, monthStart);
+    }
+
+    @Override
+    public List<MonthlyAmountBucketRepository.BucketCount> findBucketsSince(Long customerId, LocalDate monthStart) {
+        return bucketRepo.summarizeSince(customerId, monthStart);
+    }
+
+    /*
+     *     Özet ve kova tabloları kilitlenip transfer tablosundan tek INSERT ... SELECT ... GROUP BY ile yeniden
+     *     oluşturulur. EXCLUSIVE kilit alındığında özet yazan tüm transaction'lar commit edilmiştir ve transferleri
+     *     görünürdür; kilit beklerken transferini yazmış olanlar ise kilit bırakılınca yalnızca kendi payını ekler, hiçbir
+     *     transfer iki kez ya da hiç sayılmaz. Kilit süresince ödeme yazımları bekler; tamamlandığı
+     *     monthly_aggregate_backfill tablosuna yazılır ve diğer instance'lar tekrar yapmaz. Özet upsert'leri PostgreSQL'e
+     *     özgü olduğundan diğer veritabanlarında okumalar transferlerden yapılmaya devam eder.
+     */
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equals(database)) {
+                return;
+            }
+            jdbcTemplate.execute("create table if not exists monthly_aggregate_backfill (completed_at timestamp(6) not null)");
+            Boolean rebuilt = transactionTemplate.execute(status -> {
+                jdbcTemplate.execute("lock table monthly_transfer_aggregate, monthly_amount_bucket in exclusive mode");
+                Integer completed = jdbcTemplate.queryForObject("select count(*) from monthly_aggregate_backfill", Integer.class);
+                if (completed != null && completed > 0) {
+                    return false;
+                }
+                jdbcTemplate.execute("delete from monthly_transfer_aggregate");
+                jdbcTemplate.execute("delete from monthly_amount_bucket");
+                jdbcTemplate.update("insert into monthly_transfer_aggregate " +
+                        "(customer_id, month_start, direction, transfer_count, total_amount, min_amount, max_amount) " +
+                        "select t.sender_id, cast(date_trunc('month', t.timestamp) as date), 'SENT', count(*), sum(t.amount), min(t.amount), max(t.amount) " +
+                        "from transfer t where t.sender_id is not null group by 1, 2 " +
+                        "union all " +
+                        "select t.receiver_id, cast(date_trunc('month', t.timestamp) as date), 'RECEIVED', count(*), sum(t.amount), min(t.amount), max(t.amount) " +
+                        "from transfer t where t.receiver_id is not null group by 1, 2");
+                // Kova ifadesi QuantileSketch.bucketOf ile aynıdır
+                jdbcTemplate.update("insert into monthly_amount_bucket (customer_id, month_start, direction, bucket, transfer_count) " +
+                        "select b.customer_id, b.month_start, b.direction, b.bucket, count(*) from (" +
+                        "select t.sender_id as customer_id, cast(date_trunc('month', t.timestamp) as date) as month_start, 'SENT' as direction, " +
+                        "cast(ceil(ln(greatest(t.amount, 0.01)) / ?) as integer) as bucket from transfer t where t.sender_id is not null " +
+                        "union all " +
+                        "select t.receiver_id, cast(date_trunc('month', t.timestamp) as date), 'RECEIVED', " +
+                        "cast(ceil(ln(greatest(t.amount, 0.01)) / ?) as integer) from transfer t where t.receiver_id is not null" +
+                        ") b group by b.customer_id, b.month_start, b.direction, b.bucket", QuantileSketch.LN_GAMMA, QuantileSketch.LN_GAMMA);
+                jdbcTemplate.update("insert into monthly_aggregate_backfill (completed_at) values (current_timestamp)");
+                return true;
+            });
+            backfilled = true;
+            if (Boolean.TRUE.equals(rebuilt)) {
+                outbox.send("successful_logs", "Monthly transfer aggregates have been backfilled from transfers");
+            }
+        } catch (Exception e) {
+            outbox.send("error_logs", "GeneralError: Monthly transfer aggregates could not be backfilled. Reason: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isBackfilled() {
+        return backfilled;
+    }
+
+    private static final class Summary {
+        private long count;
+        private BigDecimal total = BigDecimal.ZERO;
+        private BigDecimal min;
+        private BigDecimal max;
+
+        private void add(BigDecimal amount) {
+            count++;
+            total = total.add(amount);
+            min = min == null || amount.compareTo(min) < 0 ? amount : min;
+            max = max == null || amount.compareTo(max) > 0 ? amount : max;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.firisbe.service.Implementation;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.firisbe.model.DTO.response.TransferExportRow;
+import com.firisbe.model.Enum.ExportFormat;
+import com.firisbe.repository.jpa.TransferRepository;
+import com.firisbe.service.Interface.TransferExportServiceInterface;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/*
+ *     Mutabakat için transferleri satır satır dışa aktarır. Kayıtlar tek yönlü bir veritabanı cursor'ından fetch size
+ *     kadar parçalar halinde okunur ve okundukça yazılır; hiçbir noktada listenin tamamı bellekte tutulmaz. Cursor'ın
+ *     açık kalabilmesi için okuma yazma bitene kadar süren salt okunur bir transaction içinde yapılır. Outbox kayıtları
+ *     bu transaction'a katılırsa salt okunur bağlantıda yazılamaz; bu yüzden transaction kapandıktan sonra yazılır.
+ */
+@Service
+public class TransferExportServiceImplementation implements TransferExportServiceInterface {
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final TransferRepository repo;
+    private final OutboxServiceImplementation outbox;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    public TransferExportServiceImplementation(TransferRepository repo,
+                                               OutboxServiceImplementation outbox,
+                                               ObjectMapper objectMapper,
+                                               PlatformTransactionManager transactionManager) {
+        this.repo = repo;
+        this.outbox = outbox;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public long exportForAdmin(ExportFormat format, LocalDateTime from, LocalDateTime to, Long customerId, OutputStream out) throws IOException {
+        LocalDateTime start = from == null ? EARLIEST : from;
+        LocalDateTime end = to == null ? LATEST : to;
+        long count;
+        try {
+            count = readOnlyTransactionTemplate.execute(status -> {
+                try (Stream<TransferExportRow> rows = customerId == null
+                        ? repo.streamExport(start, end)
+                        : repo.streamExportByCustomerId(customerId, start, end)) {
+                    return format == ExportFormat.CSV ? writeCsv(rows.iterator(), out) : writeNdjson(rows.iterator(), out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // İstemci bağlantıyı kapattıysa cursor kapatılır ve transaction sonlandırılır.
+            outbox.send("error_logs", "IOException: Transfer export aborted. Reason: " + e.getCause().getMessage());
+            throw e.getCause();
+        } catch (Exception e) {
+            outbox.send("error_logs", "RuntimeException: Transfer export failed. Reason: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+        outbox.send("payment_log", "Transfers exported successfully: " + count);
+        return count;
+    }
+
+    private long writeNdjson(Iterator<TransferExportRow> rows, OutputStream out) throws IOException {
+        long count = 0;
+        // Her satırda flush edilmez; çıktı gzip ve soket tamponlarında biriktirilip parça parça gönderilir. Tarihler
+        // genel Jackson ayarlarından bağımsız olarak her zaman ISO formatında yazılır.
+        ObjectWriter writer = objectMapper.writerFor(TransferExportRow.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        // Akış controller tarafından kapatılır; generator yalnızca flush eder.
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        while (rows.hasNext()) {
+            writer.writeValue(generator, rows.next());
+            generator.writeRaw('\n');
+            count++;
+        }
+        generator.close();
+        return count;
+    }
+
+    /* Tüm alanlar sayı ya da ISO tarih olduğu için kaçış karakteri gerekmez. */
+    private long writeCsv(Iterator<TransferExportRow> rows, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,senderId,receiverId,amount,timestamp\n");
+        while (rows.hasNext()) {
+            TransferExportRow row = rows.next();
+            writer.write(row.id() + "," + row.senderId() + "," + row.receiverId() + "," + row.amount().toPlainString() + "," + row.timestamp() + "\n");
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+}
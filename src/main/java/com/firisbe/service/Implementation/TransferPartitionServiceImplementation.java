@@ -0,0 +1,190 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.model.Transfer;
+import com.firisbe.service.Interface.TransferPartitionServiceInterface;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ *     transfer tablosunu PostgreSQL'de timestamp üzerinden aylık range partition'lara böler. Tarih filtreli sorgular
+ *     (monthOffset listeleri, tarih aralığı, istatistikler, keyset sayfalar) yalnızca ilgili ayların partition'larını okur.
+ *
+ *     ddl-auto tabloyu düz tablo olarak oluşturduğu için ilk açılışta tablo dönüştürülür: mevcut tablo tek bir "legacy"
+ *     partition olarak yeni tabloya bağlanır, veri kopyalanmaz. Ağır adımlar (unique indeks, partition sınırını kanıtlayan
+ *     CHECK constraint'in doğrulanması) tablo kilitlenmeden önce, eşzamanlı yazmalara izin verilerek yapılır; kilit altında
+ *     yalnızca katalog değişiklikleri kalır. Sonrasında her gün months-ahead kadar ileri ayın partition'ı hazırlanır;
+ *     retention-months verilmişse daha eski partition'lar ayrılır (DETACH ... CONCURRENTLY). Ayrılan partition'lar
+ *     silinmez, arşivlenmek üzere ayrı tablo olarak kalır.
+ *
+ *     Partition'lı tabloda unique constraint partition anahtarını içermek zorunda olduğundan idempotency_key tekilliği
+ *     transfer_idempotency_key tablosuna yazan bir trigger ile korunur. Tekrar kontrolleri ise entity'de tanımlı
+ *     idx_transfer_idempotency_key indeksini kullanır; indeks üst tabloda tanımlı olduğundan her yeni aylık partition'da
+ *     da oluşur.
+ */
+@Service
+public class TransferPartitionServiceImplementation implements TransferPartitionServiceInterface {
+    static final String LEGACY_PARTITION = "transfer_legacy";
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('(\\d{4}-\\d{2}-\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxServiceImplementation outbox;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public TransferPartitionServiceImplementation(JdbcTemplate jdbcTemplate,
+                                                  PlatformTransactionManager transactionManager,
+                                                  OutboxServiceImplementation outbox,
+                                                  @Value("${payment.partition.enabled:true}") boolean enabled,
+                                                  @Value("${payment.partition.months-ahead:3}") int monthsAhead,
+                                                  @Value("${payment.partition.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.outbox = outbox;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${payment.partition.cron:0 0 3 * * *}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equals(database)) {
+                return;
+            }
+            String kind = jdbcTemplate.queryForObject(
+                    "select c.relkind::text from pg_class c where c.oid = to_regclass('transfer')", String.class);
+            if ("r".equals(kind)) {
+                convert();
+            }
+            createAhead();
+            if (retentionMonths > 0) {
+                detachBefore(YearMonth.now().minusMonths(retentionMonths).atDay(1));
+            }
+        } catch (Exception e) {
+            outbox.send("error_logs", "GeneralError: Transfer partitions could not be maintained. Reason: " + e.getMessage());
+        }
+    }
+
+    /*
+     *     Legacy partition'ın üst sınırı iki ay sonrasının başıdır; dönüşüm sırasında ay dönse bile yazılan satırlar
+     *     CHECK constraint'ini bozmaz. Aylık partition'lar bu sınırdan itibaren oluşturulur.
+     */
+    private void convert() {
+        LocalDate boundary = YearMonth.now().plusMonths(2).atDay(1);
+
+        // Kilitsiz hazırlık: PK için (id, timestamp) indeksi ve partition sınırını kanıtlayan constraint
+        jdbcTemplate.execute("create unique index concurrently if not exists transfer_legacy_id_timestamp on transfer (id, timestamp)");
+        Integer checks = jdbcTemplate.queryForObject(
+                "select count(*) from pg_constraint where conname = 'transfer_legacy_bound' and conrelid = 'transfer'::regclass", Integer.class);
+        if (checks == null || checks == 0) {
+            jdbcTemplate.execute("alter table transfer add constraint transfer_legacy_bound check (timestamp is not null and timestamp < '"
+                    + boundary + "') not valid");
+        }
+        jdbcTemplate.execute("alter table transfer validate constraint transfer_legacy_bound");
+        LocalDate legacyUpperBound = jdbcTemplate.queryForObject(
+                "select substring(pg_get_constraintdef(oid) from '''(\\d{4}-\\d{2}-\\d{2})')::date from pg_constraint " +
+                        "where conname = 'transfer_legacy_bound' and conrelid = 'transfer'::regclass", LocalDate.class);
+
+        List<Index> indexes = List.of(Transfer.class.getAnnotation(Table.class).indexes());
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("lock table transfer in access exclusive mode");
+            jdbcTemplate.execute("alter table transfer rename to " + LEGACY_PARTITION);
+            jdbcTemplate.execute("alter table " + LEGACY_PARTITION + " rename constraint transfer_pkey to transfer_legacy_pkey");
+            for (Index index : indexes) {
+                jdbcTemplate.execute("alter index if exists " + index.name() + " rename to " + index.name() + "_legacy");
+            }
+            jdbcTemplate.execute("create table transfer (like " + LEGACY_PARTITION + " including defaults) partition by range (timestamp)");
+            jdbcTemplate.execute("alter table transfer attach partition " + LEGACY_PARTITION
+                    + " for values from (minvalue) to ('" + legacyUpperBound + "')");
+            // Aynı tanımlı indeksler ve foreign key'ler yeniden oluşturulmaz, legacy partition'dakiler bağlanır
+            jdbcTemplate.execute("alter table transfer add constraint transfer_pkey primary key (id, timestamp)");
+            for (Index index : indexes) {
+                jdbcTemplate.execute("create index if not exists " + index.name() + " on transfer (" + index.columnList() + ")");
+            }
+            jdbcTemplate.execute("alter table transfer add constraint fk_transfer_sender foreign key (sender_id) references customer (id)");
+            jdbcTemplate.execute("alter table transfer add constraint fk_transfer_receiver foreign key (receiver_id) references customer (id)");
+
+            jdbcTemplate.execute("create table if not exists transfer_idempotency_key (" +
+                    "idempotency_key uuid primary key, timestamp timestamp(6) not null)");
+            // Dönüşümden önce yazılmış transferlerin anahtarları da tekrarları engellemeye devam etmelidir
+            jdbcTemplate.update("insert into transfer_idempotency_key (idempotency_key, timestamp) " +
+                    "select idempotency_key, timestamp from " + LEGACY_PARTITION + " where idempotency_key is not null " +
+                    "on conflict (idempotency_key) do nothing");
+            jdbcTemplate.execute("create or replace function transfer_idempotency_key_insert() returns trigger as $$ begin " +
+                    "if new.idempotency_key is not null then " +
+                    "insert into transfer_idempotency_key (idempotency_key, timestamp) values (new.idempotency_key, new.timestamp); " +
+                    "end if; return null; end $$ language plpgsql");
+            jdbcTemplate.execute("create trigger transfer_idempotency_key after insert on transfer " +
+                    "for each row execute function transfer_idempotency_key_insert()");
+        });
+        outbox.send("successful_logs", "Transfer table has been converted to a monthly partitioned table");
+    }
+
+    /* En son partition'ın bitişinden bugün + months-ahead ayına kadar eksik aylık partition'lar oluşturulur. */
+    private void createAhead() {
+        LocalDate next = partitionUpperBounds().values().stream().max(LocalDate::compareTo).orElse(YearMonth.now().atDay(1));
+        LocalDate last = YearMonth.now().plusMonths(monthsAhead).atDay(1);
+        for (LocalDate month = next; !month.isAfter(last); month = month.plusMonths(1)) {
+            jdbcTemplate.execute("create table if not exists " + partitionName(month) + " partition of transfer for values from ('"
+                    + month + "') to ('" + month.plusMonths(1) + "')");
+        }
+    }
+
+    /* Üst sınırı verilen tarihten önce olan partition'lar ayrılır; tekillik kayıtları da aynı aralık için silinir. */
+    private void detachBefore(LocalDate cutoff) {
+        List<String> detached = new ArrayList<>();
+        partitionUpperBounds().forEach((partition, upperBound) -> {
+            if (!upperBound.isAfter(cutoff)) {
+                jdbcTemplate.execute("alter table transfer detach partition " + partition + " concurrently");
+                detached.add(partition);
+            }
+        });
+        if (!detached.isEmpty()) {
+            jdbcTemplate.update("delete from transfer_idempotency_key where timestamp < ?", cutoff.atStartOfDay());
+            outbox.send("successful_logs", "Transfer partitions have been detached for archival: " + String.join(", ", detached));
+        }
+    }
+
+    private Map<String, LocalDate> partitionUpperBounds() {
+        Map<String, LocalDate> upperBounds = new TreeMap<>();
+        jdbcTemplate.queryForList("select c.relname as name, pg_get_expr(c.relpartbound, c.oid) as bound " +
+                        "from pg_inherits i join pg_class c on c.oid = i.inhrelid where i.inhparent = 'transfer'::regclass")
+                .forEach(row -> {
+                    Matcher matcher = UPPER_BOUND.matcher(String.valueOf(row.get("bound")));
+                    if (matcher.find()) {
+                        upperBounds.put(String.valueOf(row.get("name")), LocalDate.parse(matcher.group(1)));
+                    }
+                });
+        return upperBounds;
+    }
+
+    static String partitionName(LocalDate month) {
+        return String.format("transfer_y%04dm%02d", month.getYear(), month.getMonthValue());
+    }
+}
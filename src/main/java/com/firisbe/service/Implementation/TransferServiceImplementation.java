@@ -2,383 +2,439 @@ package com.firisbe.service.Implementation;
 
 import com.firisbe.aspect.GenericResponse;
 import com.firisbe.aspect.encryption.Encryption;
+import com.firisbe.aspect.pagination.KeysetCursor;
 import com.firisbe.error.CustomerNotFoundException;
+import com.firisbe.error.InvalidCursorException;
 import com.firisbe.error.PaymentFailedException;
+import com.firisbe.error.PaymentOverloadedException;
 import com.firisbe.error.TransferNotFoundException;
 import com.firisbe.model.Customer;
 import com.firisbe.model.DTO.request.CustomerPaymentRequest;
+import com.firisbe.model.DTO.response.CursorPage;
 import com.firisbe.model.DTO.response.PaymentResponse;
+import com.firisbe.model.DTO.response.PaymentStatusResponse;
+import com.firisbe.model.Enum.PaymentStatus;
+import com.firisbe.model.PaymentEvent;
+import com.firisbe.model.PaymentState;
 import com.firisbe.model.Transfer;
 import com.firisbe.repository.jpa.TransferRepository;
 import com.firisbe.service.Interface.TransferServiceInterface;
 import lombok.AllArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.DltStrategy;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.retry.annotation.Backoff;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 @Service
 @AllArgsConstructor
 public class TransferServiceImplementation implements TransferServiceInterface {
     private final TransferRepository repo;
     private final CustomerServiceImplementation customerService;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final OutboxServiceImplementation outbox;
     private final Encryption encryption;
+    private final IdempotencyServiceImplementation idempotencyService;
+    private final PaymentStatusServiceImplementation paymentStatusService;
+    private final DeadLetterServiceImplementation deadLetterService;
+    private final AdmissionControlServiceImplementation admissionControlService;
+    private final TransferAggregateServiceImplementation transferAggregateService;
+    private final RollingVolumeServiceImplementation rollingVolumeService;
 
+    /*
+     *     Ödeme mesajı, PENDING durum kaydı ve log kaydı tek transaction'da yazılır. İstemciye ödeme id'si hemen döner;
+     *     sonucu /payment/status/{paymentId} üzerinden sorgulanır.
+     */
     @Override
-    public GenericResponse<String> sendPaymentMessageToKafka(CustomerPaymentRequest request, String token) {
+    @Transactional(rollbackFor = {PaymentFailedException.class})
+    public GenericResponse<PaymentStatusResponse> sendPaymentMessageToKafka(CustomerPaymentRequest request, String token, String idempotencyKey) {
+        UUID key = null;
         try {
             Customer senderAccount = customerService.findCustomerToToken(token);
             Customer receiveAccount = customerService.findCustomerByMail(request.receiveMail());
 
             if (senderAccount != null && receiveAccount != null && senderAccount.getCreditCardNumber() != null && receiveAccount.getCreditCardNumber() != null) {
-                String message = senderAccount.getId() + "/" + receiveAccount.getId() + "/" + request.amount();
+                key = idempotencyService.keyFor(senderAccount.getId(), idempotencyKey);
+                PaymentEvent event = PaymentEvent.of(senderAccount.getId(), receiveAccount.getId(), request.amount(), key);
+                UUID paymentId = idempotencyService.register(key, event.paymentId());
+                if (!paymentId.equals(event.paymentId())) {
+                    // Aynı Idempotency-Key ile gelen tekrar, kuyruğa ikinci kez yazılmadan ilk isteğin ödeme id'sini alır.
+                    key = null;
+                    outbox.send("payment_log", "Duplicate payment request ignored: " + paymentId);
+                    return new GenericResponse<>(new PaymentStatusResponse(paymentId, PaymentStatus.PENDING, null, LocalDateTime.now()), true);
+                }
+
+                releaseUnlessCommitted(key);
+                admissionControlService.admit(senderAccount.getId());
 
-                kafkaTemplate.send("payment_process", message);
-                kafkaTemplate.send("payment_log", "Payment request received successfully!");
-                return new GenericResponse<>("Payment request received successfully!", true);
+                // Gönderen hesap id'si key olarak kullanılır; aynı hesabın ödemeleri aynı partition'da sırayla işlenir.
+                outbox.send("payment_process", String.valueOf(senderAccount.getId()), event);
+                paymentStatusService.pending(event);
+                outbox.send("payment_log", "Payment request received successfully!");
+                return new GenericResponse<>(new PaymentStatusResponse(paymentId, PaymentStatus.PENDING, null, LocalDateTime.now()), true);
 
             } else {
                 throw new PaymentFailedException();
             }
+        } catch (PaymentOverloadedException e) {
+            // Reddedilen istek kuyruğa yazılmadığı için aynı Idempotency-Key ile tekrar denenebilir.
+            release(key);
+            outbox.send("error_logs", "PaymentOverloadedException: " + e.getMessage());
+            throw e;
         } catch (PaymentFailedException e){
-            kafkaTemplate.send("error_logs", "PaymentFailedException: " + e.getMessage());
+            release(key);
+            outbox.send("error_logs", "PaymentFailedException: " + e.getMessage());
             throw new PaymentFailedException(e);
         }
         catch (Exception e) {
-            kafkaTemplate.send("error_logs", "RuntimeException: " + e.getMessage());
+            release(key);
+            outbox.send("error_logs", "RuntimeException: " + e.getMessage());
             throw new RuntimeException(e);
         }
 
     }
 
+    /*
+     *     Anahtar cache'e commit'ten önce yazılır ki eşzamanlı tekrarlar da elensin. Commit başarısız olursa (outbox ya da
+     *     payment_state flush'ı, bağlantı kaybı) hata metot döndükten sonra çıkar; anahtar bu durumda transaction
+     *     tamamlanınca bırakılır, aksi halde istemcinin tekrar denemesi kuyruğa hiç yazılmamış bir ödeme için PENDING alırdı.
+     */
+    private void releaseUnlessCommitted(UUID key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        idempotencyService.release(key);
+                    }
+                }
+            });
+        }
+    }
+
+    /* Transaction varsa anahtar geri alma sonrasında releaseUnlessCommitted ile bırakılır. */
+    private void release(UUID key) {
+        if (key != null && !TransactionSynchronizationManager.isSynchronizationActive()) {
+            idempotencyService.release(key);
+        }
+    }
+
+    /* Durum sorgusu ödeme id'si üzerinden yapılır; müşteri yalnızca kendi gönderdiği ödemelerin durumunu görebilir. */
+    @Override
+    public GenericResponse<PaymentStatusResponse> readPaymentStatusForCustomer(String token, UUID paymentId) {
+        try {
+            Customer customer = customerService.findCustomerToToken(token);
+            PaymentState state = paymentStatusService.find(paymentId);
+            if (customer == null || !state.getSenderId().equals(customer.getId())) {
+                throw new TransferNotFoundException();
+            }
+            return new GenericResponse<>(new PaymentStatusResponse(state.getPaymentId(), state.getStatus(), state.getReason(), state.getUpdatedAt()), true);
+        } catch (TransferNotFoundException e) {
+            outbox.send("error_logs", "TransferNotFoundException: Payment status not found: " + paymentId);
+            throw new TransferNotFoundException(e);
+        } catch (Exception e) {
+            outbox.send("error_logs", "RuntimeException: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /*
+     *     Geçici hatalar (kilit/serileştirme çakışması, bağlantı hatası) partition'ı bloklamadan retry topic'lerinde üstel
+     *     artan beklemelerle tekrar denenir. İş kuralı hataları (yetersiz bakiye, bulunamayan müşteri) ve çözülemeyen
+     *     mesajlar tekrar denenmeden payment_process.DLT'ye gönderilir.
+     *
+     *     Listener yalnızca record modunda başlar, fakat batch, netting ve ledger modları da hatalı kayıtları aynı DLT'ye
+     *     yazar; bu yüzden DLT handler'ı her modda başlatılır.
+     */
     @Override
+    @RetryableTopic(
+            attempts = "${payment.retry.attempts:4}",
+            backoff = @Backoff(
+                    delayExpression = "${payment.retry.delay-ms:1000}",
+                    multiplierExpression = "${payment.retry.multiplier:2}",
+                    maxDelayExpression = "${payment.retry.max-delay-ms:30000}"
+            ),
+            numPartitions = "${kafka.payment.partitions:1}",
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+            dltTopicSuffix = ".DLT",
+            dltStrategy = DltStrategy.FAIL_ON_ERROR,
+            exclude = {PaymentFailedException.class, CustomerNotFoundException.class},
+            traversingCauses = "true",
+            kafkaTemplate = "retryKafkaTemplate",
+            autoStartDltHandler = "true"
+    )
     @KafkaListener(
             topics = {"${kafka.topic.paymentProcess}"},
-            groupId = "${kafka.groupId}"
+            groupId = "${kafka.groupId}",
+            containerFactory = "paymentFactory",
+            autoStartup = "#{'${payment.settlement.mode:record}' == 'record'}"
     )
-    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE, rollbackFor = {PaymentFailedException.class})
-    public void processPaymentMessageFromKafka(String request) {
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED, rollbackFor = {PaymentFailedException.class})
+    public void processPaymentMessageFromKafka(PaymentEvent request) {
         try {
+            long senderCustomerId = request.senderId();
+            long receiverCustomerId = request.receiverId();
+            BigDecimal amount = request.amount();
 
-            String[] parts = request.split("/");
-
-            long senderCustomerId = Long.parseLong(parts[0]);
-            long receiverCustomerId = Long.parseLong(parts[1]);
-            BigDecimal amount = new BigDecimal(parts[2]);
-
-
-            Customer senderCustomer = customerService.findById(senderCustomerId);
-            Customer receiveCustomer = customerService.findById(receiverCustomerId);
-
-            if (amount.compareTo(BigDecimal.valueOf(0)) > 0 && senderCustomer.getBalance().compareTo(amount) > 0) {
-                senderCustomer.setBalance(
-                        senderCustomer.getBalance().subtract(amount)
-                );
-                receiveCustomer.setBalance(
-                        receiveCustomer.getBalance().add(amount)
-                );
-
-                customerService.saveCustomer(senderCustomer);
-                customerService.saveCustomer(receiveCustomer);
-
+            if (amount.compareTo(BigDecimal.valueOf(0)) <= 0) {
+                throw new PaymentFailedException("Invalid amount: " + amount);
+            }
 
-                Transfer transfer = Transfer.builder()
-                        .amount(amount)
-                        .sender(senderCustomer)
-                        .receiver(receiveCustomer)
-                        .timestamp(LocalDateTime.now())
-                        .build();
-                /* Bu ifadelere gerek var mı ? */
-//                senderCustomer.getSentTransfers().add(transfer);
-//                receiveCustomer.getReceivedTransfers().add(transfer);
-                repo.save(transfer);
+            // Yeniden teslim edilen ya da istemci tarafından tekrar gönderilen ödeme ikinci kez uygulanmaz; transferi
+            // zaten yazılmış olduğundan durumu aynı transaction'da SETTLED olarak işaretlenir.
+            if (repo.existsByIdempotencyKey(request.idempotencyKey())) {
+                paymentStatusService.settled(List.of(request));
+                outbox.send("payment_log", "Duplicate payment ignored: " + request.idempotencyKey());
+                return;
+            }
 
-                kafkaTemplate.send("payment_log", "Payment processed successfully!");
+            /*
+             *     Bakiyeler Java'da okunup yazılmak yerine koşullu UPDATE ile değiştiriliyor, bu sayede READ COMMITTED
+             *     yeterli ve güncelleme kaybı olmuyor. Satır kilitleri her zaman küçük hesap id'sinden başlanarak
+             *     alınıyor; ters yönlü eşzamanlı iki transfer birbirini deadlock'a sokamaz. Düşme başarısız olursa
+             *     PaymentFailedException ile önceden yapılan alacak kaydı da geri alınır.
+             */
+            if (senderCustomerId <= receiverCustomerId) {
+                debit(senderCustomerId, amount);
+                credit(receiverCustomerId, amount);
             } else {
-                throw new PaymentFailedException();
+                credit(receiverCustomerId, amount);
+                debit(senderCustomerId, amount);
             }
+
+            Transfer transfer = Transfer.builder()
+                    .amount(amount)
+                    .sender(customerService.getReference(senderCustomerId))
+                    .receiver(customerService.getReference(receiverCustomerId))
+                    .timestamp(LocalDateTime.now())
+                    .idempotencyKey(request.idempotencyKey())
+                    .build();
+            repo.save(transfer);
+            transferAggregateService.record(transfer);
+            paymentStatusService.settled(List.of(request));
+            rollingVolumeService.recordAll(List.of(request));
+
+            outbox.send("payment_log", "Payment processed successfully!");
         }catch (PaymentFailedException e){
-            kafkaTemplate.send("error_logs", "PaymentFailedException: Failed payment Reason: " + e);
+            paymentStatusService.rejected(request, e.getMessage());
+            outbox.send("error_logs", "PaymentFailedException: Failed payment Reason: " + e);
             throw new PaymentFailedException(e);
         }
         catch (Exception e) {
-            kafkaTemplate.send("error_logs", "RuntimeException: " + e.getMessage());
+            outbox.send("error_logs", "RuntimeException: " + e.getMessage());
             throw new RuntimeException(e);
         }
     }
 
+    @Override
+    @DltHandler
+    public void processDeadLetterFromKafka(ConsumerRecord<String, PaymentEvent> record) {
+        if (record.value() == null) {
+            outbox.send("error_logs", "PaymentFailedException: Malformed payment message dead-lettered at offset " + record.offset());
+            return;
+        }
+        Header exceptionMessage = record.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_MESSAGE);
+        String reason = exceptionMessage == null ? null : new String(exceptionMessage.value(), StandardCharsets.UTF_8);
+        deadLetterService.record(record.value(), reason);
+    }
+
+    private void debit(long customerId, BigDecimal amount) {
+        if (!customerService.debit(customerId, amount)) {
+            throw new PaymentFailedException("Insufficient balance or customer not found: " + customerId);
+        }
+    }
+
+    private void credit(long customerId, BigDecimal amount) {
+        if (!customerService.credit(customerId, amount)) {
+            throw new PaymentFailedException("Receiver account not found or has no payment method: " + customerId);
+        }
+    }
+
     @Override
     @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE, rollbackFor = {PaymentFailedException.class})
     public GenericResponse<PaymentResponse> readPaymentForCustomer(String token, Long id) {
         try {
-            Transfer transfer = repo.findById(id).orElseThrow(TransferNotFoundException::new);
+            PaymentResponse response = repo.findPaymentResponseById(id).orElseThrow(TransferNotFoundException::new);
             Customer customer = customerService.findCustomerToToken(token);
-            if (customer != null && transfer.getSender().getId().equals(customer.getId())) {
-                PaymentResponse response = new PaymentResponse(
-                        transfer.getSender(),
-                        transfer.getReceiver(),
-                        transfer.getAmount(),
-                        transfer.getTimestamp()
-                );
-                kafkaTemplate.send("payment_log", "Transfer read successfully");
+            if (customer != null && response.senderId().equals(customer.getId())) {
+                outbox.send("payment_log", "Transfer read successfully");
                 return new GenericResponse<>(response, true);
             } else {
                 throw new CustomerNotFoundException();
             }
         } catch (CustomerNotFoundException e) {
-            kafkaTemplate.send("error_logs", "CustomerNotFoundException: " + e.getMessage());
+            outbox.send("error_logs", "CustomerNotFoundException: " + e.getMessage());
             throw new CustomerNotFoundException(e);
         } catch (TransferNotFoundException e) {
-            kafkaTemplate.send("error_logs", "TransferNotFoundException: " + e.getMessage());
+            outbox.send("error_logs", "TransferNotFoundException: " + e.getMessage());
             throw new TransferNotFoundException(e);
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "RuntimeException: " + e.getMessage());
+            outbox.send("error_logs", "RuntimeException: " + e.getMessage());
             throw new RuntimeException(e);
         }
     }
 
     @Override
-    public GenericResponse<List<PaymentResponse>> readAllSentPaymentForCustomer(String token) {
-        return new GenericResponse<>(listTransfer(token, "sent"), true);
+    public GenericResponse<CursorPage<PaymentResponse>> readAllReceivedPaymentForCustomer(String token, String cursor, int size) {
+        Long customerId = customerIdOf(token);
+        return pageTransfer(cursor, size, (after, limit) -> repo.findReceivedPage(customerId, after.timestamp(), after.id(), limit));
+    }
+
+    @Override
+    public GenericResponse<CursorPage<PaymentResponse>> readAllSentPaymentForCustomer(String token, String cursor, int size) {
+        Long customerId = customerIdOf(token);
+        return pageTransfer(cursor, size, (after, limit) -> repo.findSentPage(customerId, after.timestamp(), after.id(), limit));
     }
 
     @Override
-    public GenericResponse<List<PaymentResponse>> readAllPaymentForCustomer(String token) {
-        return new GenericResponse<>(listTransfer(token, "all"), true);
+    public GenericResponse<CursorPage<PaymentResponse>> readAllPaymentForCustomer(String token, String cursor, int size) {
+        Long customerId = customerIdOf(token);
+        return pageTransfer(cursor, size, (after, limit) -> repo.findCustomerPage(customerId, after.timestamp(), after.id(), limit));
+    }
+
+    private Long customerIdOf(String token) {
+        Customer customer = customerService.findCustomerToToken(token);
+        if (customer == null) {
+            outbox.send("error_logs", "CustomerNotFoundException: Customer not found for token");
+            throw new CustomerNotFoundException();
+        }
+        return customer.getId();
     }
 
     @Override
     public GenericResponse<List<PaymentResponse>> readAllReceivedPaymentForCustomer(String token, int monthOffset) {
         LocalDateTime referenceDate = LocalDateTime.now().minusMonths(monthOffset);
-        List<PaymentResponse> filteredList = listTransfer(token, "received");
-        filteredList = filteredList.stream()
-                .filter(paymentResponse -> paymentResponse.timestamp().isAfter(referenceDate))
-                .toList();
-        return new GenericResponse<>(filteredList, true);
+        return new GenericResponse<>(listTransfer(token, "received", referenceDate), true);
     }
 
     @Override
     public GenericResponse<List<PaymentResponse>> readAllSentPaymentForCustomer(String token, int monthOffset) {
         LocalDateTime referenceDate = LocalDateTime.now().minusMonths(monthOffset);
-        List<PaymentResponse> filteredList = listTransfer(token, "sent");
-        filteredList = filteredList.stream()
-                .filter(paymentResponse -> paymentResponse.timestamp().isAfter(referenceDate))
-                .toList();
-        return new GenericResponse<>(filteredList, true);
+        return new GenericResponse<>(listTransfer(token, "sent", referenceDate), true);
     }
 
     @Override
     public GenericResponse<List<PaymentResponse>> readAllPaymentForCustomer(String token, int monthOffset) {
         LocalDateTime referenceDate = LocalDateTime.now().minusMonths(monthOffset);
-        List<PaymentResponse> filteredList = listTransfer(token, "all");
-        filteredList = filteredList.stream()
-                .filter(paymentResponse -> paymentResponse.timestamp().isAfter(referenceDate))
-                .toList();
-        return new GenericResponse<>(filteredList, true);
+        return new GenericResponse<>(listTransfer(token, "all", referenceDate), true);
     }
 
     @Override
     public GenericResponse<PaymentResponse> readPaymentForAdmin(Long id) {
         try {
-            Transfer transfer = repo.findById(id).orElseThrow(TransferNotFoundException::new);
-            kafkaTemplate.send("payment_log", "Transfer read successfully");
-            return new GenericResponse<>(
-                    new PaymentResponse(
-                            transfer.getSender(),
-                            transfer.getReceiver(),
-                            transfer.getAmount(),
-                            transfer.getTimestamp()
-                    ), true
-            );
+            PaymentResponse response = repo.findPaymentResponseById(id).orElseThrow(TransferNotFoundException::new);
+            outbox.send("payment_log", "Transfer read successfully");
+            return new GenericResponse<>(response, true);
         } catch (TransferNotFoundException e) {
-            kafkaTemplate.send("error_logs", "TransferNotFoundException: " + e.getMessage());
+            outbox.send("error_logs", "TransferNotFoundException: " + e.getMessage());
             throw new TransferNotFoundException(e);
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "RuntimeException: " + e.getMessage());
+            outbox.send("error_logs", "RuntimeException: " + e.getMessage());
             throw new RuntimeException(e);
         }
     }
 
     @Override
-    public GenericResponse<List<PaymentResponse>> readAllPaymentForAdmin() {
-        try {
-            List<Transfer> transferList = repo.findAll();
-            if (transferList.isEmpty()) {
-                throw new TransferNotFoundException();
-            }
-            List<PaymentResponse> response = transferList.stream()
-                    .map(transfer -> new PaymentResponse(
-                            transfer.getSender(),
-                            transfer.getReceiver(),
-                            transfer.getAmount(),
-                            transfer.getTimestamp()
-                    )).toList();
-            kafkaTemplate.send("payment_log", "Transfers listed successfully");
-            return new GenericResponse<>(response, true);
-        } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "TransferNotFoundException: " );
-            throw new TransferNotFoundException(e);
-        }
+    public GenericResponse<CursorPage<PaymentResponse>> readAllPaymentForAdmin(String cursor, int size) {
+        return pageTransfer(cursor, size, (after, limit) -> repo.findPage(after.timestamp(), after.id(), limit));
     }
 
     @Override
     public GenericResponse<List<PaymentResponse>> readAllPaymentForAdmin(int monthOffset) {
-        try {
-            LocalDateTime referenceDate = LocalDateTime.now().minusMonths(monthOffset);
-            List<Transfer> transferList = repo.findAll();
-            if (transferList.isEmpty()) {
-                throw new TransferNotFoundException();
-            }
-            List<PaymentResponse> response = transferList.stream()
-                    .map(transfer -> new PaymentResponse(
-                            transfer.getSender(),
-                            transfer.getReceiver(),
-                            transfer.getAmount(),
-                            transfer.getTimestamp()
-                    )).toList();
-            response = response.stream()
-                    .filter(paymentResponse -> paymentResponse.timestamp().isAfter(referenceDate))
-                    .toList();
-            kafkaTemplate.send("payment_log", "Transfers listed successfully");
-            return new GenericResponse<>(response, true);
-        } catch (TransferNotFoundException e) {
-            kafkaTemplate.send("error_logs", "TransferNotFoundException: " + e.getMessage());
-            throw new TransferNotFoundException(e);
-        } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "RuntimeException: " + e.getMessage());
-            throw new RuntimeException(e);
-        }
+        LocalDateTime referenceDate = LocalDateTime.now().minusMonths(monthOffset);
+        return listTransferForAdmin(() -> repo.findAllByTimestampAfter(referenceDate));
     }
 
     @Override
     public GenericResponse<List<PaymentResponse>> readAllPaymentForAdminByCustomerId(Long customerId) {
-        try {
-            List<Transfer> transferList = repo.findAll();
-            if (transferList.isEmpty()) {
-                throw new TransferNotFoundException();
-            }
-            List<PaymentResponse> response = transferList.stream()
-                    .map(transfer -> new PaymentResponse(
-                            transfer.getSender(),
-                            transfer.getReceiver(),
-                            transfer.getAmount(),
-                            transfer.getTimestamp()
-                    )).toList();
-
-            response = response.stream()
-                    .filter(paymentResponse -> paymentResponse.sentCustomer().getId().equals(customerId) || paymentResponse.receiverCustomer().getId().equals(customerId))
-                    .toList();
-            kafkaTemplate.send("payment_log", "Transfers listed successfully");
-            return new GenericResponse<>(response, true);
-        } catch (TransferNotFoundException e) {
-            kafkaTemplate.send("error_logs", "TransferNotFoundException: " + e.getMessage());
-            throw new TransferNotFoundException(e);
-        } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "RuntimeException: " + e.getMessage());
-            throw new RuntimeException(e);
-        }
+        return listTransferForAdmin(() -> repo.findAllByCustomerId(customerId));
     }
 
+    /* Aranan kart numarasının blind index'i hesaplanır ve müşterinin indeksli kolonunda eşitlikle aranır. */
     @Override
     public GenericResponse<List<PaymentResponse>> readAllPaymentForAdminByCardNumber(String cardNumber) {
-        try {
-            List<Transfer> transferList = repo.findAll();
-            if (transferList.isEmpty()) {
-                throw new TransferNotFoundException();
-            }
-            List<PaymentResponse> response = transferList.stream()
-                    .map(transfer -> new PaymentResponse(
-                            transfer.getSender(),
-                            transfer.getReceiver(),
-                            transfer.getAmount(),
-                            transfer.getTimestamp()
-                    )).toList();
-
-            response = response.stream()
-                    .filter(paymentResponse -> encryption.decrypt(paymentResponse.sentCustomer().getCreditCardNumber()).equals(cardNumber) || encryption.decrypt(paymentResponse.receiverCustomer().getCreditCardNumber()).equals(cardNumber))
-                    .toList();
-
-            kafkaTemplate.send("payment_log", "Transfers listed successfully");
-            return new GenericResponse<>(response, true);
-        } catch (TransferNotFoundException e) {
-            kafkaTemplate.send("error_logs", "TransferNotFoundException: " + e.getMessage());
-            throw new TransferNotFoundException(e);
-        } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "RuntimeException: " + e.getMessage());
-            throw new RuntimeException(e);
-        }
+        return listTransferForAdmin(() -> repo.findAllByCustomerCreditCardIndex(encryption.blindIndex(cardNumber)));
+    }
+
+    /* Önce adı eşleşen müşteriler indeksle bulunur, ardından yalnızca onların transferleri sayfalı okunur. */
+    @Override
+    public GenericResponse<CursorPage<PaymentResponse>> readAllPaymentForAdminByCustomerName(String customerName, String cursor, int size) {
+        List<Long> customerIds = customerService.searchCustomerIdsByName(customerName);
+        return pageTransfer(cursor, size, (after, limit) -> customerIds.isEmpty()
+                ? List.of()
+                : repo.findCustomersPage(customerIds, after.timestamp(), after.id(), limit));
     }
 
     @Override
-    public GenericResponse<List<PaymentResponse>> readAllPaymentForAdminByCustomerName(String customerName) {
+    public GenericResponse<List<PaymentResponse>> readAllPaymentForAdminWithDateInterval(int startDate, int endDate) {
+        LocalDateTime startDateInterval = LocalDateTime.now().minusMonths(startDate);
+        LocalDateTime endDateInterval = LocalDateTime.now().minusMonths(endDate);
+        return listTransferForAdmin(() -> repo.findAllByTimestampBetween(startDateInterval, endDateInterval));
+    }
+
+    /*
+     *     Sayfalı listeleme methodlarının ortak gövdesi. Transferler yeniden eskiye (timestamp, id) sırasıyla okunur;
+     *     ilk sayfa boşsa listelenecek transfer yoktur.
+     */
+    private GenericResponse<CursorPage<PaymentResponse>> pageTransfer(String cursor, int size, BiFunction<KeysetCursor, Limit, List<PaymentResponse>> query) {
         try {
-            List<Transfer> transferList = repo.findAll();
-            if (transferList.isEmpty()) {
+            List<PaymentResponse> transferList = query.apply(KeysetCursor.descending(cursor), KeysetCursor.limit(size));
+            if (transferList.isEmpty() && (cursor == null || cursor.isBlank())) {
                 throw new TransferNotFoundException();
             }
-            List<PaymentResponse> response = transferList.stream()
-                    .map(transfer -> new PaymentResponse(
-                            transfer.getSender(),
-                            transfer.getReceiver(),
-                            transfer.getAmount(),
-                            transfer.getTimestamp()
-                    )).toList();
-
-            response = response.stream()
-                    .filter(paymentResponse -> paymentResponse.sentCustomer().getName().equals(customerName) || paymentResponse.receiverCustomer().getName().equals(customerName))
-                    .toList();
-
-            kafkaTemplate.send("payment_log", "Transfers listed successfully");
+            CursorPage<PaymentResponse> response = KeysetCursor.page(transferList, size,
+                    transfer -> new KeysetCursor(transfer.timestamp(), transfer.id()),
+                    transfer -> transfer);
+            outbox.send("payment_log", "Transfers listed successfully");
             return new GenericResponse<>(response, true);
         } catch (TransferNotFoundException e) {
-            kafkaTemplate.send("error_logs", "TransferNotFoundException: " + e.getMessage());
+            outbox.send("error_logs", "TransferNotFoundException: " + e.getMessage());
             throw new TransferNotFoundException(e);
+        } catch (InvalidCursorException e) {
+            outbox.send("error_logs", "InvalidCursorException: " + e.getMessage());
+            throw e;
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "RuntimeException: " + e.getMessage());
+            outbox.send("error_logs", "RuntimeException: " + e.getMessage());
             throw new RuntimeException(e);
         }
     }
 
-    @Override
-    public GenericResponse<List<PaymentResponse>> readAllPaymentForAdminWithDateInterval(int startDate, int endDate) {
+    /*
+     *     Admin listeleme methodlarının ortak gövdesi. Filtreler indeksli repository sorgularında uygulanır; tablonun
+     *     tamamı yerine yalnızca eşleşen transferler, gönderen/alıcı id ve adlarıyla birlikte tek sorguda okunur.
+     */
+    private GenericResponse<List<PaymentResponse>> listTransferForAdmin(Supplier<List<PaymentResponse>> query) {
         try {
-            List<Transfer> transferList = repo.findAll();
-            LocalDateTime startDateInterval = LocalDateTime.now().minusMonths(startDate);
-            LocalDateTime endDateInterval = LocalDateTime.now().minusMonths(endDate);
-            if (transferList.isEmpty()) {
+            List<PaymentResponse> response = query.get();
+            if (response.isEmpty()) {
                 throw new TransferNotFoundException();
             }
-            List<PaymentResponse> response = transferList.stream()
-                    .map(transfer -> new PaymentResponse(
-                            transfer.getSender(),
-                            transfer.getReceiver(),
-                            transfer.getAmount(),
-                            transfer.getTimestamp()
-                    )).toList();
-
-
-            response = response.stream()
-                    .filter(paymentResponse -> paymentResponse.timestamp().isAfter(startDateInterval)
-                            &&
-                            paymentResponse.timestamp().isBefore(endDateInterval))
-                    .toList();
-
-            kafkaTemplate.send("payment_log", "Transfers listed successfully");
+            outbox.send("payment_log", "Transfers listed successfully");
             return new GenericResponse<>(response, true);
         } catch (TransferNotFoundException e) {
-            kafkaTemplate.send("error_logs", "TransferNotFoundException: " + e.getMessage());
+            outbox.send("error_logs", "TransferNotFoundException: " + e.getMessage());
             throw new TransferNotFoundException(e);
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "RuntimeException: " + e.getMessage());
+            outbox.send("error_logs", "RuntimeException: " + e.getMessage());
             throw new RuntimeException(e);
         }
     }
@@ -387,46 +443,29 @@ public class TransferServiceImplementation implements TransferServiceInterface {
      *     Bu method Customer 'ın transfer işlemlerini ne şekilde yapacağını belirtmek için oluşturulmuştur. 3 tane fonksiyonda benzer
      *     işlemler yapıldığı için yapıların sadeleştirilmesi için oluşturulmuştur.
      */
-    public List<PaymentResponse> listTransfer(String token, String value) {
+    public List<PaymentResponse> listTransfer(String token, String value, LocalDateTime referenceDate) {
         try {
             Customer customer = customerService.findCustomerToToken(token);
-            List<Transfer> transferList = new ArrayList<>();
-            switch (value) {
-                case "sent" -> transferList.addAll(customer.getSentTransfers());
-                case "received" -> transferList.addAll(customer.getReceivedTransfers());
-                case "all" -> {
-                    transferList.addAll(customer.getReceivedTransfers());
-                    transferList.addAll(customer.getSentTransfers());
-                }
-                default -> {
-                }
-            }
-            if (transferList.isEmpty()) {
-                kafkaTemplate.send("error_logs", "TransferNotFoundException: No transfer found for customer");
+            // Transferler müşterinin koleksiyonları yerine tarih filtresiyle birlikte veritabanında süzülür.
+            List<PaymentResponse> response = switch (value) {
+                case "sent" -> repo.findSentAfter(customer.getId(), referenceDate);
+                case "received" -> repo.findReceivedAfter(customer.getId(), referenceDate);
+                case "all" -> repo.findCustomerPaymentsAfter(customer.getId(), referenceDate);
+                default -> List.of();
+            };
+            if (response.isEmpty()) {
+                outbox.send("error_logs", "TransferNotFoundException: No transfer found for customer");
                 throw new TransferNotFoundException();
             }
-
-            List<PaymentResponse> response = transferList.stream().map(
-                    transfer -> new PaymentResponse(
-                            transfer.getSender(),
-                            transfer.getReceiver(),
-                            transfer.getAmount(),
-                            transfer.getTimestamp()
-                    )
-            ).toList();
-            kafkaTemplate.send("payment_log", "Transfers listed successfully");
+            outbox.send("payment_log", "Transfers listed successfully");
             return response;
         } catch (TransferNotFoundException e) {
-            kafkaTemplate.send("error_logs", "TransferNotFoundException: " + e.getMessage());
+            outbox.send("error_logs", "TransferNotFoundException: " + e.getMessage());
             throw e;
         } catch (Exception e) {
-            kafkaTemplate.send("error_logs", "RuntimeException: " + e.getMessage());
+            outbox.send("error_logs", "RuntimeException: " + e.getMessage());
             throw new RuntimeException(e);
         }
     }
-    @Override
-    public GenericResponse<List<PaymentResponse>> readAllReceivedPaymentForCustomer(String token) {
-        return new GenericResponse<>(listTransfer(token, "received"), true);
-    }
 
 }
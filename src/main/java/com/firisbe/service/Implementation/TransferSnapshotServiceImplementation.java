@@ -0,0 +1,290 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.aspect.GenericResponse;
+import com.firisbe.aspect.statistics.TransferColumns;
+import com.firisbe.error.InvalidAnalyticsRequestException;
+import com.firisbe.model.DTO.response.AmountBandVolumeResponse;
+import com.firisbe.model.DTO.response.CustomerVolumeResponse;
+import com.firisbe.model.DTO.response.PeriodVolumeResponse;
+import com.firisbe.model.DTO.response.TransferExportRow;
+import com.firisbe.model.Enum.AnalyticsPeriod;
+import com.firisbe.model.PaymentEvent;
+import com.firisbe.repository.jpa.TransferRepository;
+import com.firisbe.service.Interface.TransferSnapshotServiceInterface;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/*
+ *     Yönetici analizleri (döneme, müşteriye ve tutar dilimine göre hacim) için transferlerin sütunlu bellek içi kopyası.
+ *     Sorgular Hibernate'e ve veritabanına gitmez; TransferColumns üzerinde fork-join havuzunda paralel tarama ile
+ *     hesaplanır. Kopya periyodik olarak artımlı yenilenir: yalnızca son okunan (timestamp, id)'den sonraki transferler
+ *     entity yüklenmeden projeksiyon olarak okunup sona eklenir.
+ *
+ *     Kopya şimdiden lag kadar geridedir: zaman damgası cursor'ın gerisinde kalıp sonradan commit edilen transferlerin
+ *     kaçırılmaması için yalnızca timestamp'i lag'den eski transferler okunur. lag'den daha geç yazılan transferler
+ *     (ör. uzun süre veritabanına yazılamayan ledger transferleri) ve silinen transferler uygulama yeniden başlayana
+ *     kadar kopyaya yansımaz. Kopya instance'a özeldir ve her açılışta tablodan yeniden oluşturulur.
+ *
+ *     İlk yükleme tüm tabloyu okuduğu için yenileme Spring'in (tek thread'li) scheduler'ında değil kendi thread'inde
+ *     çalışır; outbox relay ve admission yenilemesi beklemez. Kopya heap'te transfer başına ~32 byte tuttuğu için
+ *     payment.snapshot.enabled ile açılır; kapalıyken hiçbir şey yüklenmez ve analiz endpoint'leri hata döner.
+ *
+ *     Metrik: payment.snapshot.rows (kopyadaki transfer sayısı).
+ */
+@Service
+public class TransferSnapshotServiceImplementation implements TransferSnapshotServiceInterface {
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final int MAX_PERIODS = 10_000;
+    private static final int MAX_CUSTOMERS = 1_000;
+    private static final int MAX_BANDS = 100;
+
+    private final TransferRepository repo;
+    private final TransactionTemplate readOnly;
+    private final OutboxServiceImplementation outbox;
+    private final boolean enabled;
+    private final long refreshMs;
+    private final Duration lag;
+    private final Clock clock;
+    private final ForkJoinPool pool;
+    private final TransferColumns columns;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("transfer-snapshot").daemon().factory());
+
+    // Yalnızca refresh (tek yazar) kullanır
+    private LocalDateTime lastTimestamp = EARLIEST;
+    private long lastId;
+
+    @Autowired
+    public TransferSnapshotServiceImplementation(TransferRepository repo,
+                                                 PlatformTransactionManager transactionManager,
+                                                 OutboxServiceImplementation outbox,
+                                                 MeterRegistry meterRegistry,
+                                                 @Value("${payment.snapshot.enabled:false}") boolean enabled,
+                                                 @Value("${payment.snapshot.refresh-ms:10000}") long refreshMs,
+                                                 @Value("${payment.snapshot.lag:60s}") Duration lag,
+                                                 @Value("${payment.snapshot.parallelism:0}") int parallelism) {
+        this(repo, transactionManager, outbox, meterRegistry, enabled, refreshMs, lag, parallelism, Clock.systemDefaultZone());
+    }
+
+    TransferSnapshotServiceImplementation(TransferRepository repo,
+                                          PlatformTransactionManager transactionManager,
+                                          OutboxServiceImplementation outbox,
+                                          MeterRegistry meterRegistry,
+                                          boolean enabled,
+                                          long refreshMs,
+                                          Duration lag,
+                                          int parallelism,
+                                          Clock clock) {
+        this.repo = repo;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.outbox = outbox;
+        this.enabled = enabled;
+        this.refreshMs = refreshMs;
+        this.lag = lag;
+        this.clock = clock;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.columns = new TransferColumns(pool);
+        Gauge.builder("payment.snapshot.rows", columns, TransferColumns::size).register(meterRegistry);
+    }
+
+    /*
+     *     Yeni satırlar okunurken görünmezdir ve okuma başarıyla bitince birlikte yayınlanır; hata olursa eklenenler
+     *     bırakılır ve cursor ilerlemez, bir sonraki yenileme aynı yerden devam eder.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                // error_logs'a yazıldı; hata sonraki yenilemeleri durdurmamalı
+            }
+        }, 0, refreshMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void refresh() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime until = LocalDateTime.now(clock).minus(lag);
+        if (!until.isAfter(lastTimestamp)) {
+            return;
+        }
+        try {
+            TransferExportRow last = readOnly.execute(status -> {
+                TransferExportRow row = null;
+                try (Stream<TransferExportRow> rows = repo.streamSnapshotAfter(lastTimestamp, lastId, until)) {
+                    for (TransferExportRow next : (Iterable<TransferExportRow>) rows::iterator) {
+                        columns.append(next.senderId(), next.receiverId(), PaymentEvent.toMinorUnits(next.amount()), toMillis(next.timestamp()));
+                        row = next;
+                    }
+                }
+                return row;
+            });
+            columns.publish();
+            if (last != null) {
+                lastTimestamp = last.timestamp();
+                lastId = last.id();
+            }
+        } catch (Exception e) {
+            columns.discard();
+            outbox.send("error_logs", "RuntimeException: Transfer snapshot refresh failed. Reason: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /* [from, to) aralığı verilen dönemlere bölünür; ilk ve son dönem aralık sınırlarında kesilir, boş dönemler de döner. */
+    @Override
+    public GenericResponse<List<PeriodVolumeResponse>> volumeByPeriodForAdmin(AnalyticsPeriod period, LocalDateTime from, LocalDateTime to) {
+        checkEnabled();
+        checkRange(from, to);
+        List<LocalDateTime> starts = new ArrayList<>();
+        for (LocalDateTime start = truncate(from, period); start.isBefore(to); start = next(start, period)) {
+            if (starts.size() == MAX_PERIODS) {
+                throw new InvalidAnalyticsRequestException("Date range spans more than " + MAX_PERIODS + " periods");
+            }
+            starts.add(start);
+        }
+        long[] bounds = new long[starts.size() + 1];
+        bounds[0] = toMillis(from);
+        for (int i = 1; i < starts.size(); i++) {
+            bounds[i] = toMillis(starts.get(i));
+        }
+        bounds[starts.size()] = toMillis(to);
+        long[] totals = columns.periodTotals(bounds);
+        List<PeriodVolumeResponse> response = new ArrayList<>(starts.size());
+        for (int i = 0; i < starts.size(); i++) {
+            response.add(new PeriodVolumeResponse(starts.get(i), totals[2 * i], amount(totals[2 * i + 1])));
+        }
+        return new GenericResponse<>(response, true);
+    }
+
+    /* Gönderilen ve alınan tutar toplamı en yüksek limit müşteri. */
+    @Override
+    public GenericResponse<List<CustomerVolumeResponse>> volumeByCustomerForAdmin(LocalDateTime from, LocalDateTime to, int limit) {
+        checkEnabled();
+        LocalDateTime start = from == null ? EARLIEST : from;
+        LocalDateTime end = to == null ? LATEST : to;
+        checkRange(start, end);
+        if (limit < 1 || limit > MAX_CUSTOMERS) {
+            throw new InvalidAnalyticsRequestException("Limit must be between 1 and " + MAX_CUSTOMERS + ": " + limit);
+        }
+        List<CustomerVolumeResponse> response = columns.customerTotals(toMillis(start), toMillis(end)).top(limit).stream()
+                .map(entry -> new CustomerVolumeResponse(
+                        entry.customerId(),
+                        entry.sentCount(),
+                        amount(entry.sentAmountMinor()),
+                        entry.receivedCount(),
+                        amount(entry.receivedAmountMinor())))
+                .toList();
+        return new GenericResponse<>(response, true);
+    }
+
+    /* Sınırlar artan sırada verilir; her dilim bir sonraki sınıra kadar, son dilim üst sınırsızdır. */
+    @Override
+    public GenericResponse<List<AmountBandVolumeResponse>> volumeByAmountBandForAdmin(LocalDateTime from, LocalDateTime to, List<BigDecimal> bounds) {
+        checkEnabled();
+        LocalDateTime start = from == null ? EARLIEST : from;
+        LocalDateTime end = to == null ? LATEST : to;
+        checkRange(start, end);
+        if (bounds == null || bounds.isEmpty() || bounds.size() > MAX_BANDS) {
+            throw new InvalidAnalyticsRequestException("Between 1 and " + MAX_BANDS + " amount bounds are required");
+        }
+        long[] minorBounds = new long[bounds.size()];
+        for (int i = 0; i < bounds.size(); i++) {
+            BigDecimal bound = bounds.get(i);
+            if (bound == null || bound.signum() < 0 || bound.stripTrailingZeros().scale() > PaymentEvent.SCALE) {
+                throw new InvalidAnalyticsRequestException("Invalid amount bound: " + bound);
+            }
+            minorBounds[i] = PaymentEvent.toMinorUnits(bound);
+            if (i > 0 && minorBounds[i] <= minorBounds[i - 1]) {
+                throw new InvalidAnalyticsRequestException("Amount bounds must be strictly increasing: " + bounds);
+            }
+        }
+        long[] totals = columns.bandTotals(toMillis(start), toMillis(end), minorBounds);
+        List<AmountBandVolumeResponse> response = new ArrayList<>(minorBounds.length);
+        for (int i = 0; i < minorBounds.length; i++) {
+            response.add(new AmountBandVolumeResponse(
+                    amount(minorBounds[i]),
+                    i + 1 < minorBounds.length ? amount(minorBounds[i + 1]) : null,
+                    totals[2 * i],
+                    amount(totals[2 * i + 1])));
+        }
+        return new GenericResponse<>(response, true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        pool.shutdown();
+    }
+
+    int size() {
+        return columns.size();
+    }
+
+    private void checkEnabled() {
+        if (!enabled) {
+            throw new InvalidAnalyticsRequestException("Transfer analytics snapshot is disabled (payment.snapshot.enabled)");
+        }
+    }
+
+    private static void checkRange(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new InvalidAnalyticsRequestException("Invalid date range: " + from + " - " + to);
+        }
+    }
+
+    private static LocalDateTime truncate(LocalDateTime time, AnalyticsPeriod period) {
+        return switch (period) {
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+            case MONTH -> time.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        };
+    }
+
+    private static LocalDateTime next(LocalDateTime start, AnalyticsPeriod period) {
+        return switch (period) {
+            case HOUR -> start.plusHours(1);
+            case DAY -> start.plusDays(1);
+            case MONTH -> start.plusMonths(1);
+        };
+    }
+
+    /* Zaman damgaları saat dilimi olmadan saklandığı için duvar saati UTC kabul edilir; dönem sınırları aynı şekilde çevrilir. */
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static BigDecimal amount(long amountMinor) {
+        return BigDecimal.valueOf(amountMinor, PaymentEvent.SCALE);
+    }
+}
@@ -0,0 +1,7 @@
+package com.firisbe.service.Interface;
+
+public interface AdmissionControlServiceInterface {
+    void admit(Long senderId);
+
+    void refresh();
+}
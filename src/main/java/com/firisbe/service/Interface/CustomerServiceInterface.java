@@ -3,6 +3,7 @@ package com.firisbe.service.Interface;
 import com.firisbe.aspect.GenericResponse;
 import com.firisbe.model.DTO.request.*;
 import com.firisbe.model.DTO.response.AuthResponse;
+import com.firisbe.model.DTO.response.CursorPage;
 import com.firisbe.model.DTO.response.CustomerResponse;
 import com.firisbe.model.DTO.response.MonthlyStatisticsResponse;
 
@@ -17,7 +18,7 @@ public interface CustomerServiceInterface {
 
     GenericResponse<CustomerResponse> readCustomerForCustomers(String token);
 
-    GenericResponse<List<CustomerResponse>> readAllForAdmin();
+    GenericResponse<CursorPage<CustomerResponse>> readAllForAdmin(String cursor, int size);
 
     GenericResponse<String> deleteCustomerForAdmin(Long id);
 
@@ -31,7 +32,7 @@ public interface CustomerServiceInterface {
 
     GenericResponse<String> addPaymentMethod(String token, PaymentMethodRequest request);
 
-    GenericResponse<MonthlyStatisticsResponse> monthlyStatisticsForCustomer(String token, int monthOffset);
+    GenericResponse<MonthlyStatisticsResponse> monthlyStatisticsForCustomer(String token, int monthOffset, List<Double> percentiles);
 
-    GenericResponse<MonthlyStatisticsResponse> monthlyStatisticsForAdmin(Long id, int monthOffset);
+    GenericResponse<MonthlyStatisticsResponse> monthlyStatisticsForAdmin(Long id, int monthOffset, List<Double> percentiles);
 }
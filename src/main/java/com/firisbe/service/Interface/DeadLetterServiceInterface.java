@@ -0,0 +1,16 @@
+package com.firisbe.service.Interface;
+
+import com.firisbe.aspect.GenericResponse;
+import com.firisbe.model.DTO.request.DeadLetterReplayRequest;
+import com.firisbe.model.DTO.response.DeadLetterResponse;
+import com.firisbe.model.PaymentEvent;
+
+import java.util.List;
+
+public interface DeadLetterServiceInterface {
+    void record(PaymentEvent event, String reason);
+
+    GenericResponse<List<DeadLetterResponse>> readDeadLettersForAdmin(int limit);
+
+    GenericResponse<String> replayDeadLettersForAdmin(DeadLetterReplayRequest request, int limit);
+}
@@ -0,0 +1,11 @@
+package com.firisbe.service.Interface;
+
+import java.util.UUID;
+
+public interface IdempotencyServiceInterface {
+    UUID keyFor(Long customerId, String idempotencyKey);
+
+    UUID register(UUID key, UUID paymentId);
+
+    void release(UUID key);
+}
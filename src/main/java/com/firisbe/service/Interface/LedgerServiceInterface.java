@@ -0,0 +1,8 @@
+package com.firisbe.service.Interface;
+
+import com.firisbe.model.PaymentEvent;
+import org.springframework.kafka.support.Acknowledgment;
+
+public interface LedgerServiceInterface {
+    public void processPaymentMessageFromKafka(PaymentEvent request, Acknowledgment acknowledgment);
+}
@@ -0,0 +1,9 @@
+package com.firisbe.service.Interface;
+
+import com.firisbe.model.PaymentEvent;
+
+public interface OutboxServiceInterface {
+    void send(String topic, String message);
+
+    void send(String topic, String key, PaymentEvent event);
+}
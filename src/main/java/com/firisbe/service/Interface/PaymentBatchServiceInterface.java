@@ -0,0 +1,9 @@
+package com.firisbe.service.Interface;
+
+import com.firisbe.model.PaymentEvent;
+
+import java.util.List;
+
+public interface PaymentBatchServiceInterface {
+    public void processPaymentBatchFromKafka(List<PaymentEvent> requests);
+}
@@ -0,0 +1,23 @@
+package com.firisbe.service.Interface;
+
+import com.firisbe.model.PaymentEvent;
+import com.firisbe.model.PaymentState;
+
+import java.util.Collection;
+import java.util.UUID;
+
+public interface PaymentStatusServiceInterface {
+    void pending(PaymentEvent event);
+
+    void settled(Collection<PaymentEvent> events);
+
+    void rejected(PaymentEvent event, String reason);
+
+    PaymentState find(UUID paymentId);
+
+    long countPending();
+
+    long countPending(Long senderId);
+
+    void purgeCompleted();
+}
@@ -0,0 +1,15 @@
+package com.firisbe.service.Interface;
+
+import com.firisbe.aspect.GenericResponse;
+import com.firisbe.model.DTO.response.RollingVolumeResponse;
+import com.firisbe.model.PaymentEvent;
+
+import java.util.Collection;
+
+public interface RollingVolumeServiceInterface {
+    void recordAll(Collection<PaymentEvent> events);
+
+    GenericResponse<RollingVolumeResponse> readRollingVolumeForAdmin(Long customerId);
+
+    void evictIdle();
+}
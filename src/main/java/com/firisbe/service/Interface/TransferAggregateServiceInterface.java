@@ -0,0 +1,23 @@
+package com.firisbe.service.Interface;
+
+import com.firisbe.model.MonthlyTransferAggregate;
+import com.firisbe.model.Transfer;
+import com.firisbe.repository.jpa.MonthlyAmountBucketRepository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface TransferAggregateServiceInterface {
+    void record(Transfer transfer);
+
+    void recordAll(Collection<Transfer> transfers);
+
+    List<MonthlyTransferAggregate> findSince(Long customerId, LocalDate monthStart);
+
+    List<MonthlyAmountBucketRepository.BucketCount> findBucketsSince(Long customerId, LocalDate monthStart);
+
+    void backfill();
+
+    boolean isBackfilled();
+}
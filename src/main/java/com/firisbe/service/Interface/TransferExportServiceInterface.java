@@ -0,0 +1,11 @@
+package com.firisbe.service.Interface;
+
+import com.firisbe.model.Enum.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+public interface TransferExportServiceInterface {
+    long exportForAdmin(ExportFormat format, LocalDateTime from, LocalDateTime to, Long customerId, OutputStream out) throws IOException;
+}
@@ -0,0 +1,5 @@
+package com.firisbe.service.Interface;
+
+public interface TransferPartitionServiceInterface {
+    void maintain();
+}
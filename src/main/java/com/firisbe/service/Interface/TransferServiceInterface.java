@@ -2,23 +2,32 @@ package com.firisbe.service.Interface;
 
 import com.firisbe.aspect.GenericResponse;
 import com.firisbe.model.DTO.request.CustomerPaymentRequest;
+import com.firisbe.model.DTO.response.CursorPage;
 import com.firisbe.model.DTO.response.PaymentResponse;
+import com.firisbe.model.DTO.response.PaymentStatusResponse;
+import com.firisbe.model.PaymentEvent;
 import com.firisbe.model.Transfer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 
 import java.util.List;
+import java.util.UUID;
 
 public interface TransferServiceInterface {
-    public GenericResponse<String> sendPaymentMessageToKafka(CustomerPaymentRequest request, String token);
+    public GenericResponse<PaymentStatusResponse> sendPaymentMessageToKafka(CustomerPaymentRequest request, String token, String idempotencyKey);
 
-    public void processPaymentMessageFromKafka(String request);
+    GenericResponse<PaymentStatusResponse> readPaymentStatusForCustomer(String token, UUID paymentId);
+
+    public void processPaymentMessageFromKafka(PaymentEvent request);
+
+    void processDeadLetterFromKafka(ConsumerRecord<String, PaymentEvent> record);
 
     GenericResponse<PaymentResponse> readPaymentForCustomer(String token, Long id);
 
-    GenericResponse<List<PaymentResponse>> readAllReceivedPaymentForCustomer(String token);
+    GenericResponse<CursorPage<PaymentResponse>> readAllReceivedPaymentForCustomer(String token, String cursor, int size);
 
-    GenericResponse<List<PaymentResponse>> readAllSentPaymentForCustomer(String token);
+    GenericResponse<CursorPage<PaymentResponse>> readAllSentPaymentForCustomer(String token, String cursor, int size);
 
-    GenericResponse<List<PaymentResponse>> readAllPaymentForCustomer(String token);
+    GenericResponse<CursorPage<PaymentResponse>> readAllPaymentForCustomer(String token, String cursor, int size);
 
     GenericResponse<List<PaymentResponse>> readAllReceivedPaymentForCustomer(String token, int monthOffset);
 
@@ -28,7 +37,7 @@ public interface TransferServiceInterface {
 
     GenericResponse<PaymentResponse> readPaymentForAdmin(Long id);
 
-    GenericResponse<List<PaymentResponse>> readAllPaymentForAdmin();
+    GenericResponse<CursorPage<PaymentResponse>> readAllPaymentForAdmin(String cursor, int size);
 
     GenericResponse<List<PaymentResponse>> readAllPaymentForAdmin(int monthOffset);
 
@@ -36,7 +45,7 @@ public interface TransferServiceInterface {
 
     GenericResponse<List<PaymentResponse>> readAllPaymentForAdminByCardNumber(String cardNumber);
 
-    GenericResponse<List<PaymentResponse>> readAllPaymentForAdminByCustomerName(String customerName);
+    GenericResponse<CursorPage<PaymentResponse>> readAllPaymentForAdminByCustomerName(String customerName, String cursor, int size);
 
     GenericResponse<List<PaymentResponse>> readAllPaymentForAdminWithDateInterval(int startDate, int endDate);
 
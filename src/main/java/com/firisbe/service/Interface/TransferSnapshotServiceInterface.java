@@ -0,0 +1,21 @@
+package com.firisbe.service.Interface;
+
+import com.firisbe.aspect.GenericResponse;
+import com.firisbe.model.DTO.response.AmountBandVolumeResponse;
+import com.firisbe.model.DTO.response.CustomerVolumeResponse;
+import com.firisbe.model.DTO.response.PeriodVolumeResponse;
+import com.firisbe.model.Enum.AnalyticsPeriod;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TransferSnapshotServiceInterface {
+    void refresh();
+
+    GenericResponse<List<PeriodVolumeResponse>> volumeByPeriodForAdmin(AnalyticsPeriod period, LocalDateTime from, LocalDateTime to);
+
+    GenericResponse<List<CustomerVolumeResponse>> volumeByCustomerForAdmin(LocalDateTime from, LocalDateTime to, int limit);
+
+    GenericResponse<List<AmountBandVolumeResponse>> volumeByAmountBandForAdmin(LocalDateTime from, LocalDateTime to, List<BigDecimal> bounds);
+}
@@ -0,0 +1,35 @@
+package com.firisbe.aspect.encryption;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncryptionTest {
+    private final Encryption encryption = new Encryption();
+
+    @Test
+    void blindIndex_SameCardNumber_ProducesSameIndex() {
+        // Act
+        String first = encryption.blindIndex("4539148803436467");
+        String second = encryption.blindIndex("4539 1488-0343 6467");
+
+        // Assert
+        assertEquals(first, second);
+    }
+
+    @Test
+    void blindIndex_DifferentCardNumbers_ProduceDifferentIndexes() {
+        // Act & Assert
+        assertNotEquals(encryption.blindIndex("4539148803436467"), encryption.blindIndex("4111111111111111"));
+    }
+
+    @Test
+    void blindIndex_DoesNotRevealCiphertext() {
+        // Act
+        String index = encryption.blindIndex("4539148803436467");
+
+        // Assert
+        assertNotEquals(encryption.encrypt("4539148803436467"), index);
+        assertEquals("4539148803436467", encryption.decrypt(encryption.encrypt("4539148803436467")));
+    }
+}
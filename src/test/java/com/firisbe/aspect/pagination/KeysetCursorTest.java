@@ -0,0 +1,69 @@
+package com.firisbe.aspect.pagination;
+
+import com.firisbe.error.InvalidCursorException;
+import com.firisbe.model.DTO.response.CursorPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    @Test
+    void encode_RoundTripsThroughDescending() {
+        // Arrange
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000), 42L);
+
+        // Act
+        KeysetCursor decoded = KeysetCursor.descending(cursor.encode());
+
+        // Assert
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void descending_NoCursor_StartsAfterAllRecords() {
+        // Act
+        KeysetCursor first = KeysetCursor.descending(null);
+
+        // Assert
+        assertTrue(first.timestamp().isAfter(LocalDateTime.now().plusYears(1000)));
+        assertEquals(Long.MAX_VALUE, first.id());
+        assertEquals(0L, KeysetCursor.ascending("").id());
+    }
+
+    @Test
+    void descending_TamperedCursor_Rejected() {
+        // Act & Assert
+        assertThrows(InvalidCursorException.class, () -> KeysetCursor.descending("bm90LWEtY3Vyc29y"));
+        assertThrows(InvalidCursorException.class, () -> KeysetCursor.descending(new KeysetCursor(null, 5L).encode()));
+    }
+
+    @Test
+    void limit_ClampsSizeAndAsksOneExtraRow() {
+        // Act & Assert
+        assertEquals(Limit.of(51), KeysetCursor.limit(50));
+        assertEquals(Limit.of(2), KeysetCursor.limit(0));
+        assertEquals(Limit.of(KeysetCursor.MAX_PAGE_SIZE + 1), KeysetCursor.limit(100_000));
+    }
+
+    @Test
+    void page_ExtraRow_ProducesCursorOfLastItem() {
+        // Arrange
+        List<Long> rows = List.of(5L, 4L, 3L);
+
+        // Act
+        CursorPage<String> full = KeysetCursor.page(rows, 2, id -> new KeysetCursor(null, id), String::valueOf);
+        CursorPage<Long> last = KeysetCursor.page(rows, 3, id -> new KeysetCursor(null, id), Function.identity());
+
+        // Assert
+        assertEquals(List.of("5", "4"), full.items());
+        assertEquals(4L, KeysetCursor.ascending(full.nextCursor()).id());
+        assertEquals(3, last.items().size());
+        assertNull(last.nextCursor());
+    }
+}
@@ -0,0 +1,78 @@
+package com.firisbe.aspect.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    @Test
+    void quantile_StaysWithinRelativeAccuracyOfExactValue() {
+        // Arrange
+        Random random = new Random(42);
+        double[] amounts = new double[10_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = Math.round(Math.exp(random.nextGaussian() * 2 + 5) * 100) / 100.0 + 0.01;
+            sketch.add(QuantileSketch.bucketOf(BigDecimal.valueOf(amounts[i])), 1);
+        }
+        Arrays.sort(amounts);
+
+        // Act & Assert
+        for (double q : new double[]{0.5, 0.9, 0.99}) {
+            double exact = amounts[(int) Math.ceil(q * amounts.length) - 1];
+            double estimate = sketch.quantile(q, null, null).doubleValue();
+            // %1 göreli hata + iki basamağa yuvarlama
+            assertEquals(exact, estimate, exact * QuantileSketch.RELATIVE_ACCURACY + 0.01, "q=" + q);
+        }
+    }
+
+    @Test
+    void add_MergingBucketCountsEqualsSketchOfCombinedData() {
+        // Arrange
+        QuantileSketch january = new QuantileSketch();
+        QuantileSketch february = new QuantileSketch();
+        QuantileSketch combined = new QuantileSketch();
+        SortedMap<Integer, Long> januaryBuckets = new TreeMap<>();
+        for (int amount = 1; amount <= 100; amount++) {
+            int bucket = QuantileSketch.bucketOf(BigDecimal.valueOf(amount));
+            (amount % 2 == 0 ? january : february).add(bucket, 1);
+            if (amount % 2 == 0) {
+                januaryBuckets.merge(bucket, 1L, Long::sum);
+            }
+            combined.add(bucket, 1);
+        }
+
+        // Act
+        januaryBuckets.forEach(february::add);
+
+        // Assert
+        assertEquals(combined.count(), february.count());
+        assertEquals(combined.quantile(0.5, null, null), february.quantile(0.5, null, null));
+        assertEquals(combined.quantile(0.9, null, null), february.quantile(0.9, null, null));
+    }
+
+    @Test
+    void quantile_ClampedToKnownMinAndMax() {
+        // Arrange
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(QuantileSketch.bucketOf(new BigDecimal("99.99")), 3);
+
+        // Act & Assert
+        assertEquals(new BigDecimal("99.99"), sketch.quantile(1.0, new BigDecimal("99.99"), new BigDecimal("99.99")));
+        assertEquals(BigDecimal.ZERO, new QuantileSketch().quantile(0.5, null, null));
+    }
+
+    @Test
+    void bucketOf_AmountsBelowOneCentShareFirstBucket() {
+        // Act & Assert
+        assertEquals(QuantileSketch.bucketOf(QuantileSketch.MIN_TRACKED_AMOUNT), QuantileSketch.bucketOf(BigDecimal.ZERO));
+        assertTrue(QuantileSketch.bucketOf(BigDecimal.valueOf(10)) < QuantileSketch.bucketOf(BigDecimal.valueOf(11)));
+    }
+}
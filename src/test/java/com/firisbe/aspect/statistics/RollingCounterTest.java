@@ -0,0 +1,68 @@
+package com.firisbe.aspect.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollingCounterTest {
+    private static final long MINUTE = 60_000;
+
+    @Test
+    void sum_CountsOnlySlotsInsideWindow() {
+        // Arrange
+        RollingCounter counter = new RollingCounter(Duration.ofMinutes(5), 5);
+        long start = 1_000 * MINUTE;
+
+        // Act
+        counter.add(start, 100);
+        counter.add(start + 30_000, 50);
+        counter.add(start + 2 * MINUTE, 25);
+
+        // Assert
+        assertEquals(new RollingCounter.Totals(3, 175), counter.sum(start + 4 * MINUTE));
+        // İlk dakikanın slot'u pencereden çıktı, halkada hâlâ durduğu halde okunmaz
+        assertEquals(new RollingCounter.Totals(1, 25), counter.sum(start + 5 * MINUTE));
+        assertEquals(new RollingCounter.Totals(0, 0), counter.sum(start + 10 * MINUTE));
+    }
+
+    @Test
+    void add_ReusedSlotStartsFromZero() {
+        // Arrange
+        RollingCounter counter = new RollingCounter(Duration.ofMinutes(5), 5);
+        long start = 1_000 * MINUTE;
+        counter.add(start, 100);
+
+        // Act
+        counter.add(start + 5 * MINUTE, 7);
+
+        // Assert
+        assertEquals(new RollingCounter.Totals(1, 7), counter.sum(start + 5 * MINUTE));
+    }
+
+    @Test
+    void add_ConcurrentUpdatesAreNotLost() throws InterruptedException {
+        // Arrange
+        RollingCounter counter = new RollingCounter(Duration.ofHours(1), 60);
+        long now = 1_000 * MINUTE;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        for (int thread = 0; thread < 8; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.add(now, 1);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(new RollingCounter.Totals(80_000, 80_000), counter.sum(now));
+    }
+}
@@ -0,0 +1,146 @@
+package com.firisbe.aspect.statistics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferColumnsTest {
+    private static final int ROWS = 1_000;
+
+    private ForkJoinPool pool;
+    private TransferColumns columns;
+    private long[] senders;
+    private long[] receivers;
+    private long[] amounts;
+    private long[] timestamps;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        // 8 satırlık parçalar: taramalar çok sayıda parça sınırından bölünür
+        columns = new TransferColumns(pool, 3);
+        Random random = new Random(42);
+        senders = new long[ROWS];
+        receivers = new long[ROWS];
+        amounts = new long[ROWS];
+        timestamps = new long[ROWS];
+        long timestamp = 0;
+        for (int i = 0; i < ROWS; i++) {
+            senders[i] = 1 + random.nextInt(20);
+            receivers[i] = 1 + random.nextInt(20);
+            amounts[i] = 1 + random.nextInt(200_000);
+            timestamp += random.nextInt(3);
+            timestamps[i] = timestamp;
+            columns.append(senders[i], receivers[i], amounts[i], timestamps[i]);
+        }
+        columns.publish();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void periodTotals_MatchesRowByRowSum() {
+        // Arrange
+        long[] bounds = {5, 100, 101, 700, 1_500};
+
+        // Act
+        long[] totals = columns.periodTotals(bounds);
+
+        // Assert
+        long[] expected = new long[2 * (bounds.length - 1)];
+        for (int i = 0; i < ROWS; i++) {
+            for (int period = 0; period < bounds.length - 1; period++) {
+                if (timestamps[i] >= bounds[period] && timestamps[i] < bounds[period + 1]) {
+                    expected[2 * period]++;
+                    expected[2 * period + 1] += amounts[i];
+                }
+            }
+        }
+        assertArrayEquals(expected, totals);
+    }
+
+    @Test
+    void bandTotals_IgnoresAmountsBelowFirstBoundAndKeepsLastBandOpen() {
+        // Arrange
+        long[] bounds = {10_000, 50_000, 150_000};
+
+        // Act
+        long[] totals = columns.bandTotals(200, 800, bounds);
+
+        // Assert
+        long[] expected = new long[2 * bounds.length];
+        for (int i = 0; i < ROWS; i++) {
+            if (timestamps[i] < 200 || timestamps[i] >= 800 || amounts[i] < bounds[0]) {
+                continue;
+            }
+            int band = amounts[i] >= bounds[2] ? 2 : amounts[i] >= bounds[1] ? 1 : 0;
+            expected[2 * band]++;
+            expected[2 * band + 1] += amounts[i];
+        }
+        assertArrayEquals(expected, totals);
+    }
+
+    @Test
+    void customerTotals_SumsSentAndReceivedPerCustomerAndRanksByTotal() {
+        // Act
+        List<CustomerTotals.Entry> top = columns.customerTotals(0, Long.MAX_VALUE).top(3);
+
+        // Assert
+        long[] sent = new long[21];
+        long[] received = new long[21];
+        long[] sentCount = new long[21];
+        for (int i = 0; i < ROWS; i++) {
+            sent[(int) senders[i]] += amounts[i];
+            sentCount[(int) senders[i]]++;
+            received[(int) receivers[i]] += amounts[i];
+        }
+        assertEquals(3, top.size());
+        for (CustomerTotals.Entry entry : top) {
+            assertEquals(sent[(int) entry.customerId()], entry.sentAmountMinor());
+            assertEquals(sentCount[(int) entry.customerId()], entry.sentCount());
+            assertEquals(received[(int) entry.customerId()], entry.receivedAmountMinor());
+        }
+        long highest = 0;
+        for (int customer = 1; customer <= 20; customer++) {
+            highest = Math.max(highest, sent[customer] + received[customer]);
+        }
+        assertEquals(highest, top.getFirst().totalAmountMinor());
+        assertTrue(top.get(0).totalAmountMinor() >= top.get(1).totalAmountMinor());
+        assertTrue(top.get(1).totalAmountMinor() >= top.get(2).totalAmountMinor());
+    }
+
+    @Test
+    void publish_UnpublishedRowsInvisibleAndDiscardable() {
+        // Arrange
+        long[] bounds = {0, Long.MAX_VALUE};
+        long before = columns.periodTotals(bounds)[0];
+
+        // Act
+        columns.append(1, 2, 500, timestamps[ROWS - 1] + 1);
+        long pending = columns.periodTotals(bounds)[0];
+        columns.discard();
+        columns.append(1, 2, 700, timestamps[ROWS - 1] + 2);
+        columns.publish();
+
+        // Assert
+        assertEquals(ROWS, before);
+        assertEquals(ROWS, pending);
+        assertEquals(ROWS + 1, columns.size());
+        assertEquals(700, columns.bandTotals(timestamps[ROWS - 1] + 1, Long.MAX_VALUE, new long[]{0})[1]);
+    }
+
+    @Test
+    void append_OutOfOrderTimestamp_Throws() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> columns.append(1, 2, 100, timestamps[ROWS - 1] - 1));
+    }
+}
@@ -0,0 +1,44 @@
+package com.firisbe.config.kafka;
+
+import com.firisbe.error.PaymentFailedException;
+import com.firisbe.model.PaymentEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentEventSerializerTest {
+    private final PaymentEventSerializer serializer = new PaymentEventSerializer();
+    private final PaymentEventDeserializer deserializer = new PaymentEventDeserializer();
+
+    @Test
+    void serialize_RoundTripsAllFields() {
+        PaymentEvent event = new PaymentEvent(UUID.randomUUID(), 42L, Long.MAX_VALUE, 123456L, 1_700_000_000_000L, UUID.randomUUID());
+
+        byte[] data = serializer.serialize("payment_process", event);
+
+        assertEquals(PaymentEventSerializer.LENGTH, data.length);
+        assertEquals(PaymentEventSerializer.VERSION, data[0]);
+        assertEquals(event, deserializer.deserialize("payment_process", data));
+    }
+
+    @Test
+    void deserialize_UnknownVersion_ThrowsSerializationException() {
+        byte[] data = serializer.serialize("payment_process", PaymentEvent.of(1L, 2L, BigDecimal.TEN, UUID.randomUUID()));
+        data[0] = 99;
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("payment_process", data));
+    }
+
+    @Test
+    void of_ConvertsAmountToMinorUnits() {
+        PaymentEvent event = PaymentEvent.of(1L, 2L, new BigDecimal("12.5"), UUID.randomUUID());
+
+        assertEquals(1250L, event.amountMinor());
+        assertEquals(new BigDecimal("12.50"), event.amount());
+        assertThrows(PaymentFailedException.class, () -> PaymentEvent.of(1L, 2L, new BigDecimal("0.001"), UUID.randomUUID()));
+    }
+}
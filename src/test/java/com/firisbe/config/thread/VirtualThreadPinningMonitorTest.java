@@ -0,0 +1,56 @@
+package com.firisbe.config.thread;
+
+import com.firisbe.service.Implementation.OutboxServiceImplementation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class VirtualThreadPinningMonitorTest {
+    private VirtualThreadPinningMonitor monitor;
+    private OutboxServiceImplementation outbox;
+    private MeterRegistry meterRegistry;
+    private final Object lock = new Object();
+
+    @BeforeEach
+    void setUp() {
+        outbox = mock(OutboxServiceImplementation.class);
+        meterRegistry = new SimpleMeterRegistry();
+        monitor = new VirtualThreadPinningMonitor(outbox, meterRegistry, Duration.ofMillis(5));
+        monitor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.stop();
+    }
+
+    @Test
+    void pinnedVirtualThread_RecordedAndReported() throws InterruptedException {
+        // Arrange
+        Runnable pinning = () -> {
+            synchronized (lock) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        // Act
+        Thread.ofVirtual().start(pinning).join();
+
+        // Assert
+        verify(outbox, timeout(10000)).send(eq("error_logs"), startsWith("VirtualThreadPinned:"));
+        assertTrue(meterRegistry.get("jvm.threads.virtual.pinned").timer().count() >= 1);
+    }
+}
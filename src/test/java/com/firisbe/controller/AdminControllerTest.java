@@ -3,24 +3,47 @@ package com.firisbe.controller;
 import com.firisbe.aspect.GenericResponse;
 import com.firisbe.model.Customer;
 import com.firisbe.model.DTO.request.AdminCustomerUpdateRequest;
+import com.firisbe.model.DTO.request.DeadLetterReplayRequest;
+import com.firisbe.model.DTO.response.AmountBandVolumeResponse;
+import com.firisbe.model.DTO.response.CursorPage;
 import com.firisbe.model.DTO.response.CustomerResponse;
+import com.firisbe.model.DTO.response.DeadLetterResponse;
 import com.firisbe.model.DTO.response.MonthlyStatisticsResponse;
 import com.firisbe.model.DTO.response.PaymentResponse;
+import com.firisbe.model.DTO.response.PeriodVolumeResponse;
+import com.firisbe.model.DTO.response.RollingVolumeResponse;
+import com.firisbe.model.DTO.response.RollingWindowVolume;
+import com.firisbe.model.Enum.AnalyticsPeriod;
+import com.firisbe.model.Enum.ExportFormat;
 import com.firisbe.service.Implementation.CustomerServiceImplementation;
+import com.firisbe.service.Implementation.DeadLetterServiceImplementation;
+import com.firisbe.service.Implementation.RollingVolumeServiceImplementation;
+import com.firisbe.service.Implementation.TransferExportServiceImplementation;
 import com.firisbe.service.Implementation.TransferServiceImplementation;
+import com.firisbe.service.Implementation.TransferSnapshotServiceImplementation;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,12 +54,20 @@ class AdminControllerTest {
     private AdminController adminController;
     private CustomerServiceImplementation customerService;
     private TransferServiceImplementation transferService;
+    private DeadLetterServiceImplementation deadLetterService;
+    private TransferExportServiceImplementation transferExportService;
+    private RollingVolumeServiceImplementation rollingVolumeService;
+    private TransferSnapshotServiceImplementation transferSnapshotService;
 
     @BeforeEach
     void setUp() {
         customerService = mock(CustomerServiceImplementation.class);
         transferService = mock(TransferServiceImplementation.class);
-        adminController = new AdminController(customerService, transferService);
+        deadLetterService = mock(DeadLetterServiceImplementation.class);
+        transferExportService = mock(TransferExportServiceImplementation.class);
+        rollingVolumeService = mock(RollingVolumeServiceImplementation.class);
+        transferSnapshotService = mock(TransferSnapshotServiceImplementation.class);
+        adminController = new AdminController(customerService, transferService, deadLetterService, transferExportService, rollingVolumeService, transferSnapshotService);
     }
 
     @Test
@@ -88,16 +119,16 @@ class AdminControllerTest {
     @Test
     void testReadAllCustomers() {
         // Prepare
-        List<CustomerResponse> customers = new ArrayList<>();
-        ResponseEntity<GenericResponse<List<CustomerResponse>>> expectedResponseEntity = new ResponseEntity<>(HttpStatus.OK);
+        CursorPage<CustomerResponse> customers = new CursorPage<>(new ArrayList<>(), null);
+        ResponseEntity<GenericResponse<CursorPage<CustomerResponse>>> expectedResponseEntity = new ResponseEntity<>(HttpStatus.OK);
 
         // When
-        when(customerService.readAllForAdmin()).thenReturn(new GenericResponse<>(customers, true));
-        ResponseEntity<GenericResponse<List<CustomerResponse>>> responseEntity = adminController.readAllCustomers();
+        when(customerService.readAllForAdmin("cursor", 20)).thenReturn(new GenericResponse<>(customers, true));
+        ResponseEntity<GenericResponse<CursorPage<CustomerResponse>>> responseEntity = adminController.readAllCustomers("cursor", 20);
 
         // Verify
         assertEquals(expectedResponseEntity.getStatusCode(), responseEntity.getStatusCode());
-        verify(customerService, times(1)).readAllForAdmin();
+        verify(customerService, times(1)).readAllForAdmin("cursor", 20);
     }
 
     @Test
@@ -134,12 +165,13 @@ class AdminControllerTest {
         // Prepare
         Long paymentId = 1L;
         ResponseEntity<GenericResponse<PaymentResponse>> expectedResponseEntity = new ResponseEntity<>(HttpStatus.OK);
-        Customer sentCustomer = new Customer();
-        Customer receiverCustomer = new Customer();
         // When
         when(transferService.readPaymentForAdmin(paymentId)).thenReturn(new GenericResponse<>(new PaymentResponse(
-                sentCustomer,
-                receiverCustomer,
+                paymentId,
+                1L,
+                "Sender",
+                2L,
+                "Receiver",
                 BigDecimal.valueOf(100),
                 LocalDateTime.now()
         ), true));
@@ -153,15 +185,15 @@ class AdminControllerTest {
     @Test
     void testReadAllPaymentForAdmin() {
         // Prepare
-        ResponseEntity<GenericResponse<List<PaymentResponse>>> expectedResponseEntity = new ResponseEntity<>(HttpStatus.OK);
+        ResponseEntity<GenericResponse<CursorPage<PaymentResponse>>> expectedResponseEntity = new ResponseEntity<>(HttpStatus.OK);
 
         // When
-        when(transferService.readAllPaymentForAdmin()).thenReturn(new GenericResponse<>(new ArrayList<>(), true));
-        ResponseEntity<GenericResponse<List<PaymentResponse>>> responseEntity = adminController.readAllPaymentForAdmin();
+        when(transferService.readAllPaymentForAdmin(null, 50)).thenReturn(new GenericResponse<>(new CursorPage<>(new ArrayList<>(), null), true));
+        ResponseEntity<GenericResponse<CursorPage<PaymentResponse>>> responseEntity = adminController.readAllPaymentForAdmin(null, 50);
 
         // Verify
         assertEquals(expectedResponseEntity.getStatusCode(), responseEntity.getStatusCode());
-        verify(transferService, times(1)).readAllPaymentForAdmin();
+        verify(transferService, times(1)).readAllPaymentForAdmin(null, 50);
     }
 
     @Test
@@ -184,10 +216,11 @@ class AdminControllerTest {
         // Prepare
         Long customerId = 1L;
         int monthOffset = 1;
+        List<Double> percentiles = List.of(50.0, 99.0);
         ResponseEntity<GenericResponse<MonthlyStatisticsResponse>> expectedResponseEntity = new ResponseEntity<>(HttpStatus.OK);
 
         // When
-        when(customerService.monthlyStatisticsForAdmin(customerId, monthOffset)).thenReturn(new GenericResponse<>(new MonthlyStatisticsResponse(
+        when(customerService.monthlyStatisticsForAdmin(customerId, monthOffset, percentiles)).thenReturn(new GenericResponse<>(new MonthlyStatisticsResponse(
                 BigDecimal.valueOf(0),
                 BigDecimal.valueOf(0),
                 0,
@@ -198,12 +231,130 @@ class AdminControllerTest {
                 BigDecimal.valueOf(0),
                 BigDecimal.valueOf(0),
                 BigDecimal.valueOf(0),
-                0
+                0,
+                Map.of(),
+                Map.of()
         ),true));
-        ResponseEntity<GenericResponse<MonthlyStatisticsResponse>> responseEntity = adminController.monthlyStatistics(customerId, monthOffset);
+        ResponseEntity<GenericResponse<MonthlyStatisticsResponse>> responseEntity = adminController.monthlyStatistics(customerId, monthOffset, percentiles);
 
         // Verify
         assertEquals(expectedResponseEntity.getStatusCode(), responseEntity.getStatusCode());
-        verify(customerService, times(1)).monthlyStatisticsForAdmin(customerId, monthOffset);
+        verify(customerService, times(1)).monthlyStatisticsForAdmin(customerId, monthOffset, percentiles);
+    }
+
+    @Test
+    void testReadRollingVolume() {
+        // Prepare
+        RollingWindowVolume empty = new RollingWindowVolume(0, BigDecimal.ZERO, 0, BigDecimal.ZERO);
+        RollingVolumeResponse rollingVolume = new RollingVolumeResponse(1L, new RollingWindowVolume(2, BigDecimal.TEN, 0, BigDecimal.ZERO), empty, empty);
+        when(rollingVolumeService.readRollingVolumeForAdmin(1L)).thenReturn(new GenericResponse<>(rollingVolume, true));
+
+        // When
+        ResponseEntity<GenericResponse<RollingVolumeResponse>> responseEntity = adminController.readRollingVolume(1L);
+
+        // Verify
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(rollingVolume, responseEntity.getBody().getData());
+    }
+
+    @Test
+    void testReadVolumeByPeriod() {
+        // Prepare
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 1, 3, 0, 0);
+        List<PeriodVolumeResponse> volumes = List.of(
+                new PeriodVolumeResponse(from, 2, BigDecimal.TEN),
+                new PeriodVolumeResponse(from.plusDays(1), 0, BigDecimal.ZERO));
+        when(transferSnapshotService.volumeByPeriodForAdmin(AnalyticsPeriod.DAY, from, to)).thenReturn(new GenericResponse<>(volumes, true));
+
+        // When
+        ResponseEntity<GenericResponse<List<PeriodVolumeResponse>>> responseEntity = adminController.readVolumeByPeriod(AnalyticsPeriod.DAY, from, to);
+
+        // Verify
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(volumes, responseEntity.getBody().getData());
+    }
+
+    @Test
+    void testReadVolumeByAmountBand() {
+        // Prepare
+        List<BigDecimal> bounds = List.of(BigDecimal.ZERO, BigDecimal.TEN);
+        List<AmountBandVolumeResponse> volumes = List.of(
+                new AmountBandVolumeResponse(BigDecimal.ZERO, BigDecimal.TEN, 1, BigDecimal.ONE),
+                new AmountBandVolumeResponse(BigDecimal.TEN, null, 0, BigDecimal.ZERO));
+        when(transferSnapshotService.volumeByAmountBandForAdmin(null, null, bounds)).thenReturn(new GenericResponse<>(volumes, true));
+
+        // When
+        ResponseEntity<GenericResponse<List<AmountBandVolumeResponse>>> responseEntity = adminController.readVolumeByAmountBand(null, null, bounds);
+
+        // Verify
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(volumes, responseEntity.getBody().getData());
+    }
+
+    @Test
+    void testReadDeadLettersForAdmin() {
+        // Prepare
+        List<DeadLetterResponse> deadLetters = List.of(new DeadLetterResponse(UUID.randomUUID(), 1L, 2L, BigDecimal.TEN, "Insufficient balance", LocalDateTime.now()));
+        when(deadLetterService.readDeadLettersForAdmin(100)).thenReturn(new GenericResponse<>(deadLetters, true));
+
+        // Execute
+        ResponseEntity<GenericResponse<List<DeadLetterResponse>>> responseEntity = adminController.readDeadLettersForAdmin(100);
+
+        // Verify
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(deadLetters, responseEntity.getBody().getData());
+    }
+
+    @Test
+    void testReplayDeadLettersForAdmin() {
+        // Prepare
+        DeadLetterReplayRequest request = new DeadLetterReplayRequest(List.of(UUID.randomUUID()));
+        when(deadLetterService.replayDeadLettersForAdmin(request, 100)).thenReturn(new GenericResponse<>("1 dead-lettered payments replayed", true));
+
+        // Execute
+        ResponseEntity<GenericResponse<String>> responseEntity = adminController.replayDeadLettersForAdmin(request, 100);
+
+        // Verify
+        assertEquals(HttpStatus.ACCEPTED, responseEntity.getStatusCode());
+        assertEquals("1 dead-lettered payments replayed", responseEntity.getBody().getData());
+    }
+
+    @Test
+    void testExportPaymentsForAdmin_GzipStream() throws Exception {
+        // Prepare
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(4);
+            out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(transferExportService).exportForAdmin(eq(ExportFormat.NDJSON), isNull(), isNull(), eq(7L), any(OutputStream.class));
+
+        // Execute
+        ResponseEntity<StreamingResponseBody> responseEntity = adminController.exportPaymentsForAdmin(ExportFormat.NDJSON, null, null, 7L, "gzip, deflate");
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        responseEntity.getBody().writeTo(body);
+
+        // Verify
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals("gzip", responseEntity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(MediaType.APPLICATION_NDJSON, responseEntity.getHeaders().getContentType());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+            assertEquals("{\"id\":1}\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testExportPaymentsForAdmin_CsvWithoutGzip() throws Exception {
+        // Prepare
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        // Execute
+        ResponseEntity<StreamingResponseBody> responseEntity = adminController.exportPaymentsForAdmin(ExportFormat.CSV, from, null, null, null);
+        responseEntity.getBody().writeTo(new ByteArrayOutputStream());
+
+        // Verify
+        assertNull(responseEntity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("csv", responseEntity.getHeaders().getContentType().getSubtype());
+        verify(transferExportService, times(1)).exportForAdmin(eq(ExportFormat.CSV), eq(from), isNull(), isNull(), any(OutputStream.class));
     }
-}
\ No newline at end of file
+}
@@ -5,9 +5,12 @@ import com.firisbe.model.Customer;
 import com.firisbe.model.DTO.request.CustomerPaymentRequest;
 import com.firisbe.model.DTO.request.CustomerUpdateRequest;
 import com.firisbe.model.DTO.request.PaymentMethodRequest;
+import com.firisbe.model.DTO.response.CursorPage;
 import com.firisbe.model.DTO.response.CustomerResponse;
 import com.firisbe.model.DTO.response.MonthlyStatisticsResponse;
 import com.firisbe.model.DTO.response.PaymentResponse;
+import com.firisbe.model.DTO.response.PaymentStatusResponse;
+import com.firisbe.model.Enum.PaymentStatus;
 import com.firisbe.service.Implementation.CustomerServiceImplementation;
 import com.firisbe.service.Implementation.TransferServiceImplementation;
 import org.junit.jupiter.api.AfterEach;
@@ -21,6 +24,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
@@ -153,21 +158,39 @@ class CustomerControllerTest {
                 "receiveMail",
                 BigDecimal.valueOf(1000.0)
         );
-        String message = "Payment message sent to Kafka successfully";
-        ResponseEntity<GenericResponse<String>> expectedResponseEntity =
-                new ResponseEntity<>(new GenericResponse<>(message, true), HttpStatus.OK);
+        PaymentStatusResponse status = new PaymentStatusResponse(UUID.randomUUID(), PaymentStatus.PENDING, null, LocalDateTime.now());
 
         // Stubbing the service method
-        when(transferService.sendPaymentMessageToKafka(request, token))
-                .thenReturn(new GenericResponse<>(message, true));
+        when(transferService.sendPaymentMessageToKafka(request, token, "idempotency-key"))
+                .thenReturn(new GenericResponse<>(status, true));
 
         // Execute
-        ResponseEntity<GenericResponse<String>> responseEntity =
-                customerController.sendPaymentMessageToKafka(request, token);
+        ResponseEntity<GenericResponse<PaymentStatusResponse>> responseEntity =
+                customerController.sendPaymentMessageToKafka(request, token, "idempotency-key");
+
+        // Verify
+        assertEquals(HttpStatus.ACCEPTED, responseEntity.getStatusCode());
+        assertEquals(status, responseEntity.getBody().getData());
+    }
+
+    @Test
+    void readPaymentStatusForCustomer() {
+        // Prepare
+        String token = "sample_token";
+        UUID paymentId = UUID.randomUUID();
+        PaymentStatusResponse status = new PaymentStatusResponse(paymentId, PaymentStatus.SETTLED, null, LocalDateTime.now());
+
+        // Stubbing the service method
+        when(transferService.readPaymentStatusForCustomer(token, paymentId))
+                .thenReturn(new GenericResponse<>(status, true));
+
+        // Execute
+        ResponseEntity<GenericResponse<PaymentStatusResponse>> responseEntity =
+                customerController.readPaymentStatusForCustomer(token, paymentId);
 
         // Verify
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
-        assertEquals(message, responseEntity.getBody().getData());
+        assertEquals(status, responseEntity.getBody().getData());
     }
 
 
@@ -176,11 +199,12 @@ class CustomerControllerTest {
         // Prepare
         String token = "sample_token";
         Long paymentId = 123L;
-        Customer sentCustomer = new Customer();
-        Customer receiverCustomer = new Customer();
         PaymentResponse paymentResponse = new PaymentResponse(
-                sentCustomer,
-                receiverCustomer,
+                paymentId,
+                1L,
+                "Sender",
+                2L,
+                "Receiver",
                 BigDecimal.valueOf(1000.0),
                 LocalDateTime.now()
         ); // Dummy response
@@ -204,17 +228,15 @@ class CustomerControllerTest {
     void readAllReceivedPaymentForCustomer() {
         // Prepare
         String token = "sample_token";
-        List<PaymentResponse> paymentResponses = new ArrayList<>(); // Dummy response
-        ResponseEntity<GenericResponse<List<PaymentResponse>>> expectedResponseEntity =
-                new ResponseEntity<>(new GenericResponse<>(paymentResponses,true), HttpStatus.OK);
+        CursorPage<PaymentResponse> paymentResponses = new CursorPage<>(new ArrayList<>(), "next"); // Dummy response
 
         // Stubbing the service method
-        when(transferService.readAllReceivedPaymentForCustomer(token))
+        when(transferService.readAllReceivedPaymentForCustomer(token, null, 50))
                 .thenReturn(new GenericResponse<>(paymentResponses,true));
 
         // Execute
-        ResponseEntity<GenericResponse<List<PaymentResponse>>> responseEntity =
-                customerController.readAllReceivedPaymentForCustomer(token);
+        ResponseEntity<GenericResponse<CursorPage<PaymentResponse>>> responseEntity =
+                customerController.readAllReceivedPaymentForCustomer(token, null, 50);
 
         // Verify
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
@@ -225,17 +247,15 @@ class CustomerControllerTest {
     void readAllSentPaymentForCustomer() {
         // Prepare
         String token = "sample_token";
-        List<PaymentResponse> paymentResponses = new ArrayList<>(); // Dummy response
-        ResponseEntity<GenericResponse<List<PaymentResponse>>> expectedResponseEntity =
-                new ResponseEntity<>(new GenericResponse<>(paymentResponses,true), HttpStatus.OK);
+        CursorPage<PaymentResponse> paymentResponses = new CursorPage<>(new ArrayList<>(), "next"); // Dummy response
 
         // Stubbing the service method
-        when(transferService.readAllSentPaymentForCustomer(token))
+        when(transferService.readAllSentPaymentForCustomer(token, null, 50))
                 .thenReturn(new GenericResponse<>(paymentResponses,true));
 
         // Execute
-        ResponseEntity<GenericResponse<List<PaymentResponse>>> responseEntity =
-                customerController.readAllSentPaymentForCustomer(token);
+        ResponseEntity<GenericResponse<CursorPage<PaymentResponse>>> responseEntity =
+                customerController.readAllSentPaymentForCustomer(token, null, 50);
 
         // Verify
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
@@ -246,17 +266,15 @@ class CustomerControllerTest {
     void readAllPaymentForCustomer() {
         // Prepare
         String token = "sample_token";
-        List<PaymentResponse> paymentResponses = new ArrayList<>(); // Dummy response
-        ResponseEntity<GenericResponse<List<PaymentResponse>>> expectedResponseEntity =
-                new ResponseEntity<>(new GenericResponse<>(paymentResponses,true), HttpStatus.OK);
+        CursorPage<PaymentResponse> paymentResponses = new CursorPage<>(new ArrayList<>(), "next"); // Dummy response
 
         // Stubbing the service method
-        when(transferService.readAllPaymentForCustomer(token))
+        when(transferService.readAllPaymentForCustomer(token, null, 50))
                 .thenReturn(new GenericResponse<>(paymentResponses,true));
 
         // Execute
-        ResponseEntity<GenericResponse<List<PaymentResponse>>> responseEntity =
-                customerController.readAllPaymentForCustomer(token);
+        ResponseEntity<GenericResponse<CursorPage<PaymentResponse>>> responseEntity =
+                customerController.readAllPaymentForCustomer(token, null, 50);
 
         // Verify
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
@@ -335,6 +353,7 @@ class CustomerControllerTest {
         // Prepare
         String token = "sample_token";
         int monthOffset = 2;
+        List<Double> percentiles = List.of(50.0, 99.0);
         MonthlyStatisticsResponse statisticsResponse = new MonthlyStatisticsResponse(
                 BigDecimal.valueOf(0),
                 BigDecimal.valueOf(0),
@@ -346,18 +365,20 @@ class CustomerControllerTest {
                 BigDecimal.valueOf(0),
                 BigDecimal.valueOf(0),
                 BigDecimal.valueOf(0),
-                0
+                0,
+                Map.of(),
+                Map.of()
         ); // Dummy response
         ResponseEntity<GenericResponse<MonthlyStatisticsResponse>> expectedResponseEntity =
                 new ResponseEntity<>(new GenericResponse<>(statisticsResponse,true), HttpStatus.OK);
 
         // Stubbing the service method
-        when(customerService.monthlyStatisticsForCustomer(token, monthOffset))
+        when(customerService.monthlyStatisticsForCustomer(token, monthOffset, percentiles))
                 .thenReturn(new GenericResponse<>(statisticsResponse,true));
 
         // Execute
         ResponseEntity<GenericResponse<MonthlyStatisticsResponse>> responseEntity =
-                customerController.monthlyStatisticsForCustomer(token, monthOffset);
+                customerController.monthlyStatisticsForCustomer(token, monthOffset, percentiles);
 
         // Verify
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
@@ -45,15 +45,15 @@ class CustomerRepositoryTest {
     }
 
     @Test
-    void testFindCustomerByCreditCardNumber() {
-        String creditCardNumber = "1234567890123456";
+    void testFindCustomerByCreditCardIndex() {
+        String creditCardIndex = "creditCardIndex";
         Customer customer = new Customer();
-        customer.setCreditCardNumber(creditCardNumber);
+        customer.setCreditCardIndex(creditCardIndex);
 
-        when(customerRepository.findCustomerByCreditCardNumber(creditCardNumber)).thenReturn(Optional.of(customer));
+        when(customerRepository.findCustomerByCreditCardIndex(creditCardIndex)).thenReturn(Optional.of(customer));
 
-        Optional<Customer> found = customerRepository.findCustomerByCreditCardNumber(creditCardNumber);
+        Optional<Customer> found = customerRepository.findCustomerByCreditCardIndex(creditCardIndex);
 
-        assertEquals(creditCardNumber, found.get().getCreditCardNumber());
+        assertEquals(creditCardIndex, found.get().getCreditCardIndex());
     }
 }
\ No newline at end of file
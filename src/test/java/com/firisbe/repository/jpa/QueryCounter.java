@@ -0,0 +1,32 @@
+package com.firisbe.repository.jpa;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+ *     Repository testlerinde atılan SQL sayısını Hibernate istatistikleri üzerinden ölçer. Bir sorgunun sonuç sayısı
+ *     arttıkça atılan statement sayısı da artıyorsa N+1 sorgu problemi vardır.
+ */
+class QueryCounter {
+    private final Statistics statistics;
+
+    QueryCounter(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.setStatisticsEnabled(true);
+    }
+
+    void reset() {
+        statistics.clear();
+    }
+
+    void assertStatementCount(long expected) {
+        assertEquals(expected, statistics.getPrepareStatementCount(), "Unexpected number of SQL statements");
+    }
+
+    void assertNotLoaded(Class<?> entity) {
+        assertEquals(0, statistics.getEntityStatistics(entity.getName()).getLoadCount(), entity.getSimpleName() + " should not be loaded");
+    }
+}
@@ -1,22 +1,195 @@
 package com.firisbe.repository.jpa;
 
-import org.junit.jupiter.api.AfterEach;
+import com.firisbe.aspect.statistics.QuantileSketch;
+import com.firisbe.model.Customer;
+import com.firisbe.model.DTO.response.PaymentResponse;
+import com.firisbe.model.DTO.response.TransferExportRow;
+import com.firisbe.model.Enum.TransferDirection;
+import com.firisbe.model.Transfer;
+import jakarta.persistence.EntityManagerFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+@DataJpaTest
 class TransferRepositoryTest {
+    private static final int TRANSFER_COUNT = 5;
+
+    @Autowired
+    private TransferRepository transferRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private QueryCounter queryCounter;
+    private Long senderId;
+    private Long receiverId;
 
     @BeforeEach
     void setUp() {
+        Customer sender = entityManager.persist(Customer.builder().name("Ali").lastName("Yılmaz").balance(BigDecimal.valueOf(1000)).build());
+        Customer receiver = entityManager.persist(Customer.builder().name("Veli").lastName("Kaya").balance(BigDecimal.ZERO).build());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < TRANSFER_COUNT; i++) {
+            // Her transfer farklı bir alıcıya gitseydi EAGER ilişkiler transfer başına bir sorgu daha üretirdi
+            Customer otherReceiver = i == 0 ? receiver : entityManager.persist(Customer.builder().name("Alıcı" + i).build());
+            entityManager.persist(Transfer.builder()
+                    .sender(sender)
+                    .receiver(otherReceiver)
+                    .amount(BigDecimal.valueOf(10 + i))
+                    .timestamp(now.minusMinutes(i))
+                    .idempotencyKey(UUID.randomUUID())
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        senderId = sender.getId();
+        receiverId = receiver.getId();
+        queryCounter = new QueryCounter(entityManagerFactory);
+        queryCounter.reset();
+    }
+
+    @Test
+    void findSentPage_ReadsProjectionInSingleStatement() {
+        // Act
+        List<PaymentResponse> page = transferRepository.findSentPage(senderId, LocalDateTime.now().plusDays(1), Long.MAX_VALUE, Limit.of(50));
+
+        // Assert
+        assertEquals(TRANSFER_COUNT, page.size());
+        assertEquals("Ali Yılmaz", page.getFirst().senderName());
+        queryCounter.assertStatementCount(1);
+        queryCounter.assertNotLoaded(Customer.class);
+    }
+
+    @Test
+    void searchIdsByFullName_MatchesSubstringThenPagesOnlyTheirTransfers() {
+        // Act
+        List<Long> customerIds = customerRepository.searchIdsByFullName("%li yıl%", 100);
+        List<PaymentResponse> page = transferRepository.findCustomersPage(customerIds, LocalDateTime.now().plusDays(1), Long.MAX_VALUE, Limit.of(2));
+
+        // Assert
+        assertEquals(List.of(senderId), customerIds);
+        assertEquals(2, page.size());
+        assertTrue(page.getFirst().timestamp().isAfter(page.get(1).timestamp()));
+        assertTrue(customerRepository.searchIdsByFullName("%yok%", 100).isEmpty());
     }
 
-    @AfterEach
-    void tearDown() {
+    @Test
+    void summarizeSince_ReturnsOneRowPerDirectionInSingleStatement() {
+        // Act
+        List<TransferRepository.DirectionStatistics> rows = transferRepository.summarizeSince(senderId, LocalDateTime.now().minusMinutes(3).minusSeconds(30));
+
+        // Assert
+        assertEquals(2, rows.size());
+        TransferRepository.DirectionStatistics sent = rows.getFirst();
+        assertEquals(TransferDirection.SENT, sent.getDirection());
+        assertEquals(4L, sent.getTransferCount());
+        assertEquals(0, BigDecimal.valueOf(46).compareTo(sent.getTotalAmount()));
+        assertEquals(0, BigDecimal.valueOf(10).compareTo(sent.getMinAmount()));
+        assertEquals(0, BigDecimal.valueOf(13).compareTo(sent.getMaxAmount()));
+        TransferRepository.DirectionStatistics received = rows.get(1);
+        assertEquals(TransferDirection.RECEIVED, received.getDirection());
+        assertEquals(0L, received.getTransferCount());
+        assertNull(received.getTotalAmount());
+        queryCounter.assertStatementCount(1);
+        queryCounter.assertNotLoaded(Transfer.class);
     }
 
     @Test
-    void deleteInBatch() {
+    void summarizeBucketsSince_MatchesSketchBucketsInSingleStatement() {
+        // Act
+        List<MonthlyAmountBucketRepository.BucketCount> rows = transferRepository.summarizeBucketsSince(senderId, LocalDateTime.now().minusDays(1), QuantileSketch.LN_GAMMA);
+
+        // Assert
+        assertEquals(TRANSFER_COUNT, rows.size());
+        for (MonthlyAmountBucketRepository.BucketCount row : rows) {
+            assertEquals(TransferDirection.SENT, row.getDirection());
+            assertEquals(1L, row.getTransferCount());
+        }
+        assertEquals(
+                Set.of(10, 11, 12, 13, 14).stream().map(amount -> QuantileSketch.bucketOf(BigDecimal.valueOf(amount))).collect(Collectors.toSet()),
+                rows.stream().map(MonthlyAmountBucketRepository.BucketCount::getBucket).collect(Collectors.toSet()));
+        queryCounter.assertStatementCount(1);
+    }
+
+    @Test
+    void streamSnapshotAfter_ReadsInTimestampOrderAfterCursorUntilBound() {
+        // Arrange
+        LocalDateTime until = LocalDateTime.now().minusSeconds(90);
+
+        // Act
+        List<TransferExportRow> all;
+        try (Stream<TransferExportRow> rows = transferRepository.streamSnapshotAfter(LocalDateTime.of(1970, 1, 1, 0, 0), 0L, until)) {
+            all = rows.toList();
+        }
+        List<TransferExportRow> afterCursor;
+        try (Stream<TransferExportRow> rows = transferRepository.streamSnapshotAfter(all.get(1).timestamp(), all.get(1).id(), until)) {
+            afterCursor = rows.toList();
+        }
+
+        // Assert
+        assertEquals(3, all.size());
+        assertTrue(all.get(0).timestamp().isBefore(all.get(1).timestamp()));
+        assertTrue(all.get(1).timestamp().isBefore(all.get(2).timestamp()));
+        assertEquals(0, BigDecimal.valueOf(14).compareTo(all.getFirst().amount()));
+        assertEquals(List.of(all.get(2)), afterCursor);
+        queryCounter.assertNotLoaded(Transfer.class);
+    }
+
+    @Test
+    void findAll_DoesNotLoadTransferParties() {
+        // Act
+        List<Transfer> transfers = transferRepository.findAll();
+
+        // Assert
+        assertEquals(TRANSFER_COUNT, transfers.size());
+        queryCounter.assertStatementCount(1);
+        queryCounter.assertNotLoaded(Customer.class);
+    }
+
+    @Test
+    void customerTransferCollections_LoadedWithConstantStatementCount() {
+        // Act
+        Customer sender = customerRepository.findById(senderId).orElseThrow();
+        BigDecimal sent = sender.getSentTransfers().stream().map(Transfer::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal received = sender.getReceivedTransfers().stream().map(Transfer::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        // Assert
+        assertEquals(0, BigDecimal.valueOf(60).compareTo(sent));
+        assertEquals(0, BigDecimal.ZERO.compareTo(received));
+        // Müşteri + gönderilen + alınan koleksiyonları; transfer sayısından bağımsız
+        queryCounter.assertStatementCount(3);
+    }
+
+    @Test
+    void save_WithCustomerReferences_DoesNotLoadCustomers() {
+        // Act
+        transferRepository.save(Transfer.builder()
+                .sender(customerRepository.getReferenceById(senderId))
+                .receiver(customerRepository.getReferenceById(receiverId))
+                .amount(BigDecimal.ONE)
+                .timestamp(LocalDateTime.now())
+                .idempotencyKey(UUID.randomUUID())
+                .build());
+        entityManager.flush();
+
+        // Assert
+        queryCounter.assertNotLoaded(Customer.class);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,129 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.error.PaymentOverloadedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsResult;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AdmissionControlServiceImplementationTest {
+    private static final TopicPartition PARTITION = new TopicPartition("payment_process", 0);
+
+    private AdmissionControlServiceImplementation admissionControlService;
+    private MeterRegistry meterRegistry;
+
+    @Mock
+    private Admin admin;
+    @Mock
+    private PaymentStatusServiceImplementation paymentStatusService;
+    @Mock
+    private OutboxServiceImplementation outbox;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        // max-lag 100, max-in-flight 1000, müşteri payı %1 -> müşteri başına en fazla 10 bekleyen ödeme
+        admissionControlService = new AdmissionControlServiceImplementation(admin, paymentStatusService, outbox, meterRegistry,
+                "payment_process", "groupId", true, 100, 1000, 0.01, 1000, 1000);
+    }
+
+    private void offsets(long committed, long end) {
+        ListConsumerGroupOffsetsResult groupOffsets = mock(ListConsumerGroupOffsetsResult.class);
+        when(groupOffsets.partitionsToOffsetAndMetadata()).thenReturn(KafkaFuture.completedFuture(Map.of(PARTITION, new OffsetAndMetadata(committed))));
+        when(admin.listConsumerGroupOffsets("groupId")).thenReturn(groupOffsets);
+        ListOffsetsResult endOffsets = mock(ListOffsetsResult.class);
+        when(endOffsets.all()).thenReturn(KafkaFuture.completedFuture(Map.of(PARTITION, new ListOffsetsResult.ListOffsetsResultInfo(end, 0L, null))));
+        when(admin.listOffsets(anyMap())).thenReturn(endOffsets);
+    }
+
+    @Test
+    void admit_WithinBudget_Admits() {
+        // Arrange
+        offsets(100, 110);
+        when(paymentStatusService.countPending(1L)).thenReturn(3L);
+        admissionControlService.refresh();
+
+        // Act & Assert
+        assertDoesNotThrow(() -> admissionControlService.admit(1L));
+        assertEquals(10.0, meterRegistry.get("payment.admission.lag").gauge().value());
+    }
+
+    @Test
+    void admit_CustomerOverShare_Rejected() {
+        // Arrange
+        when(paymentStatusService.countPending(1L)).thenReturn(10L);
+
+        // Act & Assert
+        assertThrows(PaymentOverloadedException.class, () -> admissionControlService.admit(1L));
+        assertEquals(1.0, meterRegistry.get("payment.admission.rejected").tag("reason", "customer").counter().count());
+    }
+
+    @Test
+    void admit_LagOverBudget_RejectsEveryCustomer() {
+        // Arrange
+        offsets(0, 0);
+        admissionControlService.refresh();
+        offsets(500, 1000);
+        admissionControlService.refresh();
+        when(paymentStatusService.countPending(1L)).thenReturn(1L);
+        when(paymentStatusService.countPending(2L)).thenReturn(0L);
+
+        // Act
+        PaymentOverloadedException exception = assertThrows(PaymentOverloadedException.class, () -> admissionControlService.admit(1L));
+
+        // Assert
+        assertThrows(PaymentOverloadedException.class, () -> admissionControlService.admit(2L));
+        // 500 kayıt/saniye hızla 500 kayıtlık lag 1 saniyede erir
+        assertEquals(1, exception.getRetryAfterSeconds());
+        assertEquals(2.0, meterRegistry.get("payment.admission.rejected").tag("reason", "lag").counter().count());
+    }
+
+    @Test
+    void admit_InFlightOverBudget_CountsAdmissionsSinceRefresh() {
+        // Arrange
+        offsets(0, 0);
+        when(paymentStatusService.countPending()).thenReturn(999L);
+        when(paymentStatusService.countPending(1L)).thenReturn(1L);
+        when(paymentStatusService.countPending(2L)).thenReturn(0L);
+        admissionControlService.refresh();
+
+        // Act
+        admissionControlService.admit(1L);
+
+        // Assert
+        // Bekleyen ödemesi olmayan müşteri de genel bütçeye tabidir
+        assertThrows(PaymentOverloadedException.class, () -> admissionControlService.admit(2L));
+        verify(paymentStatusService, never()).countPending(2L);
+        assertEquals(1.0, meterRegistry.get("payment.admission.rejected").tag("reason", "in_flight").counter().count());
+    }
+
+    @Test
+    void refresh_KafkaUnavailable_KeepsLastLagAndLogs() {
+        // Arrange
+        offsets(0, 500);
+        admissionControlService.refresh();
+        when(admin.listConsumerGroupOffsets("groupId")).thenThrow(new RuntimeException("Broker unavailable"));
+
+        // Act
+        admissionControlService.refresh();
+
+        // Assert
+        assertEquals(500.0, meterRegistry.get("payment.admission.lag").gauge().value());
+        verify(outbox, times(1)).send(eq("error_logs"), startsWith("RuntimeException: Failed to read payment consumer lag"));
+    }
+}
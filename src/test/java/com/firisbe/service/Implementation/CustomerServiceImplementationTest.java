@@ -2,12 +2,20 @@ package com.firisbe.service.Implementation;
 
 import com.firisbe.aspect.GenericResponse;
 import com.firisbe.aspect.encryption.Encryption;
+import com.firisbe.aspect.statistics.QuantileSketch;
 import com.firisbe.error.*;
 import com.firisbe.model.Customer;
 import com.firisbe.model.DTO.request.*;
 import com.firisbe.model.DTO.response.AuthResponse;
+import com.firisbe.model.DTO.response.CursorPage;
 import com.firisbe.model.DTO.response.CustomerResponse;
+import com.firisbe.model.DTO.response.MonthlyStatisticsResponse;
+import com.firisbe.model.Enum.TransferDirection;
+import com.firisbe.model.MonthlyTransferAggregate;
+import com.firisbe.model.Transfer;
 import com.firisbe.repository.jpa.CustomerRepository;
+import com.firisbe.repository.jpa.MonthlyAmountBucketRepository;
+import com.firisbe.repository.jpa.TransferRepository;
 import com.firisbe.service.JwtService;
 
 import org.junit.jupiter.api.AfterEach;
@@ -18,14 +26,18 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.kafka.core.KafkaTemplate;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -41,7 +53,7 @@ class CustomerServiceImplementationTest {
     private PasswordEncoder passwordEncoder;
 
     @Mock
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private OutboxServiceImplementation outbox;
 
     @Mock
     private JwtService jwtService;
@@ -54,6 +66,10 @@ class CustomerServiceImplementationTest {
 
     @Mock
     private Encryption encryption;
+    @Mock
+    private TransferAggregateServiceImplementation transferAggregateService;
+    @Mock
+    private TransferRepository transferRepository;
 
     @BeforeEach
     void setUp() {
@@ -85,8 +101,8 @@ class CustomerServiceImplementationTest {
         assertNotNull(foundCustomer);
         assertEquals(dummyCustomer, foundCustomer);
 
-        // Verify that kafkaTemplate.send() method was called
-        verify(kafkaTemplate).send(eq("successful_logs"), anyString());
+        // Verify that outbox.send() method was called
+        verify(outbox).send(eq("successful_logs"), anyString());
     }
 
     @Test
@@ -103,7 +119,7 @@ class CustomerServiceImplementationTest {
             customerService.findCustomerToToken(token);
         } catch (CustomerNotFoundException e) {
             assertEquals("Customer not found: ", e.getMessage());
-            verify(kafkaTemplate).send(eq("error_logs"), contains("CustomerNotFound"));
+            verify(outbox).send(eq("error_logs"), contains("CustomerNotFound"));
         }
     }
 
@@ -119,7 +135,7 @@ class CustomerServiceImplementationTest {
             customerService.findCustomerToToken(token);
         } catch (RuntimeException e) {
             assertEquals("Customer not found: ", e.getMessage());
-            verify(kafkaTemplate).send(eq("error_logs"), contains("CustomerNotFound"));
+            verify(outbox).send(eq("error_logs"), contains("CustomerNotFound"));
         }
     }
 
@@ -154,8 +170,8 @@ class CustomerServiceImplementationTest {
             customerService.findCustomerByMail(email);
         });
 
-        // Verify that kafkaTemplate.send() method was called
-        verify(kafkaTemplate).send(eq("error_logs"), contains("CustomerNotFound"));
+        // Verify that outbox.send() method was called
+        verify(outbox).send(eq("error_logs"), contains("CustomerNotFound"));
     }
 
     @Test
@@ -171,8 +187,8 @@ class CustomerServiceImplementationTest {
             customerService.findCustomerByMail(email);
         });
 
-        // Verify that kafkaTemplate.send() method was called
-        verify(kafkaTemplate).send(eq("error_logs"), contains("GeneralError"));
+        // Verify that outbox.send() method was called
+        verify(outbox).send(eq("error_logs"), contains("GeneralError"));
     }
 
     @Test
@@ -205,8 +221,8 @@ class CustomerServiceImplementationTest {
             customerService.findById(customerId);
         });
 
-        // Verify that kafkaTemplate.send() method was called
-        verify(kafkaTemplate).send(eq("error_logs"), contains("CustomerNotFound"));
+        // Verify that outbox.send() method was called
+        verify(outbox).send(eq("error_logs"), contains("CustomerNotFound"));
     }
 
     @Test
@@ -222,8 +238,8 @@ class CustomerServiceImplementationTest {
             customerService.findById(customerId);
         });
 
-        // Verify that kafkaTemplate.send() method was called
-        verify(kafkaTemplate).send(eq("error_logs"), contains("GeneralError"));
+        // Verify that outbox.send() method was called
+        verify(outbox).send(eq("error_logs"), contains("GeneralError"));
     }
 
     @Test
@@ -251,8 +267,8 @@ class CustomerServiceImplementationTest {
             customerService.saveCustomer(dummyCustomer);
         });
 
-        // Verify that kafkaTemplate.send() method was called
-        verify(kafkaTemplate).send(eq("error_logs"), contains("GeneralError"));
+        // Verify that outbox.send() method was called
+        verify(outbox).send(eq("error_logs"), contains("GeneralError"));
     }
 
     @Test
@@ -306,9 +322,10 @@ class CustomerServiceImplementationTest {
 
         // Mocking repository behavior for email and credit card checks
         when(repo.findCustomerByEmail(request.email())).thenReturn(Optional.empty());
-        when(repo.findCustomerByCreditCardNumber(anyString())).thenReturn(Optional.empty());
+        when(repo.findCustomerByCreditCardIndex(anyString())).thenReturn(Optional.empty());
         // Mocking encryption
         when(encryption.encrypt(request.creditCardNumber())).thenReturn("encryptedCreditCard");
+        when(encryption.blindIndex(request.creditCardNumber())).thenReturn("creditCardIndex");
         // Mocking password encoder
         when(passwordEncoder.encode(request.password())).thenReturn("encodedPassword");
 
@@ -354,7 +371,7 @@ class CustomerServiceImplementationTest {
 
         // Then
         assertThrows(UpdateCustomerRuntimeException.class, () -> customerService.updateCustomerForCustomers(token, request));
-        verify(kafkaTemplate).send(eq("error_logs"), anyString());
+        verify(outbox).send(eq("error_logs"), anyString());
     }
 
     @Test
@@ -367,8 +384,9 @@ class CustomerServiceImplementationTest {
 
         when(repo.findById(request.id())).thenReturn(Optional.of(dummyCustomer));
         when(repo.findCustomerByEmail(request.email())).thenReturn(Optional.empty());
-        when(repo.findCustomerByCreditCardNumber(anyString())).thenReturn(Optional.empty());
+        when(repo.findCustomerByCreditCardIndex(anyString())).thenReturn(Optional.empty());
         when(encryption.encrypt(request.creditCardNumber())).thenReturn("encryptedCreditCard");
+        when(encryption.blindIndex(request.creditCardNumber())).thenReturn("creditCardIndex");
         when(passwordEncoder.encode(request.password())).thenReturn("encodedPassword");
 
         // Test
@@ -381,6 +399,8 @@ class CustomerServiceImplementationTest {
         assertEquals("encodedPassword", dummyCustomer.getPassword());
         assertEquals("admin@mail.com", dummyCustomer.getEmail());
         assertEquals(BigDecimal.valueOf(10000), dummyCustomer.getBalance());
+        assertEquals("encryptedCreditCard", dummyCustomer.getCreditCardNumber());
+        assertEquals("creditCardIndex", dummyCustomer.getCreditCardIndex());
 
         // Verify that repo.save() method was called
         verify(repo).save(dummyCustomer);
@@ -413,7 +433,7 @@ class CustomerServiceImplementationTest {
 
         // Then
         assertThrows(CustomerNotFoundException.class, () -> customerService.updateCustomerForAdmin(request));
-        verify(kafkaTemplate).send(eq("error_logs"), anyString());
+        verify(outbox).send(eq("error_logs"), anyString());
     }
 
     @Test
@@ -437,7 +457,7 @@ class CustomerServiceImplementationTest {
         assertEquals("Doe", response.getData().lastName());
         assertEquals("john.doe@example.com", response.getData().email());
 
-        verify(kafkaTemplate).send("successful_logs", "The user named John has been successfully read in the database");
+        verify(outbox).send("successful_logs", "The user named John has been successfully read in the database");
     }
 
     @Test
@@ -449,7 +469,7 @@ class CustomerServiceImplementationTest {
 
         // When - Then
         assertThrows(CustomerNotFoundException.class, () -> customerService.readCustomerForAdmin(customerId));
-        verify(kafkaTemplate).send(eq("error_logs"), anyString());
+        verify(outbox).send(eq("error_logs"), anyString());
     }
 
     @Test
@@ -461,7 +481,7 @@ class CustomerServiceImplementationTest {
 
         // When - Then
         assertThrows(RuntimeException.class, () -> customerService.readCustomerForAdmin(customerId));
-        verify(kafkaTemplate).send(eq("error_logs"), anyString());
+        verify(outbox).send(eq("error_logs"), anyString());
     }
 
     @Test
@@ -497,7 +517,7 @@ class CustomerServiceImplementationTest {
 
         // When/Then
         assertThrows(CustomerNotFoundException.class, () -> customerService.readCustomerForCustomers(token));
-        verify(kafkaTemplate, times(1)).send(eq("error_logs"), contains("CustomerNotFound"));
+        verify(outbox, times(1)).send(eq("error_logs"), contains("CustomerNotFound"));
     }
 
     @Test
@@ -509,7 +529,7 @@ class CustomerServiceImplementationTest {
 
         // When/Then
         assertThrows(RuntimeException.class, () -> customerService.readCustomerForCustomers(token));
-        verify(kafkaTemplate, times(1)).send(eq("error_logs"), contains("Failed to read in the database"));
+        verify(outbox, times(1)).send(eq("error_logs"), contains("Failed to read in the database"));
     }
 
     @Test
@@ -533,33 +553,54 @@ class CustomerServiceImplementationTest {
         customers.add(customer1);
         customers.add(customer2);
 
-        when(repo.findAll()).thenReturn(customers);
+        when(repo.findAllByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class))).thenReturn(customers);
 
 
         // When
-        GenericResponse<List<CustomerResponse>> response = customerService.readAllForAdmin();
+        GenericResponse<CursorPage<CustomerResponse>> response = customerService.readAllForAdmin(null, 50);
 
         // Then
         assertTrue(response.getStatus());
         assertNotNull(response.getData());
-        assertEquals(2, response.getData().size());
-        assertEquals("John", response.getData().getFirst().name());
-        assertEquals("Doe", response.getData().getFirst().lastName());
-        assertEquals("john.doe@example.com", response.getData().get(0).email());
-        assertEquals("Jane", response.getData().get(1).name());
-        assertEquals("Smith", response.getData().get(1).lastName());
-        assertEquals("jane.smith@example.com", response.getData().get(1).email());
-        verify(kafkaTemplate, times(1)).send(eq("successful_logs"), anyString());
+        assertEquals(2, response.getData().items().size());
+        assertNull(response.getData().nextCursor());
+        assertEquals("John", response.getData().items().getFirst().name());
+        assertEquals("Doe", response.getData().items().getFirst().lastName());
+        assertEquals("john.doe@example.com", response.getData().items().get(0).email());
+        assertEquals("Jane", response.getData().items().get(1).name());
+        assertEquals("Smith", response.getData().items().get(1).lastName());
+        assertEquals("jane.smith@example.com", response.getData().items().get(1).email());
+        verify(outbox, times(1)).send(eq("successful_logs"), anyString());
     }
 
     @Test
     void testReadAllForAdmin_Exception() {
         // Given
-        when(repo.findAll()).thenThrow(new RuntimeException("Database connection failed"));
+        when(repo.findAllByIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class))).thenThrow(new RuntimeException("Database connection failed"));
 
         // When/Then
-        assertThrows(RuntimeException.class, () -> customerService.readAllForAdmin());
-        verify(kafkaTemplate, times(1)).send(eq("error_logs"), anyString());
+        assertThrows(RuntimeException.class, () -> customerService.readAllForAdmin(null, 50));
+        verify(outbox, times(1)).send(eq("error_logs"), anyString());
+    }
+
+    @Test
+    void testReadAllForAdmin_FullPage_ReturnsCursorForNextPage() {
+        // Given
+        Customer first = Customer.builder().id(7L).name("John").build();
+        Customer second = Customer.builder().id(9L).name("Jane").build();
+        Customer extra = Customer.builder().id(12L).name("Joe").build();
+        when(repo.findAllByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3)))).thenReturn(List.of(first, second, extra));
+        when(repo.findAllByIdGreaterThanOrderByIdAsc(eq(9L), eq(Limit.of(3)))).thenReturn(List.of(extra));
+
+        // When
+        GenericResponse<CursorPage<CustomerResponse>> firstPage = customerService.readAllForAdmin(null, 2);
+        GenericResponse<CursorPage<CustomerResponse>> secondPage = customerService.readAllForAdmin(firstPage.getData().nextCursor(), 2);
+
+        // Then
+        assertEquals(2, firstPage.getData().items().size());
+        assertNotNull(firstPage.getData().nextCursor());
+        assertEquals("Joe", secondPage.getData().items().getFirst().name());
+        assertNull(secondPage.getData().nextCursor());
     }
 
     @Test
@@ -583,7 +624,7 @@ class CustomerServiceImplementationTest {
         assertTrue(response.getStatus());
         assertEquals("Customer deleted successfully.", response.getData());
         verify(repo, times(1)).delete(eq(mockCustomer));
-        verify(kafkaTemplate, times(1)).send(eq("successful_logs"), anyString());
+        verify(outbox, times(1)).send(eq("successful_logs"), anyString());
     }
 
     @Test
@@ -594,7 +635,7 @@ class CustomerServiceImplementationTest {
 
         // When/Then
         assertThrows(CustomerNotFoundException.class, () -> customerService.deleteCustomerForAdmin(customerId));
-        verify(kafkaTemplate, times(1)).send(eq("error_logs"), contains("Failed to delete"));
+        verify(outbox, times(1)).send(eq("error_logs"), contains("Failed to delete"));
     }
 
     @Test
@@ -605,7 +646,7 @@ class CustomerServiceImplementationTest {
 
         // When/Then
         assertThrows(RuntimeException.class, () -> customerService.deleteCustomerForAdmin(customerId));
-        verify(kafkaTemplate, times(1)).send(eq("error_logs"), contains("Failed to delete"));
+        verify(outbox, times(1)).send(eq("error_logs"), contains("Failed to delete"));
     }
 
     @Test
@@ -647,7 +688,7 @@ class CustomerServiceImplementationTest {
 
         // When/Then
         assertThrows(CustomerNotFoundException.class, () -> customerService.deleteCustomerForCustomers(token));
-        verify(kafkaTemplate, times(1)).send(eq("error_logs"), contains("Failed to delete"));
+        verify(outbox, times(1)).send(eq("error_logs"), contains("Failed to delete"));
     }
 
     @Test
@@ -661,7 +702,7 @@ class CustomerServiceImplementationTest {
         assertTrue(response.getStatus());
         assertEquals("All customers deleted successfully.", response.getData());
         verify(repo, times(1)).deleteAll();
-        verify(kafkaTemplate, times(1)).send(eq("successful_logs"), anyString());
+        verify(outbox, times(1)).send(eq("successful_logs"), anyString());
     }
 
     @Test
@@ -672,7 +713,7 @@ class CustomerServiceImplementationTest {
         // When/Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> customerService.deleteAllForAdmin());
         assertEquals("java.lang.RuntimeException: Database connection failed", exception.getMessage());
-        verify(kafkaTemplate, times(1)).send(eq("error_logs"), contains("An error was encountered"));
+        verify(outbox, times(1)).send(eq("error_logs"), contains("An error was encountered"));
     }
 
     @Test
@@ -694,7 +735,7 @@ class CustomerServiceImplementationTest {
         assertNotNull(response.getData());
         assertEquals("Login successful", response.getData().message());
         assertEquals("jwtToken", response.getData().token());
-        verify(kafkaTemplate, times(1)).send(eq("successful_logs"), anyString());
+        verify(outbox, times(1)).send(eq("successful_logs"), anyString());
     }
 
     @Test
@@ -706,7 +747,7 @@ class CustomerServiceImplementationTest {
 
         // When/Then
         assertThrows(RuntimeException.class, () -> customerService.customerLogin(customerCredentials));
-        verify(kafkaTemplate, times(1)).send(eq("error_logs"), anyString());
+        verify(outbox, times(1)).send(eq("error_logs"), anyString());
     }
 
     @Test
@@ -726,7 +767,7 @@ class CustomerServiceImplementationTest {
         assertEquals("Register successful", response.getData().message());
         assertNotNull(response.getData().token());
         verify(repo, times(1)).save(any(Customer.class));
-        verify(kafkaTemplate, times(1)).send(eq("successful_logs"), anyString());
+        verify(outbox, times(1)).send(eq("successful_logs"), anyString());
     }
 
     @Test
@@ -737,7 +778,7 @@ class CustomerServiceImplementationTest {
 
         // When/Then
         assertThrows(CustomerAlreadyExistsException.class, () -> customerService.customerRegister(request));
-        verify(kafkaTemplate, times(1)).send(eq("error_logs"), contains("CustomerAlreadyExists"));
+        verify(outbox, times(1)).send(eq("error_logs"), contains("CustomerAlreadyExists"));
     }
 
     @Test
@@ -838,7 +879,7 @@ class CustomerServiceImplementationTest {
         });
 
         // Verify
-        verify(kafkaTemplate, times(1)).send(eq("error_logs"), anyString());
+        verify(outbox, times(1)).send(eq("error_logs"), anyString());
     }
 
     @Test
@@ -854,7 +895,231 @@ class CustomerServiceImplementationTest {
         });
 
         // Verify
-        verify(kafkaTemplate, times(1)).send(eq("error_logs"), anyString());
+        verify(outbox, times(1)).send(eq("error_logs"), anyString());
     }
 
-}
\ No newline at end of file
+    @Test
+    void testBackfillCreditCardIndex_SavesEachCustomerSeparatelyAndSkipsUndecryptableCards() {
+        // Arrange
+        Customer legacy = new Customer();
+        legacy.setId(1L);
+        legacy.setCreditCardNumber("encryptedCard");
+        Customer unreadable = new Customer();
+        unreadable.setId(2L);
+        unreadable.setCreditCardNumber("notDecryptable");
+        when(repo.findAllByCreditCardNumberIsNotNullAndCreditCardIndexIsNull()).thenReturn(List.of(legacy, unreadable));
+        when(encryption.decrypt("encryptedCard")).thenReturn("4539148803436467");
+        when(encryption.blindIndex("4539148803436467")).thenReturn("creditCardIndex");
+
+        // Act
+        customerService.backfillCreditCardIndex();
+
+        // Assert
+        assertEquals("creditCardIndex", legacy.getCreditCardIndex());
+        // Şifreli kart numarası silinmez
+        assertEquals("notDecryptable", unreadable.getCreditCardNumber());
+        assertNull(unreadable.getCreditCardIndex());
+        verify(repo).saveAndFlush(legacy);
+        verify(repo, never()).saveAndFlush(unreadable);
+        verify(repo, never()).saveAll(any());
+        verify(outbox).send("error_logs", "GeneralError: Credit card could not be decrypted for customer 2");
+    }
+
+    @Test
+    void testBackfillCreditCardIndex_ConflictLoggedAndOtherCustomersStillSaved() {
+        // Arrange
+        Customer duplicate = new Customer();
+        duplicate.setId(1L);
+        duplicate.setCreditCardNumber("duplicateCard");
+        Customer legacy = new Customer();
+        legacy.setId(2L);
+        legacy.setCreditCardNumber("encryptedCard");
+        when(repo.findAllByCreditCardNumberIsNotNullAndCreditCardIndexIsNull()).thenReturn(List.of(duplicate, legacy));
+        when(encryption.decrypt("duplicateCard")).thenReturn("4539148803436467");
+        when(encryption.decrypt("encryptedCard")).thenReturn("4716108999716531");
+        when(encryption.blindIndex(anyString())).thenAnswer(invocation -> "index-" + invocation.getArgument(0));
+        when(repo.saveAndFlush(duplicate)).thenThrow(new DataIntegrityViolationException("uk_customer_credit_card_index"));
+
+        // Act
+        customerService.backfillCreditCardIndex();
+
+        // Assert
+        verify(repo).saveAndFlush(legacy);
+        verify(outbox).send("error_logs", "GeneralError: Credit card index conflicts with another customer for customer 1");
+        verify(outbox, never()).send(eq("error_logs"), startsWith("GeneralError: Failed to backfill"));
+    }
+
+    @Test
+    void testSearchCustomerIdsByName_ContainsSearchForLongQueries() {
+        // Arrange
+        when(repo.searchIdsByFullName(anyString(), anyInt())).thenReturn(List.of(1L));
+
+        // Act
+        List<Long> ids = customerService.searchCustomerIdsByName("  Ali   Yıl ");
+
+        // Assert
+        assertEquals(List.of(1L), ids);
+        verify(repo).searchIdsByFullName(eq("%ali yıl%"), anyInt());
+    }
+
+    @Test
+    void testSearchCustomerIdsByName_PrefixSearchForShortQueriesAndEscapesWildcards() {
+        // Act
+        customerService.searchCustomerIdsByName("A_");
+        customerService.searchCustomerIdsByName("50%");
+
+        // Assert
+        verify(repo).searchIdsByFullName(eq("a\\_%"), anyInt());
+        verify(repo).searchIdsByFullName(eq("%50\\%%"), anyInt());
+    }
+
+    @Test
+    void testSearchCustomerIdsByName_BlankQuery_ReturnsEmpty() {
+        // Act & Assert
+        assertTrue(customerService.searchCustomerIdsByName("   ").isEmpty());
+        verify(repo, never()).searchIdsByFullName(anyString(), anyInt());
+    }
+
+    private MonthlyTransferAggregate aggregate(TransferDirection direction, long count, long total, long min, long max) {
+        return MonthlyTransferAggregate.builder()
+                .customerId(1L)
+                .monthStart(LocalDate.now().withDayOfMonth(1))
+                .direction(direction)
+                .transferCount(count)
+                .totalAmount(BigDecimal.valueOf(total))
+                .minAmount(BigDecimal.valueOf(min))
+                .maxAmount(BigDecimal.valueOf(max))
+                .build();
+    }
+
+    @Test
+    void testMonthlyStatisticsForAdmin_BuiltFromMonthlyAggregates() {
+        // Arrange
+        when(transferAggregateService.isBackfilled()).thenReturn(true);
+        Customer customer = new Customer();
+        customer.setId(1L);
+        when(repo.findById(1L)).thenReturn(Optional.of(customer));
+        when(transferAggregateService.findSince(eq(1L), any(LocalDate.class))).thenReturn(List.of(
+                aggregate(TransferDirection.SENT, 2, 300, 100, 200),
+                aggregate(TransferDirection.SENT, 1, 50, 50, 50),
+                aggregate(TransferDirection.RECEIVED, 4, 100, 10, 40)));
+
+        // Act
+        MonthlyStatisticsResponse response = customerService.monthlyStatisticsForAdmin(1L, 2, List.of()).getData();
+
+        // Assert
+        assertEquals(3, response.sentCount());
+        assertEquals(0, BigDecimal.valueOf(350).compareTo(response.monthlySentAmount()));
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(response.lowestAmountSent()));
+        assertEquals(0, BigDecimal.valueOf(200).compareTo(response.highestAmountSent()));
+        assertEquals(new BigDecimal("116.67"), response.averageAmountSent());
+        assertEquals(4, response.receivedCount());
+        assertEquals(new BigDecimal("25.00"), response.averageAmountReceived());
+        verify(transferAggregateService).findSince(1L, YearMonth.now().minusMonths(2).atDay(1));
+        verify(transferAggregateService, never()).findBucketsSince(anyLong(), any());
+    }
+
+    @Test
+    void testMonthlyStatisticsForAdmin_AggregatesNotBackfilled_SummarizedInDatabase() {
+        // Arrange
+        Customer customer = new Customer();
+        customer.setId(1L);
+        when(repo.findById(1L)).thenReturn(Optional.of(customer));
+        when(transferAggregateService.isBackfilled()).thenReturn(false);
+        when(transferAggregateService.findSince(eq(1L), any(LocalDate.class))).thenReturn(List.of(
+                aggregate(TransferDirection.SENT, 1, 10, 10, 10)));
+        TransferRepository.DirectionStatistics sent = mock(TransferRepository.DirectionStatistics.class);
+        when(sent.getDirection()).thenReturn(TransferDirection.SENT);
+        when(sent.getTransferCount()).thenReturn(2L);
+        when(sent.getTotalAmount()).thenReturn(BigDecimal.valueOf(90));
+        when(sent.getMinAmount()).thenReturn(BigDecimal.valueOf(20));
+        when(sent.getMaxAmount()).thenReturn(BigDecimal.valueOf(70));
+        TransferRepository.DirectionStatistics received = mock(TransferRepository.DirectionStatistics.class);
+        when(received.getDirection()).thenReturn(TransferDirection.RECEIVED);
+        when(received.getTransferCount()).thenReturn(0L);
+        when(transferRepository.summarizeSince(eq(1L), any(LocalDateTime.class))).thenReturn(List.of(sent, received));
+
+        // Act
+        MonthlyStatisticsResponse response = customerService.monthlyStatisticsForAdmin(1L, 1, List.of()).getData();
+
+        // Assert
+        assertEquals(2, response.sentCount());
+        assertEquals(0, BigDecimal.valueOf(90).compareTo(response.monthlySentAmount()));
+        assertEquals(new BigDecimal("45.00"), response.averageAmountSent());
+        assertEquals(0, BigDecimal.valueOf(70).compareTo(response.highestAmountSent()));
+        assertEquals(0, response.receivedCount());
+        assertEquals(0, BigDecimal.ZERO.compareTo(response.lowestAmountReceived()));
+        verify(transferRepository).summarizeSince(1L, YearMonth.now().minusMonths(1).atDay(1).atStartOfDay());
+        verify(transferAggregateService, never()).findSince(anyLong(), any());
+    }
+
+    private MonthlyAmountBucketRepository.BucketCount bucket(TransferDirection direction, long amount, long count) {
+        MonthlyAmountBucketRepository.BucketCount bucket = mock(MonthlyAmountBucketRepository.BucketCount.class);
+        when(bucket.getDirection()).thenReturn(direction);
+        when(bucket.getBucket()).thenReturn(QuantileSketch.bucketOf(BigDecimal.valueOf(amount)));
+        when(bucket.getTransferCount()).thenReturn(count);
+        return bucket;
+    }
+
+    @Test
+    void testMonthlyStatisticsForAdmin_PercentilesFromMonthlySketches() {
+        // Arrange
+        when(transferAggregateService.isBackfilled()).thenReturn(true);
+        Customer customer = new Customer();
+        customer.setId(1L);
+        when(repo.findById(1L)).thenReturn(Optional.of(customer));
+        when(transferAggregateService.findSince(eq(1L), any(LocalDate.class))).thenReturn(List.of(
+                aggregate(TransferDirection.SENT, 100, 10900, 10, 1000)));
+        List<MonthlyAmountBucketRepository.BucketCount> buckets = List.of(
+                bucket(TransferDirection.SENT, 10, 90),
+                bucket(TransferDirection.SENT, 1000, 10));
+        when(transferAggregateService.findBucketsSince(eq(1L), any(LocalDate.class))).thenReturn(buckets);
+
+        // Act
+        MonthlyStatisticsResponse response = customerService.monthlyStatisticsForAdmin(1L, 0, List.of(50.0, 99.0, 100.0)).getData();
+
+        // Assert
+        assertEquals(List.of("p50", "p99", "p100"), List.copyOf(response.sentPercentiles().keySet()));
+        assertEquals(10, response.sentPercentiles().get("p50").doubleValue(), 10 * QuantileSketch.RELATIVE_ACCURACY);
+        assertEquals(1000, response.sentPercentiles().get("p99").doubleValue(), 1000 * QuantileSketch.RELATIVE_ACCURACY);
+        assertEquals(new BigDecimal("1000.00"), response.sentPercentiles().get("p100"));
+        assertEquals(BigDecimal.ZERO, response.receivedPercentiles().get("p50"));
+        verify(transferRepository, never()).summarizeBucketsSince(anyLong(), any(), anyDouble());
+    }
+
+    @Test
+    void testMonthlyStatisticsForAdmin_IncompleteSketches_BucketsRebuiltFromTransfers() {
+        // Arrange
+        when(transferAggregateService.isBackfilled()).thenReturn(true);
+        Customer customer = new Customer();
+        customer.setId(1L);
+        when(repo.findById(1L)).thenReturn(Optional.of(customer));
+        when(transferAggregateService.findSince(eq(1L), any(LocalDate.class))).thenReturn(List.of(
+                aggregate(TransferDirection.RECEIVED, 2, 30, 10, 20)));
+        when(transferAggregateService.findBucketsSince(eq(1L), any(LocalDate.class))).thenReturn(List.of());
+        List<MonthlyAmountBucketRepository.BucketCount> buckets = List.of(
+                bucket(TransferDirection.RECEIVED, 10, 1),
+                bucket(TransferDirection.RECEIVED, 20, 1));
+        when(transferRepository.summarizeBucketsSince(eq(1L), any(LocalDateTime.class), eq(QuantileSketch.LN_GAMMA))).thenReturn(buckets);
+
+        // Act
+        MonthlyStatisticsResponse response = customerService.monthlyStatisticsForAdmin(1L, 0, List.of(99.9)).getData();
+
+        // Assert
+        assertEquals(20, response.receivedPercentiles().get("p99.9").doubleValue(), 20 * QuantileSketch.RELATIVE_ACCURACY);
+        verify(transferRepository).summarizeBucketsSince(1L, YearMonth.now().atDay(1).atStartOfDay(), QuantileSketch.LN_GAMMA);
+    }
+
+    @Test
+    void testMonthlyStatisticsForAdmin_InvalidPercentile_ThrowsInvalidPercentileException() {
+        // Arrange
+        Customer customer = new Customer();
+        customer.setId(1L);
+        when(repo.findById(1L)).thenReturn(Optional.of(customer));
+
+        // Act & Assert
+        assertThrows(InvalidPercentileException.class, () -> customerService.monthlyStatisticsForAdmin(1L, 1, List.of(50.0, 101.0)));
+        verify(outbox).send(eq("error_logs"), startsWith("InvalidPercentileException"));
+        verifyNoInteractions(transferAggregateService);
+    }
+}
@@ -0,0 +1,103 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.aspect.GenericResponse;
+import com.firisbe.model.DTO.request.DeadLetterReplayRequest;
+import com.firisbe.model.DTO.response.DeadLetterResponse;
+import com.firisbe.model.DeadLetterPayment;
+import com.firisbe.model.PaymentEvent;
+import com.firisbe.repository.jpa.DeadLetterPaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DeadLetterServiceImplementationTest {
+    private DeadLetterServiceImplementation deadLetterService;
+
+    @Mock
+    private DeadLetterPaymentRepository deadLetterPaymentRepository;
+    @Mock
+    private OutboxServiceImplementation outbox;
+    @Mock
+    private PaymentStatusServiceImplementation paymentStatusService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        deadLetterService = new DeadLetterServiceImplementation(deadLetterPaymentRepository, outbox, paymentStatusService);
+    }
+
+    private DeadLetterPayment deadLetter(PaymentEvent event) {
+        return new DeadLetterPayment(event.paymentId(), event.senderId(), event.receiverId(), event.amountMinor(), event.timestamp(), event.idempotencyKey(), "Insufficient balance", LocalDateTime.now());
+    }
+
+    @Test
+    void record_SavesDeadLetterAndMarksRejected() {
+        // Arrange
+        PaymentEvent event = PaymentEvent.of(1L, 2L, BigDecimal.TEN, UUID.randomUUID());
+
+        // Act
+        deadLetterService.record(event, "Insufficient balance");
+
+        // Assert
+        verify(deadLetterPaymentRepository, times(1)).save(argThat((DeadLetterPayment deadLetter) -> deadLetter.getPaymentId().equals(event.paymentId())
+                && deadLetter.getAmountMinor() == 1000L && deadLetter.getReason().equals("Insufficient balance")));
+        verify(paymentStatusService, times(1)).rejected(event, "Insufficient balance");
+    }
+
+    @Test
+    void readDeadLettersForAdmin_ReturnsOldestFirstPage() {
+        // Arrange
+        PaymentEvent event = PaymentEvent.of(1L, 2L, BigDecimal.TEN, UUID.randomUUID());
+        when(deadLetterPaymentRepository.findAllByOrderByFailedAtAsc(any(Pageable.class))).thenReturn(List.of(deadLetter(event)));
+
+        // Act
+        GenericResponse<List<DeadLetterResponse>> response = deadLetterService.readDeadLettersForAdmin(10);
+
+        // Assert
+        assertEquals(1, response.getData().size());
+        assertEquals(event.paymentId(), response.getData().getFirst().paymentId());
+        assertEquals(0, BigDecimal.TEN.compareTo(response.getData().getFirst().amount()));
+        verify(deadLetterPaymentRepository).findAllByOrderByFailedAtAsc(argThat(pageable -> pageable.getPageSize() == 10));
+    }
+
+    @Test
+    void replayDeadLettersForAdmin_ReenqueuesSameEventAndDeletes() {
+        // Arrange
+        PaymentEvent event = PaymentEvent.of(1L, 2L, BigDecimal.TEN, UUID.randomUUID());
+        List<DeadLetterPayment> deadLetters = List.of(deadLetter(event));
+        when(deadLetterPaymentRepository.findAllById(List.of(event.paymentId()))).thenReturn(deadLetters);
+
+        // Act
+        GenericResponse<String> response = deadLetterService.replayDeadLettersForAdmin(new DeadLetterReplayRequest(List.of(event.paymentId())), 100);
+
+        // Assert
+        assertEquals("1 dead-lettered payments replayed", response.getData());
+        verify(outbox, times(1)).send("payment_process", "1", event);
+        verify(paymentStatusService, times(1)).pending(event);
+        verify(deadLetterPaymentRepository, times(1)).deleteAllInBatch(deadLetters);
+    }
+
+    @Test
+    void replayDeadLettersForAdmin_NoIds_ReplaysOldest() {
+        // Arrange
+        when(deadLetterPaymentRepository.findAllByOrderByFailedAtAsc(any(Pageable.class))).thenReturn(List.of());
+
+        // Act
+        deadLetterService.replayDeadLettersForAdmin(null, 50);
+
+        // Assert
+        verify(deadLetterPaymentRepository).findAllByOrderByFailedAtAsc(argThat(pageable -> pageable.getPageSize() == 50));
+        verify(deadLetterPaymentRepository, never()).findAllById(anyIterable());
+    }
+}
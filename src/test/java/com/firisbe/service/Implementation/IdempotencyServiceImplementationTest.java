@@ -0,0 +1,65 @@
+package com.firisbe.service.Implementation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceImplementationTest {
+    private IdempotencyServiceImplementation idempotencyService;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        idempotencyService = new IdempotencyServiceImplementation(meterRegistry, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void keyFor_SameCustomerAndKey_ReturnsSameKey() {
+        // Act
+        UUID first = idempotencyService.keyFor(1L, "retry-1");
+        UUID second = idempotencyService.keyFor(1L, "retry-1");
+        UUID otherCustomer = idempotencyService.keyFor(2L, "retry-1");
+
+        // Assert
+        assertEquals(first, second);
+        assertNotEquals(first, otherCustomer);
+        assertNotEquals(idempotencyService.keyFor(1L, null), idempotencyService.keyFor(1L, null));
+    }
+
+    @Test
+    void register_SecondAttempt_ReturnsOriginalPaymentIdAndRecordsHit() {
+        // Arrange
+        UUID key = idempotencyService.keyFor(1L, "retry-1");
+        UUID firstPaymentId = UUID.randomUUID();
+
+        // Act
+        UUID first = idempotencyService.register(key, firstPaymentId);
+        UUID second = idempotencyService.register(key, UUID.randomUUID());
+
+        // Assert
+        assertEquals(firstPaymentId, first);
+        assertEquals(firstPaymentId, second);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "payment.idempotency").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void release_AllowsRetry() {
+        // Arrange
+        UUID key = idempotencyService.keyFor(1L, "retry-1");
+        idempotencyService.register(key, UUID.randomUUID());
+        UUID retryPaymentId = UUID.randomUUID();
+
+        // Act
+        idempotencyService.release(key);
+
+        // Assert
+        assertEquals(retryPaymentId, idempotencyService.register(key, retryPaymentId));
+    }
+}
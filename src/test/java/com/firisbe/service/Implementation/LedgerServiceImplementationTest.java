@@ -0,0 +1,259 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.model.Customer;
+import com.firisbe.model.PaymentEvent;
+import com.firisbe.model.Transfer;
+import com.firisbe.repository.jpa.CustomerRepository;
+import com.firisbe.repository.jpa.TransferRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LedgerServiceImplementationTest {
+    private LedgerServiceImplementation ledgerService;
+
+    @Mock
+    private CustomerRepository customerRepository;
+    @Mock
+    private TransferRepository transferRepository;
+    @Mock
+    private OutboxServiceImplementation outbox;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private PaymentStatusServiceImplementation paymentStatusService;
+    @Mock
+    private TransferAggregateServiceImplementation transferAggregateService;
+    @Mock
+    private RollingVolumeServiceImplementation rollingVolumeService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(customerRepository.findAllBalances()).thenReturn(List.of(balance(1L, 100), balance(2L, 0)));
+        when(customerRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(customerRepository.applyDelta(anyLong(), any())).thenReturn(1);
+        ledgerService = new LedgerServiceImplementation(customerRepository, transferRepository, outbox, new TransactionTemplate(transactionManager), paymentStatusService, transferAggregateService, rollingVolumeService, 2, 100, 1, 100);
+        ledgerService.recover();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        ledgerService.shutdown();
+    }
+
+    private CustomerRepository.AccountBalance balance(long id, long amount) {
+        return new CustomerRepository.AccountBalance() {
+            public Long getId() {
+                return id;
+            }
+
+            public BigDecimal getBalance() {
+                return BigDecimal.valueOf(amount);
+            }
+        };
+    }
+
+    private PaymentEvent event(long senderId, long receiverId, long amount) {
+        return PaymentEvent.of(senderId, receiverId, BigDecimal.valueOf(amount), UUID.randomUUID());
+    }
+
+    @Test
+    void processPaymentMessageFromKafka_SettlesInMemoryAndPersistsBehind() {
+        // Arrange
+        Acknowledgment first = mock(Acknowledgment.class);
+        Acknowledgment second = mock(Acknowledgment.class);
+
+        // Act
+        ledgerService.processPaymentMessageFromKafka(event(1L, 2L, 60), first);
+        ledgerService.processPaymentMessageFromKafka(event(1L, 2L, 60), second);
+
+        // Assert
+        verify(first, timeout(2000)).acknowledge();
+        verify(second, timeout(2000)).acknowledge();
+        verify(outbox, timeout(2000)).send(eq("error_logs"), startsWith("PaymentFailedException:"));
+        verify(paymentStatusService, times(1)).rejected(any(PaymentEvent.class), startsWith("Insufficient balance"));
+        verify(customerRepository, timeout(2000)).applyDelta(1L, new BigDecimal("-60.00"));
+        verify(customerRepository, timeout(2000)).applyDelta(2L, new BigDecimal("60.00"));
+        verify(transferRepository, times(1)).saveAll(argThat((List<Transfer> transfers) -> transfers.size() == 1));
+        verify(outbox, times(1)).send(eq("payment_log"), eq("Payment processed successfully!"));
+    }
+
+    @Test
+    void processPaymentMessageFromKafka_UnknownReceiver_RefundsSender() {
+        // Arrange
+        Acknowledgment rejected = mock(Acknowledgment.class);
+        Acknowledgment settled = mock(Acknowledgment.class);
+
+        // Act
+        ledgerService.processPaymentMessageFromKafka(event(1L, 9L, 100), rejected);
+        verify(rejected, timeout(2000)).acknowledge();
+        ledgerService.processPaymentMessageFromKafka(event(1L, 2L, 100), settled);
+
+        // Assert
+        verify(settled, timeout(2000)).acknowledge();
+        verify(customerRepository, timeout(2000)).applyDelta(1L, new BigDecimal("-100.00"));
+        verify(transferRepository, times(1)).saveAll(anyList());
+        verify(rollingVolumeService, times(1)).recordAll(argThat(events -> events.size() == 1));
+    }
+
+    @Test
+    void processPaymentMessageFromKafka_Redelivered_NotPersistedTwiceAndReverted() {
+        // Arrange
+        PaymentEvent redelivered = event(1L, 2L, 100);
+        when(transferRepository.findExistingIdempotencyKeys(anyCollection())).thenReturn(Set.of(redelivered.idempotencyKey()));
+        Acknowledgment duplicate = mock(Acknowledgment.class);
+        Acknowledgment settled = mock(Acknowledgment.class);
+
+        // Act
+        ledgerService.processPaymentMessageFromKafka(redelivered, duplicate);
+        verify(duplicate, timeout(2000)).acknowledge();
+        when(transferRepository.findExistingIdempotencyKeys(anyCollection())).thenReturn(Set.of());
+        ledgerService.processPaymentMessageFromKafka(event(1L, 2L, 100), settled);
+
+        // Assert
+        verify(settled, timeout(2000)).acknowledge();
+        verify(outbox, times(1)).send(eq("payment_log"), startsWith("Duplicate payment ignored:"));
+        verify(outbox, never()).send(eq("error_logs"), anyString());
+        verify(paymentStatusService, times(1)).settled(List.of(redelivered));
+        verify(customerRepository, times(1)).applyDelta(1L, new BigDecimal("-100.00"));
+    }
+
+    @Test
+    void processPaymentMessageFromKafka_AlreadyPersisted_AcknowledgedWithoutTouchingBalances() {
+        // Arrange
+        PaymentEvent redelivered = event(1L, 2L, 100);
+        when(transferRepository.existsByIdempotencyKey(redelivered.idempotencyKey())).thenReturn(true);
+        Acknowledgment duplicate = mock(Acknowledgment.class);
+        Acknowledgment settled = mock(Acknowledgment.class);
+
+        // Act
+        ledgerService.processPaymentMessageFromKafka(redelivered, duplicate);
+        ledgerService.processPaymentMessageFromKafka(event(1L, 2L, 100), settled);
+
+        // Assert
+        verify(duplicate, times(1)).acknowledge();
+        verify(settled, timeout(2000)).acknowledge();
+        verify(outbox, times(1)).send("payment_log", "Duplicate payment ignored: " + redelivered.idempotencyKey());
+        // Tekrar bakiyeyi düşürseydi ikinci ödeme yetersiz bakiyeden reddedilirdi
+        verify(paymentStatusService, never()).rejected(any(), anyString());
+        verify(paymentStatusService, times(1)).settled(List.of(redelivered));
+        verify(customerRepository, timeout(2000)).applyDelta(1L, new BigDecimal("-100.00"));
+    }
+
+    @Test
+    void processPaymentMessageFromKafka_RedeliveredBeforePersist_IgnoredInShard() {
+        // Arrange
+        PaymentEvent payment = event(1L, 2L, 60);
+        Acknowledgment first = mock(Acknowledgment.class);
+        Acknowledgment redelivered = mock(Acknowledgment.class);
+        // İlk teslim, tekrar shard kuyruğuna girene kadar veritabanına yazılmaz; anahtarı çıkaran görev ondan sonra kuyruğa girer
+        CountDownLatch submitted = new CountDownLatch(1);
+        when(transferRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            submitted.await(2, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+
+        // Act
+        ledgerService.processPaymentMessageFromKafka(payment, first);
+        ledgerService.processPaymentMessageFromKafka(payment, redelivered);
+        submitted.countDown();
+
+        // Assert
+        verify(first, timeout(2000)).acknowledge();
+        verify(redelivered, timeout(2000)).acknowledge();
+        verify(paymentStatusService, never()).rejected(any(), anyString());
+        verify(transferRepository, times(1)).saveAll(argThat((List<Transfer> transfers) -> transfers.size() == 1));
+        verify(customerRepository, times(1)).applyDelta(1L, new BigDecimal("-60.00"));
+    }
+
+    @Test
+    void processPaymentMessageFromKafka_StaleBalance_ReloadedFromDatabaseBeforeRejecting() {
+        // Arrange
+        // Hesap 2'ye başka bir instance 50 yatırmış; bellekte hâlâ 0 görünüyor
+        Customer credited = new Customer();
+        credited.setId(2L);
+        credited.setBalance(BigDecimal.valueOf(50));
+        when(customerRepository.findById(2L)).thenReturn(Optional.of(credited));
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        // Act
+        ledgerService.processPaymentMessageFromKafka(event(2L, 1L, 50), acknowledgment);
+
+        // Assert
+        verify(acknowledgment, timeout(2000)).acknowledge();
+        verify(paymentStatusService, never()).rejected(any(), anyString());
+        verify(customerRepository, timeout(2000)).applyDelta(2L, new BigDecimal("-50.00"));
+    }
+
+    @Test
+    void processPaymentMessageFromKafka_DatabaseBalanceTooLow_RejectedAndRevertedInMemory() {
+        // Arrange
+        // Bellekteki 100 eski; veritabanında başka bir instance bakiyeyi düşürmüş
+        when(customerRepository.applyDelta(1L, new BigDecimal("-60.00"))).thenReturn(0);
+        Acknowledgment rejected = mock(Acknowledgment.class);
+        Acknowledgment settled = mock(Acknowledgment.class);
+
+        // Act
+        ledgerService.processPaymentMessageFromKafka(event(1L, 2L, 60), rejected);
+        verify(rejected, timeout(2000)).acknowledge();
+        ledgerService.processPaymentMessageFromKafka(event(1L, 2L, 100), settled);
+
+        // Assert
+        verify(settled, timeout(2000)).acknowledge();
+        verify(paymentStatusService, times(1)).rejected(any(PaymentEvent.class), startsWith("Insufficient balance"));
+        // Geri alınmasaydı ikinci ödeme bellekte yetersiz bakiyeden reddedilirdi
+        verify(customerRepository, timeout(2000)).applyDelta(1L, new BigDecimal("-100.00"));
+        verify(outbox, times(1)).send(eq("payment_log"), eq("Payment processed successfully!"));
+    }
+
+    @Test
+    void processPaymentMessageFromKafka_ShardRejectsTask_ReleasesPermit() throws InterruptedException {
+        // Arrange
+        LedgerServiceImplementation single = new LedgerServiceImplementation(customerRepository, transferRepository, outbox, new TransactionTemplate(transactionManager), paymentStatusService, transferAggregateService, rollingVolumeService, 1, 100, 1, 1);
+        single.recover();
+        single.shutdown();
+
+        // Act & Assert
+        assertThrows(RejectedExecutionException.class, () -> single.processPaymentMessageFromKafka(event(1L, 2L, 10), mock(Acknowledgment.class)));
+        // İzin geri verilmeseydi ikinci çağrı kapasite beklerken takılırdı
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () ->
+                assertThrows(RejectedExecutionException.class, () -> single.processPaymentMessageFromKafka(event(1L, 2L, 10), mock(Acknowledgment.class))));
+    }
+
+    @Test
+    void balance_LoadsAccountsAddedAfterStartup() {
+        // Arrange
+        Customer late = new Customer();
+        late.setId(3L);
+        late.setBalance(BigDecimal.valueOf(50));
+        when(customerRepository.findById(3L)).thenReturn(Optional.of(late));
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        // Act
+        ledgerService.processPaymentMessageFromKafka(event(3L, 2L, 50), acknowledgment);
+
+        // Assert
+        verify(acknowledgment, timeout(2000)).acknowledge();
+        verify(customerRepository, timeout(2000)).applyDelta(3L, new BigDecimal("-50.00"));
+    }
+}
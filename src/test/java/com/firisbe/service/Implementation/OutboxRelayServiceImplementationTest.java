@@ -0,0 +1,95 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.model.OutboxMessage;
+import com.firisbe.repository.jpa.OutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayServiceImplementationTest {
+    private OutboxRelayServiceImplementation relayService;
+    private MeterRegistry meterRegistry;
+
+    @Mock
+    private OutboxRepository outboxRepository;
+    @Mock
+    private KafkaTemplate<String, byte[]> outboxKafkaTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        relayService = new OutboxRelayServiceImplementation(outboxRepository, outboxKafkaTemplate, transactionManager, meterRegistry, 50, 2, 1000);
+    }
+
+    private OutboxMessage message(long id, String topic, String key) {
+        return new OutboxMessage(id, topic, key, ("message-" + id).getBytes(StandardCharsets.UTF_8), LocalDateTime.now());
+    }
+
+    @Test
+    void drain_SendsBatchesAndDeletesRelayedRows() {
+        // Arrange
+        List<OutboxMessage> first = List.of(message(1L, "payment_process", "1"), message(2L, "payment_log", null));
+        List<OutboxMessage> second = List.of(message(3L, "error_logs", null));
+        when(outboxRepository.findAllByOrderByIdAsc(any(Pageable.class))).thenReturn(first, second);
+        when(outboxKafkaTemplate.send(anyString(), any(), any(byte[].class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        // Act
+        relayService.drain();
+
+        // Assert
+        verify(outboxKafkaTemplate, times(1)).send(eq("payment_process"), eq("1"), any(byte[].class));
+        verify(outboxKafkaTemplate, times(3)).send(anyString(), any(), any(byte[].class));
+        verify(outboxRepository, times(1)).deleteAllInBatch(first);
+        verify(outboxRepository, times(1)).deleteAllInBatch(second);
+        assertEquals(3.0, meterRegistry.get("outbox.relayed").counter().count());
+        assertEquals(0.0, meterRegistry.get("outbox.lag").gauge().value());
+    }
+
+    @Test
+    void relay_SendFailure_KeepsRows() {
+        // Arrange
+        List<OutboxMessage> batch = List.of(message(1L, "payment_log", null));
+        when(outboxRepository.findAllByOrderByIdAsc(any(Pageable.class))).thenReturn(batch);
+        when(outboxKafkaTemplate.send(anyString(), any(), any(byte[].class))).thenReturn(CompletableFuture.failedFuture(new RuntimeException("Broker unavailable")));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> relayService.relay());
+        verify(outboxRepository, never()).deleteAllInBatch(anyIterable());
+        verify(transactionManager, times(1)).rollback(any());
+        assertEquals(0.0, meterRegistry.get("outbox.relayed").counter().count());
+    }
+
+    @Test
+    void start_FailedRound_CountedAndRelayKeepsRunning() throws InterruptedException {
+        // Arrange
+        when(outboxRepository.findAllByOrderByIdAsc(any(Pageable.class)))
+                .thenThrow(new RuntimeException("Database unavailable"))
+                .thenReturn(List.of());
+
+        // Act
+        relayService.start();
+        verify(outboxRepository, timeout(2000).atLeast(2)).findAllByOrderByIdAsc(any(Pageable.class));
+        relayService.shutdown();
+
+        // Assert
+        assertEquals(1.0, meterRegistry.get("outbox.relay.failures").counter().count());
+    }
+}
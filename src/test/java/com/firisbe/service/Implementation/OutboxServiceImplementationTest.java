@@ -0,0 +1,93 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.model.OutboxMessage;
+import com.firisbe.model.PaymentEvent;
+import com.firisbe.repository.jpa.OutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxServiceImplementationTest {
+    private OutboxServiceImplementation outboxService;
+
+    @Mock
+    private OutboxRepository outboxRepository;
+    @Mock
+    private KafkaTemplate<String, byte[]> outboxKafkaTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        outboxService = new OutboxServiceImplementation(outboxRepository, outboxKafkaTemplate, transactionManager);
+    }
+
+    @Test
+    void send_WritesMessageToOutbox() {
+        // Act
+        outboxService.send("payment_log", "Payment processed successfully!");
+
+        // Assert
+        verify(outboxRepository, times(1)).save(argThat((OutboxMessage message) -> message.getTopic().equals("payment_log")
+                && Arrays.equals(message.getPayload(), "Payment processed successfully!".getBytes(StandardCharsets.UTF_8))));
+        verify(outboxKafkaTemplate, never()).send(anyString(), any(byte[].class));
+    }
+
+    @Test
+    void send_PaymentEvent_WritesKeyedBinaryPayload() {
+        // Arrange
+        PaymentEvent event = PaymentEvent.of(1L, 2L, BigDecimal.TEN, UUID.randomUUID());
+
+        // Act
+        outboxService.send("payment_process", "1", event);
+
+        // Assert
+        verify(outboxRepository, times(1)).save(argThat((OutboxMessage message) -> message.getTopic().equals("payment_process")
+                && message.getMessageKey().equals("1") && message.getPayload().length == 65));
+    }
+
+    @Test
+    void send_ErrorInsideTransaction_WrittenAfterCompletion() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            outboxService.send("error_logs", "RuntimeException: Simulated exception");
+            verify(outboxRepository, never()).save(any(OutboxMessage.class));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        verify(outboxRepository, times(1)).save(argThat((OutboxMessage message) -> message.getTopic().equals("error_logs")));
+    }
+
+    @Test
+    void send_ErrorWhenDatabaseUnavailable_SentDirectlyToKafka() {
+        // Arrange
+        when(outboxRepository.save(any(OutboxMessage.class))).thenThrow(new RuntimeException("Database unavailable"));
+
+        // Act
+        outboxService.send("error_logs", "RuntimeException: Simulated exception");
+
+        // Assert
+        verify(outboxKafkaTemplate, times(1)).send(eq("error_logs"), any(byte[].class));
+    }
+}
@@ -0,0 +1,238 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.error.PaymentFailedException;
+import com.firisbe.model.Customer;
+import com.firisbe.model.PaymentEvent;
+import com.firisbe.model.Transfer;
+import com.firisbe.repository.jpa.CustomerRepository;
+import com.firisbe.repository.jpa.TransferRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PaymentBatchServiceImplementationTest {
+    private PaymentBatchServiceImplementation batchService;
+
+    @Mock
+    private TransferRepository transferRepository;
+    @Mock
+    private CustomerServiceImplementation customerService;
+    @Mock
+    private TransferServiceImplementation transferService;
+    @Mock
+    private OutboxServiceImplementation outbox;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private PaymentStatusServiceImplementation paymentStatusService;
+    @Mock
+    private TransferAggregateServiceImplementation transferAggregateService;
+    @Mock
+    private RollingVolumeServiceImplementation rollingVolumeService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        batchService = new PaymentBatchServiceImplementation(transferRepository, customerService, transferService, outbox, new TransactionTemplate(transactionManager), paymentStatusService, transferAggregateService, rollingVolumeService, "batch");
+    }
+
+    private PaymentEvent event(long senderId, long receiverId, long amount) {
+        return PaymentEvent.of(senderId, receiverId, BigDecimal.valueOf(amount), UUID.randomUUID());
+    }
+
+    private Customer customer(long id, long balance) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setBalance(BigDecimal.valueOf(balance));
+        return customer;
+    }
+
+    private PaymentBatchServiceImplementation nettingService() {
+        return new PaymentBatchServiceImplementation(transferRepository, customerService, transferService, outbox, new TransactionTemplate(transactionManager), paymentStatusService, transferAggregateService, rollingVolumeService, "netting");
+    }
+
+    private CustomerRepository.AccountBalance balance(long id, long balance) {
+        return new CustomerRepository.AccountBalance() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public BigDecimal getBalance() {
+                return BigDecimal.valueOf(balance);
+            }
+        };
+    }
+
+    @Test
+    void processPaymentBatchFromKafka_AppliesTransfersInOrderWithSingleLoad() {
+        // Arrange
+        Customer first = customer(1L, 200);
+        Customer second = customer(2L, 0);
+        when(customerService.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(first, second));
+
+        // Act
+        batchService.processPaymentBatchFromKafka(List.of(event(1L, 2L, 150), event(2L, 1L, 100)));
+
+        // Assert
+        assertEquals(0, BigDecimal.valueOf(150).compareTo(first.getBalance()));
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(second.getBalance()));
+        verify(customerService, times(1)).findAllByIdForUpdate(anyCollection());
+        verify(customerService, times(1)).saveAllCustomers(anyCollection());
+        verify(transferRepository, times(1)).saveAll(argThat((List<Transfer> transfers) -> transfers.size() == 2));
+        verify(transferAggregateService, times(1)).recordAll(argThat(transfers -> transfers.size() == 2));
+        verify(transactionManager, times(1)).commit(any());
+        verify(outbox, times(2)).send(eq("payment_log"), eq("Payment processed successfully!"));
+    }
+
+    @Test
+    void processPaymentBatchFromKafka_RejectsOnlyFailingRecord() {
+        // Arrange
+        Customer sender = customer(1L, 100);
+        Customer receiver = customer(2L, 0);
+        when(customerService.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(sender, receiver));
+
+        // Act
+        List<PaymentEvent> events = new ArrayList<>(List.of(event(1L, 2L, 500), event(1L, 2L, 40), event(1L, 3L, 10)));
+        events.add(null);
+        batchService.processPaymentBatchFromKafka(events);
+
+        // Assert
+        assertEquals(0, BigDecimal.valueOf(60).compareTo(sender.getBalance()));
+        assertEquals(0, BigDecimal.valueOf(40).compareTo(receiver.getBalance()));
+        verify(transferRepository, times(1)).saveAll(argThat((List<Transfer> transfers) -> transfers.size() == 1));
+        verify(outbox, times(1)).send(eq("payment_log"), eq("Payment processed successfully!"));
+        verify(outbox, times(3)).send(eq("error_logs"), startsWith("PaymentFailedException:"));
+        verify(paymentStatusService, times(2)).rejected(any(PaymentEvent.class), anyString());
+        verify(paymentStatusService, times(1)).settled(argThat(settled -> settled.size() == 1));
+    }
+
+    @Test
+    void processPaymentBatchFromKafka_SkipsAlreadyProcessedAndRepeatedRecords() {
+        // Arrange
+        Customer sender = customer(1L, 100);
+        Customer receiver = customer(2L, 0);
+        PaymentEvent processed = event(1L, 2L, 10);
+        PaymentEvent fresh = event(1L, 2L, 20);
+        when(customerService.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(sender, receiver));
+        when(transferRepository.findExistingIdempotencyKeys(anyCollection())).thenReturn(Set.of(processed.idempotencyKey()));
+
+        // Act
+        batchService.processPaymentBatchFromKafka(List.of(processed, fresh, fresh));
+
+        // Assert
+        assertEquals(0, BigDecimal.valueOf(80).compareTo(sender.getBalance()));
+        verify(transferRepository, times(1)).saveAll(argThat((List<Transfer> transfers) -> transfers.size() == 1));
+        verify(outbox, times(2)).send(eq("payment_log"), startsWith("Duplicate payment ignored:"));
+        verify(paymentStatusService, times(1)).settled(List.of(fresh));
+        verify(paymentStatusService, times(1)).settled(List.of(processed, fresh));
+    }
+
+    @Test
+    void processPaymentBatchFromKafka_DatabaseFailure_FallsBackToSingleProcessing() {
+        // Arrange
+        PaymentEvent bad = event(1L, 2L, 10);
+        PaymentEvent good = event(3L, 4L, 20);
+        when(customerService.findAllByIdForUpdate(anyCollection())).thenThrow(new RuntimeException("Simulated exception"));
+        doThrow(new PaymentFailedException(new PaymentFailedException("Insufficient balance"))).when(transferService).processPaymentMessageFromKafka(bad);
+
+        // Act
+        batchService.processPaymentBatchFromKafka(List.of(bad, good));
+
+        // Assert
+        verify(transferRepository, never()).saveAll(anyList());
+        verify(transferService, times(1)).processPaymentMessageFromKafka(bad);
+        verify(transferService, times(1)).processPaymentMessageFromKafka(good);
+        verify(outbox, times(1)).send(eq("error_logs"), startsWith("RuntimeException:"));
+    }
+
+    @Test
+    void processPaymentBatchFromKafka_TransientFailureInFallback_HandsRecordToErrorHandler() {
+        // Arrange
+        PaymentEvent first = event(1L, 2L, 10);
+        PaymentEvent failing = event(3L, 4L, 20);
+        PaymentEvent last = event(5L, 6L, 30);
+        when(customerService.findAllByIdForUpdate(anyCollection())).thenThrow(new RuntimeException("Simulated exception"));
+        doThrow(new RuntimeException(new RuntimeException("Connection reset"))).when(transferService).processPaymentMessageFromKafka(failing);
+        List<PaymentEvent> events = new ArrayList<>();
+        events.add(null);
+        events.addAll(List.of(first, failing, last));
+
+        // Act
+        BatchListenerFailedException e = assertThrows(BatchListenerFailedException.class, () -> batchService.processPaymentBatchFromKafka(events));
+
+        // Assert
+        assertEquals(2, e.getIndex());
+        verify(transferService, times(1)).processPaymentMessageFromKafka(first);
+        verify(transferService, never()).processPaymentMessageFromKafka(last);
+    }
+
+    @Test
+    void processPaymentBatchFromKafka_Netting_CollapsesPairIntoSingleUpdatePerAccount() {
+        // Arrange
+        batchService = nettingService();
+        when(customerService.findBalancesForUpdate(anyCollection())).thenReturn(List.of(balance(1L, 100), balance(2L, 0)));
+
+        // Act
+        batchService.processPaymentBatchFromKafka(List.of(event(1L, 2L, 30), event(1L, 2L, 30), event(2L, 1L, 10)));
+
+        // Assert
+        verify(customerService, times(1)).applyDelta(1L, new BigDecimal("-50.00"));
+        verify(customerService, times(1)).applyDelta(2L, new BigDecimal("50.00"));
+        verify(customerService, never()).findAllByIdForUpdate(anyCollection());
+        verify(customerService, never()).saveAllCustomers(anyCollection());
+        verify(transferRepository, times(1)).saveAll(argThat((List<Transfer> transfers) -> transfers.size() == 3));
+        verify(outbox, times(3)).send(eq("payment_log"), eq("Payment processed successfully!"));
+    }
+
+    @Test
+    void processPaymentBatchFromKafka_Netting_ChecksFundsPerPaymentInArrivalOrder() {
+        // Arrange
+        batchService = nettingService();
+        PaymentEvent first = event(1L, 2L, 60);
+        PaymentEvent overdraft = event(1L, 2L, 60);
+        PaymentEvent afterRefill = event(2L, 1L, 20);
+        PaymentEvent last = event(1L, 2L, 60);
+        when(customerService.findBalancesForUpdate(anyCollection())).thenReturn(List.of(balance(1L, 100), balance(2L, 0)));
+
+        // Act
+        batchService.processPaymentBatchFromKafka(List.of(first, overdraft, afterRefill, last));
+
+        // Assert
+        verify(paymentStatusService, times(1)).rejected(eq(overdraft), startsWith("Insufficient balance"));
+        verify(paymentStatusService, times(1)).settled(List.of(first, afterRefill, last));
+        verify(rollingVolumeService, times(1)).recordAll(List.of(first, afterRefill, last));
+        verify(customerService, times(1)).applyDelta(1L, new BigDecimal("-100.00"));
+        verify(customerService, times(1)).applyDelta(2L, new BigDecimal("100.00"));
+    }
+
+    @Test
+    void processPaymentBatchFromKafka_Netting_OppositePaymentsCancelOut() {
+        // Arrange
+        batchService = nettingService();
+        when(customerService.findBalancesForUpdate(anyCollection())).thenReturn(List.of(balance(1L, 100), balance(2L, 100)));
+
+        // Act
+        batchService.processPaymentBatchFromKafka(List.of(event(1L, 2L, 40), event(2L, 1L, 40)));
+
+        // Assert
+        verify(customerService, never()).applyDelta(anyLong(), any());
+        verify(transferRepository, times(1)).saveAll(argThat((List<Transfer> transfers) -> transfers.size() == 2));
+    }
+}
@@ -0,0 +1,166 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.error.TransferNotFoundException;
+import com.firisbe.model.Enum.PaymentStatus;
+import com.firisbe.model.PaymentEvent;
+import com.firisbe.model.PaymentState;
+import com.firisbe.repository.jpa.PaymentStateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PaymentStatusServiceImplementationTest {
+    private PaymentStatusServiceImplementation paymentStatusService;
+
+    @Mock
+    private PaymentStateRepository paymentStateRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        paymentStatusService = new PaymentStatusServiceImplementation(paymentStateRepository, transactionManager, new SimpleMeterRegistry(), 100, Duration.ofMinutes(5),
+                Duration.ofHours(1), Duration.ofDays(7), 2);
+    }
+
+    private PaymentEvent event() {
+        return PaymentEvent.of(1L, 2L, BigDecimal.TEN, UUID.randomUUID());
+    }
+
+    @Test
+    void pending_SavesPendingState() {
+        // Arrange
+        PaymentEvent event = event();
+
+        // Act
+        paymentStatusService.pending(event);
+
+        // Assert
+        verify(paymentStateRepository, times(1)).save(argThat((PaymentState state) -> state.getPaymentId().equals(event.paymentId())
+                && state.getSenderId() == 1L && state.getStatus() == PaymentStatus.PENDING));
+    }
+
+    @Test
+    void find_SettledPayment_AnsweredFromCacheWithoutQuery() {
+        // Arrange
+        PaymentEvent event = event();
+
+        // Act
+        paymentStatusService.settled(List.of(event));
+        PaymentState state = paymentStatusService.find(event.paymentId());
+
+        // Assert
+        assertEquals(PaymentStatus.SETTLED, state.getStatus());
+        verify(paymentStateRepository, times(1)).updateStatus(eq(List.of(event.paymentId())), eq(PaymentStatus.SETTLED), isNull(), any(LocalDateTime.class));
+        verify(paymentStateRepository, never()).findById(any(UUID.class));
+    }
+
+    @Test
+    void find_PendingPayment_ReadFromRepositoryEachTime() {
+        // Arrange
+        UUID paymentId = UUID.randomUUID();
+        when(paymentStateRepository.findById(paymentId)).thenReturn(Optional.of(new PaymentState(paymentId, 1L, PaymentStatus.PENDING, null, LocalDateTime.now())));
+
+        // Act
+        paymentStatusService.find(paymentId);
+        PaymentState state = paymentStatusService.find(paymentId);
+
+        // Assert
+        assertEquals(PaymentStatus.PENDING, state.getStatus());
+        verify(paymentStateRepository, times(2)).findById(paymentId);
+    }
+
+    @Test
+    void find_UnknownPayment_ThrowsTransferNotFoundException() {
+        // Arrange
+        when(paymentStateRepository.findById(any(UUID.class))).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(TransferNotFoundException.class, () -> paymentStatusService.find(UUID.randomUUID()));
+    }
+
+    @Test
+    void rejected_InsideTransaction_WrittenAfterRollback() {
+        // Arrange
+        PaymentEvent event = event();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            paymentStatusService.rejected(event, "Insufficient balance");
+            verify(paymentStateRepository, never()).updateStatus(anyCollection(), any(), any(), any());
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        verify(paymentStateRepository, times(1)).updateStatus(eq(List.of(event.paymentId())), eq(PaymentStatus.REJECTED), eq("Insufficient balance"), any(LocalDateTime.class));
+    }
+
+    @Test
+    void find_RejectedPaymentReplayed_PendingReadFromRepository() {
+        // Arrange
+        PaymentEvent event = event();
+        when(paymentStateRepository.findById(event.paymentId()))
+                .thenReturn(Optional.of(new PaymentState(event.paymentId(), 1L, PaymentStatus.REJECTED, "Insufficient balance", LocalDateTime.now())))
+                .thenReturn(Optional.of(new PaymentState(event.paymentId(), 1L, PaymentStatus.PENDING, null, LocalDateTime.now())));
+        paymentStatusService.rejected(event, "Insufficient balance");
+
+        // Act
+        PaymentState rejected = paymentStatusService.find(event.paymentId());
+        paymentStatusService.pending(event);
+        PaymentState replayed = paymentStatusService.find(event.paymentId());
+
+        // Assert
+        assertEquals(PaymentStatus.REJECTED, rejected.getStatus());
+        assertEquals(PaymentStatus.PENDING, replayed.getStatus());
+        verify(paymentStateRepository, times(2)).findById(event.paymentId());
+    }
+
+    @Test
+    void countPending_OnlyRecentPendingCounted() {
+        // Arrange
+        when(paymentStateRepository.countByStatusAndUpdatedAtAfter(eq(PaymentStatus.PENDING), any(LocalDateTime.class))).thenReturn(3L);
+        LocalDateTime oldestCounted = LocalDateTime.now().minusHours(1);
+
+        // Act
+        long pending = paymentStatusService.countPending();
+
+        // Assert
+        assertEquals(3L, pending);
+        verify(paymentStateRepository, times(1)).countByStatusAndUpdatedAtAfter(eq(PaymentStatus.PENDING),
+                argThat(updatedAfter -> !updatedAfter.isBefore(oldestCounted)));
+    }
+
+    @Test
+    void purgeCompleted_DeletesInBatchesUntilExhausted() {
+        // Arrange
+        when(paymentStateRepository.deleteCompletedBefore(any(LocalDateTime.class), eq(2))).thenReturn(2, 2, 1);
+        LocalDateTime newestDeleted = LocalDateTime.now().minusDays(7);
+
+        // Act
+        paymentStatusService.purgeCompleted();
+
+        // Assert
+        verify(paymentStateRepository, times(3)).deleteCompletedBefore(argThat(before -> !before.isBefore(newestDeleted)), eq(2));
+    }
+}
@@ -0,0 +1,91 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.model.DTO.response.RollingVolumeResponse;
+import com.firisbe.model.DTO.response.RollingWindowVolume;
+import com.firisbe.model.PaymentEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollingVolumeServiceImplementationTest {
+    private static final long MINUTE = 60_000;
+
+    private final AtomicLong now = new AtomicLong(10_000 * MINUTE);
+    private RollingVolumeServiceImplementation rollingVolumeService;
+
+    @BeforeEach
+    void setUp() {
+        rollingVolumeService = new RollingVolumeServiceImplementation(new SimpleMeterRegistry(), now::get);
+    }
+
+    private PaymentEvent event(long senderId, long receiverId, String amount) {
+        return PaymentEvent.of(senderId, receiverId, new BigDecimal(amount), UUID.randomUUID());
+    }
+
+    @Test
+    void recordAll_CountsSentAndReceivedPerWindow() {
+        // Arrange
+        rollingVolumeService.recordAll(List.of(event(1L, 2L, "10.50")));
+        now.addAndGet(30 * MINUTE);
+        rollingVolumeService.recordAll(List.of(event(1L, 2L, "4.50"), event(2L, 1L, "1.00")));
+
+        // Act
+        RollingVolumeResponse response = rollingVolumeService.readRollingVolumeForAdmin(1L).getData();
+
+        // Assert
+        assertEquals(new RollingWindowVolume(1, new BigDecimal("4.50"), 1, new BigDecimal("1.00")), response.lastFiveMinutes());
+        assertEquals(new RollingWindowVolume(2, new BigDecimal("15.00"), 1, new BigDecimal("1.00")), response.lastHour());
+        assertEquals(response.lastHour(), response.lastDay());
+    }
+
+    @Test
+    void readRollingVolumeForAdmin_OldTransfersExpireLazily() {
+        // Arrange
+        rollingVolumeService.recordAll(List.of(event(1L, 2L, "10.00")));
+
+        // Act
+        now.addAndGet(2 * 60 * MINUTE);
+        RollingVolumeResponse response = rollingVolumeService.readRollingVolumeForAdmin(1L).getData();
+
+        // Assert
+        assertEquals(0, response.lastFiveMinutes().sentCount());
+        assertEquals(0, response.lastHour().sentCount());
+        assertEquals(1, response.lastDay().sentCount());
+    }
+
+    @Test
+    void evictIdle_DropsCustomersIdleForADayAndRecreatesOnNextPayment() {
+        // Arrange
+        rollingVolumeService.recordAll(List.of(event(1L, 2L, "10.00")));
+        now.addAndGet(12 * 60 * MINUTE);
+        rollingVolumeService.recordAll(List.of(event(3L, 4L, "10.00")));
+        now.addAndGet(13 * 60 * MINUTE);
+
+        // Act
+        rollingVolumeService.evictIdle();
+
+        // Assert
+        assertEquals(2, rollingVolumeService.trackedCustomers());
+        assertEquals(1, rollingVolumeService.readRollingVolumeForAdmin(3L).getData().lastDay().sentCount());
+        assertEquals(0, rollingVolumeService.readRollingVolumeForAdmin(1L).getData().lastDay().sentCount());
+
+        rollingVolumeService.recordAll(List.of(event(1L, 2L, "5.00")));
+        assertEquals(1, rollingVolumeService.readRollingVolumeForAdmin(1L).getData().lastFiveMinutes().sentCount());
+    }
+
+    @Test
+    void readRollingVolumeForAdmin_UnknownCustomer_ReturnsZeros() {
+        // Act
+        RollingVolumeResponse response = rollingVolumeService.readRollingVolumeForAdmin(99L).getData();
+
+        // Assert
+        assertEquals(new RollingWindowVolume(0, new BigDecimal("0.00"), 0, new BigDecimal("0.00")), response.lastDay());
+    }
+}
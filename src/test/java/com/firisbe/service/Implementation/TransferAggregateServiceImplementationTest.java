@@ -0,0 +1,184 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.aspect.statistics.QuantileSketch;
+import com.firisbe.model.Customer;
+import com.firisbe.model.Transfer;
+import com.firisbe.repository.jpa.MonthlyAmountBucketRepository;
+import com.firisbe.repository.jpa.MonthlyTransferAggregateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.and;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TransferAggregateServiceImplementationTest {
+    private TransferAggregateServiceImplementation aggregateService;
+
+    @Mock
+    private MonthlyTransferAggregateRepository repo;
+    @Mock
+    private MonthlyAmountBucketRepository bucketRepo;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private OutboxServiceImplementation outbox;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        aggregateService = new TransferAggregateServiceImplementation(repo, bucketRepo, jdbcTemplate, transactionManager, outbox);
+    }
+
+    private Transfer transfer(long senderId, long receiverId, long amount, LocalDateTime timestamp) {
+        return Transfer.builder()
+                .sender(Customer.builder().id(senderId).build())
+                .receiver(Customer.builder().id(receiverId).build())
+                .amount(BigDecimal.valueOf(amount))
+                .timestamp(timestamp)
+                .build();
+    }
+
+    @Test
+    void record_UpsertsSenderAndReceiverRowsForTransferMonth() {
+        // Act
+        aggregateService.record(transfer(1L, 2L, 100, LocalDateTime.of(2024, 3, 15, 10, 0)));
+
+        // Assert
+        LocalDate march = LocalDate.of(2024, 3, 1);
+        BigDecimal amount = BigDecimal.valueOf(100);
+        verify(repo).upsert(1L, march, "SENT", 1L, amount, amount, amount);
+        verify(repo).upsert(2L, march, "RECEIVED", 1L, amount, amount, amount);
+        verifyNoMoreInteractions(repo);
+    }
+
+    @Test
+    void recordAll_MergesBatchIntoOneUpsertPerRowInKeyOrder() {
+        // Arrange
+        LocalDateTime march = LocalDateTime.of(2024, 3, 15, 10, 0);
+        List<Transfer> transfers = List.of(
+                transfer(5L, 2L, 30, march),
+                transfer(5L, 2L, 10, march),
+                transfer(5L, 2L, 20, march.plusMonths(1)));
+
+        // Act
+        aggregateService.recordAll(transfers);
+
+        // Assert
+        InOrder inOrder = inOrder(repo);
+        inOrder.verify(repo).upsert(2L, LocalDate.of(2024, 3, 1), "RECEIVED", 2L, BigDecimal.valueOf(40), BigDecimal.valueOf(10), BigDecimal.valueOf(30));
+        inOrder.verify(repo).upsert(2L, LocalDate.of(2024, 4, 1), "RECEIVED", 1L, BigDecimal.valueOf(20), BigDecimal.valueOf(20), BigDecimal.valueOf(20));
+        inOrder.verify(repo).upsert(5L, LocalDate.of(2024, 3, 1), "SENT", 2L, BigDecimal.valueOf(40), BigDecimal.valueOf(10), BigDecimal.valueOf(30));
+        inOrder.verify(repo).upsert(5L, LocalDate.of(2024, 4, 1), "SENT", 1L, BigDecimal.valueOf(20), BigDecimal.valueOf(20), BigDecimal.valueOf(20));
+        verify(repo, times(4)).upsert(anyLong(), any(), anyString(), anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void recordAll_CountsAmountBucketsPerCustomerMonthAndDirection() {
+        // Arrange
+        LocalDateTime march = LocalDateTime.of(2024, 3, 15, 10, 0);
+        List<Transfer> transfers = List.of(
+                transfer(5L, 2L, 100, march),
+                transfer(5L, 2L, 100, march),
+                transfer(5L, 2L, 5000, march));
+        int small = QuantileSketch.bucketOf(BigDecimal.valueOf(100));
+        int large = QuantileSketch.bucketOf(BigDecimal.valueOf(5000));
+
+        // Act
+        aggregateService.recordAll(transfers);
+
+        // Assert
+        LocalDate monthStart = LocalDate.of(2024, 3, 1);
+        InOrder inOrder = inOrder(bucketRepo);
+        inOrder.verify(bucketRepo).upsert(2L, monthStart, "RECEIVED", small, 2L);
+        inOrder.verify(bucketRepo).upsert(2L, monthStart, "RECEIVED", large, 1L);
+        inOrder.verify(bucketRepo).upsert(5L, monthStart, "SENT", small, 2L);
+        inOrder.verify(bucketRepo).upsert(5L, monthStart, "SENT", large, 1L);
+        verifyNoMoreInteractions(bucketRepo);
+    }
+
+    @Test
+    void backfill_RebuildsAggregatesAndBucketsFromTransfersUnderLock() {
+        // Arrange
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("PostgreSQL");
+        when(jdbcTemplate.queryForObject("select count(*) from monthly_aggregate_backfill", Integer.class)).thenReturn(0);
+
+        // Act
+        aggregateService.backfill();
+
+        // Assert
+        InOrder inOrder = inOrder(jdbcTemplate, transactionManager);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(jdbcTemplate).execute("lock table monthly_transfer_aggregate, monthly_amount_bucket in exclusive mode");
+        inOrder.verify(jdbcTemplate).execute("delete from monthly_transfer_aggregate");
+        inOrder.verify(jdbcTemplate).execute("delete from monthly_amount_bucket");
+        inOrder.verify(jdbcTemplate).update(and(startsWith("insert into monthly_transfer_aggregate"), contains("group by")));
+        inOrder.verify(jdbcTemplate).update(and(startsWith("insert into monthly_amount_bucket"), contains("group by")), eq(QuantileSketch.LN_GAMMA), eq(QuantileSketch.LN_GAMMA));
+        inOrder.verify(jdbcTemplate).update(startsWith("insert into monthly_aggregate_backfill"));
+        inOrder.verify(transactionManager).commit(any());
+        assertTrue(aggregateService.isBackfilled());
+        verify(outbox, never()).send(eq("error_logs"), anyString());
+    }
+
+    @Test
+    void backfill_AlreadyCompleted_LeavesAggregatesUntouched() {
+        // Arrange
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("PostgreSQL");
+        when(jdbcTemplate.queryForObject("select count(*) from monthly_aggregate_backfill", Integer.class)).thenReturn(1);
+
+        // Act
+        aggregateService.backfill();
+
+        // Assert
+        verify(jdbcTemplate, never()).execute(startsWith("delete"));
+        verify(jdbcTemplate, never()).update(anyString());
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        assertTrue(aggregateService.isBackfilled());
+    }
+
+    @Test
+    void backfill_OtherDatabase_ReadsStayOnTransfers() {
+        // Arrange
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+
+        // Act
+        aggregateService.backfill();
+
+        // Assert
+        verify(jdbcTemplate, never()).execute(anyString());
+        verifyNoInteractions(transactionManager);
+        assertFalse(aggregateService.isBackfilled());
+    }
+
+    @Test
+    void backfill_Failure_LoggedAndReadsStayOnTransfers() {
+        // Arrange
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("PostgreSQL");
+        when(jdbcTemplate.queryForObject("select count(*) from monthly_aggregate_backfill", Integer.class)).thenReturn(0);
+        when(jdbcTemplate.update(startsWith("insert into monthly_transfer_aggregate"))).thenThrow(new RuntimeException("timeout"));
+
+        // Act
+        aggregateService.backfill();
+
+        // Assert
+        verify(transactionManager).rollback(any());
+        verify(outbox).send(eq("error_logs"), contains("timeout"));
+        assertFalse(aggregateService.isBackfilled());
+    }
+}
@@ -0,0 +1,107 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.model.DTO.response.TransferExportRow;
+import com.firisbe.model.Enum.ExportFormat;
+import com.firisbe.repository.jpa.TransferRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.InOrder;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TransferExportServiceImplementationTest {
+    private TransferExportServiceImplementation exportService;
+
+    @Mock
+    private TransferRepository transferRepository;
+    @Mock
+    private OutboxServiceImplementation outbox;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        exportService = new TransferExportServiceImplementation(transferRepository, outbox, Jackson2ObjectMapperBuilder.json().build(), transactionManager);
+    }
+
+    private TransferExportRow row(long id) {
+        return new TransferExportRow(id, 1L, 2L, new BigDecimal("12.50"), LocalDateTime.of(2024, 5, 1, 10, 0, (int) id));
+    }
+
+    @Test
+    void exportForAdmin_Ndjson_WritesOneObjectPerLine() throws IOException {
+        // Arrange
+        when(transferRepository.streamExport(any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(Stream.of(row(1), row(2)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long count = exportService.exportForAdmin(ExportFormat.NDJSON, null, null, null, out);
+
+        // Assert
+        assertEquals(2, count);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"id\":1,\"senderId\":1,\"receiverId\":2,\"amount\":12.50,\"timestamp\":\"2024-05-01T10:00:01\"}", lines[0]);
+        // Log, salt okunur transaction commit edildikten sonra yazılır
+        InOrder inOrder = inOrder(transactionManager, outbox);
+        inOrder.verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(outbox).send("payment_log", "Transfers exported successfully: 2");
+    }
+
+    @Test
+    void exportForAdmin_CsvWithCustomerFilter_UsesCustomerQuery() throws IOException {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 6, 1, 0, 0);
+        when(transferRepository.streamExportByCustomerId(1L, from, to)).thenReturn(Stream.of(row(3)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        exportService.exportForAdmin(ExportFormat.CSV, from, to, 1L, out);
+
+        // Assert
+        assertEquals("id,senderId,receiverId,amount,timestamp\n3,1,2,12.50,2024-05-01T10:00:03\n", out.toString(StandardCharsets.UTF_8));
+        verify(transferRepository, never()).streamExport(any(), any());
+    }
+
+    @Test
+    void exportForAdmin_ClientDisconnects_ClosesCursor() {
+        // Arrange
+        AtomicBoolean closed = new AtomicBoolean();
+        when(transferRepository.streamExport(any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(Stream.of(row(1)).onClose(() -> closed.set(true)));
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> exportService.exportForAdmin(ExportFormat.CSV, null, null, null, broken));
+        assertTrue(closed.get());
+        InOrder inOrder = inOrder(transactionManager, outbox);
+        inOrder.verify(transactionManager).rollback(any());
+        inOrder.verify(outbox).send(eq("error_logs"), startsWith("IOException: Transfer export aborted"));
+    }
+}
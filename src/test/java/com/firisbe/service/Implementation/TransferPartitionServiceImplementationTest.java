@@ -0,0 +1,177 @@
+package com.firisbe.service.Implementation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TransferPartitionServiceImplementationTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private OutboxServiceImplementation outbox;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("PostgreSQL");
+    }
+
+    private TransferPartitionServiceImplementation service(int retentionMonths) {
+        return new TransferPartitionServiceImplementation(jdbcTemplate, transactionManager, outbox, true, 3, retentionMonths);
+    }
+
+    private Map<String, Object> partition(String name, String bound) {
+        return Map.of("name", name, "bound", bound);
+    }
+
+    private List<String> executedStatements() {
+        ArgumentCaptor<String> statements = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, atLeast(0)).execute(statements.capture());
+        return statements.getAllValues();
+    }
+
+    @Test
+    void maintain_PlainTable_AttachedAsLegacyPartitionWithoutCopyingRows() {
+        // Arrange
+        LocalDate boundary = YearMonth.now().plusMonths(2).atDay(1);
+        when(jdbcTemplate.queryForObject(startsWith("select c.relkind"), eq(String.class))).thenReturn("r");
+        when(jdbcTemplate.queryForObject(startsWith("select count(*) from pg_constraint"), eq(Integer.class))).thenReturn(0);
+        when(jdbcTemplate.queryForObject(startsWith("select substring"), eq(LocalDate.class))).thenReturn(boundary);
+        when(jdbcTemplate.queryForList(startsWith("select c.relname"))).thenReturn(List.of(
+                partition("transfer_legacy", "FOR VALUES FROM (MINVALUE) TO ('" + boundary + " 00:00:00')")));
+
+        // Act
+        service(0).maintain();
+
+        // Assert
+        List<String> statements = executedStatements();
+        InOrder inOrder = inOrder(jdbcTemplate, transactionManager);
+        inOrder.verify(jdbcTemplate).execute(startsWith("create unique index concurrently"));
+        inOrder.verify(jdbcTemplate).execute(contains("not valid"));
+        inOrder.verify(jdbcTemplate).execute("alter table transfer validate constraint transfer_legacy_bound");
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(jdbcTemplate).execute("lock table transfer in access exclusive mode");
+        inOrder.verify(jdbcTemplate).execute("alter table transfer rename to transfer_legacy");
+        inOrder.verify(jdbcTemplate).execute(startsWith("create table transfer (like transfer_legacy"));
+        inOrder.verify(jdbcTemplate).execute("alter table transfer attach partition transfer_legacy for values from (minvalue) to ('" + boundary + "')");
+        inOrder.verify(jdbcTemplate).execute("create index if not exists idx_transfer_sender_timestamp_id on transfer (sender_id, timestamp, id)");
+        inOrder.verify(jdbcTemplate).execute("create index if not exists idx_transfer_idempotency_key on transfer (idempotency_key)");
+        inOrder.verify(transactionManager).commit(any());
+        assertTrue(statements.stream().noneMatch(statement -> statement.contains("insert into transfer ") || statement.contains("insert into transfer(")));
+        // Legacy partition'ın bitişinden bugün + 3 aya kadar
+        for (LocalDate month = boundary; !month.isAfter(YearMonth.now().plusMonths(3).atDay(1)); month = month.plusMonths(1)) {
+            verify(jdbcTemplate).execute("create table if not exists " + TransferPartitionServiceImplementation.partitionName(month)
+                    + " partition of transfer for values from ('" + month + "') to ('" + month.plusMonths(1) + "')");
+        }
+    }
+
+    @Test
+    void maintain_PlainTable_CopiesLegacyIdempotencyKeysBeforeCreatingTrigger() {
+        // Arrange
+        LocalDate boundary = YearMonth.now().plusMonths(2).atDay(1);
+        when(jdbcTemplate.queryForObject(startsWith("select c.relkind"), eq(String.class))).thenReturn("r");
+        when(jdbcTemplate.queryForObject(startsWith("select count(*) from pg_constraint"), eq(Integer.class))).thenReturn(0);
+        when(jdbcTemplate.queryForObject(startsWith("select substring"), eq(LocalDate.class))).thenReturn(boundary);
+
+        // Act
+        service(0).maintain();
+
+        // Assert
+        InOrder inOrder = inOrder(jdbcTemplate, transactionManager);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(jdbcTemplate).execute(startsWith("create table if not exists transfer_idempotency_key"));
+        inOrder.verify(jdbcTemplate).update("insert into transfer_idempotency_key (idempotency_key, timestamp) " +
+                "select idempotency_key, timestamp from transfer_legacy where idempotency_key is not null " +
+                "on conflict (idempotency_key) do nothing");
+        inOrder.verify(jdbcTemplate).execute(startsWith("create trigger transfer_idempotency_key"));
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void maintain_PartitionedTable_CreatesOnlyMissingMonthsAhead() {
+        // Arrange
+        LocalDate current = YearMonth.now().atDay(1);
+        when(jdbcTemplate.queryForObject(startsWith("select c.relkind"), eq(String.class))).thenReturn("p");
+        when(jdbcTemplate.queryForList(startsWith("select c.relname"))).thenReturn(List.of(
+                partition("transfer_legacy", "FOR VALUES FROM (MINVALUE) TO ('" + current + " 00:00:00')"),
+                partition(TransferPartitionServiceImplementation.partitionName(current),
+                        "FOR VALUES FROM ('" + current + " 00:00:00') TO ('" + current.plusMonths(1) + " 00:00:00')")));
+
+        // Act
+        service(0).maintain();
+
+        // Assert
+        List<String> statements = executedStatements();
+        assertEquals(3, statements.stream().filter(statement -> statement.startsWith("create table if not exists transfer_y")).count());
+        assertTrue(statements.stream().noneMatch(statement -> statement.contains("rename") || statement.contains("detach")));
+        verify(jdbcTemplate).execute(startsWith("create table if not exists " + TransferPartitionServiceImplementation.partitionName(current.plusMonths(3))));
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void maintain_WithRetention_DetachesExpiredPartitionsForArchival() {
+        // Arrange
+        LocalDate cutoff = YearMonth.now().minusMonths(12).atDay(1);
+        LocalDate expired = cutoff.minusMonths(1);
+        when(jdbcTemplate.queryForObject(startsWith("select c.relkind"), eq(String.class))).thenReturn("p");
+        when(jdbcTemplate.queryForList(startsWith("select c.relname"))).thenReturn(List.of(
+                partition("transfer_legacy", "FOR VALUES FROM (MINVALUE) TO ('" + expired + " 00:00:00')"),
+                partition("transfer_old", "FOR VALUES FROM ('" + expired + " 00:00:00') TO ('" + cutoff + " 00:00:00')"),
+                partition("transfer_kept", "FOR VALUES FROM ('" + cutoff + " 00:00:00') TO ('" + YearMonth.now().plusMonths(4).atDay(1) + " 00:00:00')")));
+
+        // Act
+        service(12).maintain();
+
+        // Assert
+        verify(jdbcTemplate).execute("alter table transfer detach partition transfer_legacy concurrently");
+        verify(jdbcTemplate).execute("alter table transfer detach partition transfer_old concurrently");
+        verify(jdbcTemplate, never()).execute("alter table transfer detach partition transfer_kept concurrently");
+        verify(jdbcTemplate).update("delete from transfer_idempotency_key where timestamp < ?", cutoff.atStartOfDay());
+        verify(jdbcTemplate, never()).execute(contains("drop table"));
+    }
+
+    @Test
+    void maintain_NotPostgres_DoesNothing() {
+        // Arrange
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+
+        // Act
+        service(0).maintain();
+
+        // Assert
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(String.class));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void maintain_Failure_LoggedAndNotRethrown() {
+        // Arrange
+        when(jdbcTemplate.queryForObject(startsWith("select c.relkind"), eq(String.class))).thenReturn("p");
+        when(jdbcTemplate.queryForList(anyString())).thenThrow(new RuntimeException("permission denied"));
+
+        // Act
+        assertDoesNotThrow(() -> service(0).maintain());
+
+        // Assert
+        verify(outbox).send(eq("error_logs"), contains("permission denied"));
+    }
+}
@@ -3,28 +3,45 @@ package com.firisbe.service.Implementation;
 import com.firisbe.aspect.GenericResponse;
 import com.firisbe.aspect.encryption.Encryption;
 import com.firisbe.error.CustomerNotFoundException;
+import com.firisbe.error.InvalidCursorException;
 import com.firisbe.error.PaymentFailedException;
+import com.firisbe.error.PaymentOverloadedException;
 import com.firisbe.error.TransferNotFoundException;
 import com.firisbe.model.Customer;
 import com.firisbe.model.DTO.request.CustomerPaymentRequest;
+import com.firisbe.model.DTO.response.CursorPage;
 import com.firisbe.model.DTO.response.PaymentResponse;
+import com.firisbe.model.DTO.response.PaymentStatusResponse;
+import com.firisbe.model.Enum.PaymentStatus;
+import com.firisbe.model.PaymentEvent;
+import com.firisbe.model.PaymentState;
 import com.firisbe.model.Transfer;
 import com.firisbe.repository.jpa.TransferRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.kafka.core.KafkaTemplate;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -39,14 +56,28 @@ class TransferServiceImplementationTest {
     private CustomerServiceImplementation customerService;
 
     @Mock
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private OutboxServiceImplementation outbox;
     @Mock
     private Encryption encryption;
+    @Mock
+    private IdempotencyServiceImplementation idempotencyService;
+    @Mock
+    private PaymentStatusServiceImplementation paymentStatusService;
+    @Mock
+    private DeadLetterServiceImplementation deadLetterService;
+    @Mock
+    private AdmissionControlServiceImplementation admissionControlService;
+    @Mock
+    private TransferAggregateServiceImplementation transferAggregateService;
+    @Mock
+    private RollingVolumeServiceImplementation rollingVolumeService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        transferService = new TransferServiceImplementation(transferRepository, customerService, kafkaTemplate, encryption);
+        transferService = new TransferServiceImplementation(transferRepository, customerService, outbox, encryption, idempotencyService, paymentStatusService, deadLetterService, admissionControlService, transferAggregateService, rollingVolumeService);
+        when(idempotencyService.keyFor(anyLong(), any())).thenAnswer(invocation -> UUID.randomUUID());
+        when(idempotencyService.register(any(UUID.class), any(UUID.class))).thenAnswer(invocation -> invocation.getArgument(1));
     }
 
     @AfterEach
@@ -57,9 +88,11 @@ class TransferServiceImplementationTest {
     public void testSendPaymentMessageToKafka_Success() {
         // Arrange
         Customer senderAccount = new Customer();
+        senderAccount.setId(1L);
         senderAccount.setCreditCardNumber("1234567890123456");
 
         Customer receiveAccount = new Customer();
+        receiveAccount.setId(2L);
         receiveAccount.setCreditCardNumber("1234567890123456");
 
         CustomerPaymentRequest request = new CustomerPaymentRequest("receiver@example.com", BigDecimal.valueOf(100.0));
@@ -68,14 +101,17 @@ class TransferServiceImplementationTest {
         when(customerService.findCustomerByMail(anyString())).thenReturn(receiveAccount);
 
         // Act
-        GenericResponse<String> response = transferService.sendPaymentMessageToKafka(request, "token");
+        GenericResponse<PaymentStatusResponse> response = transferService.sendPaymentMessageToKafka(request, "token", null);
 
         // Assert
         assertTrue(response.getStatus());
-        assertEquals("Payment request received successfully!", response.getData());
+        assertNotNull(response.getData().paymentId());
+        assertEquals(PaymentStatus.PENDING, response.getData().status());
+        verify(paymentStatusService, times(1)).pending(argThat(event -> event.paymentId().equals(response.getData().paymentId())));
         assertNotNull(response.getResponseDate());
-        verify(kafkaTemplate, times(1)).send(eq("payment_process"), anyString());
-        verify(kafkaTemplate, times(1)).send(eq("payment_log"), eq("Payment request received successfully!"));
+        verify(outbox, times(1)).send(eq("payment_process"), eq("1"), argThat((PaymentEvent event) ->
+                event.senderId() == 1L && event.receiverId() == 2L && event.amountMinor() == 10000L));
+        verify(outbox, times(1)).send(eq("payment_log"), eq("Payment request received successfully!"));
     }
 
     @Test
@@ -86,61 +122,321 @@ class TransferServiceImplementationTest {
         // Act & Assert
         assertThrows(PaymentFailedException.class, () -> {
             CustomerPaymentRequest request = new CustomerPaymentRequest("receiver@example.com", BigDecimal.valueOf(100.0));
-            transferService.sendPaymentMessageToKafka(request, "token");
+            transferService.sendPaymentMessageToKafka(request, "token", null);
         });
     }
 
+    @Test
+    public void testSendPaymentMessageToKafka_DuplicateIdempotencyKey_ReturnsOriginalPaymentId() {
+        // Arrange
+        Customer senderAccount = new Customer();
+        senderAccount.setId(1L);
+        senderAccount.setCreditCardNumber("1234567890123456");
+
+        Customer receiveAccount = new Customer();
+        receiveAccount.setId(2L);
+        receiveAccount.setCreditCardNumber("1234567890123456");
+
+        CustomerPaymentRequest request = new CustomerPaymentRequest("receiver@example.com", BigDecimal.valueOf(100.0));
+        UUID key = UUID.randomUUID();
+
+        when(customerService.findCustomerToToken(anyString())).thenReturn(senderAccount);
+        when(customerService.findCustomerByMail(anyString())).thenReturn(receiveAccount);
+        when(idempotencyService.keyFor(1L, "retry-1")).thenReturn(key);
+        UUID originalPaymentId = UUID.randomUUID();
+        when(idempotencyService.register(eq(key), any(UUID.class))).thenReturn(originalPaymentId);
+        when(idempotencyService.register(eq(key), eq(originalPaymentId))).thenReturn(originalPaymentId);
+
+        // Act
+        GenericResponse<PaymentStatusResponse> response = transferService.sendPaymentMessageToKafka(request, "token", "retry-1");
+
+        // Assert
+        assertTrue(response.getStatus());
+        assertEquals(originalPaymentId, response.getData().paymentId());
+        verify(paymentStatusService, never()).pending(any(PaymentEvent.class));
+        verify(outbox, never()).send(eq("payment_process"), anyString(), any(PaymentEvent.class));
+    }
+
+    @Test
+    public void testSendPaymentMessageToKafka_SendFailure_ReleasesIdempotencyKey() {
+        // Arrange
+        Customer senderAccount = new Customer();
+        senderAccount.setId(1L);
+        senderAccount.setCreditCardNumber("1234567890123456");
+
+        Customer receiveAccount = new Customer();
+        receiveAccount.setId(2L);
+        receiveAccount.setCreditCardNumber("1234567890123456");
+
+        CustomerPaymentRequest request = new CustomerPaymentRequest("receiver@example.com", BigDecimal.valueOf(100.0));
+        UUID key = UUID.randomUUID();
+
+        when(customerService.findCustomerToToken(anyString())).thenReturn(senderAccount);
+        when(customerService.findCustomerByMail(anyString())).thenReturn(receiveAccount);
+        when(idempotencyService.keyFor(1L, "retry-1")).thenReturn(key);
+        doThrow(new RuntimeException("Database unavailable")).when(outbox).send(anyString(), anyString(), any(PaymentEvent.class));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> transferService.sendPaymentMessageToKafka(request, "token", "retry-1"));
+        verify(idempotencyService, times(1)).release(key);
+    }
+
+    @Test
+    public void testSendPaymentMessageToKafka_CommitFails_ReleasesIdempotencyKey() {
+        // Arrange
+        Customer senderAccount = new Customer();
+        senderAccount.setId(1L);
+        senderAccount.setCreditCardNumber("1234567890123456");
+
+        Customer receiveAccount = new Customer();
+        receiveAccount.setId(2L);
+        receiveAccount.setCreditCardNumber("1234567890123456");
+
+        CustomerPaymentRequest request = new CustomerPaymentRequest("receiver@example.com", BigDecimal.valueOf(100.0));
+        UUID key = UUID.randomUUID();
+
+        when(customerService.findCustomerToToken(anyString())).thenReturn(senderAccount);
+        when(customerService.findCustomerByMail(anyString())).thenReturn(receiveAccount);
+        when(idempotencyService.keyFor(1L, "retry-1")).thenReturn(key);
+
+        // Act
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            transferService.sendPaymentMessageToKafka(request, "token", "retry-1");
+            verify(idempotencyService, never()).release(key);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        verify(idempotencyService, times(1)).release(key);
+    }
+
+    @Test
+    public void testSendPaymentMessageToKafka_Committed_KeepsIdempotencyKey() {
+        // Arrange
+        Customer senderAccount = new Customer();
+        senderAccount.setId(1L);
+        senderAccount.setCreditCardNumber("1234567890123456");
+
+        Customer receiveAccount = new Customer();
+        receiveAccount.setId(2L);
+        receiveAccount.setCreditCardNumber("1234567890123456");
+
+        CustomerPaymentRequest request = new CustomerPaymentRequest("receiver@example.com", BigDecimal.valueOf(100.0));
+
+        when(customerService.findCustomerToToken(anyString())).thenReturn(senderAccount);
+        when(customerService.findCustomerByMail(anyString())).thenReturn(receiveAccount);
+        when(idempotencyService.keyFor(1L, "retry-1")).thenReturn(UUID.randomUUID());
+
+        // Act
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            transferService.sendPaymentMessageToKafka(request, "token", "retry-1");
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        verify(idempotencyService, never()).release(any(UUID.class));
+    }
+
+    @Test
+    public void testSendPaymentMessageToKafka_Overloaded_RejectedWithoutQueueing() {
+        // Arrange
+        Customer senderAccount = new Customer();
+        senderAccount.setId(1L);
+        senderAccount.setCreditCardNumber("1234567890123456");
+
+        Customer receiveAccount = new Customer();
+        receiveAccount.setId(2L);
+        receiveAccount.setCreditCardNumber("1234567890123456");
+
+        CustomerPaymentRequest request = new CustomerPaymentRequest("receiver@example.com", BigDecimal.valueOf(100.0));
+        UUID key = UUID.randomUUID();
+
+        when(customerService.findCustomerToToken(anyString())).thenReturn(senderAccount);
+        when(customerService.findCustomerByMail(anyString())).thenReturn(receiveAccount);
+        when(idempotencyService.keyFor(1L, "retry-1")).thenReturn(key);
+        doThrow(new PaymentOverloadedException("Payment queue is behind, try again later", 5)).when(admissionControlService).admit(1L);
+
+        // Act & Assert
+        PaymentOverloadedException exception = assertThrows(PaymentOverloadedException.class, () -> transferService.sendPaymentMessageToKafka(request, "token", "retry-1"));
+        assertEquals(5, exception.getRetryAfterSeconds());
+        verify(idempotencyService, times(1)).release(key);
+        verify(outbox, never()).send(eq("payment_process"), anyString(), any(PaymentEvent.class));
+        verify(paymentStatusService, never()).pending(any(PaymentEvent.class));
+    }
+
+    @Test
+    void processPaymentMessageFromKafka_AlreadyProcessed_Skipped() {
+        // Arrange
+        PaymentEvent request = PaymentEvent.of(1L, 2L, BigDecimal.valueOf(100), UUID.randomUUID());
+        when(transferRepository.existsByIdempotencyKey(request.idempotencyKey())).thenReturn(true);
+
+        // Act
+        transferService.processPaymentMessageFromKafka(request);
+
+        // Assert
+        verify(customerService, never()).debit(anyLong(), any(BigDecimal.class));
+        verify(customerService, never()).credit(anyLong(), any(BigDecimal.class));
+        verify(transferRepository, never()).save(any(Transfer.class));
+        verify(paymentStatusService, times(1)).settled(List.of(request));
+    }
+
     @Test
     void processPaymentMessageFromKafka_ValidRequest_SuccessfulTransaction() {
         // Arrange
-        String validRequest = "1/2/100"; // Example valid request
-        Customer senderCustomer = new Customer();
-        senderCustomer.setBalance(BigDecimal.valueOf(200)); // Enough balance for the transaction
-        Customer receiverCustomer = new Customer();
-        BigDecimal initialReceiverBalance = BigDecimal.valueOf(300);
-        receiverCustomer.setBalance(initialReceiverBalance);
-        when(customerService.findById(1L)).thenReturn(senderCustomer);
-        when(customerService.findById(2L)).thenReturn(receiverCustomer);
+        PaymentEvent validRequest = PaymentEvent.of(1L, 2L, BigDecimal.valueOf(100), UUID.randomUUID()); // Example valid request
+        when(customerService.debit(eq(1L), any(BigDecimal.class))).thenReturn(true);
+        when(customerService.credit(eq(2L), any(BigDecimal.class))).thenReturn(true);
 
         // Act
         transferService.processPaymentMessageFromKafka(validRequest);
 
         // Assert
-        assertEquals(BigDecimal.valueOf(100), senderCustomer.getBalance());
-        assertEquals(initialReceiverBalance.add(BigDecimal.valueOf(100)), receiverCustomer.getBalance());
+        InOrder lockOrder = inOrder(customerService);
+        lockOrder.verify(customerService).debit(eq(1L), argThat(amount -> amount.compareTo(BigDecimal.valueOf(100)) == 0));
+        lockOrder.verify(customerService).credit(eq(2L), argThat(amount -> amount.compareTo(BigDecimal.valueOf(100)) == 0));
+        verify(transferRepository, times(1)).save(any(Transfer.class));
+        verify(transferAggregateService, times(1)).record(any(Transfer.class));
+        verify(paymentStatusService, times(1)).settled(List.of(validRequest));
+        verify(rollingVolumeService, times(1)).recordAll(List.of(validRequest));
+        verify(outbox, times(1)).send(eq("payment_log"), eq("Payment processed successfully!"));
+    }
+
+    @Test
+    void processPaymentMessageFromKafka_InsufficientBalance_MarksRejected() {
+        // Arrange
+        PaymentEvent request = PaymentEvent.of(1L, 2L, BigDecimal.valueOf(100), UUID.randomUUID());
+        when(customerService.debit(eq(1L), any(BigDecimal.class))).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(PaymentFailedException.class, () -> transferService.processPaymentMessageFromKafka(request));
+        verify(paymentStatusService, times(1)).rejected(eq(request), startsWith("Insufficient balance"));
+        verify(paymentStatusService, never()).settled(anyCollection());
+    }
+
+    @Test
+    void processDeadLetterFromKafka_RecordsDeadLetterWithReason() {
+        // Arrange
+        PaymentEvent request = PaymentEvent.of(1L, 2L, BigDecimal.valueOf(100), UUID.randomUUID());
+        ConsumerRecord<String, PaymentEvent> record = new ConsumerRecord<>("payment_process.DLT", 0, 0L, "1", request);
+        record.headers().add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, "Insufficient balance".getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        transferService.processDeadLetterFromKafka(record);
+
+        // Assert
+        verify(deadLetterService, times(1)).record(request, "Insufficient balance");
+    }
+
+    @Test
+    void processDeadLetterFromKafka_StartsInEverySettlementMode() throws NoSuchMethodException {
+        // Arrange
+        RetryableTopic retryableTopic = TransferServiceImplementation.class
+                .getMethod("processPaymentMessageFromKafka", PaymentEvent.class)
+                .getAnnotation(RetryableTopic.class);
+
+        // Act & Assert
+        // Aksi halde DLT handler record listener'ının autoStartup değerini alır ve diğer modlarda DLT tüketilmez
+        assertEquals("true", retryableTopic.autoStartDltHandler());
+    }
+
+    @Test
+    void processDeadLetterFromKafka_MalformedRecord_OnlyLogged() {
+        // Arrange
+        ConsumerRecord<String, PaymentEvent> record = new ConsumerRecord<>("payment_process.DLT", 0, 7L, "1", null);
+
+        // Act
+        transferService.processDeadLetterFromKafka(record);
+
+        // Assert
+        verify(deadLetterService, never()).record(any(), any());
+        verify(outbox, times(1)).send(eq("error_logs"), startsWith("PaymentFailedException: Malformed"));
+    }
+
+    @Test
+    void readPaymentStatusForCustomer_OwnPayment_ReturnsStatus() {
+        // Arrange
+        Customer customer = new Customer();
+        customer.setId(1L);
+        UUID paymentId = UUID.randomUUID();
+        when(customerService.findCustomerToToken("token")).thenReturn(customer);
+        when(paymentStatusService.find(paymentId)).thenReturn(new PaymentState(paymentId, 1L, PaymentStatus.SETTLED, null, LocalDateTime.now()));
+
+        // Act
+        GenericResponse<PaymentStatusResponse> response = transferService.readPaymentStatusForCustomer("token", paymentId);
+
+        // Assert
+        assertEquals(PaymentStatus.SETTLED, response.getData().status());
+        assertEquals(paymentId, response.getData().paymentId());
+    }
+
+    @Test
+    void readPaymentStatusForCustomer_OtherCustomersPayment_ThrowsTransferNotFoundException() {
+        // Arrange
+        Customer customer = new Customer();
+        customer.setId(2L);
+        UUID paymentId = UUID.randomUUID();
+        when(customerService.findCustomerToToken("token")).thenReturn(customer);
+        when(paymentStatusService.find(paymentId)).thenReturn(new PaymentState(paymentId, 1L, PaymentStatus.PENDING, null, LocalDateTime.now()));
+
+        // Act & Assert
+        assertThrows(TransferNotFoundException.class, () -> transferService.readPaymentStatusForCustomer("token", paymentId));
+    }
+
+    @Test
+    void processPaymentMessageFromKafka_HigherSenderId_LocksReceiverFirst() {
+        // Arrange
+        PaymentEvent request = PaymentEvent.of(5L, 2L, BigDecimal.valueOf(100), UUID.randomUUID());
+        when(customerService.debit(eq(5L), any(BigDecimal.class))).thenReturn(true);
+        when(customerService.credit(eq(2L), any(BigDecimal.class))).thenReturn(true);
+
+        // Act
+        transferService.processPaymentMessageFromKafka(request);
+
+        // Assert
+        InOrder lockOrder = inOrder(customerService);
+        lockOrder.verify(customerService).credit(eq(2L), any(BigDecimal.class));
+        lockOrder.verify(customerService).debit(eq(5L), any(BigDecimal.class));
         verify(transferRepository, times(1)).save(any(Transfer.class));
-        verify(kafkaTemplate, times(1)).send(eq("payment_log"), eq("Payment processed successfully!"));
     }
 
     @Test
     void processPaymentMessageFromKafka_InvalidRequest_PaymentFailedExceptionThrown() {
         // Arrange
-        String invalidRequest = "1/2/100"; // Example invalid request
-        Customer senderCustomer = new Customer();
-        senderCustomer.setBalance(BigDecimal.valueOf(50)); // Insufficient balance for the transaction
-        when(customerService.findById(1L)).thenReturn(senderCustomer);
+        PaymentEvent invalidRequest = PaymentEvent.of(1L, 2L, BigDecimal.valueOf(100), UUID.randomUUID()); // Example invalid request
+        when(customerService.debit(eq(1L), any(BigDecimal.class))).thenReturn(false); // Insufficient balance for the transaction
 
         // Act & Assert
         assertThrows(PaymentFailedException.class, () -> transferService.processPaymentMessageFromKafka(invalidRequest));
         // Ensure no balance update or transfer save occurs
-        verify(customerService, never()).saveCustomer(any(Customer.class));
+        verify(customerService, never()).credit(anyLong(), any(BigDecimal.class));
         verify(transferRepository, never()).save(any(Transfer.class));
-        verify(kafkaTemplate, never()).send(eq("payment_log"), eq("Payment processed successfully!"));
+        verify(outbox, never()).send(eq("payment_log"), eq("Payment processed successfully!"));
     }
 
     @Test
     void processPaymentMessageFromKafka_Exception_RuntimeExceptionThrown() {
         // Arrange
-        String request = "1/2/100"; // Example request
-        when(customerService.findById(1L)).thenThrow(new RuntimeException("Simulated exception"));
+        PaymentEvent request = PaymentEvent.of(1L, 2L, BigDecimal.valueOf(100), UUID.randomUUID()); // Example request
+        when(customerService.debit(eq(1L), any(BigDecimal.class))).thenThrow(new RuntimeException("Simulated exception"));
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> transferService.processPaymentMessageFromKafka(request));
         // Ensure no balance update or transfer save occurs
-        verify(customerService, never()).saveCustomer(any(Customer.class));
+        verify(customerService, never()).credit(anyLong(), any(BigDecimal.class));
         verify(transferRepository, never()).save(any(Transfer.class));
-        verify(kafkaTemplate, never()).send(eq("payment_log"), eq("Payment processed successfully!"));
-        verify(kafkaTemplate, times(1)).send(eq("error_logs"), startsWith("RuntimeException:"));
+        verify(outbox, never()).send(eq("payment_log"), eq("Payment processed successfully!"));
+        verify(outbox, times(1)).send(eq("error_logs"), startsWith("RuntimeException:"));
+    }
+    private PaymentResponse payment(long id, long senderId, long receiverId, long amount, LocalDateTime timestamp) {
+        return new PaymentResponse(id, senderId, "Sender", receiverId, "Receiver", BigDecimal.valueOf(amount), timestamp);
     }
 
     @Test
@@ -148,12 +444,9 @@ class TransferServiceImplementationTest {
         // Arrange
         Long transferId = 1L;
         String token = "validToken";
-        Transfer transfer = new Transfer();
-        transfer.setId(transferId);
         Customer customer = new Customer();
         customer.setId(1L); // Assuming the customer ID is set
-        transfer.setSender(customer);
-        when(transferRepository.findById(transferId)).thenReturn(Optional.of(transfer));
+        when(transferRepository.findPaymentResponseById(transferId)).thenReturn(Optional.of(payment(transferId, 1L, 2L, 100, LocalDateTime.now())));
         when(customerService.findCustomerToToken(token)).thenReturn(customer);
 
         // Act
@@ -162,7 +455,8 @@ class TransferServiceImplementationTest {
         // Assert
         assertTrue(response.getStatus());
         assertNotNull(response.getData());
-        verify(kafkaTemplate, times(1)).send(eq("payment_log"), eq("Transfer read successfully"));
+        verify(transferRepository, never()).findById(anyLong());
+        verify(outbox, times(1)).send(eq("payment_log"), eq("Transfer read successfully"));
     }
 
     @Test
@@ -170,17 +464,23 @@ class TransferServiceImplementationTest {
         // Arrange
         Long transferId = 1L;
         String token = "invalidToken";
-        Transfer transfer = new Transfer();
-        transfer.setId(transferId);
-        Customer customer = new Customer();
-        customer.setId(1L); // Assuming the customer ID is set
-        transfer.setSender(customer);
-        when(transferRepository.findById(transferId)).thenReturn(Optional.of(transfer));
+        when(transferRepository.findPaymentResponseById(transferId)).thenReturn(Optional.of(payment(transferId, 1L, 2L, 100, LocalDateTime.now())));
         when(customerService.findCustomerToToken(token)).thenReturn(null);
 
         // Act & Assert
         assertThrows(CustomerNotFoundException.class, () -> transferService.readPaymentForCustomer(token, transferId));
-        verify(kafkaTemplate, times(1)).send(eq("error_logs"), contains("CustomerNotFoundException"));
+        verify(outbox, times(1)).send(eq("error_logs"), contains("CustomerNotFoundException"));
+    }
+
+    @Test
+    void readPaymentForCustomer_OtherCustomersTransfer_ThrowsCustomerNotFoundException() {
+        // Arrange
+        Long transferId = 1L;
+        when(transferRepository.findPaymentResponseById(transferId)).thenReturn(Optional.of(payment(transferId, 5L, 2L, 100, LocalDateTime.now())));
+        when(customerService.findCustomerToToken("validToken")).thenReturn(Customer.builder().id(1L).build());
+
+        // Act & Assert
+        assertThrows(CustomerNotFoundException.class, () -> transferService.readPaymentForCustomer("validToken", transferId));
     }
 
     @Test
@@ -188,11 +488,11 @@ class TransferServiceImplementationTest {
         // Arrange
         Long transferId = 1L;
         String token = "validToken";
-        when(transferRepository.findById(transferId)).thenReturn(Optional.empty());
+        when(transferRepository.findPaymentResponseById(transferId)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(TransferNotFoundException.class, () -> transferService.readPaymentForCustomer(token, transferId));
-        verify(kafkaTemplate, times(1)).send(eq("error_logs"), contains("TransferNotFoundException"));
+        verify(outbox, times(1)).send(eq("error_logs"), contains("TransferNotFoundException"));
     }
 
     @Test
@@ -200,30 +500,18 @@ class TransferServiceImplementationTest {
         // Arrange
         String token = "validToken";
         String value = "sent";
-        Customer customer = new Customer();
-        List<Transfer> sentTransfers = new ArrayList<>();
-        Customer receiver = Customer.builder()
-                .id(1L)
-                .build();
-        Customer sender = Customer.builder()
-                .id(2L)
-                .build();
-        Transfer transfer = Transfer.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .amount(BigDecimal.valueOf(100))
-                .timestamp(LocalDateTime.now())
-                .build();
-        sentTransfers.add(transfer);
-        customer.setSentTransfers(sentTransfers);
+        LocalDateTime referenceDate = LocalDateTime.now().minusMonths(1);
+        Customer customer = Customer.builder().id(2L).build();
         when(customerService.findCustomerToToken(token)).thenReturn(customer);
+        when(transferRepository.findSentAfter(2L, referenceDate)).thenReturn(List.of(payment(10L, 2L, 1L, 100, LocalDateTime.now())));
 
         // Act
-        List<PaymentResponse> response = transferService.listTransfer(token, value);
+        List<PaymentResponse> response = transferService.listTransfer(token, value, referenceDate);
 
         // Assert
         assertEquals(1, response.size());
-        assertEquals(sender, response.getFirst().sentCustomer());
+        assertEquals(2L, response.getFirst().senderId());
+        assertEquals("Sender", response.getFirst().senderName());
     }
 
     @Test
@@ -231,127 +519,98 @@ class TransferServiceImplementationTest {
         // Arrange
         String token = "validToken";
         String value = "sent";
-        Customer customer = new Customer();
-        List<Transfer> sentTransfers = new ArrayList<>();
-        customer.setSentTransfers(sentTransfers);
+        Customer customer = Customer.builder().id(2L).build();
         when(customerService.findCustomerToToken(token)).thenReturn(customer);
+        when(transferRepository.findSentAfter(eq(2L), any(LocalDateTime.class))).thenReturn(Collections.emptyList());
 
         // Act & Assert
-        assertThrows(TransferNotFoundException.class, () -> transferService.listTransfer(token, value));
-        verify(kafkaTemplate).send(eq("error_logs"), eq("TransferNotFoundException: No transfer found for customer"));
+        assertThrows(TransferNotFoundException.class, () -> transferService.listTransfer(token, value, LocalDateTime.now()));
+        verify(outbox).send(eq("error_logs"), eq("TransferNotFoundException: No transfer found for customer"));
     }
 
     @Test
     public void testReadAllReceivedPaymentForCustomer() {
         // Arrange
-        String token = "validToken";
-        Customer customer = new Customer();
-        List<Transfer> receivedTransfers = new ArrayList<>();
-        Customer receiver = Customer.builder()
-                .id(1L)
-                .build();
-        Customer sender = Customer.builder()
-                .id(2L)
-                .build();
-        Transfer transfer = Transfer.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .amount(BigDecimal.valueOf(100))
-                .timestamp(LocalDateTime.now())
-                .build();
-        receivedTransfers.add(transfer);
-        customer.setReceivedTransfers(receivedTransfers);
-        when(customerService.findCustomerToToken(token)).thenReturn(customer);
+        Customer customer = Customer.builder().id(1L).build();
+        PaymentResponse transfer = payment(10L, 2L, 1L, 100, LocalDateTime.now());
+        when(customerService.findCustomerToToken("validToken")).thenReturn(customer);
+        when(transferRepository.findReceivedPage(eq(1L), any(LocalDateTime.class), eq(Long.MAX_VALUE), eq(Limit.of(51)))).thenReturn(List.of(transfer));
 
         // Act
-        GenericResponse<List<PaymentResponse>> response = transferService.readAllReceivedPaymentForCustomer(token);
+        GenericResponse<CursorPage<PaymentResponse>> response = transferService.readAllReceivedPaymentForCustomer("validToken", null, 50);
 
         // Assert
         assertTrue(response.getStatus());
-        assertEquals(1, response.getData().size());
-        assertEquals(receiver, response.getData().getFirst().receiverCustomer());
+        assertEquals(1, response.getData().items().size());
+        assertEquals(1L, response.getData().items().getFirst().receiverId());
+        assertNull(response.getData().nextCursor());
     }
 
     @Test
-    public void testReadAllSentPaymentForCustomer() {
+    public void testReadAllSentPaymentForCustomer_SeeksFromCursor() {
         // Arrange
-        String token = "validToken";
-        Customer customer = new Customer();
-        List<Transfer> receivedTransfers = new ArrayList<>();
-        Customer receiver = Customer.builder()
-                .id(1L)
-                .build();
-        Customer sender = Customer.builder()
-                .id(2L)
-                .build();
-        Transfer transfer = Transfer.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .amount(BigDecimal.valueOf(100))
-                .timestamp(LocalDateTime.now())
-                .build();
-        receivedTransfers.add(transfer);
-        customer.setSentTransfers(receivedTransfers);
-        when(customerService.findCustomerToToken(token)).thenReturn(customer);
+        Customer customer = Customer.builder().id(2L).build();
+        LocalDateTime now = LocalDateTime.now();
+        PaymentResponse newest = payment(12L, 2L, 1L, 100, now);
+        PaymentResponse middle = payment(11L, 2L, 1L, 100, now.minusMinutes(1));
+        PaymentResponse oldest = payment(10L, 2L, 1L, 100, now.minusMinutes(2));
+        when(customerService.findCustomerToToken("validToken")).thenReturn(customer);
+        when(transferRepository.findSentPage(eq(2L), any(LocalDateTime.class), eq(Long.MAX_VALUE), eq(Limit.of(3)))).thenReturn(List.of(newest, middle, oldest));
+        when(transferRepository.findSentPage(2L, middle.timestamp(), 11L, Limit.of(3))).thenReturn(List.of(oldest));
 
         // Act
-        GenericResponse<List<PaymentResponse>> response = transferService.readAllSentPaymentForCustomer(token);
+        GenericResponse<CursorPage<PaymentResponse>> firstPage = transferService.readAllSentPaymentForCustomer("validToken", null, 2);
+        GenericResponse<CursorPage<PaymentResponse>> secondPage = transferService.readAllSentPaymentForCustomer("validToken", firstPage.getData().nextCursor(), 2);
 
         // Assert
-        assertTrue(response.getStatus());
-        assertEquals(1, response.getData().size());
-        assertEquals(sender, response.getData().getFirst().sentCustomer());
+        assertEquals(2, firstPage.getData().items().size());
+        assertNotNull(firstPage.getData().nextCursor());
+        assertEquals(1, secondPage.getData().items().size());
+        assertEquals(oldest.timestamp(), secondPage.getData().items().getFirst().timestamp());
+        assertNull(secondPage.getData().nextCursor());
     }
 
     @Test
     public void testReadAllPaymentForCustomer() {
         // Arrange
-        String token = "validToken";
-        Customer customer = new Customer();
-        List<Transfer> receivedTransfers = new ArrayList<>();
-        Customer receiver = Customer.builder()
-                .id(1L)
-                .build();
-        Customer sender = Customer.builder()
-                .id(2L)
-                .build();
-        Transfer transfer = Transfer.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .amount(BigDecimal.valueOf(100))
-                .timestamp(LocalDateTime.now())
-                .build();
-        receivedTransfers.add(transfer);
-        customer.setSentTransfers(receivedTransfers);
-        when(customerService.findCustomerToToken(token)).thenReturn(customer);
+        Customer customer = Customer.builder().id(2L).build();
+        PaymentResponse transfer = payment(10L, 2L, 1L, 100, LocalDateTime.now());
+        when(customerService.findCustomerToToken("validToken")).thenReturn(customer);
+        when(transferRepository.findCustomerPage(eq(2L), any(LocalDateTime.class), anyLong(), any(Limit.class))).thenReturn(List.of(transfer));
 
         // Act
-        GenericResponse<List<PaymentResponse>> response = transferService.readAllPaymentForCustomer(token);
+        GenericResponse<CursorPage<PaymentResponse>> response = transferService.readAllPaymentForCustomer("validToken", null, 50);
 
         // Assert
         assertTrue(response.getStatus());
-        assertEquals(1, response.getData().size());
-        assertEquals(sender, response.getData().getFirst().sentCustomer());
-        assertEquals(receiver, response.getData().getFirst().receiverCustomer());
+        assertEquals(1, response.getData().items().size());
+        assertEquals(transfer, response.getData().items().getFirst());
+    }
+
+    @Test
+    public void testReadAllPaymentForCustomer_InvalidCursor_Rejected() {
+        // Arrange
+        when(customerService.findCustomerToToken("validToken")).thenReturn(Customer.builder().id(2L).build());
+
+        // Act & Assert
+        assertThrows(InvalidCursorException.class, () -> transferService.readAllPaymentForCustomer("validToken", "not-a-cursor", 50));
+        verify(transferRepository, never()).findCustomerPage(anyLong(), any(), anyLong(), any());
     }
 
     @Test
     void testListTransfer_WhenNoTransfersExist() {
         // Mock customer
-        Customer customer = new Customer();
-        List<Transfer> sentTransfers = new ArrayList<>();
-        List<Transfer> receivedTransfers = new ArrayList<>();
-        customer.setSentTransfers(sentTransfers);
-        customer.setReceivedTransfers(receivedTransfers);
+        Customer customer = Customer.builder().id(1L).build();
 
         // Mock customerService
         when(customerService.findCustomerToToken(anyString())).thenReturn(customer);
+        when(transferRepository.findCustomerPaymentsAfter(eq(1L), any(LocalDateTime.class))).thenReturn(Collections.emptyList());
 
         // Test listTransfer for "all"
-        assertThrows(TransferNotFoundException.class, () -> transferService.listTransfer("token", "all"));
+        assertThrows(TransferNotFoundException.class, () -> transferService.listTransfer("token", "all", LocalDateTime.now()));
 
         // Verify Kafka template
-        verify(kafkaTemplate).send(eq("error_logs"), eq("TransferNotFoundException: No transfer found for customer"));
+        verify(outbox).send(eq("error_logs"), eq("TransferNotFoundException: No transfer found for customer"));
     }
 
     @Test
@@ -360,37 +619,14 @@ class TransferServiceImplementationTest {
         Customer receiver = Customer.builder()
                 .id(1L)
                 .build();
-        Customer sender = Customer.builder()
-                .id(2L)
-                .build();
-        Transfer transfer1 = Transfer.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .amount(BigDecimal.valueOf(100))
-                .timestamp(LocalDateTime.now())
-                .build();
-        Transfer transfer2 = Transfer.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .amount(BigDecimal.valueOf(100))
-                .timestamp(LocalDateTime.now())
-                .build();
-        Transfer transfer3 = Transfer.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .amount(BigDecimal.valueOf(100))
-                .timestamp(LocalDateTime.now())
-                .build();
-
-        List<Transfer> receivedTransfers = new ArrayList<>();
-        receivedTransfers.add(transfer1);
-        receivedTransfers.add(transfer2);
-        receivedTransfers.add(transfer3);
-
-        receiver.setReceivedTransfers(receivedTransfers);
+        List<PaymentResponse> receivedTransfers = List.of(
+                payment(1L, 2L, 1L, 100, LocalDateTime.now()),
+                payment(2L, 2L, 1L, 100, LocalDateTime.now()),
+                payment(3L, 2L, 1L, 100, LocalDateTime.now()));
 
         // Mock customerService
         when(customerService.findCustomerToToken(anyString())).thenReturn(receiver);
+        when(transferRepository.findReceivedAfter(eq(1L), any(LocalDateTime.class))).thenReturn(receivedTransfers);
 
         // Test readAllReceivedPaymentForCustomer for last 2 months
         int monthOffset = 2;
@@ -398,7 +634,7 @@ class TransferServiceImplementationTest {
         GenericResponse<List<PaymentResponse>> response = transferService.readAllReceivedPaymentForCustomer("token", monthOffset);
 
         // Verify Kafka template
-        verify(kafkaTemplate).send(eq("payment_log"), eq("Transfers listed successfully"));
+        verify(outbox).send(eq("payment_log"), eq("Transfers listed successfully"));
 
         // Assertions
         assertNotNull(response);
@@ -407,27 +643,24 @@ class TransferServiceImplementationTest {
         assertNotNull(filteredList);
         assertEquals(3, filteredList.size());
 
-        // Asserting if the payments are within the last 2 months
-        for (PaymentResponse paymentResponse : filteredList) {
-            assertTrue(paymentResponse.timestamp().isAfter(referenceDate));
-        }
+        // Tarih filtresi veritabanı sorgusuna aktarılmış olmalı
+        verify(transferRepository).findReceivedAfter(eq(1L), argThat(from -> !from.isAfter(referenceDate.plusMinutes(1)) && from.isAfter(referenceDate.minusMinutes(1))));
     }
 
     @Test
     void testListTransfer_WhenNoReceivedTransfersExist() {
         // Mock customer
-        Customer customer = new Customer();
-        List<Transfer> receivedTransfers = new ArrayList<>();
-        customer.setReceivedTransfers(receivedTransfers);
+        Customer customer = Customer.builder().id(1L).build();
 
         // Mock customerService
         when(customerService.findCustomerToToken(anyString())).thenReturn(customer);
+        when(transferRepository.findReceivedAfter(eq(1L), any(LocalDateTime.class))).thenReturn(Collections.emptyList());
 
         // Test listTransfer for "received" when no transfers exist
-        assertThrows(TransferNotFoundException.class, () -> transferService.listTransfer("token", "received"));
+        assertThrows(TransferNotFoundException.class, () -> transferService.listTransfer("token", "received", LocalDateTime.now()));
 
         // Verify Kafka template
-        verify(kafkaTemplate).send(eq("error_logs"), eq("TransferNotFoundException: No transfer found for customer"));
+        verify(outbox).send(eq("error_logs"), eq("TransferNotFoundException: No transfer found for customer"));
     }
 
     @Test
@@ -436,45 +669,21 @@ class TransferServiceImplementationTest {
         Customer sender = Customer.builder()
                 .id(1L)
                 .build();
-        Customer receiver = Customer.builder()
-                .id(2L)
-                .build();
-        Transfer transfer1 = Transfer.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .amount(BigDecimal.valueOf(100))
-                .timestamp(LocalDateTime.now())
-                .build();
-        Transfer transfer2 = Transfer.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .amount(BigDecimal.valueOf(200))
-                .timestamp(LocalDateTime.now())
-                .build();
-        Transfer transfer3 = Transfer.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .amount(BigDecimal.valueOf(300))
-                .timestamp(LocalDateTime.now())
-                .build();
-
-        List<Transfer> sentTransfers = new ArrayList<>();
-        sentTransfers.add(transfer1);
-        sentTransfers.add(transfer2);
-        sentTransfers.add(transfer3);
-
-        sender.setSentTransfers(sentTransfers);
+        List<PaymentResponse> sentTransfers = List.of(
+                payment(1L, 1L, 2L, 100, LocalDateTime.now()),
+                payment(2L, 1L, 2L, 200, LocalDateTime.now()),
+                payment(3L, 1L, 2L, 300, LocalDateTime.now()));
 
         // Mock customerService
         when(customerService.findCustomerToToken(anyString())).thenReturn(sender);
+        when(transferRepository.findSentAfter(eq(1L), any(LocalDateTime.class))).thenReturn(sentTransfers);
 
         // Test readAllReceivedPaymentForCustomer for last 2 months
         int monthOffset = 2;
-        LocalDateTime referenceDate = LocalDateTime.now().minusMonths(monthOffset);
         GenericResponse<List<PaymentResponse>> response = transferService.readAllSentPaymentForCustomer("token", monthOffset);
 
         // Verify Kafka template
-        verify(kafkaTemplate).send(eq("payment_log"), eq("Transfers listed successfully"));
+        verify(outbox).send(eq("payment_log"), eq("Transfers listed successfully"));
 
         // Assertions
         assertNotNull(response);
@@ -482,28 +691,23 @@ class TransferServiceImplementationTest {
         List<PaymentResponse> filteredList = response.getData();
         assertNotNull(filteredList);
         assertEquals(3, filteredList.size());
-
-        // Asserting if the payments are within the last 2 months
-        for (PaymentResponse paymentResponse : filteredList) {
-            assertTrue(paymentResponse.timestamp().isAfter(referenceDate));
-        }
+        assertEquals(sentTransfers, filteredList);
     }
 
     @Test
     void testListTransfer_WhenNoSentTransfersExist() {
         // Mock customer
-        Customer customer = new Customer();
-        List<Transfer> sentTransfer = new ArrayList<>();
-        customer.setSentTransfers(sentTransfer);
+        Customer customer = Customer.builder().id(1L).build();
 
         // Mock customerService
         when(customerService.findCustomerToToken(anyString())).thenReturn(customer);
+        when(transferRepository.findSentAfter(eq(1L), any(LocalDateTime.class))).thenReturn(Collections.emptyList());
 
         // Test listTransfer for "received" when no transfers exist
-        assertThrows(TransferNotFoundException.class, () -> transferService.listTransfer("token", "sent"));
+        assertThrows(TransferNotFoundException.class, () -> transferService.listTransfer("token", "sent", LocalDateTime.now()));
 
         // Verify Kafka template
-        verify(kafkaTemplate).send(eq("error_logs"), eq("TransferNotFoundException: No transfer found for customer"));
+        verify(outbox).send(eq("error_logs"), eq("TransferNotFoundException: No transfer found for customer"));
     }
 
     @Test
@@ -512,43 +716,20 @@ class TransferServiceImplementationTest {
         Customer sender = Customer.builder()
                 .id(1L)
                 .build();
-        Customer receiver = Customer.builder()
-                .id(2L)
-                .build();
-        Transfer transfer1 = Transfer.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .amount(BigDecimal.valueOf(100))
-                .timestamp(LocalDateTime.now())
-                .build();
-        Transfer transfer2 = Transfer.builder()
-                .sender(receiver)
-                .receiver(sender)
-                .amount(BigDecimal.valueOf(200))
-                .timestamp(LocalDateTime.now())
-                .build();
-
-
-        List<Transfer> sentTransfers = new ArrayList<>();
-        sentTransfers.add(transfer1);
-        List<Transfer> receivedTransfers = new ArrayList<>();
-        receivedTransfers.add(transfer2);
-
-
-        sender.setSentTransfers(sentTransfers);
-        sender.setReceivedTransfers(receivedTransfers);
+        List<PaymentResponse> transfers = List.of(
+                payment(1L, 1L, 2L, 100, LocalDateTime.now()),
+                payment(2L, 2L, 1L, 200, LocalDateTime.now()));
 
         // Mock customerService
         when(customerService.findCustomerToToken(anyString())).thenReturn(sender);
-
+        when(transferRepository.findCustomerPaymentsAfter(eq(1L), any(LocalDateTime.class))).thenReturn(transfers);
 
         // Test readAllReceivedPaymentForCustomer for last 2 months
         int monthOffset = 2;
-        LocalDateTime referenceDate = LocalDateTime.now().minusMonths(monthOffset);
         GenericResponse<List<PaymentResponse>> response = transferService.readAllPaymentForCustomer("token", monthOffset);
 
         // Verify Kafka template
-        verify(kafkaTemplate).send(eq("payment_log"), eq("Transfers listed successfully"));
+        verify(outbox).send(eq("payment_log"), eq("Transfers listed successfully"));
 
         // Assertions
         assertNotNull(response);
@@ -556,20 +737,13 @@ class TransferServiceImplementationTest {
         List<PaymentResponse> filteredList = response.getData();
         assertNotNull(filteredList);
         assertEquals(2, filteredList.size());
-
-        // Asserting if the payments are within the last 2 months
-        for (PaymentResponse paymentResponse : filteredList) {
-            assertTrue(paymentResponse.timestamp().isAfter(referenceDate));
-        }
     }
 
     @Test
     void testReadPaymentForAdmin() {
         // Arrange
         Long transferId = 1L;
-        Transfer transfer = new Transfer();
-        transfer.setId(transferId);
-        when(transferRepository.findById(transferId)).thenReturn(Optional.of(transfer));
+        when(transferRepository.findPaymentResponseById(transferId)).thenReturn(Optional.of(payment(transferId, 1L, 2L, 100, LocalDateTime.now())));
 
         // Act
         GenericResponse<PaymentResponse> response = transferService.readPaymentForAdmin(transferId);
@@ -577,89 +751,64 @@ class TransferServiceImplementationTest {
         // Assert
         assertTrue(response.getStatus());
         assertNotNull(response.getData());
-        verify(kafkaTemplate, times(1)).send(eq("payment_log"), eq("Transfer read successfully"));
+        assertEquals(transferId, response.getData().id());
+        verify(outbox, times(1)).send(eq("payment_log"), eq("Transfer read successfully"));
     }
 
     @Test
     void testReadPaymentForAdmin_WhenTransferNotFound() {
         // Arrange
         Long transferId = 1L;
-        when(transferRepository.findById(transferId)).thenReturn(Optional.empty());
+        when(transferRepository.findPaymentResponseById(transferId)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(TransferNotFoundException.class, () -> transferService.readPaymentForAdmin(transferId));
-        verify(kafkaTemplate, times(1)).send(eq("error_logs"), contains("TransferNotFoundException"));
+        verify(outbox, times(1)).send(eq("error_logs"), contains("TransferNotFoundException"));
     }
 
     @Test
     void testReadAllPaymentForAdmin() {
         // Arrange
-        List<Transfer> transfers = new ArrayList<>();
-        Transfer transfer1 = new Transfer();
-        Transfer transfer2 = new Transfer();
-        Transfer transfer3 = new Transfer();
-        transfers.add(transfer1);
-        transfers.add(transfer2);
-        transfers.add(transfer3);
-        when(transferRepository.findAll()).thenReturn(transfers);
+        LocalDateTime now = LocalDateTime.now();
+        List<PaymentResponse> transfers = List.of(
+                payment(3L, 1L, 2L, 100, now),
+                payment(2L, 1L, 2L, 100, now.minusMinutes(1)),
+                payment(1L, 1L, 2L, 100, now.minusMinutes(2)));
+        when(transferRepository.findPage(any(LocalDateTime.class), anyLong(), any(Limit.class))).thenReturn(transfers);
 
         // Act
-        GenericResponse<List<PaymentResponse>> response = transferService.readAllPaymentForAdmin();
+        GenericResponse<CursorPage<PaymentResponse>> response = transferService.readAllPaymentForAdmin(null, 50);
 
         // Assert
         assertTrue(response.getStatus());
         assertNotNull(response.getData());
-        assertEquals(3, response.getData().size());
-        verify(kafkaTemplate, times(1)).send(eq("payment_log"), eq("Transfers listed successfully"));
+        assertEquals(3, response.getData().items().size());
+        verify(outbox, times(1)).send(eq("payment_log"), eq("Transfers listed successfully"));
     }
 
     @Test
     void testReadAllPaymentForAdmin_WhenNoTransfersExist() {
         // Arrange
-        List<Transfer> transfers = Collections.emptyList();
-        when(transferRepository.findAll()).thenReturn(transfers);
+        List<PaymentResponse> transfers = Collections.emptyList();
+        when(transferRepository.findPage(any(LocalDateTime.class), anyLong(), any(Limit.class))).thenReturn(transfers);
 
         // Act & Assert
-        TransferNotFoundException exception = assertThrows(TransferNotFoundException.class, () -> transferService.readAllPaymentForAdmin());
+        TransferNotFoundException exception = assertThrows(TransferNotFoundException.class, () -> transferService.readAllPaymentForAdmin(null, 50));
 
         // Verify Kafka template with the correct expected message
-        verify(kafkaTemplate).send(eq("error_logs"), contains("TransferNotFoundException: "));
+        verify(outbox).send(eq("error_logs"), contains("TransferNotFoundException: "));
 
     }
 
     @Test
     void testReadAllPaymentForAdminWithMonthOffset() {
         // Arrange
-        Customer sender = Customer.builder()
-                .id(1L)
-                .build();
-        Customer receiver = Customer.builder()
-                .id(2L)
-                .build();
-        Transfer transfer1 = Transfer.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .amount(BigDecimal.valueOf(100))
-                .timestamp(LocalDateTime.now())
-                .build();
-        Transfer transfer2 = Transfer.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .amount(BigDecimal.valueOf(200))
-                .timestamp(LocalDateTime.now())
-                .build();
-        Transfer transfer3 = Transfer.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .amount(BigDecimal.valueOf(300))
-                .timestamp(LocalDateTime.now())
-                .build();
-        List<Transfer> transfers = new ArrayList<>();
-        transfers.add(transfer1);
-        transfers.add(transfer2);
-        transfers.add(transfer3);
+        List<PaymentResponse> transfers = List.of(
+                payment(1L, 1L, 2L, 100, LocalDateTime.now()),
+                payment(2L, 1L, 2L, 200, LocalDateTime.now()),
+                payment(3L, 1L, 2L, 300, LocalDateTime.now()));
 
-        when(transferRepository.findAll()).thenReturn(transfers);
+        when(transferRepository.findAllByTimestampAfter(any(LocalDateTime.class))).thenReturn(transfers);
         int monthOffset = 1; // Testing for transfers within the last month
 
         // Act
@@ -667,16 +816,16 @@ class TransferServiceImplementationTest {
 
         // Assert
         assertTrue(response.getStatus());
-        assertEquals(3, response.getData().size()); // Only one transfer should match the criteria
-        assertEquals(sender, response.getData().getFirst().sentCustomer()); // Ensure the correct transfer is in the response
+        assertEquals(3, response.getData().size());
+        assertEquals(1L, response.getData().getFirst().senderId()); // Ensure the correct transfer is in the response
 
-        verify(kafkaTemplate).send(eq("payment_log"), eq("Transfers listed successfully"));
+        verify(outbox).send(eq("payment_log"), eq("Transfers listed successfully"));
     }
 
     @Test
     void testReadAllPaymentForAdmin_WhenNoTransfersExistX() {
-        List<Transfer> transfers = Collections.emptyList();
-        when(transferRepository.findAll()).thenReturn(transfers);
+        List<PaymentResponse> transfers = Collections.emptyList();
+        when(transferRepository.findAllByTimestampAfter(any(LocalDateTime.class))).thenReturn(transfers);
 
         // Act & Assert
         TransferNotFoundException exception = assertThrows(TransferNotFoundException.class, () -> transferService.readAllPaymentForAdmin(1));
@@ -684,10 +833,90 @@ class TransferServiceImplementationTest {
         assertNotNull(exception);
 
         // Verify Kafka template with the correct expected message
-        verify(kafkaTemplate).send(eq("error_logs"), contains("TransferNotFoundException: "));
+        verify(outbox).send(eq("error_logs"), contains("TransferNotFoundException: "));
 
     }
 
+    private List<PaymentResponse> adminTransfers() {
+        return List.of(new PaymentResponse(1L, 1L, "Ali", "Yılmaz", 2L, "Veli", null, BigDecimal.valueOf(100), LocalDateTime.now()));
+    }
 
+    @Test
+    void testReadAllPaymentForAdminByCustomerId_QueriesByCustomer() {
+        // Arrange
+        when(transferRepository.findAllByCustomerId(1L)).thenReturn(adminTransfers());
+
+        // Act
+        GenericResponse<List<PaymentResponse>> response = transferService.readAllPaymentForAdminByCustomerId(1L);
+
+        // Assert
+        assertEquals(1, response.getData().size());
+        verify(transferRepository, never()).findAll();
+        verify(outbox).send(eq("payment_log"), eq("Transfers listed successfully"));
+    }
 
-}
\ No newline at end of file
+    @Test
+    void testReadAllPaymentForAdminByCardNumber_QueriesByBlindIndex() {
+        // Arrange
+        when(encryption.blindIndex("4111111111111111")).thenReturn("cardIndex");
+        when(transferRepository.findAllByCustomerCreditCardIndex("cardIndex")).thenReturn(adminTransfers());
+
+        // Act
+        GenericResponse<List<PaymentResponse>> response = transferService.readAllPaymentForAdminByCardNumber("4111111111111111");
+
+        // Assert
+        assertEquals(1, response.getData().size());
+        verify(encryption, never()).decrypt(anyString());
+        verify(transferRepository, never()).findAll();
+    }
+
+    @Test
+    void testReadAllPaymentForAdminByCustomerName_ResolvesCustomersThenPagesTransfers() {
+        // Arrange
+        when(customerService.searchCustomerIdsByName("Ali")).thenReturn(List.of(1L, 7L));
+        when(transferRepository.findCustomersPage(eq(List.of(1L, 7L)), any(LocalDateTime.class), eq(Long.MAX_VALUE), eq(Limit.of(51)))).thenReturn(adminTransfers());
+
+        // Act
+        GenericResponse<CursorPage<PaymentResponse>> response = transferService.readAllPaymentForAdminByCustomerName("Ali", null, 50);
+
+        // Assert
+        assertEquals("Ali Yılmaz", response.getData().items().getFirst().senderName());
+        assertEquals("Veli", response.getData().items().getFirst().receiverName());
+        assertNull(response.getData().nextCursor());
+        verify(transferRepository, never()).findAll();
+    }
+
+    @Test
+    void testReadAllPaymentForAdminByCustomerName_NoMatchingCustomer_ThrowsTransferNotFound() {
+        // Arrange
+        when(customerService.searchCustomerIdsByName("xyz")).thenReturn(List.of());
+
+        // Act & Assert
+        assertThrows(TransferNotFoundException.class, () -> transferService.readAllPaymentForAdminByCustomerName("xyz", null, 50));
+        verify(transferRepository, never()).findCustomersPage(anyCollection(), any(), anyLong(), any());
+    }
+
+    @Test
+    void testReadAllPaymentForAdminWithDateInterval_QueriesByTimestampRange() {
+        // Arrange
+        when(transferRepository.findAllByTimestampBetween(any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(adminTransfers());
+
+        // Act
+        GenericResponse<List<PaymentResponse>> response = transferService.readAllPaymentForAdminWithDateInterval(3, 0);
+
+        // Assert
+        assertEquals(1, response.getData().size());
+        verify(transferRepository).findAllByTimestampBetween(argThat(start -> start.isBefore(LocalDateTime.now().minusMonths(2))), argThat(end -> end.isAfter(LocalDateTime.now().minusDays(1))));
+        verify(transferRepository, never()).findAll();
+    }
+
+    @Test
+    void testReadAllPaymentForAdminByCustomerId_NoMatch_ThrowsTransferNotFound() {
+        // Arrange
+        when(transferRepository.findAllByCustomerId(3L)).thenReturn(Collections.emptyList());
+
+        // Act & Assert
+        assertThrows(TransferNotFoundException.class, () -> transferService.readAllPaymentForAdminByCustomerId(3L));
+        verify(outbox).send(eq("error_logs"), contains("TransferNotFoundException: "));
+    }
+}
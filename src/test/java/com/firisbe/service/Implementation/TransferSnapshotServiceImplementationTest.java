@@ -0,0 +1,180 @@
+package com.firisbe.service.Implementation;
+
+import com.firisbe.error.InvalidAnalyticsRequestException;
+import com.firisbe.model.DTO.response.AmountBandVolumeResponse;
+import com.firisbe.model.DTO.response.CustomerVolumeResponse;
+import com.firisbe.model.DTO.response.PeriodVolumeResponse;
+import com.firisbe.model.DTO.response.TransferExportRow;
+import com.firisbe.model.Enum.AnalyticsPeriod;
+import com.firisbe.repository.jpa.TransferRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TransferSnapshotServiceImplementationTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 10, 12, 0);
+
+    private TransferSnapshotServiceImplementation snapshotService;
+
+    @Mock
+    private TransferRepository transferRepository;
+    @Mock
+    private OutboxServiceImplementation outbox;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        Clock clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        snapshotService = new TransferSnapshotServiceImplementation(transferRepository, transactionManager, outbox, new SimpleMeterRegistry(), true, 10_000, Duration.ofMinutes(1), 2, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshotService.shutdown();
+    }
+
+    private TransferExportRow row(long id, long senderId, long receiverId, String amount, LocalDateTime timestamp) {
+        return new TransferExportRow(id, senderId, receiverId, new BigDecimal(amount), timestamp);
+    }
+
+    private void load(TransferExportRow... rows) {
+        when(transferRepository.streamSnapshotAfter(any(), anyLong(), any())).thenReturn(Stream.of(rows));
+        snapshotService.refresh();
+    }
+
+    @Test
+    void refresh_AppendsOnlyRowsAfterCursorAndBehindLag() {
+        // Arrange
+        TransferExportRow last = row(7L, 1L, 2L, "5.00", LocalDateTime.of(2024, 3, 9, 8, 0));
+        load(row(3L, 1L, 2L, "10.00", LocalDateTime.of(2024, 2, 1, 9, 0)), last);
+        when(transferRepository.streamSnapshotAfter(any(), anyLong(), any())).thenReturn(Stream.of(row(9L, 2L, 1L, "1.00", NOW.minusMinutes(2))));
+
+        // Act
+        snapshotService.refresh();
+
+        // Assert
+        verify(transferRepository, times(1)).streamSnapshotAfter(LocalDateTime.of(1970, 1, 1, 0, 0), 0L, NOW.minusMinutes(1));
+        verify(transferRepository, times(1)).streamSnapshotAfter(last.timestamp(), 7L, NOW.minusMinutes(1));
+        assertEquals(3, snapshotService.size());
+    }
+
+    @Test
+    void refresh_Failure_DiscardsPartialRowsAndKeepsCursor() {
+        // Arrange
+        TransferExportRow first = row(1L, 1L, 2L, "10.00", LocalDateTime.of(2024, 3, 1, 9, 0));
+        when(transferRepository.streamSnapshotAfter(any(), anyLong(), any()))
+                .thenReturn(Stream.of(first, row(2L, 1L, 2L, "0.001", LocalDateTime.of(2024, 3, 1, 10, 0))))
+                .thenReturn(Stream.of(first));
+
+        // Act
+        assertThrows(RuntimeException.class, () -> snapshotService.refresh());
+        snapshotService.refresh();
+
+        // Assert
+        verify(outbox, times(1)).send(eq("error_logs"), startsWith("RuntimeException: Transfer snapshot refresh failed"));
+        verify(transferRepository, times(2)).streamSnapshotAfter(LocalDateTime.of(1970, 1, 1, 0, 0), 0L, NOW.minusMinutes(1));
+        assertEquals(1, snapshotService.size());
+    }
+
+    @Test
+    void volumeByPeriodForAdmin_SplitsRangeIntoPeriodsIncludingEmptyOnes() {
+        // Arrange
+        load(
+                row(1L, 1L, 2L, "10.00", LocalDateTime.of(2024, 1, 20, 9, 0)),
+                row(2L, 1L, 2L, "20.00", LocalDateTime.of(2024, 1, 31, 23, 59)),
+                row(3L, 2L, 1L, "5.50", LocalDateTime.of(2024, 3, 1, 0, 0)),
+                row(4L, 2L, 1L, "1.00", LocalDateTime.of(2024, 3, 5, 0, 0)));
+
+        // Act
+        List<PeriodVolumeResponse> response = snapshotService.volumeByPeriodForAdmin(
+                AnalyticsPeriod.MONTH, LocalDateTime.of(2024, 1, 25, 0, 0), LocalDateTime.of(2024, 3, 5, 0, 0)).getData();
+
+        // Assert
+        assertEquals(List.of(
+                new PeriodVolumeResponse(LocalDateTime.of(2024, 1, 1, 0, 0), 1, new BigDecimal("20.00")),
+                new PeriodVolumeResponse(LocalDateTime.of(2024, 2, 1, 0, 0), 0, new BigDecimal("0.00")),
+                new PeriodVolumeResponse(LocalDateTime.of(2024, 3, 1, 0, 0), 1, new BigDecimal("5.50"))
+        ), response);
+    }
+
+    @Test
+    void volumeByCustomerForAdmin_RanksCustomersBySentAndReceivedAmount() {
+        // Arrange
+        load(
+                row(1L, 1L, 2L, "10.00", LocalDateTime.of(2024, 3, 1, 9, 0)),
+                row(2L, 3L, 1L, "2.00", LocalDateTime.of(2024, 3, 1, 10, 0)),
+                row(3L, 3L, 2L, "1.00", LocalDateTime.of(2024, 3, 1, 11, 0)));
+
+        // Act
+        List<CustomerVolumeResponse> response = snapshotService.volumeByCustomerForAdmin(null, null, 2).getData();
+
+        // Assert
+        assertEquals(List.of(
+                new CustomerVolumeResponse(1L, 1, new BigDecimal("10.00"), 1, new BigDecimal("2.00")),
+                new CustomerVolumeResponse(2L, 0, new BigDecimal("0.00"), 2, new BigDecimal("11.00"))
+        ), response);
+    }
+
+    @Test
+    void volumeByAmountBandForAdmin_CountsEachBandUpToNextBound() {
+        // Arrange
+        load(
+                row(1L, 1L, 2L, "0.50", LocalDateTime.of(2024, 3, 1, 9, 0)),
+                row(2L, 1L, 2L, "100.00", LocalDateTime.of(2024, 3, 1, 10, 0)),
+                row(3L, 1L, 2L, "99.99", LocalDateTime.of(2024, 3, 1, 11, 0)),
+                row(4L, 1L, 2L, "2500", LocalDateTime.of(2024, 3, 1, 12, 0)));
+
+        // Act
+        List<AmountBandVolumeResponse> response = snapshotService.volumeByAmountBandForAdmin(null, null, List.of(new BigDecimal("1"), new BigDecimal("100"))).getData();
+
+        // Assert
+        assertEquals(List.of(
+                new AmountBandVolumeResponse(new BigDecimal("1.00"), new BigDecimal("100.00"), 1, new BigDecimal("99.99")),
+                new AmountBandVolumeResponse(new BigDecimal("100.00"), null, 2, new BigDecimal("2600.00"))
+        ), response);
+    }
+
+    @Test
+    void disabled_LoadsNothingAndRejectsQueries() {
+        // Arrange
+        TransferSnapshotServiceImplementation disabled = new TransferSnapshotServiceImplementation(transferRepository, transactionManager, outbox,
+                new SimpleMeterRegistry(), false, 10_000, Duration.ofMinutes(1), 2, Clock.systemUTC());
+
+        // Act
+        disabled.start();
+        disabled.refresh();
+
+        // Assert
+        verifyNoInteractions(transferRepository);
+        assertThrows(InvalidAnalyticsRequestException.class, () -> disabled.volumeByCustomerForAdmin(null, null, 10));
+        disabled.shutdown();
+    }
+
+    @Test
+    void volumeForAdmin_InvalidRequest_Throws() {
+        // Act & Assert
+        assertThrows(InvalidAnalyticsRequestException.class, () -> snapshotService.volumeByPeriodForAdmin(AnalyticsPeriod.DAY, NOW, NOW));
+        assertThrows(InvalidAnalyticsRequestException.class, () -> snapshotService.volumeByPeriodForAdmin(AnalyticsPeriod.HOUR, NOW.minusYears(2), NOW));
+        assertThrows(InvalidAnalyticsRequestException.class, () -> snapshotService.volumeByCustomerForAdmin(null, null, 0));
+        assertThrows(InvalidAnalyticsRequestException.class, () -> snapshotService.volumeByAmountBandForAdmin(null, null, List.of(BigDecimal.TEN, BigDecimal.ONE)));
+        assertThrows(InvalidAnalyticsRequestException.class, () -> snapshotService.volumeByAmountBandForAdmin(null, null, List.of(new BigDecimal("0.001"))));
+    }
+}